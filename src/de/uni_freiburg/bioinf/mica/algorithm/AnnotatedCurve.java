@@ -27,9 +27,14 @@ public class AnnotatedCurve extends Curve
 	protected List<ObservableCurveAnnotationFilter> annotationFilter = new LinkedList<ObservableCurveAnnotationFilter>();
 	
 	/**
-	 * list of annotation objects that have passed the filtering
+	 * immutable list of annotation objects that have passed the filtering
 	 */
 	private List<CurveAnnotation> filteredAnnotations = null;
+	
+	/**
+	 * array of the annotation objects that have passed the filtering (same order)
+	 */
+	private CurveAnnotation[] filteredAnnotationArray = null;
 
 	
 	/**
@@ -77,8 +82,9 @@ public class AnnotatedCurve extends Curve
 	/**
 	 * resets the filteredAnnotations e.g. after a filter was added/removed
 	 */
-	public void resetFilteredAnnotations() {
+	public synchronized void resetFilteredAnnotations() {
 		filteredAnnotations = null;
+		filteredAnnotationArray = null;
 	}
 	
 	/**
@@ -452,22 +458,44 @@ public class AnnotatedCurve extends Curve
 	
 	/**
 	 * Provides an immutable view of the list of filtered annotations for 
-	 * this curve
+	 * this curve.
+	 * 
+	 * Note, the method is synchronized to allow for concurrent read access to
+	 * the curve, e.g. during parallel pairwise alignment computations.
+	 * 
 	 * @return the immutable list of annotations after filtering
 	 */
-	public List<CurveAnnotation> getFilteredAnnotations() {
+	public synchronized List<CurveAnnotation> getFilteredAnnotations() {
 		
+		// reset the list if the coordinates have changed
+		validateDerivedData();
 		// check if the list has to be computed
 		if (filteredAnnotations == null) {
 			// create new list
-			filteredAnnotations = new LinkedList<CurveAnnotation>();
+			final List<CurveAnnotation> annotations = new LinkedList<CurveAnnotation>();
 			// add all non-zero annotations to list
-			IntStream.range(0, annotation.length).filter(i -> annotation[i] != CurveAnnotation.Type.IS_POINT).forEach(i -> filteredAnnotations.add(new CurveAnnotation(this, i)));
+			IntStream.range(0, annotation.length).filter(i -> annotation[i] != CurveAnnotation.Type.IS_POINT).forEach(i -> annotations.add(new CurveAnnotation(this, i)));
 			// apply all filters
-			this.annotationFilter.stream().forEachOrdered( filter -> filter.filter( filteredAnnotations ));
+			this.annotationFilter.stream().forEachOrdered( filter -> filter.filter( annotations ));
+			// keep immutable view to avoid its creation on each access
+			filteredAnnotations = Collections.unmodifiableList(annotations);
+			filteredAnnotationArray = annotations.toArray( new CurveAnnotation[annotations.size()] );
 		}
 		
-		return Collections.unmodifiableList(filteredAnnotations);
+		return filteredAnnotations;
+	}
+	
+	/**
+	 * Provides the filtered annotations of {@link #getFilteredAnnotations()} 
+	 * as an array for an iteration without allocations. 
+	 * The array is ordered by annotation index and must not be altered.
+	 * 
+	 * @return the array of annotations after filtering
+	 */
+	synchronized CurveAnnotation[] getFilteredAnnotationArray() {
+		// ensure the annotations are up to date
+		getFilteredAnnotations();
+		return filteredAnnotationArray;
 	}
 
 	// Observer implementation for ObservableCurveAnnotationFilter
@@ -535,9 +563,9 @@ public class AnnotatedCurve extends Curve
 	}
 	
 	@Override
-	public void updateInterpolation() {
-		// run the interpolation update
-		super.updateInterpolation();
+	protected void resetDerivedData() {
+		// reset the interpolation data
+		super.resetDerivedData();
 		// trigger an update of the annotations, since slope values have changed
 		this.resetFilteredAnnotations();
 	}
@@ -546,7 +574,7 @@ public class AnnotatedCurve extends Curve
 	 * ensures that the slope value of annotated maxima and minima is zero
 	 */
 	@Override
-	protected void initSlope() {
+	protected synchronized void initSlope() {
 		// run normal slope calculation
 		super.initSlope();
 		// update slope min/max
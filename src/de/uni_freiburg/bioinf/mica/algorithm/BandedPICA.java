@@ -0,0 +1,463 @@
+package de.uni_freiburg.bioinf.mica.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+
+import de.uni_freiburg.bioinf.mica.algorithm.CurveAnnotation.Type;
+
+
+/**
+ * Banded dynamic programming variant of {@link PICA}.
+ *
+ * Instead of greedily fixing the locally best decomposition of each interval,
+ * a monotone matching of the annotations of both curves is computed via dynamic 
+ * programming for each interval of the initial decomposition. Within this model, 
+ * each matched annotation pair is pinned at the weighted mean of its x-coordinates 
+ * within the initial alignment and the curves are warped linearly in between. 
+ * Thus, the distance of the alignment is the sum of the sample distances of all 
+ * segments between consecutive matched pairs, where each segment depends only 
+ * on its two end pairs, and the distortion and shift constraints are checked for 
+ * each segment and pair separately.
+ * 
+ * Note, the matching is only the best one within this placement model. 
+ * {@link PICA} places each matched pair relative to the interval that is split, 
+ * i.e. its placement depends on the order of the hierarchical decomposition and 
+ * is not covered by the model. Thus, the greedy decomposition can yield a smaller 
+ * distance than the matching computed here (e.g. for {@link CurveMeanAbsoluteDistance}), 
+ * while the latter is often smaller for slope based distances.
+ *
+ * The dynamic programming is restricted to a band, i.e. only annotation pairs
+ * that are shifted at most {@link PICA#maxRelXShift} relative to the original
+ * curves are considered as cells, and only segments whose length is distorted
+ * by at most {@link PICA#maxDistortionRatio} are considered as transitions.
+ * The band is further restricted to segments that skip only few annotations
+ * ({@link #DEFAULT_MAX_SKIP} by default, see {@link #setMaxSkip(int)}), which keeps 
+ * the number of scored segments linear in the number of cells. The minimal distance of each cell is computed 
+ * once and reused by all segments starting at it. The segments ending at a cell 
+ * are scored from the nearest predecessor on and the scoring of a segment is 
+ * abandoned as soon as it cannot improve the cell.
+ * 
+ * Note, samples that coincide with a coordinate of a curve might be evaluated on
+ * the neighboring interpolation piece within the final alignment due to rounding.
+ * Thus, the final distance can slightly deviate from the minimum of the dynamic
+ * programming for distances that are discontinuous at coordinates, e.g. slope based.
+ * 
+ * Distance corrections (see {@link PICA#PICA(SampledCurveDistance, double, double, double, double)})
+ * are only applied to the final distance. 
+ * 
+ * Note, seeds of warm-started alignments (see {@link #align(IntervalDecomposition, double, IntervalDecomposition, double, List)})
+ * are ignored. The parallelization settings of {@link PICA} (see 
+ * {@link #setCandidateExecutor(java.util.concurrent.ExecutorService, int)} and 
+ * {@link #setIntervalPool(java.util.concurrent.ForkJoinPool, int)}) and the coarse-to-fine 
+ * scoring (see {@link #setCoarseScoring(int, int)}) are ignored as well, i.e. each 
+ * alignment is computed serially within the calling thread.
+ *
+ * @author Mmann
+ *
+ */
+public class BandedPICA extends PICA {
+
+	/**
+	 * A cell of the dynamic programming, i.e. a pair of matched annotations
+	 */
+	private static class Cell {
+		/** the annotation of the first curve */
+		final CurveAnnotation a1;
+		/** the annotation of the second curve */
+		final CurveAnnotation a2;
+		/** the rank of the annotations within the interval (-1 for the interval start and the number of annotations for its end) */
+		final int rank1, rank2;
+		/** the x-coordinates of the annotations within the initial alignment */
+		final double x1, x2;
+		/** the x-coordinate of the matched pair within the alignment */
+		final double x;
+		/** the position of the cell within the order of all cells of the interval */
+		int order;
+		/** the index of the first sample at or right of x */
+		int firstSample;
+		/** the minimal sum of sample distances from the interval start up to this cell */
+		double distance = Double.POSITIVE_INFINITY;
+		/** the preceding cell of the best matching up to this cell */
+		Cell predecessor = null;
+
+		Cell( CurveAnnotation a1, int rank1, double x1, CurveAnnotation a2, int rank2, double x2, double x, int firstSample ) {
+			this.a1 = a1;
+			this.rank1 = rank1;
+			this.x1 = x1;
+			this.a2 = a2;
+			this.rank2 = rank2;
+			this.x2 = x2;
+			this.x = x;
+			this.firstSample = firstSample;
+		}
+	}
+
+	/**
+	 * The default maximal number of annotations of each curve that are skipped 
+	 * between two consecutive matched annotation pairs. 
+	 * 
+	 * Note, this is considerably faster than the unrestricted band but still slower 
+	 * than the greedy decomposition of {@link PICA} (see BandedPicaBenchmark).
+	 */
+	public static final int DEFAULT_MAX_SKIP = 8;
+
+	/**
+	 * The maximal number of annotations of each curve that are skipped, i.e. not
+	 * matched, between two consecutive matched annotation pairs
+	 */
+	int maxSkip = DEFAULT_MAX_SKIP;
+	
+	/**
+	 * Per-thread buffers for the sample positions of a segment within both curves,
+	 * see {@link #getSegmentDistance(Curve, Curve, Cell, Cell, double, double, double, int, double[][], double)}
+	 */
+	private final ThreadLocal<double[][]> segmentSamples = ThreadLocal.withInitial( () -> new double[2][0] );
+
+	/**
+	 * Constructs an aligner that uses the given distance function and
+	 * ensures that the length of no segment between matched annotations is
+	 * more distorted than the allowed ratio.
+	 *
+	 * @param distanceFunction the distance function to be used (!=null)
+	 * @param maxDistortionRatio the maximal distortion ratio allowed (>=1),
+	 * 			where 1 disallows any distortion and
+	 * 			2 allows for a maximal distortion to double or halve of the orginal length
+	 * @param maxRelXShift the maximal relative shift of x-coordinates allowed [0,1],
+	 * 			where 0 disallows any distortion and 1 allows for maximal distortion
+	 * @param minRelIntervalLength the minimal relative length of an interval to be considered for decomposition
+	 * @throws NullArgumentException
+	 * @throws OutOfRangeException if maxDistortionRatio < 1
+	 * @throws OutOfRangeException if minRelIntervalLength < 0 || minRelIntervalLength > 1
+	 */
+	public BandedPICA( SampledCurveDistance distanceFunction, double maxDistortionRatio, double maxRelXShift, double minRelIntervalLength ) throws NullArgumentException, OutOfRangeException
+	{
+		super( distanceFunction, maxDistortionRatio, maxRelXShift, minRelIntervalLength );
+	}
+
+	/**
+	 * Constructs an aligner that uses the given distance function and
+	 * ensures that the length of no segment between matched annotations is
+	 * more distorted than the allowed ratio.
+	 *
+	 * @param distanceFunction the distance function to be used (!=null)
+	 * @param maxDistortionRatio the maximal distortion ratio allowed (>=1),
+	 * 			where 1 disallows any distortion and
+	 * 			2 allows for a maximal distortion to double or halve of the original length
+	 * @param maxRelXShift the maximal relative shift of x-coordinates allowed [0,1],
+	 * 			where 0 disallows any distortion and 1 allows for maximal distortion
+	 * @param minRelIntervalLength the minimal relative length of an interval to be considered for decomposition
+	 * @param distWarpScaling the scaling factor to be used for a linear distance correction using the warping factor
+	 * @throws NullArgumentException
+	 * @throws OutOfRangeException if maxDistortionRatio < 1
+	 * @throws OutOfRangeException if minRelIntervalLength < 0 || minRelIntervalLength > 1
+	 */
+	public BandedPICA( SampledCurveDistance distanceFunction, double maxDistortionRatio, double maxRelXShift, double minRelIntervalLength, double distWarpScaling ) throws NullArgumentException, OutOfRangeException
+	{
+		super( distanceFunction, maxDistortionRatio, maxRelXShift, minRelIntervalLength, distWarpScaling );
+	}
+
+	/**
+	 * Restricts the band of the dynamic programming to segments that skip at most 
+	 * the given number of annotations of each curve, i.e. to matched annotation 
+	 * pairs whose ranks within the interval differ by at most skip+1 from the 
+	 * preceding matched pair. This reduces the number of scored segments from 
+	 * quadratic to linear in the number of cells, but the resulting matching is 
+	 * only the best among the matchings within this band. If no matching within 
+	 * the band exists, the interval is not decomposed.
+	 * 
+	 * @param skip the maximal number of skipped annotations (>=0, default {@link #DEFAULT_MAX_SKIP}) 
+	 * 			or {@link Integer#MAX_VALUE} for no restriction, which makes the dynamic programming
+	 * 			quadratic in the number of cells
+	 * @throws OutOfRangeException if skip < 0
+	 */
+	public void setMaxSkip( int skip ) throws OutOfRangeException {
+		if (skip < 0) throw new OutOfRangeException(skip, 0, Integer.MAX_VALUE);
+		this.maxSkip = skip;
+	}
+	
+	/**
+	 * Access to the maximal number of annotations of each curve skipped between 
+	 * two consecutive matched annotation pairs, see {@link #setMaxSkip(int)}.
+	 * @return the maximal number of skipped annotations
+	 */
+	public int getMaxSkip() {
+		return maxSkip;
+	}
+
+	/**
+	 * Computes the pairwise alignment with the best matching of the annotations
+	 * within each interval of the initial decomposition that is at least
+	 * {@link PICA#minRelIntervalLength} long (see {@link BandedPICA} for the model).
+	 *
+	 * Since the matching is computed from scratch, the seed is ignored.
+	 *
+	 * @param curve1 the first curve to align - changed during alignment
+	 * @param weight1 the weight of the first curve within the alignment
+	 * @param curve2 the second curve to align - changed during alignment
+	 * @param weight2 the weight of the second curve within the alignment
+	 * @param seed ignored
+	 * @return the pairwise alignment data
+	 * @throws NullArgumentException if a curve or a seed pair or annotation is null
+	 * @throws IllegalArgumentException if the curves are not compatible, i.e. show initially an incompatible decomposition
+	 */
+	@Override
+	public PicaData align( final IntervalDecomposition curve1, final double weight1,
+							final IntervalDecomposition curve2, final double weight2,
+							final List<Pair<CurveAnnotation,CurveAnnotation>> seed )
+		throws NullArgumentException, IllegalArgumentException
+	{
+		// stop if thread is interrupted
+		if (Thread.currentThread().isInterrupted()) return null;
+
+		if (curve1==null || curve2==null) throw new NullArgumentException();
+		if (seed!=null && seed.stream().anyMatch( p -> p==null || p.getLeft()==null || p.getRight()==null )) throw new NullArgumentException();
+		if (!curve1.isCompatible(curve2)) throw new IllegalArgumentException("given curves are incompatible");
+		if (weight1 < 0.0) throw new IllegalArgumentException("weight 1 is negative");
+		if (weight2 < 0.0) throw new IllegalArgumentException("weight 2 is negative");
+
+		// final result (will be updated in the following)
+		PicaData result = getInitialAlignment( curve1, weight1, curve2, weight2 );
+
+		// compute minimal interval length to be considered for decomposition
+		final double minIntervalLength = result.dec1.getCurve().length()*minRelIntervalLength;
+
+		// compute the best matching of each interval within the initial alignment
+		final int initialSize = result.dec1.size();
+		List<List<Cell>> matchings = new ArrayList<>(initialSize);
+		for (int i=0; i<initialSize; i++) {
+			if (result.dec1.getIntervalLength(i) < minIntervalLength) {
+				matchings.add( new ArrayList<>() );
+				continue;
+			}
+			List<Cell> matching = getBandedMatching( result, weight1, weight2, i );
+			// stop if computation is to be interrupted
+			if (matching == null)
+				return null;
+			matchings.add( matching );
+		}
+
+		// decompose the intervals from right to left to keep the indices of the remaining intervals
+		for (int i=initialSize-1; i>=0; i--) {
+			int interval = i;
+			for ( Cell cell : matchings.get(i) ) {
+				// relative position of the matched pair within the remaining interval
+				double startX = result.dec1.getCurve().getX()[result.dec1.getIntervalStart(interval).getIndex()];
+				double newRelPosSplit = (cell.x - startX) / result.dec1.getIntervalLength(interval);
+				result.dec1.decompose( interval, cell.a1, newRelPosSplit );
+				result.dec2.decompose( interval, cell.a2, newRelPosSplit );
+				// continue with the right sub-interval
+				interval++;
+			}
+		}
+
+		// compute distance of the final alignment
+		final double[] distanceTerms = distanceFunction.getDistanceTerms(result.dec1.getCurve(), result.dec2.getCurve());
+		result.distance = distanceCorrectionFunction.getWarpCorrectedDistance(1, distanceFunction.getDistance(distanceTerms));
+
+		// stop if thread is interrupted
+		if (Thread.currentThread().isInterrupted()) return null;
+
+		return result;
+	}
+
+	/**
+	 * Computes the best monotone matching of the annotations within an interval
+	 * of the initial alignment via banded dynamic programming, where each matched
+	 * pair is pinned at the weighted mean of its initial x-coordinates.
+	 *
+	 * @param alignment the initial alignment
+	 * @param weight1 the weight of the first curve
+	 * @param weight2 the weight of the second curve
+	 * @param interval the index of the interval
+	 * @return the matched annotation pairs from left to right (excluding the interval
+	 * 			boundaries) or null if the computation was interrupted
+	 */
+	private List<Cell> getBandedMatching( final PicaData alignment, final double weight1, final double weight2, final int interval ) {
+
+		// direct access for simpler notation
+		final Curve curve1 = alignment.dec1.getCurve();
+		final Curve curve2 = alignment.dec2.getCurve();
+		final AnnotatedCurve original1 = alignment.dec1.getCurveOriginal();
+		final AnnotatedCurve original2 = alignment.dec2.getCurveOriginal();
+		final int lastSample = distanceFunction.getSampleNumber()-1;
+		final double stepSize = curve1.length() / lastSample;
+		// sample positions of the segments (reused for all segments)
+		double[][] sampleX = segmentSamples.get();
+		if (sampleX[0].length <= lastSample) {
+			sampleX = new double[2][lastSample+1];
+			segmentSamples.set( sampleX );
+		}
+
+		// interval boundaries
+		final CurveAnnotation start1 = alignment.dec1.getIntervalStart( interval );
+		final CurveAnnotation start2 = alignment.dec2.getIntervalStart( interval );
+		final CurveAnnotation end1 = alignment.dec1.getIntervalEnd( interval );
+		final CurveAnnotation end2 = alignment.dec2.getIntervalEnd( interval );
+		final Cell start = createCell( curve1, start1, -1, curve2, start2, -1, weight1, weight2, stepSize );
+		start.distance = 0d;
+
+		// collect cells within the band (ordered by the ranks of the annotations)
+		final List<CurveAnnotation> annotations1 = alignment.dec1.getIntervalAnnotations( interval );
+		final List<CurveAnnotation> annotations2 = alignment.dec2.getIntervalAnnotations( interval );
+		final Cell end = createCell( curve1, end1, annotations1.size(), curve2, end2, annotations2.size(), weight1, weight2, stepSize );
+		final List<Cell> cells = new ArrayList<>();
+		cells.add( start );
+		for (int r1=0; r1<annotations1.size(); r1++) {
+			final CurveAnnotation a1 = annotations1.get(r1);
+			final double a1relXoriginal = (original1.getX()[a1.getIndex()]-original1.getXmin())/(original1.getXmax()-original1.getXmin());
+			for (int r2=0; r2<annotations2.size(); r2++) {
+				final CurveAnnotation a2 = annotations2.get(r2);
+				if (!Type.isAlignable( a1.getType(), a2.getType() )) {
+					continue;
+				}
+				final Cell cell = createCell( curve1, a1, r1, curve2, a2, r2, weight1, weight2, stepSize );
+				// check if the shift is larger than allowed
+				final double a2relXoriginal = (original2.getX()[a2.getIndex()]-original2.getXmin())/(original2.getXmax()-original2.getXmin());
+				if ( this.maxRelXShift < FastMath.abs( (cell.x-curve1.getXmin())/curve1.length() - a1relXoriginal )
+						|| this.maxRelXShift < FastMath.abs( (cell.x-curve1.getXmin())/curve1.length() - a2relXoriginal ) )
+				{
+					continue;
+				}
+				cells.add( cell );
+			}
+		}
+		cells.add( end );
+		for (int c=0; c<cells.size(); c++) {
+			cells.get(c).order = c;
+		}
+		// the last sample belongs to the end of the curves
+		if (end1.getIndex() == curve1.size()-1) {
+			end.firstSample = lastSample+1;
+		}
+
+		// fill cells in order, each from all preceding cells
+		final List<Cell> predecessors = new ArrayList<>();
+		for (int v=1; v<cells.size(); v++) {
+
+			// stop if thread is interrupted
+			if (Thread.currentThread().isInterrupted()) return null;
+
+			// collect the predecessors within the band
+			final Cell cell = cells.get(v);
+			predecessors.clear();
+			for (int u=v-1; u>=0; u--) {
+				final Cell pred = cells.get(u);
+				// stop if all remaining cells skip too many annotations (ordered by rank1)
+				if (cell.rank1-pred.rank1-1 > maxSkip) {
+					break;
+				}
+				// check monotonicity, skipped annotations and if the predecessor was reachable
+				if (pred.rank1 >= cell.rank1 || pred.rank2 >= cell.rank2 || cell.rank2-pred.rank2-1 > maxSkip 
+						|| pred.distance == Double.POSITIVE_INFINITY) 
+				{
+					continue;
+				}
+				// check if the distortion of the segment is larger than allowed
+				final double ratio1 = (cell.x-pred.x) / (cell.x1-pred.x1);
+				final double ratio2 = (cell.x-pred.x) / (cell.x2-pred.x2);
+				if ( this.maxDistortionRatio < FastMath.max( ratio1, 1/ratio1 )
+						|| this.maxDistortionRatio < FastMath.max( ratio2, 1/ratio2 ) )
+				{
+					continue;
+				}
+				predecessors.add( pred );
+			}
+			
+			// score the segments from the nearest predecessors on, whose short segments
+			// are cheap to score and bound the scoring of the longer ones
+			for ( Cell pred : predecessors ) {
+				// skip if the predecessor cannot improve the cell
+				if (pred.distance > cell.distance) {
+					continue;
+				}
+				final double ratio1 = (cell.x-pred.x) / (cell.x1-pred.x1);
+				final double ratio2 = (cell.x-pred.x) / (cell.x2-pred.x2);
+				final double distance = pred.distance + getSegmentDistance( curve1, curve2, pred, cell, ratio1, ratio2, stepSize, lastSample, sampleX, cell.distance - pred.distance );
+				// keep the first predecessor (in cell order) with minimal distance
+				if (distance < cell.distance || (distance == cell.distance && pred.order < cell.predecessor.order)) {
+					cell.distance = distance;
+					cell.predecessor = pred;
+				}
+			}
+		}
+
+		// trace back the best matching (none if the end is not reachable within the band)
+		final List<Cell> matching = new ArrayList<>();
+		if (end.predecessor == null) {
+			return matching;
+		}
+		for (Cell cell = end.predecessor; cell != start; cell = cell.predecessor) {
+			matching.add( 0, cell );
+		}
+		return matching;
+	}
+
+	/**
+	 * Creates a cell for the given annotation pair of the initial alignment
+	 *
+	 * @param curve1 the first curve of the initial alignment
+	 * @param a1 the annotation of the first curve
+	 * @param rank1 the rank of a1 within the interval
+	 * @param curve2 the second curve of the initial alignment
+	 * @param a2 the annotation of the second curve
+	 * @param rank2 the rank of a2 within the interval
+	 * @param weight1 the weight of the first curve
+	 * @param weight2 the weight of the second curve
+	 * @param stepSize the distance of the samples of the distance function
+	 * @return the new cell
+	 */
+	private Cell createCell( final Curve curve1, final CurveAnnotation a1, final int rank1,
+								final Curve curve2, final CurveAnnotation a2, final int rank2,
+								final double weight1, final double weight2, final double stepSize )
+	{
+		final double x1 = curve1.getX()[a1.getIndex()];
+		final double x2 = curve2.getX()[a2.getIndex()];
+		// matched pair is aligned at the weighted mean position
+		final double x = curve1.getXmin() + getMeanLength( x1-curve1.getXmin(), weight1, x2-curve2.getXmin(), weight2 );
+		final int firstSample = (int)FastMath.max( 0d, FastMath.ceil( (x-curve1.getXmin()) / stepSize ) );
+		return new Cell( a1, rank1, x1, a2, rank2, x2, x, firstSample );
+	}
+
+	/**
+	 * Computes the sum of the sample distances of the segment between two cells,
+	 * where both curves are warped linearly between the cells. The sample positions 
+	 * within both curves are ascending, such that the values of each curve are 
+	 * interpolated in a single pass that reuses the enclosing coordinate interval 
+	 * of the preceding sample (see {@link SampledCurveDistance#getDistanceSum(Curve, Curve, double[], double[], int, int, double, double, double)}). 
+	 * The computation is abandoned as soon as the sum exceeds the given bound.
+	 *
+	 * @param curve1 the first curve of the initial alignment
+	 * @param curve2 the second curve of the initial alignment
+	 * @param from the cell at the start of the segment
+	 * @param to the cell at the end of the segment
+	 * @param ratio1 the ratio of the new and old segment length of the first curve
+	 * @param ratio2 the ratio of the new and old segment length of the second curve
+	 * @param stepSize the distance of the samples of the distance function
+	 * @param lastSample the index of the last sample of the distance function
+	 * @param sampleX the buffers for the sample positions within the first [0] and second [1] curve
+	 * @param maxDistanceSum the maximal sum of sample distances of interest
+	 * @return the sum of the sample distances within the segment or {@link Double#POSITIVE_INFINITY}
+	 * 			if it exceeds maxDistanceSum
+	 */
+	private double getSegmentDistance( final Curve curve1, final Curve curve2, final Cell from, final Cell to,
+										final double ratio1, final double ratio2, final double stepSize, final int lastSample,
+										final double[][] sampleX, final double maxDistanceSum )
+	{
+		final int samples = to.firstSample - from.firstSample;
+		for (int i=0; i<samples; i++) {
+			final int s = from.firstSample + i;
+			// sample position within the alignment (last sample = end of the curves)
+			final double x = (s == lastSample) ? to.x : curve1.getXmin() + s*stepSize;
+			// positions within the initial alignment
+			sampleX[0][i] = FastMath.min( to.x1, FastMath.max( from.x1, from.x1 + (x-from.x)/ratio1 ) );
+			sampleX[1][i] = FastMath.min( to.x2, FastMath.max( from.x2, from.x2 + (x-from.x)/ratio2 ) );
+		}
+		return distanceFunction.getDistanceSum( curve1, curve2, sampleX[0], sampleX[1], 0, samples, ratio1, ratio2, maxDistanceSum );
+	}
+
+}
@@ -0,0 +1,83 @@
+package de.uni_freiburg.bioinf.mica.algorithm;
+
+import java.util.Collections;
+
+import org.apache.commons.math3.exception.NullArgumentException;
+
+
+/**
+ * Base class for guide tree generators that build a binary guide tree
+ * via agglomerative clustering of the initial pairwise distance matrix.
+ *
+ * The distance matrix is expected to be a square matrix where for each
+ * pair of different curves i,j at least one of the entries [i][j] or [j][i]
+ * holds the pairwise alignment data. The diagonal is ignored.
+ *
+ * @author Mmann
+ *
+ */
+public abstract class ClusteringGuideTreeGenerator implements GuideTreeGenerator {
+
+	/**
+	 * Extracts the symmetric distance matrix from the pairwise alignment data.
+	 *
+	 * @param distMatrix the pairwise alignment data
+	 * @return the according symmetric distance matrix with a zero diagonal
+	 * @throws NullArgumentException
+	 * @throws IllegalArgumentException if the matrix is empty, not square or misses a pair
+	 */
+	protected static double[][] getDistances( PICA.PicaData[][] distMatrix ) throws NullArgumentException, IllegalArgumentException
+	{
+		if (distMatrix == null) throw new NullArgumentException();
+		if (distMatrix.length == 0) throw new IllegalArgumentException("distance matrix is empty");
+		for (int i=0; i<distMatrix.length; i++) {
+			if (distMatrix[i] == null) throw new NullArgumentException();
+			if (distMatrix[i].length != distMatrix.length) throw new IllegalArgumentException("distance matrix is not square");
+		}
+
+		double[][] dist = new double[distMatrix.length][distMatrix.length];
+		for (int i=0; i<dist.length; i++) {
+			for (int j=i+1; j<dist.length; j++) {
+				// get data from upper or lower triangle
+				PICA.PicaData data = distMatrix[i][j] != null ? distMatrix[i][j] : distMatrix[j][i];
+				if (data == null) throw new IllegalArgumentException("no pairwise alignment data for pair ("+i+","+j+")");
+				if (Double.isNaN(data.distance)) throw new IllegalArgumentException("distance for pair ("+i+","+j+") is NaN");
+				dist[i][j] = data.distance;
+				dist[j][i] = data.distance;
+			}
+		}
+		return dist;
+	}
+
+	/**
+	 * Creates a leaf node for the given curve id
+	 * @param id the curve id
+	 * @return the leaf node
+	 */
+	protected static GuideTreeNode createLeaf( int id ) {
+		GuideTreeNode leaf = new GuideTreeNode();
+		leaf.clusterIds.add( id );
+		return leaf;
+	}
+
+	/**
+	 * Creates a new inner node with the two given nodes as children
+	 * @param left the first child
+	 * @param right the second child
+	 * @return the new parent node
+	 */
+	protected static GuideTreeNode join( GuideTreeNode left, GuideTreeNode right ) {
+		GuideTreeNode parent = new GuideTreeNode();
+		// link children
+		parent.children.add( left );
+		parent.children.add( right );
+		left.parent = parent;
+		right.parent = parent;
+		// cluster = union of children's cluster
+		parent.clusterIds.addAll( left.clusterIds );
+		parent.clusterIds.addAll( right.clusterIds );
+		Collections.sort( parent.clusterIds );
+		return parent;
+	}
+
+}
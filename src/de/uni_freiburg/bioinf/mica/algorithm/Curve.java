@@ -12,21 +12,32 @@ import java.util.stream.IntStream;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.math3.analysis.UnivariateFunction;
-import org.apache.commons.math3.analysis.interpolation.LinearInterpolator;
-import org.apache.commons.math3.analysis.polynomials.PolynomialSplineFunction;
+import org.apache.commons.math3.exception.NonMonotonicSequenceException;
 import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.exception.OutOfRangeException;
 import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
 
 /**
  * Implements the data object to represent a curve based on a set of 2D
  * coordinates. 
  * 
- * Coordinates in-between the stored coordinates are interpolated based
- * on a cubic spline.
+ * Coordinates in-between the stored coordinates are interpolated linearly
+ * directly on the coordinate arrays.
  * 
  * The first derivative of the curve is also generated based on the first
- * derivative of the interpolation.
+ * derivative of the interpolation, i.e. the slope of the enclosing coordinate
+ * interval.
+ * 
+ * All data derived from the coordinates (slopes, y-range, sampled values) is 
+ * computed on request and invalidated via a modification counter, i.e. it is 
+ * recomputed on the first request after a coordinate change only. Coordinates 
+ * should thus be changed via the mutation methods, e.g. {@link #setX(int, double)}
+ * or {@link #shiftX(int, int, double)}; direct changes of the arrays provided by
+ * {@link #getX()} or {@link #getY()} have to be followed by {@link #updateInterpolation()}.
+ * The mutation methods check the order of the x values at the boundaries of the 
+ * changed coordinate range only, such that changes that are not order preserving 
+ * in between have to be done via {@link #setCoordinates(double[], double[])}.
  * 
  * @author Martin Mann
  * 
@@ -54,15 +65,6 @@ public class Curve {
 	 * The x values of the curve's 2D coordinates
 	 */
 	protected final double[] xCoord;
-	/**
-	 * The interpolation of the curve's 2D coordinates
-	 */
-	protected PolynomialSplineFunction interpolation = null;
-	/**
-	 * The first derivative of the interpolation of the curve's 2D coordinates.
-	 * This member is filled on request
-	 */
-	protected UnivariateFunction derivative;
 	/**
 	 * The first derivatives for each of the curve's 2D coordinates
 	 * based on the interpolation of the coordinates.
@@ -77,6 +79,22 @@ public class Curve {
 	 * The minimal value of the curve's slope values 
 	 */
 	protected double slopeMin = Double.NaN;
+	/**
+	 * The interpolated y-coordinates and slopes for the last requested number 
+	 * of equidistant x-coordinates.
+	 * This member is filled on request by {@link #getSampledY(int)} and
+	 * {@link #getSampledSlope(int)}
+	 */
+	private volatile SampledData sampled = null;
+	/**
+	 * The number of coordinate modifications, i.e. calls of {@link #updateInterpolation()}
+	 */
+	protected long modificationCount = 0;
+	/**
+	 * The {@link #modificationCount} the derived data (slope, y-range, sampled 
+	 * values) is valid for
+	 */
+	private volatile long derivedModificationCount = -1;
 
 	/**
 	 * Initializes the curve based on the y-values only. 
@@ -109,6 +127,7 @@ public class Curve {
 		IntStream.range(0, xCoord.length).forEach(i -> this.xCoord[i] = (double)i);
 		
 		// create interpolation
+		checkOrder();
 		updateInterpolation();
 	}
 	
@@ -146,23 +165,196 @@ public class Curve {
 		System.arraycopy(xValues, 0, this.xCoord, 0, xValues.length);
 		System.arraycopy(yValues, 0, this.yCoord, 0, yValues.length);
 		
-		// create spline interpolation
+		// create interpolation
+		checkOrder();
 		updateInterpolation();
 	}
 	
 	/**
-	 * Updates the spline interpolation of the curve. 
+	 * Ensures the x coordinates are strictly increasing, as required for the interpolation.
+	 * @throws NonMonotonicSequenceException if the x coordinates are not strictly increasing
+	 */
+	protected void checkOrder() throws NonMonotonicSequenceException {
+		MathArrays.checkOrder( xCoord );
+	}
+	
+	/**
+	 * Ensures the new x values of the first and last coordinate of a range to be 
+	 * changed are strictly increasing with respect to the unchanged neighbored 
+	 * coordinates, i.e. x[from-1] < xFirst and xLast < x[to]. The order within the
+	 * range is not checked.
+	 * 
+	 * @param from the index of the first coordinate to change (inclusive, < to)
+	 * @param to the index after the last coordinate to change (exclusive)
+	 * @param xFirst the new x value of the coordinate at index from
+	 * @param xLast the new x value of the coordinate at index to-1
+	 * @throws NonMonotonicSequenceException if the x values are not strictly increasing at the range boundaries
+	 */
+	protected void checkOrder( int from, int to, double xFirst, double xLast ) throws NonMonotonicSequenceException {
+		if (from > 0 && !(xCoord[from-1] < xFirst)) throw new NonMonotonicSequenceException( xFirst, xCoord[from-1], from );
+		if (to < size() && !(xLast < xCoord[to])) throw new NonMonotonicSequenceException( xCoord[to], xLast, to );
+	}
+	
+	/**
+	 * Updates the interpolation of the curve, i.e. marks all data derived from
+	 * the coordinates as outdated. The derived data is recomputed on its next
+	 * request (see {@link #validateDerivedData()}), such that this takes
+	 * constant time and repeated calls without intermediate requests are for free.
 	 * 
-	 * NOTE, this function has to be called
-	 * whenever the underlying data (x/y coordinates) is changed!
+	 * NOTE, this function is called by all mutation methods and has only to 
+	 * be called whenever the arrays provided by {@link #getX()} or 
+	 * {@link #getY()} are changed directly!
 	 */
 	public void updateInterpolation() {
-//		SplineInterpolator interpolator = new SplineInterpolator();
-//		AkimaSplineInterpolator interpolator = new AkimaSplineInterpolator();
-		LinearInterpolator interpolator = new LinearInterpolator();
-		interpolation = interpolator.interpolate(this.xCoord, this.yCoord);
-		derivative = null;
+		modificationCount++;
+	}
+	
+	/**
+	 * Access to the number of coordinate modifications, e.g. to identify 
+	 * whether or not data computed for this curve is still up to date.
+	 * @return the number of calls of {@link #updateInterpolation()} so far
+	 */
+	public long getModificationCount() {
+		return modificationCount;
+	}
+	
+	/**
+	 * Ensures the data derived from the coordinates is valid for the current 
+	 * coordinates, i.e. resets it via {@link #resetDerivedData()} if the curve 
+	 * was modified since the last call. 
+	 * 
+	 * Note, the reset is synchronized to allow for concurrent read access to
+	 * the curve, e.g. during parallel pairwise alignment computations.
+	 */
+	protected void validateDerivedData() {
+		// check if coordinates have changed since the last check
+		if (derivedModificationCount != modificationCount) {
+			synchronized (this) {
+				if (derivedModificationCount != modificationCount) {
+					resetDerivedData();
+					derivedModificationCount = modificationCount;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Resets all data derived from the coordinates for recomputation on request.
+	 * Called by {@link #validateDerivedData()} on the first request after a
+	 * modification.
+	 */
+	protected void resetDerivedData() {
 		slope = null;
+		yMin = Double.NaN;
+		yMax = Double.NaN;
+		sampled = null;
+	}
+	
+	/**
+	 * Sets the x value of a coordinate.
+	 * 
+	 * @param i the index of the coordinate
+	 * @param x the new x value
+	 * @throws OutOfRangeException if i is no valid index
+	 * @throws NonMonotonicSequenceException if x is not in between the x values of the neighbored coordinates
+	 */
+	public void setX( int i, double x ) throws OutOfRangeException, NonMonotonicSequenceException {
+		if (i < 0 || i >= size()) throw new OutOfRangeException( i, 0, size()-1 );
+		checkOrder( i, i+1, x, x );
+		xCoord[i] = x;
+		updateInterpolation();
+	}
+	
+	/**
+	 * Sets the y value of a coordinate.
+	 * @param i the index of the coordinate
+	 * @param y the new y value
+	 * @throws OutOfRangeException if i is no valid index
+	 */
+	public void setY( int i, double y ) throws OutOfRangeException {
+		if (i < 0 || i >= size()) throw new OutOfRangeException( i, 0, size()-1 );
+		yCoord[i] = y;
+		updateInterpolation();
+	}
+	
+	/**
+	 * Overwrites all coordinates with the given values.
+	 * @param xValues the new x values (strictly increasing)
+	 * @param yValues the new y values
+	 * @throws NullArgumentException if one of the arrays is null
+	 * @throws IllegalArgumentException if the length of an array differs from {@link #size()}
+	 * @throws NonMonotonicSequenceException if the x values are not strictly increasing
+	 */
+	public void setCoordinates( double[] xValues, double[] yValues ) throws NullArgumentException, IllegalArgumentException {
+		if (xValues == null || yValues == null) throw new NullArgumentException();
+		if (xValues.length != size() || yValues.length != size()) throw new IllegalArgumentException("length of xValues or yValues differs from curve size");
+		MathArrays.checkOrder( xValues );
+		System.arraycopy( xValues, 0, xCoord, 0, size() );
+		System.arraycopy( yValues, 0, yCoord, 0, size() );
+		updateInterpolation();
+	}
+	
+	/**
+	 * Copies the x values of a range of coordinates from another curve.
+	 * @param source the curve to copy the x values from
+	 * @param from the index of the first coordinate to copy (inclusive)
+	 * @param to the index after the last coordinate to copy (exclusive)
+	 * @throws NullArgumentException if source is null
+	 * @throws OutOfRangeException if the range is no valid index range for both curves
+	 * @throws NonMonotonicSequenceException if the copied x values are not strictly increasing with respect to the neighbored coordinates
+	 */
+	public void copyX( Curve source, int from, int to ) throws NullArgumentException, OutOfRangeException, NonMonotonicSequenceException {
+		if (source == null) throw new NullArgumentException();
+		if (from < 0 || from > size()) throw new OutOfRangeException( from, 0, size() );
+		if (to < from || to > FastMath.min( size(), source.size() )) throw new OutOfRangeException( to, from, FastMath.min( size(), source.size() ) );
+		if (from < to) checkOrder( from, to, source.xCoord[from], source.xCoord[to-1] );
+		System.arraycopy( source.xCoord, from, xCoord, from, to-from );
+		updateInterpolation();
+	}
+	
+	/**
+	 * Shifts the x values of a range of coordinates, i.e.
+	 * 
+	 *    x_new[p] = x[p] + shift
+	 * 
+	 * @param from the index of the first coordinate to shift (inclusive)
+	 * @param to the index after the last coordinate to shift (exclusive)
+	 * @param shift the shift to be added
+	 * @throws OutOfRangeException if the range is no valid index range
+	 * @throws NonMonotonicSequenceException if the shifted x values are not strictly increasing with respect to the neighbored coordinates
+	 */
+	public void shiftX( int from, int to, double shift ) throws OutOfRangeException, NonMonotonicSequenceException {
+		if (from < 0 || from > size()) throw new OutOfRangeException( from, 0, size() );
+		if (to < from || to > size()) throw new OutOfRangeException( to, from, size() );
+		if (from < to) checkOrder( from, to, xCoord[from] + shift, xCoord[to-1] + shift );
+		for (int p=from; p<to; p++) {
+			xCoord[p] += shift;
+		}
+		updateInterpolation();
+	}
+	
+	/**
+	 * Warps the x values of a range of coordinates relative to an anchor, i.e.
+	 * 
+	 *    x_new[p] = anchor + (x[p]-anchor)*factor
+	 * 
+	 * @param from the index of the first coordinate to warp (inclusive)
+	 * @param to the index after the last coordinate to warp (exclusive)
+	 * @param anchor the x value that is not changed by the warping
+	 * @param factor the warping factor to be applied (> 0)
+	 * @throws OutOfRangeException if the range is no valid index range
+	 * @throws IllegalArgumentException if the factor is <= 0
+	 * @throws NonMonotonicSequenceException if the warped x values are not strictly increasing with respect to the neighbored coordinates
+	 */
+	public void warpX( int from, int to, double anchor, double factor ) throws OutOfRangeException, IllegalArgumentException, NonMonotonicSequenceException {
+		if (from < 0 || from > size()) throw new OutOfRangeException( from, 0, size() );
+		if (to < from || to > size()) throw new OutOfRangeException( to, from, size() );
+		if (factor <= 0.0) throw new IllegalArgumentException("warping factor <= 0.0");
+		if (from < to) checkOrder( from, to, anchor + (xCoord[from]-anchor)*factor, anchor + (xCoord[to-1]-anchor)*factor );
+		for (int p=from; p<to; p++) {
+			xCoord[p] = anchor + (xCoord[p]-anchor)*factor;
+		}
+		updateInterpolation();
 	}
 
 	/**
@@ -225,6 +417,7 @@ public class Curve {
 	 * @return the minimal y-value of the curve's coordinates 
 	 */
 	public double getYmin() {
+		validateDerivedData();
 		// check if lazy computation is necessary
 		if (Double.isNaN(yMin)) {
 			this.yMin = DoubleStream.of(this.yCoord).min().getAsDouble();
@@ -236,6 +429,7 @@ public class Curve {
 	 * @return the maximal y-value of the curve's coordinates 
 	 */
 	public double getYmax() {
+		validateDerivedData();
 		// check if lazy computation is necessary
 		if (Double.isNaN(yMax)) {
 			this.yMax = DoubleStream.of(this.yCoord).max().getAsDouble();
@@ -277,7 +471,162 @@ public class Curve {
 	public double getY( double x ) throws OutOfRangeException {
 		if (x < getXmin() || x > getXmax()) throw new OutOfRangeException( x, getXmin(), getXmax());
 		// get interpolated value
-		return interpolation.value( x );
+		final int interval = getInterval( x );
+		return (x - xCoord[interval]) * getIntervalSlope( interval ) + yCoord[interval];
+	}
+	
+	/**
+	 * Provides a function view of the interpolation, i.e. of {@link #getY(double)},
+	 * that reflects the current coordinates.
+	 * @return the interpolation function
+	 */
+	public UnivariateFunction getInterpolation() {
+		return this::getY;
+	}
+	
+	/**
+	 * Provides a function view of the first derivative of the interpolation,
+	 * i.e. of {@link #getSlope(double)}, that reflects the current coordinates.
+	 * @return the first derivative function
+	 */
+	public UnivariateFunction getDerivative() {
+		return this::getSlope;
+	}
+	
+	/**
+	 * Identifies the coordinate interval [x[i],x[i+1]] used to interpolate the
+	 * given x coordinate, where intervals are right-open except for the last.
+	 * @param x the x coordinate of interest within the range of the curve
+	 * @return the index i of the left coordinate of the interval
+	 */
+	protected int getInterval( double x ) {
+		int interval = Arrays.binarySearch( xCoord, x );
+		if (interval < 0) {
+			interval = -interval - 2;
+		}
+		return FastMath.min( interval, size()-2 );
+	}
+	
+	/**
+	 * Computes the slope of the linear interpolation within the given coordinate interval
+	 * @param interval the index i of the left coordinate of the interval [x[i],x[i+1]]
+	 * @return the slope within the interval
+	 */
+	protected double getIntervalSlope( int interval ) {
+		return (yCoord[interval+1] - yCoord[interval]) / (xCoord[interval+1] - xCoord[interval]);
+	}
+	
+	/**
+	 * Access to the interpolated y values for a sorted list of x coordinates as
+	 * {@link #getY(double)} but in a single pass over the curve's coordinates.
+	 * 
+	 * @param sortedX the x coordinates of interest in ascending order
+	 * @param y the array to store the interpolated y values in
+	 * 
+	 * @throws NullArgumentException if an array is null
+	 * @throws OutOfRangeException if an x coordinate is out of range or y is too short
+	 */
+	public void getY( double[] sortedX, double[] y ) throws NullArgumentException, OutOfRangeException {
+		if (sortedX == null) throw new NullArgumentException();
+		getY( sortedX, 0, sortedX.length, y );
+	}
+	
+	/**
+	 * Access to the interpolated y values for a sorted range of x coordinates as
+	 * {@link #getY(double)} but in a single pass over the curve's coordinates.
+	 * 
+	 * @param sortedX the x coordinates of interest, ascending within the range
+	 * @param start the index of the first x coordinate of interest
+	 * @param length the number of x coordinates of interest
+	 * @param y the array to store the interpolated y values in, i.e. y[i] is the
+	 * 			value for sortedX[start+i]
+	 * 
+	 * @throws NullArgumentException if an array is null
+	 * @throws OutOfRangeException if an x coordinate or the range is out of range or y is too short
+	 */
+	public void getY( double[] sortedX, int start, int length, double[] y ) throws NullArgumentException, OutOfRangeException {
+		interpolate( sortedX, start, length, y, false );
+	}
+	
+	/**
+	 * Gives the first derivative for a sorted list of x coordinates as 
+	 * {@link #getSlope(double)} but in a single pass over the curve's coordinates.
+	 * 
+	 * @param sortedX the x coordinates of interest in ascending order
+	 * @param slope the array to store the interpolated derivative values in
+	 * 
+	 * @throws NullArgumentException if an array is null
+	 * @throws OutOfRangeException if an x coordinate is out of range or slope is too short
+	 */
+	public void getSlope( double[] sortedX, double[] slope ) throws NullArgumentException, OutOfRangeException {
+		if (sortedX == null) throw new NullArgumentException();
+		getSlope( sortedX, 0, sortedX.length, slope );
+	}
+	
+	/**
+	 * Gives the first derivative for a sorted range of x coordinates as 
+	 * {@link #getSlope(double)} but in a single pass over the curve's coordinates.
+	 * 
+	 * @param sortedX the x coordinates of interest, ascending within the range
+	 * @param start the index of the first x coordinate of interest
+	 * @param length the number of x coordinates of interest
+	 * @param slope the array to store the interpolated derivative values in, i.e. 
+	 * 			slope[i] is the value for sortedX[start+i]
+	 * 
+	 * @throws NullArgumentException if an array is null
+	 * @throws OutOfRangeException if an x coordinate or the range is out of range or slope is too short
+	 */
+	public void getSlope( double[] sortedX, int start, int length, double[] slope ) throws NullArgumentException, OutOfRangeException {
+		interpolate( sortedX, start, length, slope, true );
+	}
+	
+	/**
+	 * Evaluates the linear interpolation of the curve's coordinates or its first
+	 * derivative for a range of x coordinates. The index of the enclosing coordinate
+	 * interval is located via binary search for the first x coordinate only and 
+	 * is then moved forward along the ascending x coordinates, such that 
+	 * the evaluation takes O(log(size) + length + size) time. Unsorted x coordinates are
+	 * handled by a new binary search.
+	 * 
+	 * The values are computed the same way as for single coordinates, i.e. they are
+	 * identical to {@link #getY(double)} and {@link #getSlope(double)}.
+	 * 
+	 * @param sortedX the x coordinates of interest, ascending within the range
+	 * @param start the index of the first x coordinate of interest
+	 * @param length the number of x coordinates of interest
+	 * @param values the array to store the values for the x coordinates in
+	 * @param derive whether or not to compute the first derivative instead of the y value
+	 * 
+	 * @throws NullArgumentException if an array is null
+	 * @throws OutOfRangeException if an x coordinate or the range is out of range or values is too short
+	 */
+	protected void interpolate( double[] sortedX, int start, int length, double[] values, boolean derive ) throws NullArgumentException, OutOfRangeException {
+		// check input
+		if (sortedX == null || values == null) throw new NullArgumentException();
+		if (start < 0 || start > sortedX.length) throw new OutOfRangeException(start, 0, sortedX.length);
+		if (length < 0 || start+length > sortedX.length) throw new OutOfRangeException(length, 0, sortedX.length-start);
+		if (length > values.length) throw new OutOfRangeException(length, 0, values.length);
+		
+		// index of the last coordinate interval
+		final int lastInterval = size()-2;
+		// index of the current coordinate interval
+		int interval = 0;
+		for (int i=0; i<length; i++) {
+			final double x = sortedX[start+i];
+			// check range
+			if (x < getXmin() || x > getXmax()) throw new OutOfRangeException( x, getXmin(), getXmax());
+			// locate the interval via binary search for the first or unsorted x coordinates
+			if (i == 0 || x < xCoord[interval]) {
+				interval = getInterval( x );
+			}
+			// move forward to the interval that encloses x (intervals are right-open except for the last)
+			while (interval < lastInterval && xCoord[interval+1] <= x) {
+				interval++;
+			}
+			// evaluate the linear interpolation as done for single coordinates
+			final double slope = getIntervalSlope( interval );
+			values[i] = derive ? slope : (x - xCoord[interval]) * slope + yCoord[interval];
+		}
 	}
 	
 	/**
@@ -293,12 +642,8 @@ public class Curve {
 	public double getSlope( double x ) throws OutOfRangeException {
 		// check range
 		if (x < getXmin() || x > getXmax()) throw new OutOfRangeException( x, getXmin(), getXmax());
-		// check if the derivative was already requested, if not create object
-		if (derivative == null) {
-			derivative = interpolation.derivative();
-		}
-		// get interpolated value
-		return derivative.value( x );
+		// get slope of the enclosing interval
+		return getIntervalSlope( getInterval( x ) );
 	}
 		
 	
@@ -336,8 +681,12 @@ public class Curve {
 	
 	/**
 	 * initializes the slope values if not already done.
+	 * 
+	 * Note, the method is synchronized to allow for concurrent read access to
+	 * the curve, e.g. during parallel pairwise alignment computations.
 	 */
-	protected void initSlope() {
+	protected synchronized void initSlope() {
+		validateDerivedData();
 		// check if slope was already computed
 		if (slope == null) {
 			// create new slope data object 
@@ -463,6 +812,105 @@ public class Curve {
 	}
 	
 	
+	/**
+	 * Computes the given number of equidistant x-coordinates as used by {@link #getYequiX(int)}.
+	 * @param samples number of equidistant x-coordinates (>=2)
+	 * @return the equidistant x-coordinates including the boundaries
+	 */
+	protected double[] getXequi( int samples ) {
+		double deltaX = length() / (double)(samples-1);
+		double[] x = new double[samples];
+		// first and last at the boundaries
+		x[0] = getXmin();
+		x[samples-1] = getXmax();
+		for (int i=1; i+1<samples; i++) {
+			x[i] = getXmin() + deltaX * (double)i;
+		}
+		return x;
+	}
+	
+	/**
+	 * Immutable holder of the values interpolated for a number of equidistant 
+	 * x-coordinates, such that the number and the arrays are published 
+	 * together to concurrent readers via a single volatile reference.
+	 */
+	private static final class SampledData {
+		/** the number of equidistant x-coordinates */
+		final int samples;
+		/** the interpolated y-coordinates or null if not computed yet */
+		final double[] y;
+		/** the interpolated slopes or null if not computed yet */
+		final double[] slope;
+		
+		SampledData( int samples, double[] y, double[] slope ) {
+			this.samples = samples;
+			this.y = y;
+			this.slope = slope;
+		}
+	}
+	
+	/**
+	 * Access to the interpolated y-coordinates, i.e. {@link #getY(double)}, for the given 
+	 * number of equidistant x-coordinates as used by {@link #getYequiX(int)}. The values 
+	 * are computed once and reused until the curve is modified or 
+	 * another number of samples is requested.
+	 * 
+	 * Note, only the values for the last requested number of samples are kept,
+	 * i.e. alternating requests with different sample numbers (for y-coordinates
+	 * or slopes) recompute the values each time.
+	 * 
+	 * Note, the returned array must not be changed.
+	 * 
+	 * @param samples number of equidistant x-coordinate samples to interpolate (>=2)
+	 * @return the interpolated y-coordinates
+	 * @throws OutOfRangeException if samples leaves sane boundaries
+	 */
+	public double[] getSampledY( int samples ) throws OutOfRangeException {
+		// input check
+		if (samples < 2 || samples >= Integer.MAX_VALUE/2) throw new OutOfRangeException( samples, 2, Integer.MAX_VALUE/2);
+		validateDerivedData();
+		// local copy to be safe for concurrent read access
+		SampledData curSampled = sampled;
+		if (curSampled == null || curSampled.samples != samples || curSampled.y == null) {
+			double[] y = new double[samples];
+			getY( getXequi( samples ), y );
+			// keep the slopes if computed for the same number of samples
+			curSampled = new SampledData( samples, y, (curSampled != null && curSampled.samples == samples) ? curSampled.slope : null );
+			sampled = curSampled;
+		}
+		return curSampled.y;
+	}
+	
+	/**
+	 * Access to the slopes (first derivatives) for the given number of equidistant
+	 * x-coordinates, i.e. {@link #getSlope(double)} at the same x-coordinates as used
+	 * by {@link #getYequiX(int)}. The values are computed once and reused until 
+	 * the curve is modified or another number of samples is requested
+	 * (see {@link #getSampledY(int)}).
+	 * 
+	 * Note, the returned array must not be changed.
+	 * 
+	 * @param samples number of equidistant x-coordinate samples (>=2)
+	 * @return the interpolated slopes
+	 * @throws OutOfRangeException if samples leaves sane boundaries
+	 */
+	public double[] getSampledSlope( int samples ) throws OutOfRangeException {
+		// input check
+		if (samples < 2 || samples >= Integer.MAX_VALUE/2) throw new OutOfRangeException( samples, 2, Integer.MAX_VALUE/2);
+		validateDerivedData();
+		// local copy to be safe for concurrent read access
+		SampledData curSampled = sampled;
+		if (curSampled == null || curSampled.samples != samples || curSampled.slope == null) {
+			double[] slope = new double[samples];
+			getSlope( getXequi( samples ), slope );
+			// keep the y-coordinates if computed for the same number of samples
+			curSampled = new SampledData( samples, (curSampled != null && curSampled.samples == samples) ? curSampled.y : null, slope );
+			sampled = curSampled;
+		}
+		return curSampled.slope;
+	}
+	
+	
 	/**
 	 * Returns the index of the data point that is closest to the given
 	 * x-coordinate.
@@ -149,6 +149,34 @@ public class CurveAnnotation {
 			return order;
 		}
 		
+		/**
+		 * Returns the class of types this type can be matched with, i.e. two types
+		 * are alignable (see {@link #isAlignable(Type, Type)}) if and only if their
+		 * classes are equal.
+		 * @return the alignable class of this type (>=0)
+		 */
+		int getAlignableClass() {
+			return FastMath.abs(value);
+		}
+		
+		/**
+		 * The number of different alignable classes of all types
+		 * (see {@link #getAlignableClass()})
+		 */
+		static final int ALIGNABLE_CLASSES = getAlignableClassNumber();
+		
+		/**
+		 * Computes the number of different alignable classes of all types
+		 * @return the maximal alignable class + 1
+		 */
+		private static int getAlignableClassNumber() {
+			int maxClass = 0;
+			for ( Type t : values() ) {
+				maxClass = FastMath.max( maxClass, t.getAlignableClass() );
+			}
+			return maxClass + 1;
+		}
+		
 		/**
 		 * Whether or not two types can be matched within alignments 
 		 * @param t1 the first type
@@ -18,4 +18,18 @@ public interface CurveDistanceWarpCorrection {
 	 */
 	public double getWarpCorrectedDistance( double warpingFactor, double distance );
 	
+	/**
+	 * Computes the maximal distance whose warping-corrected distance does not 
+	 * exceed the given corrected distance, which is used to abandon distance
+	 * computations early. The default implementation returns 
+	 * {@link Double#POSITIVE_INFINITY}, i.e. no bound.
+	 * 
+	 * @param warpingFactor the warping factor to be considered
+	 * @param correctedDistance the warping-corrected distance
+	 * @return the maximal uncorrected distance 
+	 */
+	default public double getMaxUncorrectedDistance( double warpingFactor, double correctedDistance ) {
+		return Double.POSITIVE_INFINITY;
+	}
+	
 }
@@ -3,6 +3,9 @@
  */
 package de.uni_freiburg.bioinf.mica.algorithm;
 
+import java.util.Arrays;
+
+import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.exception.OutOfRangeException;
 import org.apache.commons.math3.util.FastMath;
 
@@ -33,6 +36,11 @@ public class CurveMeanAbsoluteDistance extends SampledCurveDistance {
 		return "Computes the mean absolute Y-coordinate difference on "+sampleNumber+" equidistant x-coordinate samples";
 	}
 
+	@Override
+	public CurveMeanAbsoluteDistance withSampleNumber(int sampleNumber) throws OutOfRangeException {
+		return new CurveMeanAbsoluteDistance(sampleNumber);
+	}
+
 	/**
 	 * Computes the absolute difference in the y-coordinates at the given positions.
 	 */
@@ -41,6 +49,34 @@ public class CurveMeanAbsoluteDistance extends SampledCurveDistance {
 		return FastMath.abs( curve1.getY( x1 ) - curve2.getY( x2 ) );
 	}
 	
+	/**
+	 * Interpolates the y-coordinates for the sorted x-coordinates.
+	 */
+	@Override
+	protected void getValues(Curve curve, double[] sortedX, int start, int length, double[] values) {
+		curve.getY( sortedX, start, length, values );
+	}
+	
+	/**
+	 * Computes the absolute difference of the y-coordinates.
+	 */
+	@Override
+	protected double getValueDistance(double value1, double value2) {
+		return FastMath.abs( value1 - value2 );
+	}
+	
+	/**
+	 * Computes the absolute differences of the cached y-coordinate samples.
+	 */
+	@Override
+	protected void computeDistanceTerms(Curve curve1, Curve curve2, double[] terms) {
+		final double[] sample1 = curve1.getSampledY( sampleNumber );
+		final double[] sample2 = curve2.getSampledY( sampleNumber );
+		for (int i=0; i<sampleNumber; i++) {
+			terms[i] = FastMath.abs( sample1[i] - sample2[i] );
+		}
+	}
+	
 	/**
 	 * returns the mean distance = sum/samples.
 	 */
@@ -56,4 +92,14 @@ public class CurveMeanAbsoluteDistance extends SampledCurveDistance {
 	protected double preFinalDistance(double distanceSum, int samples) {
 		return distanceSum * (double)samples;
 	}
+	
+	/**
+	 * Computes the mean of the lower bounds of the absolute y-differences 
+	 * within the shift bands of each sample.
+	 */
+	@Override
+	public double getDistanceLowerBound( Curve curve1, double maxRelShift1, Curve curve2, double maxRelShift2 ) throws NullArgumentException {
+		double[] yDiff = getYDifferenceLowerBounds( curve1, maxRelShift1, curve2, maxRelShift2 );
+		return finalDistance( Arrays.stream( yDiff ).sum(), yDiff.length );
+	}
 }
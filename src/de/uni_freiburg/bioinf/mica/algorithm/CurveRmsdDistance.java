@@ -3,6 +3,9 @@
  */
 package de.uni_freiburg.bioinf.mica.algorithm;
 
+import java.util.Arrays;
+
+import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.exception.OutOfRangeException;
 import org.apache.commons.math3.util.FastMath;
 
@@ -33,14 +36,50 @@ public class CurveRmsdDistance extends SampledCurveDistance {
 		return "Computes the Y-coordinate RMSD on "+sampleNumber+" equidistant x-coordinate samples";
 	}
 
+	@Override
+	public CurveRmsdDistance withSampleNumber(int sampleNumber) throws OutOfRangeException {
+		return new CurveRmsdDistance(sampleNumber);
+	}
+
 	/**
 	 * Computes the squared difference in y-coordinates for the given x-coordinates.
 	 */
 	@Override
 	protected double getDistance(Curve curve1, Curve curve2, double x1, double x2, double lengthRatio1, double lengthRatio2) {
-		return FastMath.pow(curve1.getY(x1) - curve2.getY(x2), 2 );
+		final double diff = curve1.getY(x1) - curve2.getY(x2);
+		return diff*diff;
 	}
 
+	/**
+	 * Interpolates the y-coordinates for the sorted x-coordinates.
+	 */
+	@Override
+	protected void getValues(Curve curve, double[] sortedX, int start, int length, double[] values) {
+		curve.getY( sortedX, start, length, values );
+	}
+	
+	/**
+	 * Computes the squared difference of the y-coordinates.
+	 */
+	@Override
+	protected double getValueDistance(double value1, double value2) {
+		final double diff = value1 - value2;
+		return diff*diff;
+	}
+	
+	/**
+	 * Computes the squared differences of the cached y-coordinate samples.
+	 */
+	@Override
+	protected void computeDistanceTerms(Curve curve1, Curve curve2, double[] terms) {
+		final double[] sample1 = curve1.getSampledY( sampleNumber );
+		final double[] sample2 = curve2.getSampledY( sampleNumber );
+		for (int i=0; i<sampleNumber; i++) {
+			final double diff = sample1[i] - sample2[i];
+			terms[i] = diff*diff;
+		}
+	}
+	
 	/**
 	 * Normalizes the distance sum with the sample number (mean) and takes the
 	 * square root to get the final RMSD.
@@ -55,10 +94,20 @@ public class CurveRmsdDistance extends SampledCurveDistance {
 	}
 	
 	/**
-	 * returns pow(distance,2) * samples.
+	 * returns distance*distance * samples.
 	 */
 	@Override
 	protected double preFinalDistance(double distance, int samples) {
-		return FastMath.pow(distance,2) * (double)samples;
+		return distance*distance * (double)samples;
+	}
+	
+	/**
+	 * Computes the root mean square of the lower bounds of the absolute y-differences 
+	 * within the shift bands of each sample.
+	 */
+	@Override
+	public double getDistanceLowerBound( Curve curve1, double maxRelShift1, Curve curve2, double maxRelShift2 ) throws NullArgumentException {
+		double[] yDiff = getYDifferenceLowerBounds( curve1, maxRelShift1, curve2, maxRelShift2 );
+		return finalDistance( Arrays.stream( yDiff ).map( d -> d*d ).sum(), yDiff.length );
 	}
 }
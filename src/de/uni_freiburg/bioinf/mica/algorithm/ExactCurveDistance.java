@@ -0,0 +1,321 @@
+package de.uni_freiburg.bioinf.mica.algorithm;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Computes the exact mean absolute difference or root mean square deviation of
+ * the y-coordinates or slopes of two curves. Since curves are interpolated
+ * linearly (see {@link Curve#updateInterpolation()}), the difference of two 
+ * curves is linear in-between the merged coordinates of both curves and can
+ * thus be integrated exactly over the relative x-range [0,1] of the curves in 
+ * O(curve1.size()+curve2.size()), independently of the number of samples.
+ * 
+ * The distance terms (see {@link #getDistanceTerms(Curve, Curve)}) hold the exact
+ * integrals between successive equidistant integration points, such that they 
+ * can be updated locally and sum up to the exact distance. {@link PICA} scores
+ * candidate decompositions exactly as well via 
+ * {@link #getWarpedIntegral(Curve, double, double, Curve, double, double, double)}.
+ * Only the distances of single sample coordinates, e.g. used by {@link BandedPICA}, 
+ * are evaluated at the samples as done by the other {@link SampledCurveDistance} 
+ * implementations.
+ * 
+ * @author Mmann
+ *
+ */
+public class ExactCurveDistance extends SampledCurveDistance {
+	
+	/**
+	 * whether or not the slopes are compared instead of the y-coordinates
+	 */
+	protected final boolean onSlope;
+	
+	/**
+	 * whether or not the root mean square deviation is computed instead of the
+	 * mean absolute difference
+	 */
+	protected final boolean rmsd;
+	
+	/**
+	 * Constructs a distance function 
+	 * @param onSlope whether or not the slopes are compared instead of the y-coordinates
+	 * @param rmsd whether or not the root mean square deviation is computed instead of the mean absolute difference
+	 * @param sampleNumber number of integration points used for local updates and the scoring of single samples (>=2)
+	 * @throws OutOfRangeException if sampleNumber is < 2
+	 */
+	public ExactCurveDistance( boolean onSlope, boolean rmsd, int sampleNumber ) throws OutOfRangeException {
+		super(sampleNumber);
+		this.onSlope = onSlope;
+		this.rmsd = rmsd;
+	}
+	
+	/**
+	 * Whether or not the slopes are compared instead of the y-coordinates
+	 * @return true if slopes are compared
+	 */
+	public boolean isOnSlope() {
+		return onSlope;
+	}
+	
+	/**
+	 * Whether or not the root mean square deviation is computed instead of the
+	 * mean absolute difference
+	 * @return true if the root mean square deviation is computed
+	 */
+	public boolean isRmsd() {
+		return rmsd;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Computes the exact " + (rmsd ? "RMSD" : "mean absolute difference") + " of the " 
+				+ (onSlope ? "slopes" : "Y-coordinates") + " of the linearly interpolated curves";
+	}
+
+	@Override
+	public ExactCurveDistance withSampleNumber(int sampleNumber) throws OutOfRangeException {
+		return new ExactCurveDistance(onSlope, rmsd, sampleNumber);
+	}
+
+	/**
+	 * Computes the exact distance of the curves over their whole x-range.
+	 */
+	@Override
+	public double getDistance(Curve curve1, Curve curve2) throws NullArgumentException {
+		if (curve1 == null || curve2 == null) throw new NullArgumentException();
+		return finalDistance( getIntegral( curve1, curve2, 0, 1 ) * sampleNumber, sampleNumber );
+	}
+	
+	/**
+	 * Computes the exact integral between the i-th and the (i+1)-th integration point,
+	 * scaled by the number of integration points. The term of the last integration 
+	 * point is 0.
+	 */
+	@Override
+	protected double getDistanceTerm(Curve curve1, Curve curve2, int i) {
+		if (i+1 >= sampleNumber) {
+			return 0d;
+		}
+		final double uFrom = (double)i / (double)(sampleNumber-1);
+		final double uTo = (i+2 == sampleNumber) ? 1d : (double)(i+1) / (double)(sampleNumber-1);
+		return getIntegral( curve1, curve2, uFrom, uTo ) * sampleNumber;
+	}
+	
+	/**
+	 * Integrates the absolute or squared difference of the y-coordinates or slopes 
+	 * of both curves within the given relative x-range, where the relative 
+	 * x-coordinate u corresponds to getXmin()+u*length() within each curve.
+	 * 
+	 * @param curve1 the first curve
+	 * @param curve2 the second curve
+	 * @param uFrom the start of the relative x-range [0,1]
+	 * @param uTo the end of the relative x-range [uFrom,1]
+	 * @return the integral within the relative x-range
+	 */
+	protected double getIntegral( Curve curve1, Curve curve2, double uFrom, double uTo ) {
+		return getIntegral( curve1, curve1.getXmin(), curve1.length(), 1d, curve2, curve2.getXmin(), curve2.length(), 1d, uFrom, uTo );
+	}
+	
+	/**
+	 * Integrates the absolute or squared difference of the y-coordinates or slopes 
+	 * of two x-ranges of the curves that are both linearly warped onto a common 
+	 * range of the given width, i.e. the distance of the x-ranges after a 
+	 * decomposition that aligns both x-ranges (see 
+	 * {@link IntervalDecomposition#decompose(int, CurveAnnotation, double)}). 
+	 * The slopes are corrected by the warping of the x-ranges.
+	 * 
+	 * @param curve1 the first curve
+	 * @param xFrom1 the start of the x-range of the first curve
+	 * @param xTo1 the end of the x-range of the first curve (> xFrom1)
+	 * @param curve2 the second curve
+	 * @param xFrom2 the start of the x-range of the second curve
+	 * @param xTo2 the end of the x-range of the second curve (> xFrom2)
+	 * @param width the width of the common range both x-ranges are warped onto (> 0)
+	 * @return the integral within the common range
+	 * @throws NullArgumentException
+	 */
+	public double getWarpedIntegral( Curve curve1, double xFrom1, double xTo1, Curve curve2, double xFrom2, double xTo2, double width ) throws NullArgumentException {
+		if (curve1 == null || curve2 == null) throw new NullArgumentException();
+		return width * getIntegral( curve1, xFrom1, xTo1-xFrom1, (xTo1-xFrom1)/width, curve2, xFrom2, xTo2-xFrom2, (xTo2-xFrom2)/width, 0, 1 );
+	}
+	
+	/**
+	 * Computes the distance from an integral of the absolute or squared differences
+	 * (see {@link #getWarpedIntegral(Curve, double, double, Curve, double, double, double)}),
+	 * i.e. the mean absolute difference or the root mean square deviation within the
+	 * integrated range.
+	 * 
+	 * @param integral the integral of the differences
+	 * @param width the width of the integrated range (> 0)
+	 * @return the distance
+	 */
+	public double getMeanDistance( double integral, double width ) {
+		return rmsd ? FastMath.sqrt( integral/width ) : integral/width;
+	}
+	
+	/**
+	 * Reverses {@link #getMeanDistance(double, double)}.
+	 * 
+	 * @param distance the distance
+	 * @param width the width of the integrated range (> 0)
+	 * @return the integral of the differences that results in the distance
+	 */
+	public double getIntegral( double distance, double width ) {
+		return (rmsd ? distance*distance : distance) * width;
+	}
+	
+	/**
+	 * Integrates the absolute or squared difference of the y-coordinates or slopes 
+	 * of both curves within the given relative x-range, where the relative 
+	 * x-coordinate u corresponds to xMin+u*length within each curve.
+	 * 
+	 * @param curve1 the first curve
+	 * @param xMin1 the x-coordinate of the first curve at u=0
+	 * @param length1 the length of the x-range of the first curve for u in [0,1]
+	 * @param slopeScale1 the factor the slopes of the first curve are multiplied with
+	 * @param curve2 the second curve
+	 * @param xMin2 the x-coordinate of the second curve at u=0
+	 * @param length2 the length of the x-range of the second curve for u in [0,1]
+	 * @param slopeScale2 the factor the slopes of the second curve are multiplied with
+	 * @param uFrom the start of the relative x-range [0,1]
+	 * @param uTo the end of the relative x-range [uFrom,1]
+	 * @return the integral within the relative x-range
+	 */
+	private double getIntegral( Curve curve1, double xMin1, double length1, double slopeScale1, 
+								Curve curve2, double xMin2, double length2, double slopeScale2,
+								double uFrom, double uTo ) 
+	{
+		final double[] x1 = curve1.getX(), y1 = curve1.getY();
+		final double[] x2 = curve2.getX(), y2 = curve2.getY();
+		
+		// coordinate intervals enclosing uFrom
+		int j1 = getInterval( x1, xMin1 + uFrom*length1 );
+		int j2 = getInterval( x2, xMin2 + uFrom*length2 );
+		
+		double integral = 0d;
+		double u = uFrom;
+		while (u < uTo) {
+			// move to the coordinate intervals enclosing u (robust to rounding)
+			while (j1+2 < x1.length && (x1[j1+1]-xMin1)/length1 <= u) j1++;
+			while (j2+2 < x2.length && (x2[j2+1]-xMin2)/length2 <= u) j2++;
+			// end of the current linear part = next coordinate of one of the curves
+			final double end1 = (j1+2 < x1.length) ? (x1[j1+1]-xMin1)/length1 : Double.POSITIVE_INFINITY;
+			final double end2 = (j2+2 < x2.length) ? (x2[j2+1]-xMin2)/length2 : Double.POSITIVE_INFINITY;
+			final double uNext = FastMath.min( uTo, FastMath.min( end1, end2 ) );
+			// slopes of both coordinate intervals
+			final double slope1 = (y1[j1+1]-y1[j1]) / (x1[j1+1]-x1[j1]);
+			final double slope2 = (y2[j2+1]-y2[j2]) / (x2[j2+1]-x2[j2]);
+			// differences at both ends of the linear part
+			final double diffFrom, diffTo;
+			if (onSlope) {
+				diffFrom = slope1*slopeScale1 - slope2*slopeScale2;
+				diffTo = diffFrom;
+			} else {
+				diffFrom = (y1[j1] + (xMin1+u*length1-x1[j1])*slope1) - (y2[j2] + (xMin2+u*length2-x2[j2])*slope2);
+				diffTo = (y1[j1] + (xMin1+uNext*length1-x1[j1])*slope1) - (y2[j2] + (xMin2+uNext*length2-x2[j2])*slope2);
+			}
+			integral += getLinearIntegral( diffFrom, diffTo, uNext-u );
+			u = uNext;
+		}
+		return integral;
+	}
+	
+	/**
+	 * Integrates the absolute or squared value of a linear function
+	 * @param from the value at the start of the integration range
+	 * @param to the value at the end of the integration range
+	 * @param width the width of the integration range
+	 * @return the integral
+	 */
+	protected double getLinearIntegral( double from, double to, double width ) {
+		if (rmsd) {
+			return width * (from*from + from*to + to*to) / 3d;
+		}
+		// same sign = trapezoid
+		if ((from >= 0 && to >= 0) || (from <= 0 && to <= 0)) {
+			return width * FastMath.abs( from + to ) / 2d;
+		}
+		// sign change = two triangles
+		return width * (from*from + to*to) / (2d * (FastMath.abs( from ) + FastMath.abs( to )));
+	}
+	
+	/**
+	 * Identifies the index of the coordinate interval [x[j],x[j+1]] enclosing the
+	 * given x-coordinate.
+	 * @param x the sorted x-coordinates
+	 * @param xPos the x-coordinate of interest
+	 * @return the index of the left coordinate of the enclosing interval
+	 */
+	private static int getInterval( double[] x, double xPos ) {
+		int j = Arrays.binarySearch( x, xPos );
+		if (j < 0) {
+			j = -j - 2;
+		}
+		return FastMath.max( 0, FastMath.min( j, x.length-2 ) );
+	}
+
+	/**
+	 * Computes the absolute or squared difference of the y-coordinates or slopes 
+	 * (corrected by the given length warping) at the given x-coordinates.
+	 */
+	@Override
+	protected double getDistance(Curve curve1, Curve curve2, double x1, double x2, double lengthRatio1, double lengthRatio2) {
+		return onSlope 
+				? getValueDistance( curve1.getSlope( x1 )/lengthRatio1, curve2.getSlope( x2 )/lengthRatio2 )
+				: getValueDistance( curve1.getY( x1 ), curve2.getY( x2 ) );
+	}
+	
+	/**
+	 * Interpolates the y-coordinates or slopes for the sorted x-coordinates.
+	 */
+	@Override
+	protected void getValues(Curve curve, double[] sortedX, int start, int length, double[] values) {
+		if (onSlope) {
+			curve.getSlope( sortedX, start, length, values );
+		} else {
+			curve.getY( sortedX, start, length, values );
+		}
+	}
+	
+	/**
+	 * Corrects slopes by the length warping.
+	 */
+	@Override
+	protected double getWarpedValue(double value, double lengthRatio) {
+		return onSlope ? value/lengthRatio : value;
+	}
+	
+	/**
+	 * Computes the absolute or squared difference of the values.
+	 */
+	@Override
+	protected double getValueDistance(double value1, double value2) {
+		final double diff = value1 - value2;
+		return rmsd ? diff*diff : FastMath.abs( diff );
+	}
+
+	/**
+	 * Normalizes the distance sum with the sample number (mean) and takes the
+	 * square root for the RMSD.
+	 */
+	@Override
+	protected double finalDistance(double distanceSum, int samples) {
+		if( samples < 0) throw new OutOfRangeException(samples, 0, Integer.MAX_VALUE);
+		if (samples == 0) {
+			return distanceSum;
+		}
+		return rmsd ? FastMath.sqrt(distanceSum/samples) : distanceSum/samples;
+	}
+	
+	/**
+	 * Reverses {@link #finalDistance(double, int)}.
+	 */
+	@Override
+	protected double preFinalDistance(double distance, int samples) {
+		return (rmsd ? distance*distance : distance) * (double)samples;
+	}
+	
+}
@@ -1,5 +1,6 @@
 package de.uni_freiburg.bioinf.mica.algorithm;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -7,6 +8,7 @@ import java.util.stream.IntStream;
 
 import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
 
 import de.uni_freiburg.bioinf.mica.algorithm.CurveAnnotation.Type;
 
@@ -37,7 +39,7 @@ public class IntervalDecomposition {
 	/**
 	 * The list of curveOriginal annotations used as anchors for the decomposition
 	 */
-	private List<CurveAnnotation> decomposition = new LinkedList<>();
+	private List<CurveAnnotation> decomposition = new ArrayList<>();
 	
 	
 	/**
@@ -108,7 +110,6 @@ public class IntervalDecomposition {
 		// check if we have to correct the length of the whole curve
 		if (curveLength - getIntervalLength(0) > 0.0001) {
 			warpIntervalLeft(0, curveLength/getIntervalLength(0));
-			getCurve().updateInterpolation();
 		}
 		
 		// check if we have to decompose already for given fixed split points
@@ -142,9 +143,7 @@ public class IntervalDecomposition {
 			// get factor for x-coordinate update
 			double warpFactor = curveLength / this.curve.length();
 			// update all x-coordinates excluding the first
-			IntStream.range(1, this.curve.size()).forEach(i -> getCurve().getX()[i] *= warpFactor);
-			// update spline
-			getCurve().updateInterpolation();
+			getCurve().warpX(1, this.curve.size(), 0, warpFactor);
 		}
 		// copy decomposition
 		this.decomposition.addAll( toCopy.decomposition );
@@ -185,21 +184,20 @@ public class IntervalDecomposition {
 
 		// copy warped curve data (without allocation of new arrays)
 		if (this.curve.size() != toCopy.curve.size()) throw new IllegalArgumentException("warped curve arrays differ in size");
-		System.arraycopy( toCopy.curve.getX(), 0, this.curve.getX(), 0, toCopy.curve.size());
-		System.arraycopy( toCopy.curve.getY(), 0, this.curve.getY(), 0, toCopy.curve.size());
+		this.curve.setCoordinates( toCopy.curve.getX(), toCopy.curve.getY() );
 		
 		// check if we have to correct the length of the whole curve
 		if (curveLength - this.curve.length() > 0.0001) {
 			// get factor for x-coordinate update
 			double warpFactor = curveLength / this.curve.length();
 			// update all x-coordinates excluding the first
-			IntStream.range(1, this.curve.size()).forEach(i -> this.curve.getX()[i] *= warpFactor);
+			this.curve.warpX(1, this.curve.size(), 0, warpFactor);
 		}
-		// update spline information
-		getCurve().updateInterpolation();
 		
-		// copy decomposition
-		this.decomposition.addAll( toCopy.decomposition );
+		// copy decomposition (reusing the capacity of the list)
+		for (int i=0; i<toCopy.decomposition.size(); i++) {
+			this.decomposition.add( toCopy.decomposition.get(i) );
+		}
 	}
 
 	/**
@@ -210,8 +208,6 @@ public class IntervalDecomposition {
 	 * 
 	 *    x_new[l] = x[l]
 	 *    x_new[p] = x_new[l] + (x[p]-x[l])*warpingFactor
-	 *    
-	 * NOTE: you have to call {@link #getCurve().updateSpline()} after calling this function
 	 *  
 	 * @param i index of the interval of interest
 	 * @param warpingFactor the warping factor to be applied
@@ -233,8 +229,42 @@ public class IntervalDecomposition {
 		double x_left = getCurve().getX()[getIntervalStart(i).getIndex()];
 		
 		// apply x-coordinate change to all points within the interval excluding the left boundary
-		IntStream.rangeClosed(getIntervalStart(i).getIndex()+1, getIntervalEnd(i).getIndex()
-				).forEach( p -> getCurve().getX()[p] = x_left + (getCurve().getX()[p]-x_left)*warpingFactor );
+		getCurve().warpX( getIntervalStart(i).getIndex()+1, getIntervalEnd(i).getIndex()+1, x_left, warpingFactor );
+	}
+	
+	/**
+	 * Warps the interval as {@link #warpIntervalLeft(int, double)} and shifts the 
+	 * x-coordinates of all following intervals by the change of the right 
+	 * interval boundary, i.e. the following intervals are not warped.
+	 * 
+	 * @param i index of the interval of interest
+	 * @param warpingFactor the warping factor to be applied
+	 * @throws OutOfRangeException if the index is no valid interval index
+	 * @throws IllegalArgumentException if the warping factor is <= 0.0
+	 */
+	protected void warpIntervalLeftAndShift(int i, double warpingFactor) throws OutOfRangeException,IllegalArgumentException {
+		// check data
+		if (i<0||i>=this.size()) throw new OutOfRangeException(i, 0, this.size()-1);
+		
+		final double[] x = getCurve().getX();
+		final int end = getIntervalEnd(i).getIndex();
+		// nothing to shift for the last interval
+		if (end+1 >= x.length) {
+			warpIntervalLeft(i, warpingFactor);
+			return;
+		}
+		
+		// shift of the right boundary by the warping (see Curve.warpX())
+		final double x_left = x[getIntervalStart(i).getIndex()];
+		final double xShift = (x_left + (x[end]-x_left)*warpingFactor) - x[end];
+		// shift following intervals first if stretched to keep the x-coordinates ordered
+		if (xShift > 0) {
+			getCurve().shiftX( end+1, x.length, xShift );
+			warpIntervalLeft(i, warpingFactor);
+		} else {
+			warpIntervalLeft(i, warpingFactor);
+			getCurve().shiftX( end+1, x.length, xShift );
+		}
 	}
 	
 	/**
@@ -246,8 +276,6 @@ public class IntervalDecomposition {
 	 *    x_new[r] = x[r]
 	 *    x_new[p] = x_new[r] - (x[r]-x[p])*warpingFactor
 	 *  
-	 * NOTE: you have to call {@link #getCurve().updateSpline()} after calling this function
-	 *  
 	 * @param i index of the interval of interest
 	 * @param warpingFactor the warping factor to be applied
 	 * @throws OutOfRangeException if the index is no valid interval index
@@ -268,8 +296,7 @@ public class IntervalDecomposition {
 		double x_right = getCurve().getX()[getIntervalEnd(i).getIndex()];
 		
 		// apply x-coordinate change to all points within the interval excluding the right boundary
-		IntStream.rangeClosed( getIntervalStart(i).getIndex()+1, getIntervalEnd(i).getIndex()-1
-				).forEach( p -> getCurve().getX()[p] = x_right - (x_right-getCurve().getX()[p])*warpingFactor );
+		getCurve().warpX( getIntervalStart(i).getIndex()+1, getIntervalEnd(i).getIndex(), x_right, warpingFactor );
 	}
 	
 	/**
@@ -442,13 +469,49 @@ public class IntervalDecomposition {
 		double leftIntervalLength = getIntervalLength(i);
 		double rightIntervalLength = fullIntervalLength - leftIntervalLength;
 		
-		// warp left interval segment (anchor = left boundary)
-		this.warpIntervalLeft(i, newRelPosSplit/(leftIntervalLength/fullIntervalLength));
-		// warp right interval segment (new interval i+1) (anchor = right boundary)
-		this.warpIntervalRight(i+1, (1.0-newRelPosSplit)/(rightIntervalLength/fullIntervalLength));
+		// warping factors of left segment (anchor = left boundary) 
+		// and right segment (new interval i+1) (anchor = right boundary)
+		double leftWarpingFactor = newRelPosSplit/(leftIntervalLength/fullIntervalLength);
+		double rightWarpingFactor = (1.0-newRelPosSplit)/(rightIntervalLength/fullIntervalLength);
+		// warp the shrinking segment first to keep the x-coordinates ordered
+		if (leftWarpingFactor > 1.0) {
+			this.warpIntervalRight(i+1, rightWarpingFactor);
+			this.warpIntervalLeft(i, leftWarpingFactor);
+		} else {
+			this.warpIntervalLeft(i, leftWarpingFactor);
+			this.warpIntervalRight(i+1, rightWarpingFactor);
+		}
+	}
+	
+	/**
+	 * Copies the decomposition of an interval from the given object, i.e. all 
+	 * decomposition anchors and x-coordinates within the interval boundaries.
+	 * Note, the object to copy from has to be a decomposition of the same original 
+	 * curve that contains the boundaries of the interval.
+	 * 
+	 * @param i index of the interval of interest
+	 * @param toCopy the object to copy the decomposition of the interval from
+	 * @throws NullArgumentException
+	 * @throws OutOfRangeException if the index is no valid interval index
+	 * @throws IllegalArgumentException if toCopy is representing a different original curve 
+	 * 			or does not contain the interval boundaries
+	 */
+	protected void copyInterval( int i, IntervalDecomposition toCopy ) throws NullArgumentException, OutOfRangeException, IllegalArgumentException {
+		if (toCopy==null) throw new NullArgumentException();
+		if (i<0||i>=this.size()) throw new OutOfRangeException(i, 0, this.size()-1);
+		if (!curveOriginal.equals(toCopy.curveOriginal)) throw new IllegalArgumentException("object 'toCopy' references a different original curve");
+		
+		// get interval boundaries within the object to copy from
+		int startIndex = toCopy.decomposition.indexOf( getIntervalStart(i) );
+		int endIndex = toCopy.decomposition.indexOf( getIntervalEnd(i) );
+		if (startIndex < 0 || endIndex < startIndex) throw new IllegalArgumentException("object 'toCopy' does not contain the boundaries of interval "+String.valueOf(i));
 		
-		// update spline information
-		getCurve().updateInterpolation();
+		// copy enclosed x-coordinates
+		int start = getIntervalStart(i).getIndex();
+		this.curve.copyX( toCopy.curve, start+1, FastMath.max( start+1, getIntervalEnd(i).getIndex() ));
+		
+		// copy enclosed decomposition anchors
+		this.decomposition.addAll( i+1, toCopy.decomposition.subList( startIndex+1, endIndex ) );
 	}
 	
 	/**
@@ -476,4 +539,49 @@ public class IntervalDecomposition {
 		return new LinkedList<CurveAnnotation>();
 	}
 	
+	/**
+	 * Access to the position of the first curve annotation within the interval 
+	 * (excluding its boundaries) within {@link AnnotatedCurve#getFilteredAnnotationArray()} 
+	 * of the original curve.
+	 * @param i the index of the interval of interest
+	 * @return the position of the first enclosed annotation
+	 * @throws OutOfRangeException if i is no valid index
+	 */
+	int getIntervalAnnotationStart(int i) throws OutOfRangeException {
+		return getAnnotationPosition( getIntervalStart(i).getIndex() ) + 1;
+	}
+	
+	/**
+	 * Access to the position after the last curve annotation within the interval 
+	 * (excluding its boundaries) within {@link AnnotatedCurve#getFilteredAnnotationArray()} 
+	 * of the original curve.
+	 * @param i the index of the interval of interest
+	 * @return the position of the right interval boundary 
+	 * 		(equal to {@link #getIntervalAnnotationStart(int)} if none enclosed)
+	 * @throws OutOfRangeException if i is no valid index
+	 */
+	int getIntervalAnnotationEnd(int i) throws OutOfRangeException {
+		return getAnnotationPosition( getIntervalEnd(i).getIndex() );
+	}
+	
+	/**
+	 * Binary search of a decomposition anchor within the filtered annotations of 
+	 * the original curve, which are ordered by their coordinate index.
+	 * @param index the coordinate index of the anchor
+	 * @return the position of the anchor within {@link AnnotatedCurve#getFilteredAnnotationArray()}
+	 */
+	private int getAnnotationPosition( int index ) {
+		final CurveAnnotation[] annotations = curveOriginal.getFilteredAnnotationArray();
+		int lo = 0, hi = annotations.length-1;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (annotations[mid].getIndex() < index) {
+				lo = mid+1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+	
 }
@@ -49,5 +49,16 @@ public class LinearCurveDistanceWarpingCorrection implements
 	public double getWarpCorrectedDistance(double warpingFactor, double distance) {
 		return FastMath.max(1d,warpScaling*warpingFactor)*distance;
 	}
+	
+	/**
+	 * Reverses the linear distance correction, i.e. computes
+	 * 
+	 *   correctedDistance / max(1, warpScaling*warpingFactor)
+	 * 
+	 */
+	@Override
+	public double getMaxUncorrectedDistance(double warpingFactor, double correctedDistance) {
+		return correctedDistance / FastMath.max(1d,warpScaling*warpingFactor);
+	}
 
 }
@@ -1,5 +1,6 @@
 package de.uni_freiburg.bioinf.mica.algorithm;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -7,6 +8,16 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -60,6 +71,97 @@ public class MICA {
 	 * to be applied.
 	 */
 	final double warpScaling;
+	
+	/**
+	 * The number of threads to be used for the computation of pairwise
+	 * alignments during the progressive alignment (default 1 = serial).
+	 */
+	int threads = 1;
+	
+	/**
+	 * Whether or not the consensus of fused alignments is recomputed from all
+	 * curves of the alignment (verification mode) instead of being derived 
+	 * incrementally from the aligned consensi of the fused subalignments
+	 */
+	boolean fullConsensusComputation = false;
+	
+	/**
+	 * The generator of a guide tree from the initial pairwise distances along
+	 * which the subalignments are fused, or null if the subalignments are fused 
+	 * progressively based on the pairwise distances of their consensi (default)
+	 */
+	GuideTreeGenerator guideTreeGenerator = null;
+	
+	/**
+	 * The number of nearest candidates (according to {@link #candidateDistance})
+	 * each subalignment is aligned with during the progressive alignment, or 0 if 
+	 * all pairwise alignments are computed (default)
+	 */
+	int candidateNeighbors = 0;
+	
+	/**
+	 * The cheap distance used to select the nearest candidates if {@link #candidateNeighbors} > 0
+	 */
+	ResampledCurveDistance candidateDistance = ResampledCurveDistance.CURVE_MEAN_ABSOLUTE;
+	
+	/**
+	 * Whether or not pairwise alignments are only computed if their distance lower 
+	 * bound is below the best distance found so far during the progressive alignment
+	 */
+	boolean lazyPairEvaluation = false;
+	
+	/**
+	 * Whether or not reference-based alignments align each curve independently 
+	 * to the reference (star alignment) instead of progressively
+	 */
+	boolean referenceStarAlignment = false;
+	
+	/**
+	 * Whether or not the pairwise alignments of a fused subalignment are warm-started
+	 * from the pairwise alignments of the subalignments it was fused from
+	 */
+	boolean warmStart = false;
+	
+	/**
+	 * The number of integration points used to preselect candidate decompositions 
+	 * at coarse resolution or 0 if all candidates are scored at full resolution (default)
+	 */
+	int coarseSampleNumber = 0;
+	
+	/**
+	 * The maximal number of skipped annotations of the banded dynamic programming 
+	 * used for the pairwise alignments (see {@link BandedPICA#setMaxSkip(int)}) 
+	 * or a negative value if the greedy {@link PICA} is used (default)
+	 */
+	int bandedMaxSkip = -1;
+	
+	/**
+	 * The number of best candidate decompositions at coarse resolution that are 
+	 * scored at full resolution
+	 */
+	int coarseCandidates = 1;
+	
+	/**
+	 * The number of pairwise alignments computed during the last alignment
+	 */
+	long pairwiseAlignmentNumber = 0;
+	
+	/**
+	 * The number of pairwise alignments saved during the last alignment
+	 * compared to the computation of all pairwise alignments during the progressive alignment
+	 */
+	long savedPairwiseAlignmentNumber = 0;
+	
+	/**
+	 * The number of decompositions selected from coarse preselected candidates during the last alignment
+	 */
+	long coarseSelectionNumber = 0;
+	
+	/**
+	 * The number of decompositions selected during the last alignment that differ 
+	 * from the best candidate at coarse resolution
+	 */
+	long coarseDisagreementNumber = 0;
 
 	/**
 	 * Constructs an aligner that uses the given distance function and
@@ -137,6 +239,312 @@ public class MICA {
 	}
 	
 	
+	/**
+	 * Sets the number of threads to be used for the computation of the pairwise
+	 * alignments during the progressive alignment. The resulting alignment is
+	 * independent of the number of threads used.
+	 * 
+	 * @param threads the number of threads to be used (>=1), where 1 results in serial computation
+	 * @throws OutOfRangeException if threads < 1
+	 */
+	public void setThreads( int threads ) throws OutOfRangeException {
+		if (threads < 1) throw new OutOfRangeException(threads, 1, Integer.MAX_VALUE);
+		this.threads = threads;
+	}
+	
+	/**
+	 * Access to the number of threads used for pairwise alignment computations
+	 * @return the number of threads (>=1)
+	 */
+	public int getThreads() {
+		return threads;
+	}
+	
+	/**
+	 * Sets whether or not the consensus of a fused alignment is recomputed
+	 * from all its curves (verification mode) or incrementally derived from 
+	 * the aligned consensi of the fused subalignments (default).
+	 * @param fullConsensusComputation true if the consensus is to be recomputed from all curves
+	 */
+	public void setFullConsensusComputation( boolean fullConsensusComputation ) {
+		this.fullConsensusComputation = fullConsensusComputation;
+	}
+	
+	/**
+	 * Whether or not the consensus of a fused alignment is recomputed from all its curves
+	 * @return true if the consensus is recomputed from all curves; false if derived incrementally
+	 */
+	public boolean isFullConsensusComputation() {
+		return fullConsensusComputation;
+	}
+	
+	/**
+	 * Sets the generator of a guide tree that is computed from the initial pairwise 
+	 * distances only. If set, {@link #align(IntervalDecomposition...)} fuses the 
+	 * subalignments along this guide tree, which requires only one pairwise alignment
+	 * per inner node of the tree in addition to the initial pairwise alignments.
+	 * 
+	 * @param guideTreeGenerator the guide tree generator to be used or null if the
+	 *    subalignments are to be fused progressively based on the pairwise distances 
+	 *    of their consensi (default)
+	 */
+	public void setGuideTreeGenerator( GuideTreeGenerator guideTreeGenerator ) {
+		this.guideTreeGenerator = guideTreeGenerator;
+	}
+	
+	/**
+	 * Access to the guide tree generator used
+	 * @return the guide tree generator or null if subalignments are fused progressively
+	 */
+	public GuideTreeGenerator getGuideTreeGenerator() {
+		return guideTreeGenerator;
+	}
+	
+	/**
+	 * Enables the approximate progressive alignment of large curve sets, where 
+	 * pairwise alignments are only computed for a sparse graph of candidate pairs.
+	 * Initially, each curve is aligned only with its k nearest curves according to the
+	 * given cheap distance, which is computed on the same number of equidistant samples
+	 * as the distance function. A fused subalignment is aligned with all candidates of 
+	 * the fused subalignments, or with all remaining subalignments if none is left.
+	 * 
+	 * The approximation is only applied by {@link #align(IntervalDecomposition...)} 
+	 * if no guide tree generator is set.
+	 * 
+	 * @param neighbors the number of nearest candidates (>=0), where 0 disables the approximation (default)
+	 * @param candidateDistance the cheap distance used to select the candidates
+	 * @throws NullArgumentException
+	 * @throws OutOfRangeException if neighbors < 0
+	 */
+	public void setCandidateNeighbors( int neighbors, ResampledCurveDistance candidateDistance ) throws NullArgumentException, OutOfRangeException {
+		if (candidateDistance == null) throw new NullArgumentException();
+		if (neighbors < 0) throw new OutOfRangeException(neighbors, 0, Integer.MAX_VALUE);
+		this.candidateNeighbors = neighbors;
+		this.candidateDistance = candidateDistance;
+	}
+	
+	/**
+	 * Access to the number of nearest candidates each subalignment is aligned with
+	 * @return the number of nearest candidates or 0 if all pairwise alignments are computed
+	 */
+	public int getCandidateNeighbors() {
+		return candidateNeighbors;
+	}
+	
+	/**
+	 * Access to the cheap distance used to select the nearest candidates
+	 * @return the cheap distance
+	 */
+	public ResampledCurveDistance getCandidateDistance() {
+		return candidateDistance;
+	}
+	
+	/**
+	 * Sets whether or not pairwise alignments are computed lazily during the
+	 * progressive alignment, i.e. in the order of a cheap lower bound of their 
+	 * distance until the best distance found is below all remaining bounds.
+	 * The resulting alignment is identical to the one computed from all pairwise
+	 * alignments but typically needs far fewer pairwise alignments.
+	 * 
+	 * Lazy evaluation is not applied if a guide tree generator is set (which 
+	 * needs all initial pairwise distances) or if candidate preselection is used
+	 * (see {@link #setCandidateNeighbors(int, ResampledCurveDistance)}).
+	 * 
+	 * @param lazyPairEvaluation whether or not to compute pairwise alignments lazily
+	 */
+	public void setLazyPairEvaluation( boolean lazyPairEvaluation ) {
+		this.lazyPairEvaluation = lazyPairEvaluation;
+	}
+	
+	/**
+	 * Whether or not pairwise alignments are computed lazily
+	 * @return true if pairwise alignments are computed lazily
+	 */
+	public boolean isLazyPairEvaluation() {
+		return lazyPairEvaluation;
+	}
+	
+	/**
+	 * Sets whether or not {@link #alignToReference(IntervalDecomposition, IntervalDecomposition...)}
+	 * computes a star alignment, i.e. each curve is aligned independently (and in parallel)
+	 * to the fixed reference via {@link PICA#alignToReference(IntervalDecomposition, IntervalDecomposition)}.
+	 * This needs only one pairwise alignment per curve instead of the progressive
+	 * fusion of the curves with each other.
+	 * 
+	 * @param referenceStarAlignment whether or not to compute star alignments to the reference
+	 */
+	public void setReferenceStarAlignment( boolean referenceStarAlignment ) {
+		this.referenceStarAlignment = referenceStarAlignment;
+	}
+	
+	/**
+	 * Whether or not reference-based alignments are star alignments
+	 * @return true if each curve is aligned independently to the reference
+	 */
+	public boolean isReferenceStarAlignment() {
+		return referenceStarAlignment;
+	}
+	
+	/**
+	 * Sets whether or not the pairwise alignments of a fused subalignment with all 
+	 * others are warm-started during the progressive alignment. If so, each pairwise
+	 * alignment is seeded with the decomposition of the better of the pairwise 
+	 * alignments of the two fused subalignments with the other one, see 
+	 * {@link PICA#align(IntervalDecomposition, double, IntervalDecomposition, double, List)}. 
+	 * This saves most of the candidate screening for late fusions, but the resulting 
+	 * alignment can differ from the one computed from scratch.
+	 * 
+	 * Warm starts are not applied for alignments along a guide tree.
+	 * 
+	 * @param warmStart whether or not to warm-start the pairwise alignments of fused subalignments
+	 */
+	public void setWarmStart( boolean warmStart ) {
+		this.warmStart = warmStart;
+	}
+	
+	/**
+	 * Whether or not the pairwise alignments of fused subalignments are warm-started
+	 * @return true if pairwise alignments are warm-started
+	 */
+	public boolean isWarmStart() {
+		return warmStart;
+	}
+	
+	/**
+	 * Enables the coarse-to-fine scoring of candidate decompositions within the 
+	 * pairwise alignments, see {@link PICA#setCoarseScoring(int, int)}.
+	 * 
+	 * @param samples the number of integration points of the coarse distance function (>=2) or 0 to disable the coarse scoring (default)
+	 * @param candidates the number of best candidates at coarse resolution to be scored at full resolution (>=1)
+	 * @throws OutOfRangeException if samples < 0 or samples == 1 or candidates < 1
+	 */
+	public void setCoarseScoring( int samples, int candidates ) throws OutOfRangeException {
+		if (samples < 0 || samples == 1) throw new OutOfRangeException(samples, 2, Integer.MAX_VALUE);
+		if (candidates < 1) throw new OutOfRangeException(candidates, 1, Integer.MAX_VALUE);
+		this.coarseSampleNumber = samples;
+		this.coarseCandidates = candidates;
+	}
+	
+	/**
+	 * Sets whether the pairwise alignments are computed via the banded dynamic 
+	 * programming of {@link BandedPICA} instead of the greedy {@link PICA} (default).
+	 * Note, {@link BandedPICA} ignores the seeds of warm-started alignments (see 
+	 * {@link #setWarmStart(boolean)}) and the coarse-to-fine scoring 
+	 * (see {@link #setCoarseScoring(int, int)}).
+	 * 
+	 * @param maxSkip the maximal number of skipped annotations of the banded 
+	 * 			dynamic programming (see {@link BandedPICA#setMaxSkip(int)}) or 
+	 * 			a negative value to use the greedy {@link PICA}
+	 */
+	public void setBandedAlignment( int maxSkip ) {
+		this.bandedMaxSkip = maxSkip;
+	}
+	
+	/**
+	 * Access to the maximal number of skipped annotations of the banded dynamic programming
+	 * @return the maximal number of skipped annotations or a negative value if the greedy {@link PICA} is used
+	 */
+	public int getBandedMaxSkip() {
+		return bandedMaxSkip;
+	}
+	
+	/**
+	 * Access to the number of integration points used to score candidate decompositions at coarse resolution
+	 * @return the number of integration points or 0 if the coarse scoring is disabled
+	 */
+	public int getCoarseSampleNumber() {
+		return coarseSampleNumber;
+	}
+	
+	/**
+	 * Access to the number of best candidates at coarse resolution that are scored at full resolution
+	 * @return the number of candidates scored at full resolution
+	 */
+	public int getCoarseCandidates() {
+		return coarseCandidates;
+	}
+	
+	/**
+	 * Access to the number of decompositions selected from candidates preselected
+	 * at coarse resolution during the last successful alignment
+	 * @return the number of decompositions selected after a coarse preselection
+	 */
+	public long getCoarseSelectionNumber() {
+		return coarseSelectionNumber;
+	}
+	
+	/**
+	 * Access to the number of decompositions selected during the last successful 
+	 * alignment that differ from the best candidate at coarse resolution
+	 * @return the number of decompositions that differ from the coarse choice
+	 */
+	public long getCoarseDisagreementNumber() {
+		return coarseDisagreementNumber;
+	}
+	
+	/**
+	 * Access to the number of pairwise alignments computed during the last 
+	 * successful alignment
+	 * @return the number of pairwise alignments computed
+	 */
+	public long getPairwiseAlignmentNumber() {
+		return pairwiseAlignmentNumber;
+	}
+	
+	/**
+	 * Access to the number of pairwise alignments that were saved during the last
+	 * successful alignment compared to a progressive alignment that computes
+	 * all pairwise alignments, i.e. (n-1)^2 for n initial subalignments.
+	 * @return the number of pairwise alignments saved
+	 */
+	public long getSavedPairwiseAlignmentNumber() {
+		return savedPairwiseAlignmentNumber;
+	}
+	
+	/**
+	 * Stores the statistics of the pairwise alignments computed by the given handler
+	 * @param handler the handler used for the alignment
+	 * @param subalignments the initial number of subalignments
+	 */
+	private void setPairwiseAlignmentStatistics( ProgressiveAlignmentHandler handler, int subalignments ) {
+		pairwiseAlignmentNumber = handler.getPairwiseAlignmentNumber();
+		// all initial pairs and each fused subalignment with all remaining ones 
+		long allPairwiseAlignments = (long)(subalignments-1) * (long)(subalignments-1);
+		savedPairwiseAlignmentNumber = allPairwiseAlignments - pairwiseAlignmentNumber;
+		setCoarseScoringStatistics( handler.aligner );
+	}
+	
+	/**
+	 * Stores the statistics of the coarse-to-fine scoring of the given pairwise aligner
+	 * @param pica the pairwise aligner used for the alignment
+	 */
+	private void setCoarseScoringStatistics( PICA pica ) {
+		coarseSelectionNumber = pica.getCoarseSelectionNumber();
+		coarseDisagreementNumber = pica.getCoarseDisagreementNumber();
+	}
+	
+	/**
+	 * Creates the pairwise aligner to be used for distance computations
+	 * given the parameters of this aligner.
+	 * @return a new pairwise aligner
+	 */
+	protected PICA createPairwiseAligner() {
+		final PICA pica;
+		if (bandedMaxSkip >= 0) {
+			BandedPICA banded = (warpScaling < 0) 
+					? new BandedPICA(distanceFunction,maxDistortionRatio,maxRelXShift,minRelIntervalLength)
+					: new BandedPICA(distanceFunction,maxDistortionRatio,maxRelXShift,minRelIntervalLength,warpScaling);
+			banded.setMaxSkip( bandedMaxSkip );
+			pica = banded;
+		} else {
+			pica = (warpScaling < 0) 
+					? new PICA(distanceFunction,maxDistortionRatio,maxRelXShift,minRelIntervalLength)
+					: new PICA(distanceFunction,maxDistortionRatio,maxRelXShift,minRelIntervalLength,warpScaling);
+		}
+		pica.setCoarseScoring( coarseSampleNumber, coarseCandidates );
+		return pica;
+	}
+	
 	/**
 	 * Computes a progressive multiple alignment of the given curves. 
 	 * The alignment is based on the pairwise alignment of consensus curves. 
@@ -168,59 +576,90 @@ public class MICA {
 		if ( ! Arrays.stream(curves).map( c -> c.getCurveOriginal().getName()).allMatch( new HashSet<String>()::add )) throw new IllegalArgumentException("some curve names are not unique");
 
 		// create pairwise aligner
-		PICA pica = null;
-		if (warpScaling < 0) {
-			pica = new PICA(distanceFunction,maxDistortionRatio,maxRelXShift,minRelIntervalLength);
-		} else {
-			pica = new PICA(distanceFunction,maxDistortionRatio,maxRelXShift,minRelIntervalLength,warpScaling);
-		}
-		
-		// create distance handler
-		ProgressiveAlignmentHandler handler = new ProgressiveAlignmentHandler( pica );
-		
-		// fill list of initial alignments = one curve per alignment
-		// add to progressive alignment handler (computes automatically distances)
-		IntStream.range(0, curves.length).forEach( c -> handler.addSubAlignment( new MicaData(curves[c]) ) );
+		PICA pica = createPairwiseAligner();
+		
+		// create thread pool for the pairwise alignment computations if needed
+		ExecutorService executor = (threads > 1) ? Executors.newFixedThreadPool( threads ) : null;
+		try {
+		
+			// create distance handler
+			ProgressiveAlignmentHandler handler = (candidateNeighbors > 0 && guideTreeGenerator == null)
+					? new CandidateAlignmentHandler( pica, executor, candidateNeighbors, candidateDistance, distanceFunction.getSampleNumber() )
+					// compute pairwise alignments lazily if possible
+					: new ProgressiveAlignmentHandler( pica, executor, lazyPairEvaluation && guideTreeGenerator == null );
+			handler.setWarmStart( warmStart );
+		
+			// fill list of initial alignments = one curve per alignment
+			List<MicaData> initialAlignments = Arrays.stream(curves).map( c -> new MicaData(c) ).collect(Collectors.toList());
+			// add to progressive alignment handler (computes automatically distances)
+			handler.addSubAlignments( initialAlignments );
+			
+			// fuse subalignments along precomputed guide tree if requested
+			if (guideTreeGenerator != null) {
+				
+				// get final alignment
+				MicaData finalAlignment = fuseAlongGuideTree( handler, initialAlignments );
+				
+				// stop if computation is to be interrupted
+				if (finalAlignment == null || Thread.currentThread().isInterrupted())
+					return null;
+				
+				// sort final alignment such that curve order equals input order
+				setOriginalSorting( curves, finalAlignment.curves );
+				
+				// store statistics
+				setPairwiseAlignmentStatistics( handler, curves.length );
+				
+				// return final alignment including all according subalignments
+				return finalAlignment;
+			}
 		
-		// fuse subalignments until all are fused to one overall alignment
-		while ( handler.size() > 1 ) {
+			// fuse subalignments until all are fused to one overall alignment
+			while ( handler.size() > 1 ) {
 			
-			// stop if computation is to be interrupted
-			if (Thread.currentThread().isInterrupted())
-				return null;
+				// stop if computation is to be interrupted
+				if (Thread.currentThread().isInterrupted())
+					return null;
 			
-			// get next subalignment to be fused
-			Pair<MicaData,MicaData> nextToFuse = handler.getMinDistPair();
-			// get pairwise alignment information
-			PICA.PicaData nextToFusePica = handler.getPairwiseAlignment( nextToFuse );
+				// get next subalignment to be fused
+				Pair<MicaData,MicaData> nextToFuse = handler.getMinDistPair();
+				// stop if computation was interrupted
+				if (nextToFuse == null)
+					return null;
+				// get pairwise alignment information
+				PICA.PicaData nextToFusePica = handler.getPairwiseAlignment( nextToFuse );
 			
-			// remove subalignments from handler
-			handler.removeSubAlignment( nextToFuse.getLeft() );
-			handler.removeSubAlignment( nextToFuse.getRight() );
+				// create new fused alignment data
+				MicaData newAlignment = fuseAlignments( nextToFuse.getLeft(), nextToFuse.getRight(), nextToFusePica );
 			
-			// create new fused alignment data
-			MicaData newAlignment = fuseAlignments( nextToFuse.getLeft(), nextToFuse.getRight(), nextToFusePica );
+				// stop if computation is to be interrupted
+				if (Thread.currentThread().isInterrupted())
+					return null;
 			
+				// replace subalignments by new alignment in handler
+				handler.replaceSubAlignments( nextToFuse.getLeft(), nextToFuse.getRight(), newAlignment );
+			}
+
+			// get final alignment
+			MicaData finalAlignment = handler.getAlignments().get(0);
+		
+			// sort final alignment such that curve order equals input order
+			setOriginalSorting( curves, finalAlignment.curves );
+		
 			// stop if computation is to be interrupted
 			if (Thread.currentThread().isInterrupted())
 				return null;
+		
+			// store statistics
+			setPairwiseAlignmentStatistics( handler, curves.length );
+			
+			// return final alignment including all according subalignments
+			return finalAlignment;
 			
-			// add new alignment to handler
-			handler.addSubAlignment( newAlignment );
+		} finally {
+			// release the threads used for pairwise alignment computations
+			if (executor != null) executor.shutdownNow();
 		}
-
-		// get final alignment
-		MicaData finalAlignment = handler.getAlignments().get(0);
-		
-		// sort final alignment such that curve order equals input order
-		setOriginalSorting( curves, finalAlignment.curves );
-		
-		// stop if computation is to be interrupted
-		if (Thread.currentThread().isInterrupted())
-			return null;
-		
-		// return final alignment including all according subalignments
-		return finalAlignment;
 	}
 	/**
 	 * Computes a pairwise alignment that minimizes the distance function for the
@@ -233,89 +672,321 @@ public class MICA {
 	 * When a consensus is aligned with a consensus that represents the reference curve,
 	 * only the weight of the reference is considered.
 	 * 
+	 * If {@link #isReferenceStarAlignment()}, each curve is aligned independently to
+	 * the reference instead, see {@link #alignToReferenceStar(PICA, IntervalDecomposition, IntervalDecomposition[])}.
+	 * 
 	 * @param reference the reference to align all other curves to
 	 * @param curves an array of curves to align
 	 * @return the final alignment including all subalignments in a tree data structure
 	 * @throws NullArgumentException
 	 * @throws IllegalArgumentException if the curves are not compatible, i.e. show initially an incompatible decomposition
 	 */
-	public MicaData alignToReference( IntervalDecomposition reference, IntervalDecomposition... curves )
-			throws NullArgumentException, IllegalArgumentException
-	{
-		// check if array given
-		if (curves==null) throw new NullArgumentException();
-		// check if array does not contain null
-		if (Arrays.stream(curves).anyMatch( c -> c == null)) throw new NullArgumentException();
-		// throw illegal argument exception if nothing is added
-		if (curves.length == 0) throw new IllegalAccessError("no curve given to be aligned"); 
-		// check all curves compatible to first curve
-		if (Arrays.stream(curves).anyMatch(c -> !curves[0].isCompatible(c)) ) throw new IllegalArgumentException("given curves are incompatible");
-		// check if all curve names differ (by adding them one by one to a HashSet)
-		if ( ! Arrays.stream(curves).map( c -> c.getCurveOriginal().getName()).allMatch( new HashSet<String>()::add )) throw new IllegalArgumentException("some curve names are not unique");
+	public MicaData alignToReference( IntervalDecomposition reference, IntervalDecomposition... curves )
+			throws NullArgumentException, IllegalArgumentException
+	{
+		// check if array given
+		if (curves==null) throw new NullArgumentException();
+		// check if array does not contain null
+		if (Arrays.stream(curves).anyMatch( c -> c == null)) throw new NullArgumentException();
+		// throw illegal argument exception if nothing is added
+		if (curves.length == 0) throw new IllegalAccessError("no curve given to be aligned"); 
+		// check all curves compatible to first curve
+		if (Arrays.stream(curves).anyMatch(c -> !curves[0].isCompatible(c)) ) throw new IllegalArgumentException("given curves are incompatible");
+		// check if all curve names differ (by adding them one by one to a HashSet)
+		if ( ! Arrays.stream(curves).map( c -> c.getCurveOriginal().getName()).allMatch( new HashSet<String>()::add )) throw new IllegalArgumentException("some curve names are not unique");
+		
+		// create pairwise aligner
+		PICA pica = createPairwiseAligner();
+		
+		// align each curve independently to the reference if requested
+		if (referenceStarAlignment) {
+			return alignToReferenceStar( pica, reference, curves );
+		}
+		
+		// create thread pool for the pairwise alignment computations if needed
+		ExecutorService executor = (threads > 1) ? Executors.newFixedThreadPool( threads ) : null;
+		try {
+		
+			// create distance handler
+			ProgressiveReferenceAlignmentHandler handler = new ProgressiveReferenceAlignmentHandler( pica, executor, new MicaData(reference), lazyPairEvaluation );
+			handler.setWarmStart( warmStart );
+		
+			// fill list of initial alignments = one curve per alignment
+			// add to progressive alignment handler (computes automatically distances)
+			handler.addSubAlignments( Arrays.stream(curves).map( c -> new MicaData(c) ).collect(Collectors.toList()) );
+		
+			// fuse subalignments until all are fused to one overall alignment
+			while ( handler.size() > 1 ) {
+			
+				// stop if thread is interrupted
+				if (Thread.currentThread().isInterrupted())
+					return null;
+			
+				// get next subalignment to be fused
+				Pair<MicaData,MicaData> nextToFuse = handler.getMinDistPair();
+				// stop if computation was interrupted
+				if (nextToFuse == null)
+					return null;
+				// get pairwise alignment information
+				PICA.PicaData nextToFusePica = handler.getPairwiseAlignment( nextToFuse );
+			
+				// check if we handle the reference
+				boolean containsReference = handler.isReference( nextToFuse.getLeft()) || handler.isReference( nextToFuse.getRight());
+			
+				// create new fused alignment data
+				MicaData newAlignment = fuseAlignments( nextToFuse.getLeft(), nextToFuse.getRight(), nextToFusePica );
+			
+				// stop if thread is interrupted
+				if (Thread.currentThread().isInterrupted())
+					return null;
+			
+				// keep the pairwise alignments of both subalignments to warm-start the new alignment
+				handler.storeWarmStartData( nextToFuse.getLeft(), nextToFuse.getRight(), newAlignment );
+				
+				// remove subalignments from handler
+				handler.removeSubAlignment( nextToFuse.getLeft() );
+				handler.removeSubAlignment( nextToFuse.getRight() );
+			
+				// add new alignment to handler
+				if (containsReference) {
+					handler.addReference( newAlignment );
+				} else {
+					handler.addSubAlignment( newAlignment );
+				}
+			}
+
+			// get final alignment
+			MicaData finalAlignment = handler.getAlignments().get(0);
+		
+			// sort final alignment such that curve order equals input order
+			setOriginalSorting( curves, finalAlignment.curves );
+		
+			// stop if computation is to be interrupted
+			if (Thread.currentThread().isInterrupted())
+				return null;
+		
+			// store statistics (the reference is an additional subalignment)
+			setPairwiseAlignmentStatistics( handler, curves.length+1 );
+			
+			// return final alignment including all according subalignments
+			return finalAlignment;
+			
+		} finally {
+			// release the threads used for pairwise alignment computations
+			if (executor != null) executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Computes a star alignment of the given curves to the reference, i.e. each 
+	 * curve is aligned independently (in parallel if {@link #threads} > 1) to the 
+	 * unchanged reference.
+	 * 
+	 * The resulting alignment holds the reference followed by all curves (input order)
+	 * and the consensus of all of them. Its {@link MicaData#fusedAlignments} are the
+	 * single-curve alignments of the reference and each curve; since there is no 
+	 * single pairwise alignment to fuse them, {@link MicaData#fuseGuide} is null.
+	 * 
+	 * @param pica the pairwise aligner to be used
+	 * @param reference the reference to align all other curves to
+	 * @param curves the curves to align
+	 * @return the final alignment or null if the computation was interrupted
+	 */
+	protected MicaData alignToReferenceStar( PICA pica, IntervalDecomposition reference, IntervalDecomposition[] curves )
+	{
+		MicaData referenceAlignment = new MicaData( reference );
+		
+		// create thread pool for the pairwise alignment computations if needed
+		ExecutorService executor = (threads > 1) ? Executors.newFixedThreadPool( threads ) : null;
+		try {
+			
+			// single-curve alignments of each curve
+			List<MicaData> curveAlignments = Arrays.stream(curves).map( c -> new MicaData(c) ).collect(Collectors.toList());
+			
+			// align each curve to the reference and apply the alignment to a copy of the curve
+			List<Callable<IntervalDecomposition>> tasks = new ArrayList<>(curves.length);
+			for ( MicaData curveAlignment : curveAlignments ) {
+				tasks.add( () -> {
+					PICA.PicaData pairwise = pica.alignToReference( referenceAlignment.consensus, curveAlignment.consensus );
+					// stop if computation is to be interrupted
+					if (pairwise == null)
+						return null;
+					// fusion ensures the same coordinate update as for progressive alignments
+					MicaData fused = fuseAlignments( referenceAlignment, curveAlignment, pairwise );
+					return fused == null ? null : fused.curves.get( 1 );
+				} );
+			}
+			List<IntervalDecomposition> alignedCurves = computeAll( executor, tasks );
+			
+			// stop if computation is to be interrupted
+			if (alignedCurves == null || alignedCurves.contains( null ) || Thread.currentThread().isInterrupted())
+				return null;
+			
+			// assemble star alignment
+			List<IntervalDecomposition> starCurves = new ArrayList<>( curves.length+1 );
+			starCurves.add( new IntervalDecomposition( reference ) );
+			starCurves.addAll( alignedCurves );
+			MicaData starAlignment = new MicaData( starCurves );
+			starAlignment.fusedAlignments.add( referenceAlignment );
+			starAlignment.fusedAlignments.addAll( curveAlignments );
+			
+			// store statistics : one pairwise alignment per curve
+			pairwiseAlignmentNumber = curves.length;
+			savedPairwiseAlignmentNumber = (long)curves.length * (long)curves.length - pairwiseAlignmentNumber;
+			setCoarseScoringStatistics( pica );
+			
+			return starAlignment;
+			
+		} finally {
+			// release the threads used for pairwise alignment computations
+			if (executor != null) executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Adds the given curves to an existing alignment without recomputing it.
+	 * 
+	 * The new curves are aligned with each other first (see {@link #align(IntervalDecomposition...)}).
+	 * The consensus of the new curves is then aligned to the consensus of the existing 
+	 * alignment (weighted by the number of curves represented) and both are fused via
+	 * {@link #fuseAlignments(MicaData, MicaData, PICA.PicaData)}, i.e. exactly
+	 * as for a fusion step of the progressive alignment. Thus, only the pairwise alignments
+	 * among the new curves and a single one for the fusion are computed.
+	 * 
+	 * The given alignment is not changed. The resulting alignment holds the curves of
+	 * the existing alignment followed by the new curves (input order) and has the 
+	 * existing and new alignment as {@link MicaData#fusedAlignments}.
+	 * 
+	 * @param alignment the existing alignment to extend
+	 * @param newCurves the curves to add
+	 * @return the extended alignment or null if the computation was interrupted
+	 * @throws NullArgumentException
+	 * @throws IllegalArgumentException if no curve is given, the curves are incompatible with
+	 * 			the alignment or the curve names are not unique
+	 */
+	public MicaData addToAlignment( MicaData alignment, IntervalDecomposition... newCurves )
+			throws NullArgumentException, IllegalArgumentException
+	{
+		// stop if computation is to be interrupted
+		if (Thread.currentThread().isInterrupted())
+			return null;
+		
+		if (alignment == null || newCurves == null) throw new NullArgumentException();
+		if (Arrays.stream(newCurves).anyMatch( c -> c == null)) throw new NullArgumentException();
+		if (alignment.consensus == null || alignment.curves.isEmpty()) throw new IllegalArgumentException("alignment is empty");
+		if (newCurves.length == 0) throw new IllegalArgumentException("no curve given to be added");
+		// check all curves compatible to the alignment
+		if (Arrays.stream(newCurves).anyMatch(c -> !alignment.consensus.isCompatible(c)) ) throw new IllegalArgumentException("given curves are incompatible with the alignment");
+		// check if all curve names differ from each other and from the aligned curves
+		HashSet<String> curveNames = alignment.curves.stream().map( c -> c.getCurveOriginal().getName() ).collect( Collectors.toCollection( HashSet::new ) );
+		if ( ! Arrays.stream(newCurves).map( c -> c.getCurveOriginal().getName()).allMatch( curveNames::add )) throw new IllegalArgumentException("some curve names are not unique");
+		
+		// align the new curves with each other
+		MicaData newAlignment = (newCurves.length == 1) ? new MicaData( newCurves[0] ) : align( newCurves );
+		long newPairwiseAlignments = (newCurves.length == 1) ? 0 : pairwiseAlignmentNumber;
+		long newCoarseSelections = (newCurves.length == 1) ? 0 : coarseSelectionNumber;
+		long newCoarseDisagreements = (newCurves.length == 1) ? 0 : coarseDisagreementNumber;
+		
+		// stop if computation is to be interrupted
+		if (newAlignment == null || Thread.currentThread().isInterrupted())
+			return null;
+		
+		// align the consensi with according weights
+		PICA pica = createPairwiseAligner();
+		PICA.PicaData pairwise = pica.align( alignment.consensus, alignment.curves.size(), newAlignment.consensus, newAlignment.curves.size() );
+		
+		// stop if computation is to be interrupted
+		if (pairwise == null)
+			return null;
+		
+		// fuse the new curves into the alignment
+		MicaData extendedAlignment = fuseAlignments( alignment, newAlignment, pairwise );
+		
+		// store statistics (compared to the progressive alignment of all curves)
+		pairwiseAlignmentNumber = newPairwiseAlignments + 1;
+		long allCurves = alignment.curves.size() + newCurves.length;
+		savedPairwiseAlignmentNumber = (allCurves-1) * (allCurves-1) - pairwiseAlignmentNumber;
+		coarseSelectionNumber = newCoarseSelections + pica.getCoarseSelectionNumber();
+		coarseDisagreementNumber = newCoarseDisagreements + pica.getCoarseDisagreementNumber();
+		
+		return extendedAlignment;
+	}
+	
+	/**
+	 * Fuses the initial alignments along the guide tree computed by {@link #guideTreeGenerator}
+	 * from the initial pairwise alignments stored in the handler. 
+	 * 
+	 * The initial pairwise alignments are reused for the fusion of two single curves. 
+	 * For all other inner nodes of the guide tree, one pairwise alignment of the 
+	 * consensi of the fused subalignments is computed.
+	 * 
+	 * @param handler the handler that holds the pairwise alignments of all initial alignments
+	 * @param initialAlignments the initial alignments (one per curve) in the order of the guide tree's cluster ids
+	 * @return the final alignment or null if the computation was interrupted
+	 */
+	protected MicaData fuseAlongGuideTree( ProgressiveAlignmentHandler handler, List<MicaData> initialAlignments ) {
 		
-		// create pairwise aligner
-		PICA pica = null;
-		if (warpScaling < 0) {
-			pica = new PICA(distanceFunction,maxDistortionRatio,maxRelXShift,minRelIntervalLength);
-		} else {
-			pica = new PICA(distanceFunction,maxDistortionRatio,maxRelXShift,minRelIntervalLength,warpScaling);
+		// stop if thread is interrupted
+		if (Thread.currentThread().isInterrupted())
+			return null;
+		
+		// get initial distance matrix
+		PICA.PicaData[][] distMatrix = new PICA.PicaData[initialAlignments.size()][initialAlignments.size()];
+		for (int i=0; i<distMatrix.length; i++) {
+			for (int j=i+1; j<distMatrix.length; j++) {
+				distMatrix[i][j] = handler.getPairwiseAlignment( ProgressiveAlignmentHandler.getOrderedPair( initialAlignments.get(i), initialAlignments.get(j) ) );
+				distMatrix[j][i] = distMatrix[i][j];
+			}
 		}
 		
-		// create distance handler
-		ProgressiveReferenceAlignmentHandler handler = new ProgressiveReferenceAlignmentHandler( pica, new MicaData(reference) );
+		// compute guide tree
+		GuideTreeGenerator.GuideTreeNode root = guideTreeGenerator.compute( distMatrix );
 		
-		// fill list of initial alignments = one curve per alignment
-		// add to progressive alignment handler (computes automatically distances)
-		IntStream.range(0, curves.length).forEach( c -> handler.addSubAlignment( new MicaData(curves[c])) );
+		// the subalignment represented by each node of the guide tree
+		HashMap< GuideTreeGenerator.GuideTreeNode, MicaData > nodeAlignment = new HashMap<>();
 		
-		// fuse subalignments until all are fused to one overall alignment
-		while ( handler.size() > 1 ) {
+		// fuse subalignments in post-order, i.e. children before parents
+		for ( GuideTreeGenerator.GuideTreeNode node : root ) {
 			
 			// stop if thread is interrupted
 			if (Thread.currentThread().isInterrupted())
 				return null;
 			
-			// get next subalignment to be fused
-			Pair<MicaData,MicaData> nextToFuse = handler.getMinDistPair();
-			// get pairwise alignment information
-			PICA.PicaData nextToFusePica = handler.getPairwiseAlignment( nextToFuse );
-			
-			// check if we handle the reference
-			boolean containsReference = handler.isReference( nextToFuse.getLeft()) || handler.isReference( nextToFuse.getRight());
-			
-			// remove subalignments from handler
-			handler.removeSubAlignment( nextToFuse.getLeft() );
-			handler.removeSubAlignment( nextToFuse.getRight() );
-			
-			// create new fused alignment data
-			MicaData newAlignment = fuseAlignments( nextToFuse.getLeft(), nextToFuse.getRight(), nextToFusePica );
-			
-			// stop if thread is interrupted
-			if (Thread.currentThread().isInterrupted())
-				return null;
+			// leaf = initial alignment
+			if (node.children.isEmpty()) {
+				nodeAlignment.put( node, initialAlignments.get( node.clusterIds.get(0) ) );
+				continue;
+			}
 			
-			// add new alignment to handler
-			if (containsReference) {
-				handler.addReference( newAlignment );
-			} else {
-				handler.addSubAlignment( newAlignment );
+			// fuse the subalignments of all children
+			MicaData fused = nodeAlignment.get( node.children.get(0) );
+			for (int c=1; c<node.children.size(); c++) {
+				// get ordered pair of subalignments to fuse
+				Pair<MicaData,MicaData> nextToFuse = ProgressiveAlignmentHandler.getOrderedPair( fused, nodeAlignment.get( node.children.get(c) ) );
+				// get initial pairwise alignment if available or compute it
+				PICA.PicaData nextToFusePica = handler.getPairwiseAlignment( nextToFuse );
+				if (nextToFusePica == null) {
+					PICA.PicaData[] computed = handler.computePairwiseAlignments( Collections.singletonList( nextToFuse ) );
+					// stop if thread is interrupted
+					if (computed == null)
+						return null;
+					nextToFusePica = computed[0];
+				}
+				// stop if thread is interrupted
+				if (nextToFusePica == null)
+					return null;
+				// create new fused alignment data
+				fused = fuseAlignments( nextToFuse.getLeft(), nextToFuse.getRight(), nextToFusePica );
+				// stop if thread is interrupted
+				if (fused == null)
+					return null;
 			}
+			nodeAlignment.put( node, fused );
 		}
-
-		// get final alignment
-		MicaData finalAlignment = handler.getAlignments().get(0);
-		
-		// sort final alignment such that curve order equals input order
-		setOriginalSorting( curves, finalAlignment.curves );
-		
-		// stop if computation is to be interrupted
-		if (Thread.currentThread().isInterrupted())
-			return null;
 		
-		// return final alignment including all according subalignments
-		return finalAlignment;
+		// final alignment = root alignment
+		return nodeAlignment.get( root );
 	}
-
 	
 	/**
 	 * Computes the fused overall alignment of the two subalignments al1 and al2 
@@ -386,12 +1057,21 @@ public class MICA {
 			}
 		}
 		
-		// update spline information of the curves
-		IntStream.range(0, fusedCurves.length).forEach( i -> fusedCurves[i].getCurve().updateInterpolation());
-		
 		
 		// create new alignment container
-		MicaData fusedData = new MicaData( fusedCurves );
+		MicaData fusedData = null;
+		if (fullConsensusComputation) {
+			// recompute consensus from all curves
+			fusedData = new MicaData( fusedCurves );
+		} else {
+			// derive consensus from the aligned consensi weighted by the number of curves they represent
+			List<IntervalDecomposition> fusedCurvesList = Arrays.asList( fusedCurves );
+			fusedData = new MicaData( fusedCurvesList
+						, getConsensusCurve( Arrays.asList( alignment.dec1, alignment.dec2 )
+								, new double[]{ al1.curves.size(), al2.curves.size() }
+								, getConsensusName( fusedCurvesList ) ) 
+						);
+		}
 		
 		// store fusing information
 		fusedData.fuseGuide = alignment;
@@ -463,29 +1143,54 @@ public class MICA {
 	/**
 	 * Utility function to update the x-coordinates of a curve given the 
 	 * relative position shift of the consensus derived from the pairwise
-	 * alignment
+	 * alignment.
+	 * 
+	 * If the consensus is derived incrementally (see {@link #setFullConsensusComputation(boolean)}),
+	 * coordinates without an equivalent consensus coordinate (due to 
+	 * rounding differences accumulated by consensi derived from aligned consensi) 
+	 * are mapped via linear interpolation of the shift of the neighbored
+	 * consensus coordinates, i.e. the piecewise linear warping of the consensus.
+	 * 
 	 * @param toBeUpdated the curve data to be updated
 	 * @param consRelPos the relative x-coordinates of the original consensus
 	 * @param consLengthRatio the length ratio factors to be applied to according x-coordinates from toBeUpdated
 	 * @param curveLength the length of the curve (used for identification of equivalent x-coordinates)
 	 * @param xShift the shift of all x-coordinates to be applied
+	 * @throws RuntimeException if the consensus is fully recomputed and a coordinate has no equivalent consensus coordinate
 	 */
 	private void updateX( IntervalDecomposition toBeUpdated, double[] consRelPos, double[] consLengthRatio, double curveLength, double xShift )
 	{
-		double xMin = toBeUpdated.getCurve().getXmin();
-		double[] curveiX = toBeUpdated.getCurve().getX();
+		Curve curvei = toBeUpdated.getCurve();
+		double xMin = curvei.getXmin();
+		double[] curveiX = curvei.getX();
+		// new x-coordinates, set at once since single updates do not preserve the order
+		double[] newX = new double[curveiX.length];
 		// shift all x-coordinates
-		curveiX[0] += xShift; // special handling for first coordinate to reduce rounding issues
+		newX[0] = curveiX[0] + xShift; // special handling for first coordinate to reduce rounding issues
 		for (int p=1; p<curveiX.length; p++) {
 			// find ix[p] entry in consensus to get correct coordinate index
 			int pInAl2Cons = getPosToInsert( consRelPos, curveiX[p]-xMin, curveLength );
 			// check if not existing 
 			if ( pInAl2Cons < 0 ) {
-				throw new RuntimeException("could not identify x-coordinate "+String.valueOf(curveiX[p]-xMin)+" of curve "+toBeUpdated.getCurve().getName()+" within x-data : "+Arrays.toString(consRelPos));
+				// a fully recomputed consensus contains all curve coordinates
+				if (fullConsensusComputation) {
+					throw new RuntimeException("could not identify x-coordinate "+String.valueOf(curveiX[p]-xMin)+" of curve "+toBeUpdated.getCurve().getName()+" within x-data : "+Arrays.toString(consRelPos));
+				}
+				// get neighbored consensus coordinates (boundary intervals for extrapolation)
+				int right = FastMath.max( 1, FastMath.min( consRelPos.length-1, -(pInAl2Cons+1) ) );
+				int left = right-1;
+				// shifted relative positions of the neighbors
+				double leftShifted = consRelPos[left] * consLengthRatio[left];
+				double rightShifted = consRelPos[right] * consLengthRatio[right];
+				// interpolate shifted position
+				newX[p] = xMin + xShift + leftShifted 
+						+ (curveiX[p]-xMin-consRelPos[left]) * (rightShifted-leftShifted) / (consRelPos[right]-consRelPos[left]);
+				continue;
 			}
 			// shift x-coordinate at position p given the absolute (xShift) and relative (length ratio) shift of the consensus
-			curveiX[p] = xMin + xShift + ( (curveiX[p]-xMin) * (consLengthRatio[pInAl2Cons]) );
+			newX[p] = xMin + xShift + ( (curveiX[p]-xMin) * (consLengthRatio[pInAl2Cons]) );
 		}
+		curvei.setCoordinates( newX, curvei.getY() );
 	}
 	
 	
@@ -565,6 +1270,47 @@ public class MICA {
 		// return normalized data
 		return newData;
 	}
+	
+	/**
+	 * Runs all given tasks, either serially or in parallel if an executor is available.
+	 * 
+	 * @param executor the executor to be used for parallel computation
+	 * 		or null if all tasks are to be run serially
+	 * @param tasks the tasks to run
+	 * @return the results of the tasks (same order) or null if the computation was interrupted
+	 */
+	static protected <T> List<T> computeAll( ExecutorService executor, List<Callable<T>> tasks ) {
+		List<T> results = new ArrayList<>(tasks.size());
+		try {
+			// serial computation
+			if (executor == null || tasks.size() < 2) {
+				for ( Callable<T> task : tasks ) {
+					// stop if computation is to be interrupted
+					if (Thread.currentThread().isInterrupted())
+						return null;
+					results.add( task.call() );
+				}
+				return results;
+			}
+			// parallel computation : wait for all computations to be finished
+			for ( Future<T> result : executor.invokeAll( tasks ) ) {
+				results.add( result.get() );
+			}
+		} catch (InterruptedException e) {
+			// forward interruption (pending computations are cancelled by the executor)
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			// forward the exception raised during the computation
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+			throw new RuntimeException( e.getCause() );
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException( e );
+		}
+		return results;
+	}
 
 	/**
 	 * Container to represent a (partial) alignment during the the progressive alignment. 
@@ -632,6 +1378,19 @@ public class MICA {
 			computeConsensus();
 		}
 		
+		/**
+		 * construction from list with an already computed consensus
+		 * @param curves list of curves
+		 * @param consensus the consensus of the curves
+		 */
+		public MicaData( List<IntervalDecomposition> curves, IntervalDecomposition consensus ) 
+		{
+			// store curves
+			this.curves.addAll( curves );
+			// store consensus
+			this.consensus = consensus;
+		}
+		
 		/**
 		 * computes the consensus for the current set of curves represented by this node
 		 */
@@ -674,94 +1433,626 @@ public class MICA {
 	static protected class ProgressiveAlignmentHandler {
 		
 		/**
-		 * Container that holds the 
+		 * Packed lower triangular matrix that holds the pairwise alignment data 
+		 * for each pair of subalignment ids, see {@link #getStoreIndex(int, int)}
+		 */
+		PICA.PicaData[] distData = new PICA.PicaData[0];
+		
+		/**
+		 * The number of ids covered by {@link #distData}
+		 */
+		int distDataCapacity = 1;
+		
+		/**
+		 * Min-heap of all pairwise distances stored in {@link #distData}.
+		 * Entries of removed subalignments are invalidated lazily, i.e. they
+		 * are skipped when reaching the top of the heap.
+		 */
+		PriorityQueue< DistEntry > distHeap = new PriorityQueue<>();
+		
+		/**
+		 * List of all subaligmments that are already stored/handled
+		 */
+		List< MicaData > alignments = new LinkedList<>();
+		
+		/**
+		 * Id of each subalignment handled
+		 */
+		HashMap< MicaData, Integer > alignmentIds = new HashMap<>();
+		
+		/**
+		 * The subalignment for each id or null if the id is not in use
+		 */
+		ArrayList< MicaData > idAlignment = new ArrayList<>();
+		
+		/**
+		 * The lex-smallest curve name of the subalignment for each id 
+		 * (defines the order of pairs)
+		 */
+		ArrayList< String > idMinCurveName = new ArrayList<>();
+		
+		/**
+		 * Ids of removed subalignments that can be reused
+		 */
+		ArrayDeque< Integer > freeIds = new ArrayDeque<>();
+		
+		/**
+		 * the pairwise aligner to be used for distance computations
+		 */
+		PICA aligner;
+		
+		/**
+		 * the executor to be used for parallel distance computations
+		 * or null if all distances are to be computed serially
+		 */
+		ExecutorService executor = null;
+		
+		/**
+		 * the number of pairwise alignments computed so far
+		 */
+		long pairwiseAlignmentNumber = 0;
+		
+		/**
+		 * Whether or not pairwise alignments are computed lazily, i.e. only if
+		 * their lower bound is below the best distance found so far
+		 */
+		final boolean lazyEvaluation;
+		
+		/**
+		 * Min-heap of the lower bounds of all pairs without computed pairwise alignment
+		 * (only used for lazy evaluation). Entries of removed subalignments or of 
+		 * evaluated pairs are invalidated lazily.
+		 */
+		PriorityQueue< BoundEntry > boundHeap = new PriorityQueue<>();
+		
+		/**
+		 * Whether or not pairwise alignments of fused subalignments are warm-started
+		 */
+		boolean warmStart = false;
+		
+		/**
+		 * For each fused subalignment, the better of the pairwise alignments of the 
+		 * subalignments it was fused from with each other subalignment (only used for warm starts)
+		 */
+		HashMap< MicaData, HashMap< MicaData, PICA.PicaData > > warmStartData = new HashMap<>();
+		
+		/**
+		 * Constructs a handler for the progressive alignment 
+		 * @param pica the pairwise aligner to be used for distance computations
+		 * @throws NullArgumentException
+		 */
+		public ProgressiveAlignmentHandler( PICA pica ) throws NullArgumentException {
+			this( pica, null );
+		}
+		
+		/**
+		 * Constructs a handler for the progressive alignment that computes
+		 * the pairwise distances in parallel using the given executor
+		 * @param pica the pairwise aligner to be used for distance computations
+		 * @param executor the executor to be used for parallel distance computations
+		 * 		or null if all distances are to be computed serially
+		 * @throws NullArgumentException
+		 */
+		public ProgressiveAlignmentHandler( PICA pica, ExecutorService executor ) throws NullArgumentException {
+			this( pica, executor, false );
+		}
+		
+		/**
+		 * Constructs a handler for the progressive alignment that computes
+		 * the pairwise distances in parallel using the given executor, either
+		 * for all pairs or lazily.
+		 * 
+		 * If pairwise alignments are computed lazily, only a lower bound of the distance 
+		 * (see {@link PICA#getDistanceLowerBound(IntervalDecomposition, double, IntervalDecomposition, double)})
+		 * is computed when subalignments are added. The pairwise alignments are computed
+		 * in the order of their bounds by {@link #getMinDistPair()} until the minimal
+		 * distance found is below all remaining bounds. Thus, the minimal distance pair
+		 * is the same as for the computation of all pairwise alignments.
+		 * 
+		 * @param pica the pairwise aligner to be used for distance computations
+		 * @param executor the executor to be used for parallel distance computations
+		 * 		or null if all distances are to be computed serially
+		 * @param lazyEvaluation whether or not pairwise alignments are computed lazily
+		 * @throws NullArgumentException
+		 */
+		public ProgressiveAlignmentHandler( PICA pica, ExecutorService executor, boolean lazyEvaluation ) throws NullArgumentException {
+			if (pica == null) throw new NullArgumentException();
+			this.aligner = pica;
+			this.executor = executor;
+			this.lazyEvaluation = lazyEvaluation;
+		}
+		
+		/**
+		 * Number of subalignments handled so far
+		 * @return the number of subalignments handled by this
+		 */
+		public int size() {
+			return alignments.size();
+		}
+		
+		/**
+		 * Number of pairwise alignments computed so far
+		 * @return the number of pairwise alignments computed by this
+		 */
+		public long getPairwiseAlignmentNumber() {
+			return pairwiseAlignmentNumber;
+		}
+		
+		/**
+		 * Whether or not pairwise alignments are computed lazily, see 
+		 * {@link #ProgressiveAlignmentHandler(PICA, ExecutorService, boolean)}
+		 * @return true if pairwise alignments are computed lazily
+		 */
+		public boolean isLazyEvaluation() {
+			return lazyEvaluation;
+		}
+		
+		/**
+		 * Sets whether or not the pairwise alignments of fused subalignments are 
+		 * warm-started from the pairwise alignments of the subalignments they were
+		 * fused from, see {@link #storeWarmStartData(MicaData, MicaData, MicaData)}.
+		 * 
+		 * @param warmStart whether or not to warm-start pairwise alignments
+		 */
+		public void setWarmStart( boolean warmStart ) {
+			this.warmStart = warmStart;
+		}
+		
+		/**
+		 * Stores for each other subalignment the better of its pairwise alignments with
+		 * the two given subalignments to warm-start its pairwise alignment with the 
+		 * fused subalignment. Has to be called before the two subalignments are removed.
+		 * Does nothing if warm starts are disabled.
+		 * 
+		 * @param al1 the first subalignment that was fused
+		 * @param al2 the second subalignment that was fused
+		 * @param fused the fused subalignment to be added
+		 */
+		public void storeWarmStartData( MicaData al1, MicaData al2, MicaData fused ) {
+			if (!warmStart || al1 == null || al2 == null || fused == null || fused.fuseGuide == null) return;
+			HashMap< MicaData, PICA.PicaData > parentData = new HashMap<>();
+			for ( MicaData other : alignments ) {
+				if (other == al1 || other == al2) continue;
+				PICA.PicaData data1 = getPairwiseAlignment( getOrderedPair( al1, other ) );
+				PICA.PicaData data2 = getPairwiseAlignment( getOrderedPair( al2, other ) );
+				// get the better available alignment
+				PICA.PicaData best = (data1 == null || (data2 != null && data2.distance < data1.distance)) ? data2 : data1;
+				if (best != null) {
+					parentData.put( other, best );
+				}
+			}
+			warmStartData.put( fused, parentData );
+		}
+
+		/**
+		 * Access to the pairwise alignment data for a given pair of subalignments
+		 * @param pair the ordered pair to get the data for
+		 * @return the pairwise alignment data or null if the pair is unknown
+		 */
+		public PICA.PicaData getPairwiseAlignment( Pair<MicaData, MicaData> pair) {
+			if (pair == null) return null;
+			Integer left = alignmentIds.get( pair.getLeft() );
+			Integer right = alignmentIds.get( pair.getRight() );
+			// check if both known and correctly ordered
+			if (left == null || right == null || left.equals(right) || !isOrdered( left, right )) return null;
+			return getData( left, right );
+		}
+
+		/**
+		 * Removes a subalignment from the handler together with all according distances
+		 * @param al the alignment to be removed
+		 */
+		public void removeSubAlignment( MicaData al ) {
+			if (al == null) return;
+			Integer id = alignmentIds.remove( al );
+			if (id == null) return;
+			// drop the pairwise alignments to warm-start al with
+			warmStartData.remove( al );
+			// remove al from list of alignments
+			alignments.remove(al);
+			// remove all distances that are about al
+			// (according heap entries are invalidated lazily)
+			removeData( id );
+			// release id
+			idAlignment.set( id, null );
+			idMinCurveName.set( id, null );
+			freeIds.push( id );
+			// rebuild heap if dominated by invalidated entries
+			if (distHeap.size() > 2*getStoredPairNumber()+16) {
+				distHeap.clear();
+				rebuildHeap();
+			}
+			if (boundHeap.size() > 2*getStoredPairNumber()+16) {
+				boundHeap.removeIf( entry -> !isValid( entry ) );
+			}
+		}
+		
+		/**
+		 * Replaces two subalignments by the subalignment resulting from their fusion.
+		 * 
+		 * The result is the same as removing both and adding the fused subalignment.
+		 * 
+		 * @param al1 the first subalignment that was fused
+		 * @param al2 the second subalignment that was fused
+		 * @param fused the fused subalignment to add
+		 */
+		public void replaceSubAlignments( MicaData al1, MicaData al2, MicaData fused ) {
+			storeWarmStartData( al1, al2, fused );
+			removeSubAlignment( al1 );
+			removeSubAlignment( al2 );
+			addSubAlignment( fused );
+		}
+		
+		/**
+		 * Adds a subalignment to the handler and automatically computes all
+		 * pairwise distances to all already handled subalignments.
+		 * 
+		 * @param al the alignment to add
+		 */
+		public void addSubAlignment( MicaData al ) {
+			if (al == null) return;
+			// check if not already present (avoid duplicates
+			if (alignmentIds.containsKey( al )) return;
+			// add and compute distances to all already existing alignments
+			addSubAlignments( Collections.singletonList( al ) );
+		}
+		
+		/**
+		 * Adds all given subalignments to the handler and automatically computes all
+		 * pairwise distances among them and to all already handled subalignments.
+		 * If an executor is available, all distances are computed in parallel.
+		 * 
+		 * The result is the same as calling {@link #addSubAlignment(MicaData)}
+		 * for each subalignment in list order.
+		 * 
+		 * @param toAdd the alignments to add
+		 * @throws NullArgumentException
+		 */
+		public void addSubAlignments( List<MicaData> toAdd ) throws NullArgumentException {
+			if (toAdd == null) throw new NullArgumentException();
+			// the subalignments to be added (no null or duplicates)
+			List<MicaData> newAlignments = new ArrayList<>(toAdd.size());
+			for ( MicaData al : toAdd ) {
+				// check if not already present (avoid duplicates)
+				if (al == null || alignmentIds.containsKey( al ) || newAlignments.contains( al )) continue;
+				newAlignments.add( al );
+			}
+			// add with the pairs for which the distances have to be computed
+			addSubAlignments( newAlignments, getPairsToAlign( newAlignments ) );
+		}
+		
+		/**
+		 * Provides the ordered pairs for which the distances have to be computed
+		 * when adding the given subalignments, i.e. all pairs among them and with
+		 * all already handled subalignments.
+		 * 
+		 * @param newAlignments the new subalignments (not handled yet, no duplicates)
+		 * @return the ordered pairs to align
+		 */
+		protected List<Pair<MicaData,MicaData>> getPairsToAlign( List<MicaData> newAlignments ) {
+			List<String> newMinCurveNames = new ArrayList<>(newAlignments.size());
+			List<Pair<MicaData,MicaData>> newPairs = new ArrayList<>();
+			for ( MicaData al : newAlignments ) {
+				String alName = getMinCurveName( al );
+				// add distances to all already existing alignments
+				for( MicaData al2 : alignments) {
+					newPairs.add( getOrderedPair( al, alName, al2, idMinCurveName.get( alignmentIds.get(al2) ) ) );
+				}
+				// add distances to all alignments added so far
+				for( int i=0; i<newMinCurveNames.size(); i++) {
+					newPairs.add( getOrderedPair( al, alName, newAlignments.get(i), newMinCurveNames.get(i) ) );
+				}
+				newMinCurveNames.add( alName );
+			}
+			return newPairs;
+		}
+		
+		/**
+		 * Adds the given subalignments to the handler and computes the pairwise 
+		 * distances for the given pairs.
+		 * 
+		 * @param newAlignments the new subalignments (not handled yet, no duplicates)
+		 * @param newPairs the ordered pairs to align, each involving at least one new subalignment
+		 */
+		protected void addSubAlignments( List<MicaData> newAlignments, List<Pair<MicaData,MicaData>> newPairs ) {
+			// compute the pairwise alignments or only their lower bounds if lazy
+			PICA.PicaData[] newData = lazyEvaluation ? new PICA.PicaData[newPairs.size()] : computePairwiseAlignments( newPairs );
+			double[] newBounds = lazyEvaluation ? computeLowerBounds( newPairs ) : null;
+			// stop if computation is to be interrupted
+			if (newData == null || (lazyEvaluation && newBounds == null)) 
+				return;
+			// register new alignments
+			for ( MicaData al : newAlignments ) {
+				int id = freeIds.isEmpty() ? idAlignment.size() : freeIds.pop();
+				if (id == idAlignment.size()) {
+					idAlignment.add( null );
+					idMinCurveName.add( null );
+				}
+				idAlignment.set( id, al );
+				idMinCurveName.set( id, getMinCurveName( al ) );
+				alignmentIds.put( al, id );
+			}
+			ensureCapacity( idAlignment.size() );
+			// store pairwise alignment data
+			for (int i=0; i<newData.length; i++) {
+				int left = alignmentIds.get( newPairs.get(i).getLeft() );
+				int right = alignmentIds.get( newPairs.get(i).getRight() );
+				setData( left, right, newData[i] );
+				if (newData[i] != null) {
+					distHeap.add( new DistEntry( left, right, newData[i], idMinCurveName ) );
+				}
+				if (lazyEvaluation) {
+					boundHeap.add( new BoundEntry( left, right, newBounds[i], idAlignment, idMinCurveName ) );
+				}
+			}
+			// add all to list of alignments
+			alignments.addAll( newAlignments );
+		}
+		
+		/**
+		 * Computes the pairwise alignments for all given pairs, either serially
+		 * or in parallel if an executor is available.
+		 * 
+		 * @param pairs the ordered pairs to align
+		 * @return the pairwise alignment data for each pair (same order) or null if the computation was interrupted
+		 */
+		protected PICA.PicaData[] computePairwiseAlignments( List<Pair<MicaData,MicaData>> pairs ) {
+			List<Callable<PICA.PicaData>> tasks = new ArrayList<>(pairs.size());
+			for ( Pair<MicaData,MicaData> key : pairs ) {
+				tasks.add( () -> computePairwiseAlignment( key ) );
+			}
+			List<PICA.PicaData> results = computeAll( executor, tasks );
+			// stop if computation is to be interrupted
+			if (results == null)
+				return null;
+			pairwiseAlignmentNumber += results.size();
+			return results.toArray( new PICA.PicaData[results.size()] );
+		}
+		
+		/**
+		 * Computes the lower bounds of the pairwise alignment distances for all given pairs, 
+		 * either serially or in parallel if an executor is available.
+		 * 
+		 * @param pairs the ordered pairs of interest
+		 * @return the lower bound for each pair (same order) or null if the computation was interrupted
+		 */
+		protected double[] computeLowerBounds( List<Pair<MicaData,MicaData>> pairs ) {
+			List<Callable<Double>> tasks = new ArrayList<>(pairs.size());
+			for ( Pair<MicaData,MicaData> key : pairs ) {
+				tasks.add( () -> computeLowerBound( key ) );
+			}
+			List<Double> results = computeAll( executor, tasks );
+			// stop if computation is to be interrupted
+			if (results == null)
+				return null;
+			return results.stream().mapToDouble( Double::doubleValue ).toArray();
+		}
+		
+		/**
+		 * Provides the weights of the consensi of the given pair of subalignments
+		 * to be used for their pairwise alignment, i.e. the number of curves represented.
+		 * 
+		 * @param key the ordered pair of subalignments
+		 * @return the weights of the left [0] and right [1] consensus
+		 */
+		protected double[] getWeights( Pair<MicaData,MicaData> key ) {
+			return new double[]{ key.getLeft().curves.size(), key.getRight().curves.size() };
+		}
+		
+		/**
+		 * Computes the pairwise alignment for the given pair of subalignments 
+		 * on their consensi with according weights.
+		 * 
+		 * NOTE: this method might be called concurrently for different pairs.
+		 * 
+		 * @param key the ordered pair of subalignments to align
+		 * @return the pairwise alignment data
+		 */
+		protected PICA.PicaData computePairwiseAlignment( Pair<MicaData,MicaData> key ) {
+			double[] weights = getWeights( key );
+			// compute distance on consensi with according weights
+			return aligner.align(key.getLeft().consensus, weights[0], key.getRight().consensus, weights[1], getWarmStartSeed( key )); 
+		}
+		
+		/**
+		 * Provides the seed to warm-start the pairwise alignment of the given pair 
+		 * if one of its subalignments was fused and the pairwise alignment of one of 
+		 * its parents with the other subalignment is available. 
+		 * 
+		 * The seed maps the non-initial decomposition boundaries of the parent's 
+		 * alignment to the consensus of the fused subalignment via the alignment 
+		 * the fusion was based on. Boundaries that are no annotation of the 
+		 * fused consensus are ignored.
+		 * 
+		 * @param key the ordered pair of subalignments to align
+		 * @return the seed for the alignment of the left and right consensus or null if none is available
 		 */
-		HashMap< Pair<MicaData,MicaData>, PICA.PicaData > distData = new HashMap<>();
+		protected List<Pair<CurveAnnotation,CurveAnnotation>> getWarmStartSeed( Pair<MicaData,MicaData> key ) {
+			if (!warmStart) return null;
+			// get the data of the parent alignment
+			boolean fusedLeft = true;
+			HashMap< MicaData, PICA.PicaData > parentData = warmStartData.get( key.getLeft() );
+			PICA.PicaData parent = (parentData == null) ? null : parentData.get( key.getRight() );
+			if (parent == null) {
+				fusedLeft = false;
+				parentData = warmStartData.get( key.getRight() );
+				parent = (parentData == null) ? null : parentData.get( key.getLeft() );
+			}
+			if (parent == null) return null;
+			final MicaData fused = fusedLeft ? key.getLeft() : key.getRight();
+			final MicaData other = fusedLeft ? key.getRight() : key.getLeft();
+			
+			// identify the decompositions of the parent and the other subalignment
+			final boolean otherFirst = parent.dec1.getCurveOriginal() == other.consensus.getCurveOriginal();
+			final IntervalDecomposition parentDec = otherFirst ? parent.dec2 : parent.dec1;
+			final IntervalDecomposition otherDec = otherFirst ? parent.dec1 : parent.dec2;
+			// the parent's consensus as aligned for the fusion
+			final IntervalDecomposition parentFused = (fused.fuseGuide.dec1.getCurveOriginal() == parentDec.getCurveOriginal()) 
+					? fused.fuseGuide.dec1 : fused.fuseGuide.dec2;
+			
+			// annotations of the fused consensus by index
+			final AnnotatedCurve fusedCurve = fused.consensus.getCurveOriginal();
+			HashMap< Integer, CurveAnnotation > fusedAnnotations = new HashMap<>();
+			fusedCurve.getFilteredAnnotations().forEach( a -> fusedAnnotations.put( a.getIndex(), a ) );
+			
+			// map all boundaries that are not part of the initial decomposition
+			List<Pair<CurveAnnotation,CurveAnnotation>> seed = new ArrayList<>();
+			for (int b=1; b+1<parentDec.getDecomposition().size(); b++) {
+				CurveAnnotation parentBoundary = parentDec.getDecomposition().get(b);
+				if (parentBoundary.getType().isIntervalBoundary()) continue;
+				// position within the fused consensus
+				double x = parentFused.getCurve().getX()[parentBoundary.getIndex()] - parentFused.getCurve().getXmin() + fusedCurve.getXmin();
+				CurveAnnotation fusedBoundary = fusedAnnotations.get( fusedCurve.getClosestPoint( x ) );
+				if (fusedBoundary != null) {
+					CurveAnnotation otherBoundary = otherDec.getDecomposition().get(b);
+					seed.add( fusedLeft ? Pair.of( fusedBoundary, otherBoundary ) : Pair.of( otherBoundary, fusedBoundary ) );
+				}
+			}
+			return seed;
+		}
 		
 		/**
-		 * List of all subaligmments that are already stored/handled
+		 * Computes a lower bound of the pairwise alignment distance for the given 
+		 * pair of subalignments on their consensi with according weights.
+		 * 
+		 * NOTE: this method might be called concurrently for different pairs.
+		 * 
+		 * @param key the ordered pair of subalignments of interest
+		 * @return the lower bound of the pairwise alignment distance
 		 */
-		List< MicaData > alignments = new LinkedList<>();
+		protected double computeLowerBound( Pair<MicaData,MicaData> key ) {
+			double[] weights = getWeights( key );
+			return aligner.getDistanceLowerBound(key.getLeft().consensus, weights[0], key.getRight().consensus, weights[1]); 
+		}
 		
 		/**
-		 * the pairwise aligner to be used for distance computations
+		 * Returns the current minimal distance pair of subalignments.
+		 * Ties are resolved by the lex-order of the lex-smallest curve names
+		 * of the left and right subalignment of the ordered pairs.
+		 * 
+		 * For lazy evaluation, the pairwise alignments of all pairs with a lower bound 
+		 * below the minimal distance found are computed first.
+		 * 
+		 * @return the pair of subalignment with the current minimal distance
+		 * 		or null if the computation was interrupted
+		 * @throws NoSuchElementException if no pair is available
 		 */
-		PICA aligner;
+		public Pair<MicaData, MicaData> getMinDistPair() throws NoSuchElementException {
+			while (true) {
+				// get minimal distance entry
+				DistEntry minEntry = null;
+				// drop invalidated entries from the top of the heap
+				while ( minEntry == null && ! distHeap.isEmpty() ) {
+					// check if entry is still up to date
+					if ( getData( distHeap.peek().left, distHeap.peek().right ) == distHeap.peek().data ) {
+						minEntry = distHeap.peek();
+					} else {
+						distHeap.poll();
+					}
+				}
+				// collect pairs whose lower bound is below the minimal distance found 
+				// (as many as can be computed in parallel)
+				int batchSize = (executor instanceof ThreadPoolExecutor) ? ((ThreadPoolExecutor)executor).getMaximumPoolSize() : 1;
+				List<BoundEntry> toEvaluate = new ArrayList<>();
+				while ( toEvaluate.size() < batchSize && ! boundHeap.isEmpty() ) {
+					// drop invalidated entries
+					if ( ! isValid( boundHeap.peek() ) ) {
+						boundHeap.poll();
+						continue;
+					}
+					// stop if all remaining bounds are not better
+					if ( minEntry != null && boundHeap.peek().compareTo( minEntry ) >= 0 ) {
+						break;
+					}
+					toEvaluate.add( boundHeap.poll() );
+				}
+				// check if minimal distance pair is final
+				if (toEvaluate.isEmpty()) {
+					if (minEntry == null) throw new NoSuchElementException("no pair of subalignments available");
+					return Pair.of( idAlignment.get( minEntry.left ), idAlignment.get( minEntry.right ) );
+				}
+				// compute pairwise alignments
+				PICA.PicaData[] newData = computePairwiseAlignments( toEvaluate.stream()
+						.map( entry -> Pair.of( idAlignment.get( entry.left ), idAlignment.get( entry.right ) ) )
+						.collect( Collectors.toList() ) );
+				// stop if computation is to be interrupted
+				if (newData == null) 
+					return null;
+				// store pairwise alignment data
+				for (int i=0; i<newData.length; i++) {
+					setData( toEvaluate.get(i).left, toEvaluate.get(i).right, newData[i] );
+					if (newData[i] != null) {
+						distHeap.add( new DistEntry( toEvaluate.get(i).left, toEvaluate.get(i).right, newData[i], idMinCurveName ) );
+					}
+				}
+			}
+		}
 		
 		/**
-		 * Constructs a handler for the progressive alignment 
-		 * @param pica the pairwise aligner to be used for distance computations
-		 * @throws NullArgumentException
+		 * Checks whether or not a lower bound entry is still up to date, i.e.
+		 * both subalignments are still handled and the pair was not evaluated yet
+		 * @param entry the entry to check
+		 * @return true if the entry is up to date
 		 */
-		public ProgressiveAlignmentHandler( PICA pica ) throws NullArgumentException {
-			if (pica == null) throw new NullArgumentException();
-			this.aligner = pica;
+		protected boolean isValid( BoundEntry entry ) {
+			return idAlignment.get( entry.left ) == entry.leftAlignment
+					&& idAlignment.get( entry.right ) == entry.rightAlignment
+					&& getData( entry.left, entry.right ) == null;
 		}
 		
 		/**
-		 * Number of subalignments handled so far
-		 * @return the number of subalignments handled by this
+		 * Access to the stored pairwise alignment data of two ids
+		 * @param left the id of the left subalignment
+		 * @param right the id of the right subalignment (!= left)
+		 * @return the stored data or null if not available
 		 */
-		public int size() {
-			return alignments.size();
+		protected PICA.PicaData getData( int left, int right ) {
+			return distData[ getStoreIndex( left, right ) ];
 		}
-
+		
 		/**
-		 * Access to the pairwise alignment data for a given pair of subalignments
-		 * @param pair the pair to get the data for
-		 * @return the pairwise alignment data or null if the pair is unknown
+		 * Stores the pairwise alignment data of two ids
+		 * @param left the id of the left subalignment
+		 * @param right the id of the right subalignment (!= left)
+		 * @param data the data to store
 		 */
-		public PICA.PicaData getPairwiseAlignment( Pair<MicaData, MicaData> pair) {
-			return distData.get(pair);
+		protected void setData( int left, int right, PICA.PicaData data ) {
+			distData[ getStoreIndex( left, right ) ] = data;
 		}
-
+		
 		/**
-		 * Removes a subalignment from the handler together with all according distances
-		 * @param al the alignment to be removed
+		 * Removes all stored pairwise alignment data that involve the given id.
+		 * Note, the according subalignment is already removed from {@link #alignments}.
+		 * @param id the id of the removed subalignment
 		 */
-		public void removeSubAlignment( MicaData al ) {
-			if (al == null) return;
-			if (!alignments.contains( al )) return;
-			// remove al from list of alignments
-			alignments.remove(al);
-			// remove all elements from distData that are about al
+		protected void removeData( int id ) {
 			for ( MicaData al2 : alignments ) {
-				distData.remove( getOrderedPair( al, al2) );
+				distData[ getStoreIndex( id, alignmentIds.get(al2) ) ] = null;
 			}
 		}
 		
 		/**
-		 * Adds a subalignment to the handler and automatically computes all
-		 * pairwise distances to all already handled subalignments.
-		 * 
-		 * @param al the alignment to add
+		 * The number of pairs for which pairwise alignment data is stored 
+		 * @return the number of stored pairs
 		 */
-		public void addSubAlignment( MicaData al ) {
-			if (al == null) return;
-			// check if not already present (avoid duplicates
-			if (alignments.contains( al )) return;
-			// add distances to all already existing alignments
-			// TODO maybe parallelize
-			for( MicaData al2 : alignments) {
-				// stop if computation is to be interrupted
-				if (Thread.currentThread().isInterrupted())
-					return;
-				// get ordered pair
-				Pair<MicaData,MicaData> key = getOrderedPair(al, al2);
-				// compute distance on consensi with according weights and store pairwise alignment data 
-				distData.put( key, aligner.align(key.getLeft().consensus, key.getLeft().curves.size(), key.getRight().consensus, key.getRight().curves.size())); 
-			}
-			// add all to list of alignments
-			alignments.add(al);
+		protected long getStoredPairNumber() {
+			return (long)alignments.size()*(long)(alignments.size()-1)/2l;
 		}
 		
 		/**
-		 * Returns the current minimal distance pair of subalignments
-		 * @return the pair of subalignment with the current minimal distance
+		 * Adds an entry for each stored pair to the (empty) {@link #distHeap}
 		 */
-		public Pair<MicaData, MicaData> getMinDistPair() {
-			// get pair with minimal distance
-			return distData.keySet().stream().min( (k1,k2) -> Double.compare(distData.get(k1).distance,distData.get(k2).distance) ).get();
+		protected void rebuildHeap() {
+			for ( MicaData al1 : alignments ) {
+				int id1 = alignmentIds.get(al1);
+				for ( MicaData al2 : alignments ) {
+					int id2 = alignmentIds.get(al2);
+					// add each stored pair once in its order
+					if (id1 != id2 && isOrdered( id1, id2 ) && getData(id1, id2) != null) {
+						distHeap.add( new DistEntry( id1, id2, getData(id1, id2), idMinCurveName ) );
+					}
+				}
+			}
 		}
 		
 		/**
@@ -774,10 +2065,20 @@ public class MICA {
 		 */
 		protected static Pair<MicaData, MicaData> getOrderedPair( MicaData al1, MicaData al2) throws NullArgumentException {
 			if (al1 == null || al2 == null) throw new NullArgumentException();
+			return getOrderedPair( al1, getMinCurveName( al1 ), al2, getMinCurveName( al2 ) );
+		}
+		
+		/**
+		 * Creates an ordered pair of two alignments given their lex-smallest curve names.
+		 * @param al1 the first alignment data to be paired
+		 * @param al1Name the lex-smallest curve name of al1
+		 * @param al2 the second alignment data to be paired
+		 * @param al2Name the lex-smallest curve name of al2
+		 * @return an ordered pair of al1 and al2
+		 */
+		protected static Pair<MicaData, MicaData> getOrderedPair( MicaData al1, String al1Name, MicaData al2, String al2Name) {
 			// define order on lex order of lex-smallest curve name from each alignment
-			int compareResult = al1.curves.stream().map( c -> c.getCurveOriginal().getName()).min(String::compareTo).get().compareTo( 
-									al2.curves.stream().map( c -> c.getCurveOriginal().getName()).min(String::compareTo).get());
-			if ( compareResult < 0 ) 
+			if ( al1Name.compareTo( al2Name ) < 0 ) 
 			{
 				return Pair.of(al1, al2);
 			} else {
@@ -785,6 +2086,50 @@ public class MICA {
 			}
 		}
 		
+		/**
+		 * Checks whether or not the two ids are ordered according to 
+		 * {@link #getOrderedPair(MicaData, MicaData)}
+		 * @param left the id of the left subalignment
+		 * @param right the id of the right subalignment
+		 * @return true if (left,right) is the ordered pair
+		 */
+		protected boolean isOrdered( int left, int right ) {
+			return idMinCurveName.get(left).compareTo( idMinCurveName.get(right) ) < 0;
+		}
+		
+		/**
+		 * Provides the lex-smallest curve name of the given alignment
+		 * @param al the alignment of interest
+		 * @return the lex-smallest curve name
+		 */
+		protected static String getMinCurveName( MicaData al ) {
+			return al.curves.stream().map( c -> c.getCurveOriginal().getName()).min(String::compareTo).get();
+		}
+		
+		/**
+		 * Provides the index of a pair of ids within the packed lower triangular 
+		 * matrix {@link #distData}, i.e. i*(i-1)/2+j for i = max(id1,id2) and j = min(id1,id2)
+		 * @param id1 the first id
+		 * @param id2 the second id (!= id1)
+		 * @return the index within {@link #distData}
+		 */
+		protected static int getStoreIndex( int id1, int id2 ) {
+			int i = FastMath.max( id1, id2 ), j = FastMath.min( id1, id2 );
+			return (int)( (long)i*(long)(i-1)/2l ) + j;
+		}
+		
+		/**
+		 * Ensures that {@link #distData} covers all ids smaller than the given number.
+		 * Since the matrix is packed row-wise, the indices of all stored entries remain valid.
+		 * @param idNumber the number of ids to be covered
+		 */
+		protected void ensureCapacity( int idNumber ) {
+			if (idNumber <= distDataCapacity) return;
+			// at least double capacity to avoid frequent copying
+			distDataCapacity = FastMath.max( idNumber, 2*distDataCapacity );
+			distData = Arrays.copyOf( distData, (int)((long)distDataCapacity*(long)(distDataCapacity-1)/2l) );
+		}
+		
 		/**
 		 * Returns an unmodifiable view of the lists of subalignments currently handled
 		 * @return immutable list of alignments handled right now
@@ -793,6 +2138,96 @@ public class MICA {
 			return Collections.unmodifiableList( alignments );
 		}
 		
+		/**
+		 * Entry of the pairwise distance heap, ordered by distance and
+		 * (for equal distances) the lex-smallest curve names of the pair.
+		 */
+		static protected class DistEntry implements Comparable<DistEntry> {
+			
+			/**
+			 * the ids of the ordered pair of subalignments
+			 */
+			final int left, right;
+			/**
+			 * the pairwise alignment data of the pair
+			 */
+			final PICA.PicaData data;
+			/**
+			 * the distance of the pair used for ordering
+			 */
+			final double distance;
+			/**
+			 * the lex-smallest curve names of the left and right subalignment
+			 */
+			final String leftName, rightName;
+			
+			/**
+			 * Creates a heap entry
+			 * @param left the id of the left subalignment of the ordered pair
+			 * @param right the id of the right subalignment of the ordered pair
+			 * @param data the pairwise alignment data of the pair
+			 * @param idMinCurveName the lex-smallest curve name for each id
+			 */
+			public DistEntry( int left, int right, PICA.PicaData data, List<String> idMinCurveName ) {
+				this( left, right, data, data.distance, idMinCurveName );
+			}
+			
+			/**
+			 * Creates a heap entry
+			 * @param left the id of the left subalignment of the ordered pair
+			 * @param right the id of the right subalignment of the ordered pair
+			 * @param data the pairwise alignment data of the pair (might be null)
+			 * @param distance the distance of the pair used for ordering
+			 * @param idMinCurveName the lex-smallest curve name for each id
+			 */
+			protected DistEntry( int left, int right, PICA.PicaData data, double distance, List<String> idMinCurveName ) {
+				this.left = left;
+				this.right = right;
+				this.data = data;
+				this.distance = distance;
+				this.leftName = idMinCurveName.get( left );
+				this.rightName = idMinCurveName.get( right );
+			}
+
+			@Override
+			public int compareTo(DistEntry o) {
+				int compareResult = Double.compare( distance, o.distance );
+				if (compareResult == 0) {
+					compareResult = leftName.compareTo( o.leftName );
+				}
+				if (compareResult == 0) {
+					compareResult = rightName.compareTo( o.rightName );
+				}
+				return compareResult;
+			}
+		}
+		
+		/**
+		 * Entry of the lower bound heap for lazy evaluation, ordered like {@link DistEntry}
+		 * by the lower bound of the pairwise alignment distance.
+		 */
+		static protected class BoundEntry extends DistEntry {
+			
+			/**
+			 * the subalignments of the ordered pair (to identify outdated entries)
+			 */
+			final MicaData leftAlignment, rightAlignment;
+			
+			/**
+			 * Creates a heap entry
+			 * @param left the id of the left subalignment of the ordered pair
+			 * @param right the id of the right subalignment of the ordered pair
+			 * @param lowerBound the lower bound of the pairwise alignment distance of the pair
+			 * @param idAlignment the subalignment for each id
+			 * @param idMinCurveName the lex-smallest curve name for each id
+			 */
+			public BoundEntry( int left, int right, double lowerBound, List<MicaData> idAlignment, List<String> idMinCurveName ) {
+				super( left, right, null, lowerBound, idMinCurveName );
+				this.leftAlignment = idAlignment.get( left );
+				this.rightAlignment = idAlignment.get( right );
+			}
+		}
+		
 	}
 	
 	static class ProgressiveReferenceAlignmentHandler extends ProgressiveAlignmentHandler {
@@ -806,7 +2241,35 @@ public class MICA {
 		 * @throws NullArgumentException
 		 */
 		public ProgressiveReferenceAlignmentHandler( PICA pica, MicaData reference ) throws NullArgumentException {
-			super(pica);
+			this(pica, null, reference);
+		}
+		
+		/**
+		 * Constructs a handler for the progressive alignment given a reference
+		 * that computes the pairwise distances in parallel using the given executor
+		 * @param pica the pairwise aligner to be used for distance computations
+		 * @param executor the executor to be used for parallel distance computations
+		 * 		or null if all distances are to be computed serially
+		 * @param reference the reference to align to
+		 * @throws NullArgumentException
+		 */
+		public ProgressiveReferenceAlignmentHandler( PICA pica, ExecutorService executor, MicaData reference ) throws NullArgumentException {
+			this(pica, executor, reference, false);
+		}
+		
+		/**
+		 * Constructs a handler for the progressive alignment given a reference
+		 * that computes the pairwise distances in parallel using the given executor,
+		 * either for all pairs or lazily (see {@link ProgressiveAlignmentHandler#ProgressiveAlignmentHandler(PICA, ExecutorService, boolean)})
+		 * @param pica the pairwise aligner to be used for distance computations
+		 * @param executor the executor to be used for parallel distance computations
+		 * 		or null if all distances are to be computed serially
+		 * @param reference the reference to align to
+		 * @param lazyEvaluation whether or not pairwise alignments are computed lazily
+		 * @throws NullArgumentException
+		 */
+		public ProgressiveReferenceAlignmentHandler( PICA pica, ExecutorService executor, MicaData reference, boolean lazyEvaluation ) throws NullArgumentException {
+			super(pica, executor, lazyEvaluation);
 			this.currentReference = reference;
 			this.addSubAlignment(reference);
 		}
@@ -841,30 +2304,15 @@ public class MICA {
 		}
 		
 		@Override
-		public void addSubAlignment(MicaData al) {
-			if (al == null) return;
-			// check if not already present (avoid duplicates
-			if (alignments.contains( al )) return;
-			// add distances to all already existing alignments
-			// TODO maybe parallelize
-			for( MicaData al2 : alignments) {
-				// stop if computation is to be interrupted
-				if (Thread.currentThread().isInterrupted()) return;
-				// get ordered pair
-				Pair<MicaData,MicaData> key = getOrderedPair(al, al2);
-				
-				// get weights for each sub-alignment
-				double weightLeft = key.getLeft().curves.size(), weightRight = key.getRight().curves.size();
-				// update weights if one of the sub-alignments is the reference
-				// -> weight of the other alignment == 0
-				if (isReference(key.getLeft())) { weightRight = 0; }
-				else if (isReference(key.getRight())) { weightLeft = 0; }
-				
-				// compute distance on consensi with according weights and store pairwise alignment data 
-				distData.put( key, aligner.align(key.getLeft().consensus, weightLeft, key.getRight().consensus, weightRight)); 
-			}
-			// add al to list of alignments
-			alignments.add(al);
+		protected double[] getWeights( Pair<MicaData,MicaData> key ) {
+			// get weights for each sub-alignment
+			double weightLeft = key.getLeft().curves.size(), weightRight = key.getRight().curves.size();
+			// update weights if one of the sub-alignments is the reference
+			// -> weight of the other alignment == 0
+			if (isReference(key.getLeft())) { weightRight = 0; }
+			else if (isReference(key.getRight())) { weightLeft = 0; }
+			
+			return new double[]{ weightLeft, weightRight };
 		}
 		
 		/**
@@ -882,6 +2330,264 @@ public class MICA {
 	}
 	
 
+	/**
+	 * Handler for the progressive alignment of large curve sets that computes
+	 * pairwise alignments only for a sparse graph of candidate pairs.
+	 * 
+	 * When subalignments are added, a cheap distance of their consensi is computed on 
+	 * equidistant resamples (see {@link ResampledCurveDistance}) for all pairs and only
+	 * the pairs of each new subalignment with its k nearest subalignments are aligned.
+	 * When two subalignments are fused, the fused subalignment inherits the candidates of 
+	 * both. If both had no other candidates left, the fused subalignment is aligned with 
+	 * all remaining subalignments (full scan).
+	 * 
+	 * @author Mmann
+	 *
+	 */
+	static protected class CandidateAlignmentHandler extends ProgressiveAlignmentHandler {
+		
+		/**
+		 * The pairwise alignment data of each id with its candidate ids 
+		 * (stored for both ids of a pair) or null if the id is not in use
+		 */
+		ArrayList< HashMap< Integer, PICA.PicaData > > idCandidates = new ArrayList<>();
+		
+		/**
+		 * The number of candidate pairs stored
+		 */
+		long candidatePairNumber = 0;
+		
+		/**
+		 * The resampled profile of the consensus of each subalignment handled 
+		 * that was used for candidate selection
+		 */
+		HashMap< MicaData, double[] > profiles = new HashMap<>();
+		
+		/**
+		 * The number of nearest subalignments to be aligned with each new subalignment
+		 */
+		final int neighbors;
+		
+		/**
+		 * The cheap distance used to select the nearest subalignments
+		 */
+		final ResampledCurveDistance candidateDistance;
+		
+		/**
+		 * The number of equidistant samples used to compute the cheap distance
+		 */
+		final int samples;
+		
+		/**
+		 * The number of fusions that required a full scan
+		 */
+		long fullScanNumber = 0;
+		
+		/**
+		 * Constructs a handler that computes pairwise alignments only for the
+		 * k nearest candidates of each subalignment. The pairwise alignments are
+		 * never computed lazily, since the candidates are identified via the 
+		 * stored pairwise alignments.
+		 * @param pica the pairwise aligner to be used for distance computations
+		 * @param executor the executor to be used for parallel distance computations
+		 * 		or null if all distances are to be computed serially
+		 * @param neighbors the number of nearest candidates of each new subalignment (>=1)
+		 * @param candidateDistance the cheap distance used for candidate selection
+		 * @param samples the number of equidistant samples used for the cheap distance (>=2)
+		 * @throws NullArgumentException
+		 * @throws OutOfRangeException if neighbors < 1 or samples < 2
+		 */
+		public CandidateAlignmentHandler( PICA pica, ExecutorService executor, int neighbors, ResampledCurveDistance candidateDistance, int samples ) 
+				throws NullArgumentException, OutOfRangeException 
+		{
+			super(pica, executor);
+			if (candidateDistance == null) throw new NullArgumentException();
+			if (neighbors < 1) throw new OutOfRangeException(neighbors, 1, Integer.MAX_VALUE);
+			if (samples < 2) throw new OutOfRangeException(samples, 2, Integer.MAX_VALUE);
+			this.neighbors = neighbors;
+			this.candidateDistance = candidateDistance;
+			this.samples = samples;
+		}
+		
+		/**
+		 * Number of fusions for which the fused subalignment had no inherited
+		 * candidates and was aligned with all remaining subalignments
+		 * @return the number of full scans
+		 */
+		public long getFullScanNumber() {
+			return fullScanNumber;
+		}
+		
+		@Override
+		public void removeSubAlignment( MicaData al ) {
+			profiles.remove( al );
+			super.removeSubAlignment( al );
+		}
+		
+		/**
+		 * Replaces the two subalignments by the fused subalignment, which is aligned
+		 * with all candidates of both (besides themselves). If none is left, 
+		 * it is aligned with all remaining subalignments.
+		 */
+		@Override
+		public void replaceSubAlignments( MicaData al1, MicaData al2, MicaData fused ) {
+			storeWarmStartData( al1, al2, fused );
+			// collect the remaining candidates of both subalignments
+			TreeSet<Integer> inherited = new TreeSet<>();
+			for ( MicaData al : Arrays.asList( al1, al2 ) ) {
+				Integer id = alignmentIds.get( al );
+				if (id != null) {
+					inherited.addAll( idCandidates.get( id ).keySet() );
+				}
+			}
+			List<MicaData> candidates = inherited.stream()
+					.map( id -> idAlignment.get( id ) )
+					.filter( al -> al != al1 && al != al2 )
+					.collect( Collectors.toList() );
+			// remove fused subalignments
+			removeSubAlignment( al1 );
+			removeSubAlignment( al2 );
+			if (fused == null || alignmentIds.containsKey( fused )) return;
+			// fall back to full scan if no candidate is left
+			if (candidates.isEmpty()) {
+				candidates = new ArrayList<>( alignments );
+				if (!candidates.isEmpty()) {
+					fullScanNumber++;
+				}
+			}
+			// align with all candidates
+			String fusedName = getMinCurveName( fused );
+			List<Pair<MicaData,MicaData>> pairs = new ArrayList<>( candidates.size() );
+			for ( MicaData al : candidates ) {
+				pairs.add( getOrderedPair( fused, fusedName, al, idMinCurveName.get( alignmentIds.get( al ) ) ) );
+			}
+			addSubAlignments( Collections.singletonList( fused ), pairs );
+		}
+		
+		/**
+		 * Provides the ordered pairs of each new subalignment with its k nearest
+		 * subalignments (among all handled and new ones) according to the cheap distance.
+		 * Ties are resolved by the order of the subalignments (handled ones first).
+		 */
+		@Override
+		protected List<Pair<MicaData,MicaData>> getPairsToAlign( List<MicaData> newAlignments ) {
+			// all subalignments to select the candidates from
+			List<MicaData> all = new ArrayList<>( alignments.size()+newAlignments.size() );
+			all.addAll( alignments );
+			all.addAll( newAlignments );
+			// ensure all profiles are available
+			for ( MicaData al : all ) {
+				if (!profiles.containsKey( al )) {
+					profiles.put( al, candidateDistance.getProfile( al.consensus.getCurve(), samples ) );
+				}
+			}
+			double[][] allProfiles = all.stream().map( al -> profiles.get( al ) ).toArray( double[][]::new );
+			
+			// select nearest subalignments for each new one
+			List<Callable<int[]>> tasks = new ArrayList<>( newAlignments.size() );
+			for (int i=alignments.size(); i<all.size(); i++) {
+				final int pos = i;
+				tasks.add( () -> getNearest( allProfiles, pos ) );
+			}
+			List<int[]> nearest = computeAll( executor, tasks );
+			// skip computations if interrupted
+			if (nearest == null)
+				return new ArrayList<>();
+			
+			// collect the ordered pairs (each only once)
+			String[] allNames = all.stream().map( al -> getMinCurveName( al ) ).toArray( String[]::new );
+			HashSet<Pair<MicaData,MicaData>> pairSet = new HashSet<>();
+			List<Pair<MicaData,MicaData>> pairs = new ArrayList<>();
+			for (int n=0; n<nearest.size(); n++) {
+				int i = alignments.size() + n;
+				for ( int j : nearest.get(n) ) {
+					Pair<MicaData,MicaData> pair = getOrderedPair( all.get(i), allNames[i], all.get(j), allNames[j] );
+					if (pairSet.add( pair )) {
+						pairs.add( pair );
+					}
+				}
+			}
+			return pairs;
+		}
+		
+		/**
+		 * Identifies the k nearest profiles of a given profile
+		 * @param profiles all profiles
+		 * @param pos the position of the profile of interest
+		 * @return the positions of the k nearest profiles (sorted by distance and position)
+		 */
+		protected int[] getNearest( double[][] profiles, int pos ) {
+			// max-heap of the nearest candidates found so far (farthest on top)
+			PriorityQueue<Pair<Double,Integer>> nearest = new PriorityQueue<>( neighbors+1, 
+					(p1, p2) -> { 
+						int compareResult = Double.compare( p2.getLeft(), p1.getLeft() ); 
+						return compareResult != 0 ? compareResult : Integer.compare( p2.getRight(), p1.getRight() ); 
+					} );
+			for (int j=0; j<profiles.length; j++) {
+				if (j == pos) continue;
+				nearest.add( Pair.of( candidateDistance.getDistance( profiles[pos], profiles[j] ), j ) );
+				if (nearest.size() > neighbors) {
+					nearest.poll();
+				}
+			}
+			// get positions in increasing distance order
+			int[] nearestPos = new int[nearest.size()];
+			for (int i=nearestPos.length-1; i>=0; i--) {
+				nearestPos[i] = nearest.poll().getRight();
+			}
+			return nearestPos;
+		}
+		
+		@Override
+		protected PICA.PicaData getData( int left, int right ) {
+			return idCandidates.get( left ).get( right );
+		}
+		
+		@Override
+		protected void setData( int left, int right, PICA.PicaData data ) {
+			if (idCandidates.get( left ).put( right, data ) == null) {
+				candidatePairNumber++;
+			}
+			idCandidates.get( right ).put( left, data );
+		}
+		
+		@Override
+		protected void removeData( int id ) {
+			for ( Integer id2 : idCandidates.get( id ).keySet() ) {
+				idCandidates.get( id2 ).remove( id );
+			}
+			candidatePairNumber -= idCandidates.get( id ).size();
+			idCandidates.get( id ).clear();
+		}
+		
+		@Override
+		protected long getStoredPairNumber() {
+			return candidatePairNumber;
+		}
+		
+		@Override
+		protected void rebuildHeap() {
+			for ( MicaData al1 : alignments ) {
+				int id1 = alignmentIds.get(al1);
+				for ( Map.Entry< Integer, PICA.PicaData > candidate : idCandidates.get( id1 ).entrySet() ) {
+					// add each stored pair once in its order
+					if (isOrdered( id1, candidate.getKey() ) && candidate.getValue() != null) {
+						distHeap.add( new DistEntry( id1, candidate.getKey(), candidate.getValue(), idMinCurveName ) );
+					}
+				}
+			}
+		}
+		
+		@Override
+		protected void ensureCapacity( int idNumber ) {
+			while (idCandidates.size() < idNumber) {
+				idCandidates.add( new HashMap<>() );
+			}
+		}
+		
+	}
+	
+
 	/**
 	 * Constructs the name of the consensus curve for the given curves.
 	 * If no curve is given, the name is empty.
@@ -934,6 +2640,41 @@ public class MICA {
 			return new IntervalDecomposition( curves.get(0) );
 		}
 		
+		// all curves are equally weighted
+		double[] weights = new double[curves.size()];
+		Arrays.fill( weights, 1d );
+		
+		return getConsensusCurve( curves, weights, getConsensusName(curves) );
+	}
+	
+	/**
+	 * Computes the weighted consensus decomposition for the given curves, 
+	 * i.e. the weighted mean coordinate for any coordinate present in one of the curves.
+	 * 
+	 * This can be used to derive the consensus of a fused alignment from the 
+	 * aligned consensi of the fused subalignments, weighted by the number of 
+	 * curves they represent.
+	 * 
+	 * NOTE: the annotations are automatically generated and NOT derived from the aligned curves,
+	 * only the interval boundaries of the first curve are copied.
+	 * 
+	 * NOTE: only the annotation filters common to ALL curves are added to the consensus.
+	 * 
+	 * @param curves the set of curves a consensus has to be computed (size >= 2)
+	 * @param weights the weight of each curve (> 0)
+	 * @param name the name of the consensus curve
+	 * @return the consensus representing the curves
+	 * @throws NullArgumentException
+	 * @throws IllegalArgumentException if less than two curves or an according number of weights are given
+	 * @throws IllegalArgumentException if the curves are incompatible or of different lengths
+	 */
+	static public IntervalDecomposition getConsensusCurve( List<IntervalDecomposition> curves, double[] weights, String name )
+		throws NullArgumentException, IllegalArgumentException
+	{
+		if (curves == null || weights == null || name == null) throw new NullArgumentException();
+		if (curves.size() < 2) throw new IllegalArgumentException("less than two curves given");
+		if (weights.length != curves.size()) throw new IllegalArgumentException("number of weights differs from number of curves");
+		if (Arrays.stream(weights).anyMatch( w -> !(w > 0) )) throw new IllegalArgumentException("weights have to be positive");
 		
 		// ensure curves are compatible = same number of intervals
 		if (! curves.stream().allMatch( c -> c.isCompatible( curves.get(0) ) )) 
@@ -1012,27 +2753,41 @@ public class MICA {
 		}
 		
 		
+		// overall weight for normalization
+		final double weightSum = Arrays.stream(weights).sum();
+		
 		// compute consensus y-coordinates
 		double[] consY = new double[consX.length];
-		for (int i=0; i<consY.length; i++) {
-			// get mean y-coordinate for position
-			for (int c=0; c<curves.size(); c++) {
-				// sum y-coordinates for according positions
-				consY[i] += curves.get(c).getCurve().getY( FastMath.min( consX[i]+curves.get(c).getCurve().getXmin(), curves.get(c).getCurve().getXmax() ) );
+		// buffers for the according positions and y-coordinates within each curve
+		double[] curX = new double[consX.length];
+		double[] curY = new double[consX.length];
+		for (int c=0; c<curves.size(); c++) {
+			// get according positions (sorted since consX is sorted)
+			final Curve curve = curves.get(c).getCurve();
+			for (int i=0; i<consX.length; i++) {
+				curX[i] = FastMath.min( consX[i]+curve.getXmin(), curve.getXmax() );
+			}
+			// interpolate all y-coordinates in a single pass
+			curve.getY( curX, curY );
+			// sum weighted y-coordinates for according positions
+			for (int i=0; i<consY.length; i++) {
+				consY[i] += weights[c] * curY[i];
 			}
-			// normalize by number of curves
-			consY[i] /= (double) curves.size();
+		}
+		// normalize by overall weight
+		for (int i=0; i<consY.length; i++) {
+			consY[i] /= weightSum;
 		}
 		
 		// update x-coordinates with average start position
-		double avgXmin = curves.stream().mapToDouble( c -> c.getCurve().getXmin() ).sum() / (double)curves.size();
+		double avgXmin = IntStream.range(0, curves.size()).mapToDouble( c -> weights[c] * curves.get(c).getCurve().getXmin() ).sum() / weightSum;
 		// shift x-coordinates to start at avgXmin
 		for (int i=0; i<consX.length; i++) {
 			consX[i] += avgXmin;
 		}
 		
 		// create consensus curve data with automated annotation
-		AnnotatedCurve consensus = new AnnotatedCurve( getConsensusName(curves)
+		AnnotatedCurve consensus = new AnnotatedCurve( name
 				, consX
 				, consY
 				);
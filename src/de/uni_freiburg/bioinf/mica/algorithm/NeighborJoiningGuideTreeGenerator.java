@@ -0,0 +1,86 @@
+package de.uni_freiburg.bioinf.mica.algorithm;
+
+import org.apache.commons.math3.exception.NullArgumentException;
+
+
+/**
+ * Computes a binary guide tree via neighbor joining from the initial 
+ * pairwise distance matrix only.
+ * 
+ * Iteratively, the two clusters i,j minimizing 
+ * 
+ *   Q(i,j) = (r-2)*d(i,j) - sum_k d(i,k) - sum_k d(j,k)
+ *   
+ * are joined, where r is the number of remaining clusters and ties are 
+ * resolved in favor of the pair with the lowest indices. The distance of 
+ * the joined cluster u to any other cluster k is given by
+ * 
+ *   d(u,k) = ( d(i,k) + d(j,k) - d(i,j) ) / 2
+ *   
+ * The final two clusters are joined to form the root of the guide tree.
+ * 
+ * @author Mmann
+ *
+ */
+public class NeighborJoiningGuideTreeGenerator extends ClusteringGuideTreeGenerator {
+
+	@Override
+	public GuideTreeNode compute(PICA.PicaData[][] distMatrix) throws NullArgumentException, IllegalArgumentException {
+		
+		// get distances
+		double[][] dist = getDistances( distMatrix );
+		
+		// initialize clusters (a cluster is active if its node is not null)
+		GuideTreeNode[] nodes = new GuideTreeNode[dist.length];
+		for (int i=0; i<nodes.length; i++) {
+			nodes[i] = createLeaf( i );
+		}
+		
+		// distance sums of each cluster
+		double[] distSum = new double[dist.length];
+		
+		// join clusters until only one is left
+		for (int remaining=dist.length; remaining > 1; remaining--) {
+			
+			// compute distance sums
+			for (int i=0; i<dist.length; i++) {
+				if (nodes[i] == null) continue;
+				distSum[i] = 0;
+				for (int k=0; k<dist.length; k++) {
+					if (nodes[k] == null) continue;
+					distSum[i] += dist[i][k];
+				}
+			}
+			
+			// find pair of active clusters that minimizes Q
+			int minI = -1, minJ = -1;
+			double minQ = Double.POSITIVE_INFINITY;
+			for (int i=0; i<dist.length; i++) {
+				if (nodes[i] == null) continue;
+				for (int j=i+1; j<dist.length; j++) {
+					if (nodes[j] == null) continue;
+					double q = (remaining-2)*dist[i][j] - distSum[i] - distSum[j];
+					if (minI < 0 || q < minQ) {
+						minI = i;
+						minJ = j;
+						minQ = q;
+					}
+				}
+			}
+			
+			// update distances of the joined cluster, which is stored at minI
+			for (int k=0; k<dist.length; k++) {
+				if (nodes[k] == null || k == minI || k == minJ) continue;
+				dist[minI][k] = (dist[minI][k] + dist[minJ][k] - dist[minI][minJ]) / 2d;
+				dist[k][minI] = dist[minI][k];
+			}
+			// join clusters
+			nodes[minI] = join( nodes[minI], nodes[minJ] );
+			nodes[minJ] = null;
+		}
+		
+		// the first cluster is never removed and holds the root
+		return nodes[0];
+	}
+
+}
@@ -16,5 +16,13 @@ public class NoCurveDistanceWarpingCorrection implements
 	public double getWarpCorrectedDistance(double warpingFactor, double distance) {
 		return distance;
 	}
+	
+	/**
+	 * Returns the given distance since no correction is done.
+	 */
+	@Override
+	public double getMaxUncorrectedDistance(double warpingFactor, double correctedDistance) {
+		return correctedDistance;
+	}
 
 }
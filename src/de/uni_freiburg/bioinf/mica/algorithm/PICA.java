@@ -1,8 +1,17 @@
 package de.uni_freiburg.bioinf.mica.algorithm;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.stream.IntStream;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.exception.OutOfRangeException;
 import org.apache.commons.math3.util.FastMath;
@@ -54,6 +63,73 @@ public class PICA {
 	 * interval decomposition.
 	 */
 	final double minRelIntervalLength;
+	
+	/**
+	 * The minimal number of candidate decompositions scored within one parallel task
+	 */
+	static final int MIN_CANDIDATES_PER_TASK = 8;
+	
+	/**
+	 * The default minimal number of coordinates of a sub-interval to be decomposed 
+	 * in a parallel task, see {@link #setIntervalPool(ForkJoinPool, int)}
+	 */
+	public static final int DEFAULT_INTERVAL_CUTOFF = 20;
+	
+	/**
+	 * The relative tolerance added to the bound used to abandon the scoring of a 
+	 * candidate decomposition early, which covers rounding issues of the distance computation
+	 */
+	static final double ABANDON_TOLERANCE = 0.000000001;
+	
+	/**
+	 * The executor used to score the candidate decompositions of an interval in parallel
+	 * or null if they are scored serially
+	 */
+	ExecutorService candidateExecutor = null;
+	
+	/**
+	 * The maximal number of parallel tasks the candidate decompositions of an interval are split into
+	 */
+	int candidateTasks = 1;
+	
+	/**
+	 * The pool used to decompose independent intervals in parallel 
+	 * or null if they are decomposed serially
+	 */
+	ForkJoinPool intervalPool = null;
+	
+	/**
+	 * The minimal number of coordinates of an interval to be decomposed in a parallel task
+	 */
+	int intervalCutoff = Integer.MAX_VALUE;
+	
+	/**
+	 * The distance function used to preselect the candidate decompositions of an 
+	 * interval at coarse resolution or null if all candidates are scored at full resolution
+	 */
+	SampledCurveDistance coarseDistanceFunction = null;
+	
+	/**
+	 * The number of best candidate decompositions at coarse resolution that are 
+	 * scored at full resolution
+	 */
+	int coarseCandidates = 1;
+	
+	/**
+	 * The number of decompositions selected from coarse preselected candidates
+	 */
+	final AtomicLong coarseSelectionNumber = new AtomicLong();
+	
+	/**
+	 * The number of decompositions selected from coarse preselected candidates that 
+	 * differ from the best candidate at coarse resolution
+	 */
+	final AtomicLong coarseDisagreementNumber = new AtomicLong();
+	
+	/**
+	 * The reusable buffers of each thread for the decomposition of intervals
+	 */
+	private final ThreadLocal<Workspace> workspace = ThreadLocal.withInitial( Workspace::new );
 
 	
 	/**
@@ -135,6 +211,116 @@ public class PICA {
 		this.minRelIntervalLength = minRelIntervalLength;
 	}
 	
+	/**
+	 * Sets the executor used to score the candidate decompositions of an interval, 
+	 * i.e. the alignable annotation pairs, in parallel. The candidates are split into 
+	 * consecutive blocks, where the first block is scored by the calling thread. 
+	 * Blocks not started by the executor are scored by the calling thread as well, 
+	 * such that the executor can be shared with the callers of the alignment. 
+	 * The resulting alignment does not depend on the executor used.
+	 * 
+	 * @param executor the executor to be used or null if all candidates are to be scored serially
+	 * @param tasks the maximal number of parallel tasks per interval (>=1)
+	 * @throws OutOfRangeException if tasks < 1
+	 */
+	public void setCandidateExecutor( ExecutorService executor, int tasks ) throws OutOfRangeException {
+		if (tasks < 1) throw new OutOfRangeException(tasks, 1, Integer.MAX_VALUE);
+		this.candidateExecutor = executor;
+		this.candidateTasks = tasks;
+	}
+	
+	/**
+	 * Access to the executor used to score the candidate decompositions of an interval in parallel
+	 * @return the executor or null if the candidates are scored serially
+	 */
+	public ExecutorService getCandidateExecutor() {
+		return candidateExecutor;
+	}
+	
+	/**
+	 * Sets the pool used to decompose independent intervals in parallel. 
+	 * Once an interval is decomposed, the resulting left and right sub-intervals 
+	 * are independent and are thus decomposed within a recursive task tree. 
+	 * Short sub-intervals are decomposed serially within the current task. 
+	 * The resulting alignment does not depend on the pool used.
+	 * 
+	 * @param pool the pool to be used or null if all intervals are to be decomposed serially
+	 * @param sequentialCutoff the minimal number of coordinates of a sub-interval 
+	 * 			(within both curves) to be decomposed in a parallel task (>=2), 
+	 * 			e.g. {@link #DEFAULT_INTERVAL_CUTOFF}
+	 * @throws OutOfRangeException if sequentialCutoff < 2
+	 */
+	public void setIntervalPool( ForkJoinPool pool, int sequentialCutoff ) throws OutOfRangeException {
+		if (sequentialCutoff < 2) throw new OutOfRangeException(sequentialCutoff, 2, Integer.MAX_VALUE);
+		this.intervalPool = pool;
+		this.intervalCutoff = sequentialCutoff;
+	}
+	
+	/**
+	 * Access to the pool used to decompose independent intervals in parallel
+	 * @return the pool or null if the intervals are decomposed serially
+	 */
+	public ForkJoinPool getIntervalPool() {
+		return intervalPool;
+	}
+	
+	/**
+	 * Enables the coarse-to-fine scoring of the candidate decompositions of an interval.
+	 * If an interval has more than the given number of candidates, all are scored 
+	 * with a distance function of the same type that uses the given (low) number of 
+	 * integration points. Only the best candidates at coarse resolution are then 
+	 * scored at full resolution to select the decomposition. The resulting alignment 
+	 * can thus differ from the one computed at full resolution only. The coarse 
+	 * scoring is not applied for an {@link ExactCurveDistance}, whose candidates
+	 * are scored exactly independently of the number of integration points.
+	 * 
+	 * @param samples the number of integration points of the coarse distance function (>=2) or 0 to disable the coarse scoring (default)
+	 * @param candidates the number of best candidates at coarse resolution to be scored at full resolution (>=1)
+	 * @throws OutOfRangeException if samples < 0 or samples == 1 or candidates < 1
+	 */
+	public void setCoarseScoring( int samples, int candidates ) throws OutOfRangeException {
+		if (samples < 0 || samples == 1) throw new OutOfRangeException(samples, 2, Integer.MAX_VALUE);
+		if (candidates < 1) throw new OutOfRangeException(candidates, 1, Integer.MAX_VALUE);
+		this.coarseDistanceFunction = (samples == 0) ? null : distanceFunction.withSampleNumber( samples );
+		this.coarseCandidates = candidates;
+	}
+	
+	/**
+	 * Access to the number of integration points used to score candidate decompositions at coarse resolution
+	 * @return the number of integration points or 0 if the coarse scoring is disabled
+	 */
+	public int getCoarseSampleNumber() {
+		return coarseDistanceFunction == null ? 0 : coarseDistanceFunction.getSampleNumber();
+	}
+	
+	/**
+	 * Access to the number of best candidates at coarse resolution that are scored at full resolution
+	 * @return the number of candidates scored at full resolution
+	 */
+	public int getCoarseCandidates() {
+		return coarseCandidates;
+	}
+	
+	/**
+	 * Access to the number of decompositions selected from candidates preselected at
+	 * coarse resolution (over all alignments computed by this aligner)
+	 * @return the number of decompositions selected after a coarse preselection
+	 */
+	public long getCoarseSelectionNumber() {
+		return coarseSelectionNumber.get();
+	}
+	
+	/**
+	 * Access to the number of decompositions selected from candidates preselected at 
+	 * coarse resolution that are not the best candidate at coarse resolution 
+	 * (over all alignments computed by this aligner), i.e. where coarse and full 
+	 * resolution disagreed
+	 * @return the number of decompositions that differ from the coarse choice
+	 */
+	public long getCoarseDisagreementNumber() {
+		return coarseDisagreementNumber.get();
+	}
+	
 	
 	/**
 	 * Computes a pairwise alignment where the second curve is best aligned to the 
@@ -174,55 +360,123 @@ public class PICA {
 	public PicaData align( final IntervalDecomposition curve1, final double weight1, 
 							final IntervalDecomposition curve2, final double weight2 )
 		throws NullArgumentException, IllegalArgumentException
+	{
+		return align( curve1, weight1, curve2, weight2, null );
+	}
+	
+	/**
+	 * Computes a pairwise alignment as {@link #align(IntervalDecomposition, double, IntervalDecomposition, double)}
+	 * that is warm-started from the given seed, i.e. a mapping of annotations of the
+	 * first curve to annotations of the second curve, e.g. derived from a similar 
+	 * pairwise alignment computed before.
+	 * 
+	 * Before the greedy decomposition, the seed pairs are applied in the given order
+	 * as decompositions of the interval covering both annotations. A pair is only
+	 * applied if it is a valid candidate decomposition of this interval (alignable 
+	 * annotations, distortion constraints, minimal interval length) and reduces the 
+	 * distance within the interval. Invalid pairs are ignored. The greedy decomposition 
+	 * then resumes on all resulting intervals, such that a good seed saves the 
+	 * screening of the candidates of the initial (long) intervals.
+	 * 
+	 * @param curve1 the first curve to align - changed during alignment
+	 * @param weight1 the weight of the first curve within the alignment
+	 * @param curve2 the second curve to align - changed during alignment
+	 * @param weight2 the weight of the second curve within the alignment
+	 * @param seed the pairs of annotations of the first (left) and second (right) curve 
+	 * 			to decompose first or null to start from the initial decomposition
+	 * @return the pairwise alignment data
+	 * @throws NullArgumentException if a curve or a seed pair or annotation is null
+	 * @throws IllegalArgumentException if the curves are not compatible, i.e. show initially an incompatible decomposition
+	 */
+	public PicaData align( final IntervalDecomposition curve1, final double weight1, 
+							final IntervalDecomposition curve2, final double weight2,
+							final List<Pair<CurveAnnotation,CurveAnnotation>> seed )
+		throws NullArgumentException, IllegalArgumentException
 	{
 		// stop if thread is interrupted
 		if (Thread.currentThread().isInterrupted()) return null;
 
 		if (curve1==null || curve2==null) throw new NullArgumentException();
+		if (seed!=null && seed.stream().anyMatch( p -> p==null || p.getLeft()==null || p.getRight()==null )) throw new NullArgumentException();
 		if (!curve1.isCompatible(curve2)) throw new IllegalArgumentException("given curves are incompatible");
 		if (weight1 < 0.0) throw new IllegalArgumentException("weight 1 is negative");
 		if (weight2 < 0.0) throw new IllegalArgumentException("weight 2 is negative");
 		
 		// final result (will be updated in the following)
-		PicaData result = new PicaData();
-		result.dec1 = new IntervalDecomposition( curve1 );
-		result.dec2 = new IntervalDecomposition( curve2 );
+		PicaData result = getInitialAlignment( curve1, weight1, curve2, weight2 );
+		
+		// compute current best distance = initial distance 
+		// (keeping the distance of each sample for later updates)
+		final double[] distanceTerms = distanceFunction.getDistanceTerms(result.dec1.getCurve(), result.dec2.getCurve());
+		result.distance = distanceCorrectionFunction.getWarpCorrectedDistance(1, distanceFunction.getDistance(distanceTerms));
+		
+		// compute minimal interval length to be considered for decomposition
+		double minIntervalLengthForDecomposition = result.dec1.getCurve().length()*minRelIntervalLength;
+		// number of intervals before the decomposition
+		final int initialSize = result.dec1.size();
+		// coordinate indices of the interval boundaries before the decomposition
+		final int[] initialBoundaries1 = getBoundaryIndices( result.dec1 );
+		final int[] initialBoundaries2 = getBoundaryIndices( result.dec2 );
+		
+		// apply the valid decompositions of the seed
+		if (seed != null && !applySeed( result.dec1, weight1, result.dec2, weight2, seed, minIntervalLengthForDecomposition )) return null;
+		
+		// greedily decompose all intervals
+		if (!decomposeIntervals( result, weight1, weight2, minIntervalLengthForDecomposition )) return null;
+		
+		// get current distance after warping/decomposition
+		if (result.dec1.size() != initialSize) {
+			// update only the sample distances within decomposed intervals
+			updateDistanceTerms( distanceTerms, result, initialBoundaries1, initialBoundaries2 );
+			result.distance = distanceCorrectionFunction.getWarpCorrectedDistance(1, distanceFunction.getDistance(distanceTerms));
+		}
+		
+		// stop if thread is interrupted
+		if (Thread.currentThread().isInterrupted()) return null;
+		
+		// return final alignment data 
+		return result;
+	}
+
 
+
+	/**
+	 * Computes the initial alignment of two curves, i.e. copies of the curves that 
+	 * are scaled to equal length, where all intervals of the initial decomposition are
+	 * warped to their weighted mean length and both curves start at the weighted mean
+	 * x-coordinate. The distance of the alignment is not computed.
+	 * 
+	 * @param curve1 the first curve to align
+	 * @param weight1 the weight of the first curve within the alignment
+	 * @param curve2 the second curve to align
+	 * @param weight2 the weight of the second curve within the alignment
+	 * @return the initial alignment data (without distance)
+	 */
+	PicaData getInitialAlignment( final IntervalDecomposition curve1, final double weight1, 
+									final IntervalDecomposition curve2, final double weight2 ) 
+	{
 		// get weighted mean length of both curves to start global alignment (=equal length)
 		double globalMeanLength = getMeanLength( curve1.getCurve().length(), weight1, 
 											curve2.getCurve().length(), weight2);
 		
-		// create working copies of equal length
-		IntervalDecomposition curCurve1 = new IntervalDecomposition( result.dec1, globalMeanLength );
-		IntervalDecomposition curCurve2 = new IntervalDecomposition( result.dec2, globalMeanLength );
+		// initial alignment, i.e. copies of equal length that are warped in place
+		PicaData result = new PicaData();
+		result.dec1 = new IntervalDecomposition( curve1, globalMeanLength );
+		result.dec2 = new IntervalDecomposition( curve2, globalMeanLength );
+		final IntervalDecomposition curCurve1 = result.dec1;
+		final IntervalDecomposition curCurve2 = result.dec2;
 
 		// warp curves such that all present intervals are of the same length
 		{
-			// direct access for simpler notation
-			double[] x1 = curCurve1.getCurve().getX();
-			double[] x2 = curCurve2.getCurve().getX();
 			// warp curves such that all present intervals are of the same length
 			for (int i=0; i<curCurve1.size(); i++) {
-				// get old right end x-coordinate (will be overwritten)
-				double xRight1old = x1[ curCurve1.getIntervalEnd(i).getIndex() ];
-				double xRight2old = x2[ curCurve2.getIntervalEnd(i).getIndex() ];
 				// get new length of the interval i
-				double intervalLength = getMeanLength( result.dec1.getIntervalLength(i), weight1, 
-											result.dec2.getIntervalLength(i), weight2);
-				// warp x-coordinates of current interval
-				curCurve1.warpIntervalLeft( i, intervalLength/curCurve1.getIntervalLength(i));
-				curCurve2.warpIntervalLeft( i, intervalLength/curCurve2.getIntervalLength(i));
-				// shift x-coordinates of all following intervals
-				if (curCurve1.getIntervalEnd(i).getIndex()+1 < x1.length) {
-					double xShift1 = x1[curCurve1.getIntervalEnd(i).getIndex()] - xRight1old;
-					IntStream.range(curCurve1.getIntervalEnd(i).getIndex()+1, x1.length).forEach( p -> x1[p] += xShift1);
-					double xShift2 = x2[curCurve2.getIntervalEnd(i).getIndex()] - xRight2old;
-					IntStream.range(curCurve2.getIntervalEnd(i).getIndex()+1, x2.length).forEach( p -> x2[p] += xShift2);
-				}
+				double intervalLength = getMeanLength( curve1.getIntervalLength(i), weight1, 
+											curve2.getIntervalLength(i), weight2);
+				// warp x-coordinates of current interval and shift x-coordinates of all following intervals
+				curCurve1.warpIntervalLeftAndShift( i, intervalLength/curCurve1.getIntervalLength(i));
+				curCurve2.warpIntervalLeftAndShift( i, intervalLength/curCurve2.getIntervalLength(i));
 			}
-			// update spline information
-			curCurve1.getCurve().updateInterpolation();
-			curCurve2.getCurve().updateInterpolation();
 			// sanity check if warping was maintaining overall length
 			if ( FastMath.max(curCurve1.getCurve().length()/globalMeanLength, globalMeanLength/curCurve1.getCurve().length()) >= 1.01 ) {
 				throw new RuntimeException("overall length after initial interval warping ("
@@ -247,227 +501,1092 @@ public class PICA {
 			// shift curve 1
 			if (!MicaPrecision.sameX( curCurve1.getCurve().getXmin(), globalMeanXmin, curCurve1.getCurve().length())) {
 				double xShift = globalMeanXmin-curCurve1.getCurve().getXmin();
-				for (int i=0; i<curCurve1.getCurve().size(); i++) {
-					curCurve1.getCurve().getX()[i] += xShift;
-				}
-				// update interpolation 
-				curCurve1.getCurve().updateInterpolation();
+				curCurve1.getCurve().shiftX( 0, curCurve1.getCurve().size(), xShift );
 			}
 			// shift curve 2
 			if (!MicaPrecision.sameX( curCurve2.getCurve().getXmin(), globalMeanXmin, curCurve2.getCurve().length())) {
 				double xShift = globalMeanXmin-curCurve2.getCurve().getXmin();
-				for (int i=0; i<curCurve2.getCurve().size(); i++) {
-					curCurve2.getCurve().getX()[i] += xShift;
-				}
-				// update interpolation 
-				curCurve2.getCurve().updateInterpolation();
+				curCurve2.getCurve().shiftX( 0, curCurve2.getCurve().size(), xShift );
 			}
 		}
 
-		// copy working copies back since it is the current best alignment
-		result.dec1.copy( curCurve1, curCurve1.getCurve().length());
-		result.dec2.copy( curCurve2, curCurve2.getCurve().length());
-		// compute current best distance = initial distance
-		result.distance = distanceCorrectionFunction.getWarpCorrectedDistance(1, distanceFunction.getDistance(result.dec1.getCurve(), result.dec2.getCurve()));
+		return result;
+	}
+	
+	/**
+	 * Access to the coordinate indices of all interval boundaries of a decomposition
+	 * @param dec the decomposition of interest
+	 * @return the index of each interval boundary (in order)
+	 */
+	private static int[] getBoundaryIndices( final IntervalDecomposition dec ) {
+		return dec.getDecomposition().stream().mapToInt( a -> a.getIndex() ).toArray();
+	}
+	
+	/**
+	 * Updates the sample distances of the whole curves for all intervals of the 
+	 * initial decomposition that have been decomposed further. Since a decomposition
+	 * changes only the coordinates within the decomposed interval, the distances 
+	 * of all other samples are unchanged.
+	 * 
+	 * @param terms the sample distances to update (see {@link SampledCurveDistance#getDistanceTerms(Curve, Curve)})
+	 * @param result the decomposed curves
+	 * @param initialBoundaries1 the boundary indices of the first curve before the decomposition
+	 * @param initialBoundaries2 the boundary indices of the second curve before the decomposition
+	 */
+	private void updateDistanceTerms( final double[] terms, final PicaData result, 
+										final int[] initialBoundaries1, final int[] initialBoundaries2 ) 
+	{
+		final double[] x1 = result.dec1.getCurve().getX();
+		final double[] x2 = result.dec2.getCurve().getX();
+		// identify the initial intervals that contain new boundaries
+		int interval = 0;
+		int updated = -1;
+		for ( CurveAnnotation boundary : result.dec1.getDecomposition() ) {
+			// find initial interval containing the boundary
+			while (boundary.getIndex() >= initialBoundaries1[interval+1] && interval+2 < initialBoundaries1.length) {
+				interval++;
+			}
+			// update the distances of the interval if the boundary is new
+			if (interval != updated && boundary.getIndex() > initialBoundaries1[interval] && boundary.getIndex() < initialBoundaries1[interval+1]) {
+				distanceFunction.updateDistanceTerms( result.dec1.getCurve(), result.dec2.getCurve(), terms, 
+						x1[initialBoundaries1[interval]], x1[initialBoundaries1[interval+1]], 
+						x2[initialBoundaries2[interval]], x2[initialBoundaries2[interval+1]] );
+				updated = interval;
+			}
+		}
+	}
+	
+	/**
+	 * Applies the pairs of the seed in the given order as decompositions, where each
+	 * pair is scored as the only candidate decomposition of the interval covering both 
+	 * annotations. Pairs that are no valid candidate or do not reduce the distance 
+	 * within the interval are ignored.
+	 * 
+	 * @param dec1 the first curve to decompose
+	 * @param weight1 the weight of the first curve
+	 * @param dec2 the second curve to decompose
+	 * @param weight2 the weight of the second curve
+	 * @param seed the pairs of annotations of the first and second curve to apply
+	 * @param minIntervalLength the minimal length of an interval to be considered for decomposition
+	 * @return true if the seed was applied; false if the computation was interrupted
+	 */
+	private boolean applySeed( final IntervalDecomposition dec1, final double weight1, 
+								final IntervalDecomposition dec2, final double weight2, 
+								final List<Pair<CurveAnnotation,CurveAnnotation>> seed, final double minIntervalLength ) 
+	{
+		final Workspace scores = workspace.get();
+		try {
+			for ( Pair<CurveAnnotation,CurveAnnotation> landmarks : seed ) {
+				
+				// stop if thread is interrupted
+				if (Thread.currentThread().isInterrupted()) return false;
+				
+				final CurveAnnotation a1 = landmarks.getLeft();
+				final CurveAnnotation a2 = landmarks.getRight();
+				// check if annotations of the curves and alignable
+				if ( !Type.isAlignable( a1.getType(), a2.getType() )
+						|| !dec1.getCurveOriginal().getFilteredAnnotations().contains( a1 )
+						|| !dec2.getCurveOriginal().getFilteredAnnotations().contains( a2 ) ) 
+				{
+					continue;
+				}
+				// check if both within the same interval and not a boundary
+				final int interval = dec1.getInterval( dec1.getCurve().getX()[a1.getIndex()] );
+				if ( interval != dec2.getInterval( dec2.getCurve().getX()[a2.getIndex()] )
+						|| dec1.getIntervalLength( interval ) < minIntervalLength
+						|| !dec1.getIntervalAnnotations( interval ).contains( a1 )
+						|| !dec2.getIntervalAnnotations( interval ).contains( a2 ) ) 
+				{
+					continue;
+				}
+				
+				// score as the only candidate decomposition of the interval
+				scores.setInterval( dec1, weight1, dec2, weight2, interval );
+				scores.addCandidate( a1, a2 );
+				if (!scoreCandidates( scores, distanceFunction, true )) {
+					return false;
+				}
+				// apply if valid and reducing the distance of the interval
+				if (scores.distance[0] < scores.currentDistance) {
+					dec1.decompose( interval, a1, scores.splitPos[0] );
+					dec2.decompose( interval, a2, scores.splitPos[0] );
+				}
+			}
+		} finally {
+			// drop references to the curves from the buffers of this thread
+			scores.release();
+		}
+		return true;
+	}
+	
+	/**
+	 * Greedily decomposes all intervals of the given alignment in place, either 
+	 * serially or within {@link #intervalPool}. The decomposition loop itself does 
+	 * not allocate temporary data if called serially, i.e. the alignment can be 
+	 * reset via {@link IntervalDecomposition#copy(IntervalDecomposition, double)} 
+	 * and decomposed again without allocation (see PicaBenchmark).
+	 * 
+	 * @param alignment the alignment to decompose
+	 * @param weight1 the weight of the first curve
+	 * @param weight2 the weight of the second curve
+	 * @param minIntervalLength the minimal length of an interval to be considered for decomposition
+	 * @return true if the decomposition was completed; false if the computation was interrupted
+	 */
+	boolean decomposeIntervals( final PicaData alignment, final double weight1, final double weight2, 
+								final double minIntervalLength ) 
+	{
+		if (intervalPool == null) {
+			return decomposeIntervals( alignment.dec1, weight1, alignment.dec2, weight2, 0, alignment.dec1.size(), minIntervalLength, null, new WalkState( false ) );
+		}
+		// decompose within a recursive task tree
+		IntervalTask root = new IntervalTask( alignment.dec1, weight1, alignment.dec2, weight2, 0, alignment.dec1.size(), minIntervalLength, null );
+		try {
+			return intervalPool.submit( root ).get();
+		} catch (InterruptedException e) {
+			// stop all subtasks and forward interruption
+			root.cancel( true );
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			// forward the exception raised during the computation
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+			throw new RuntimeException( e.getCause() );
+		}
+	}
+	
+	/**
+	 * Greedily decomposes a range of consecutive intervals from left to right via
+	 * {@link #decomposeInterval(IntervalDecomposition, double, IntervalDecomposition, double, int, double, IntervalTask, WalkState)}.
+	 * 
+	 * @param dec1 the first curve to decompose
+	 * @param weight1 the weight of the first curve
+	 * @param dec2 the second curve to decompose
+	 * @param weight2 the weight of the second curve
+	 * @param interval the index of the first interval to decompose
+	 * @param number the number of intervals to decompose
+	 * @param minIntervalLength the minimal length of an interval to be considered for decomposition
+	 * @param task the task this decomposition is computed in or null for a serial decomposition
+	 * @param walk the state of the left-to-right walk to be updated
+	 * @return true if the decomposition was completed; false if the computation was interrupted
+	 */
+	private boolean decomposeIntervals( final IntervalDecomposition dec1, final double weight1, 
+										final IntervalDecomposition dec2, final double weight2, 
+										int interval, final int number, final double minIntervalLength,
+										final IntervalTask task, final WalkState walk ) 
+	{
+		for (int n=0; n<number; n++) {
+			int size = dec1.size();
+			if (!decomposeInterval( dec1, weight1, dec2, weight2, interval, minIntervalLength, task, walk )) {
+				return false;
+			}
+			// skip the sub-intervals resulting from the decomposition
+			interval += 1 + dec1.size() - size;
+		}
+		return true;
+	}
+	
+	/**
+	 * Greedily decomposes the given interval, i.e. iteratively identifies and applies 
+	 * the decomposition that minimizes the distance within the interval and 
+	 * decomposes the resulting left and right sub-intervals accordingly. 
+	 * 
+	 * A decomposition changes only the x-coordinates within the decomposed interval.
+	 * Furthermore, the distance within an interval depends only on the interval and
+	 * (e.g. for slope-based distances) on the first coordinates of the right neighbor 
+	 * interval. Thus, as in a left-to-right walk over the intervals, each left 
+	 * sub-interval is completely decomposed before its right sibling. If called 
+	 * within an {@link IntervalTask}, right sub-intervals with at least 
+	 * {@link #intervalCutoff} coordinates are decomposed in parallel on copies of 
+	 * the curves that are made directly after their creation and are copied back 
+	 * when finished. Thus, the resulting decomposition is independent of the 
+	 * parallelization.
+	 * 
+	 * The decomposition is identical to the former left-to-right walk, i.e. the 
+	 * last interval is not decomposed if the walk's working copy lags behind 
+	 * (see {@link WalkState}).
+	 * 
+	 * @param dec1 the first curve to decompose
+	 * @param weight1 the weight of the first curve
+	 * @param dec2 the second curve to decompose
+	 * @param weight2 the weight of the second curve
+	 * @param interval the index of the interval to decompose
+	 * @param minIntervalLength the minimal length of an interval to be considered for decomposition
+	 * @param task the task this decomposition is computed in or null for a serial decomposition
+	 * @param walk the state of the left-to-right walk to be updated
+	 * @return true if the decomposition was completed; false if the computation was interrupted
+	 */
+	private boolean decomposeInterval( final IntervalDecomposition dec1, final double weight1, 
+										final IntervalDecomposition dec2, final double weight2, 
+										final int interval, final double minIntervalLength,
+										final IntervalTask task, final WalkState walk ) 
+	{
+		// right sub-intervals to be decomposed after the left ones (null if decomposed serially),
+		// which are only stored if decomposed within a task
+		final List<IntervalTask> rightIntervals = (task == null) ? null : new ArrayList<>();
+		int rightNumber = 0;
+		boolean completed = true;
 		
-		// compute minimal interval length to be considered for decomposition
-		double minIntervalLengthForDecomposition = result.dec1.getCurve().length()*minRelIntervalLength;
-		// the interval index currently focus for decomposition
-		int curInterval = 0;
-		// iterate while within one of the intervals
-		while (curInterval < curCurve1.size()) {
-
-			// stop if thread is interrupted
-			if (Thread.currentThread().isInterrupted()) return null;
+		while (true) {
+			
+			// stop if thread is interrupted or the computation was cancelled
+			if (Thread.currentThread().isInterrupted() || (task != null && task.root.isCancelled())) {
+				completed = false;
+				break;
+			}
+			
+			// the walk does not reach the last interval if its working copy lags behind
+			if (interval == dec1.size()-1 && !Boolean.FALSE.equals( walk.lagging )) {
+				// let the parent walk decide if the state is not known yet
+				walk.deferred = (walk.lagging == null);
+				break;
+			}
 			
 			// check if the interval is smaller than the minimal length
-			if (result.dec1.getIntervalLength(curInterval) < minIntervalLengthForDecomposition) {
-				// go to next interval
-				curInterval++;
-				continue;
+			if (dec1.getIntervalLength(interval) < minIntervalLength) {
+				break;
 			}
+			// working copy is updated
+			walk.lagging = false;
 			
-			boolean noBetterAlignmentFound = true;
+			//  ### collect all compatible annotation pairs within the interval
+			// (reusing the buffers of this thread, which are not needed anymore for
+			// the intervals decomposed so far)
+			final Workspace scores = workspace.get();
+			scores.setInterval( dec1, weight1, dec2, weight2, interval );
+			collectCandidates( scores );
+			if (scores.candidates == 0) {
+				break;
+			}
 			
-			// make working copies of best alignment without decomposition of this interval
-			curCurve1.copy( result.dec1, result.dec1.getCurve().length());
-			curCurve2.copy( result.dec2, result.dec2.getCurve().length());
+			// score all candidates (in parallel if possible)
+			if (!scoreCandidates( scores )) {
+				completed = false;
+				break;
+			}
 			
-			// initialize temporary variables for lazy computation when needed
-			double curIntervalLength = -1d;
-			double curIntervalStartX1 = 0.0;
-			double curIntervalStartX2 = 0.0;
-			double curIntervalEndX1 = 0.0;
-			double curIntervalEndX2 = 0.0;
+			// identify the first candidate (in serial order) with strictly minimal distance
+			int curMinCandidate = -1;
+			for (int c=0; c<scores.candidates; c++) {
+				if ( !Double.isNaN( scores.distance[c] ) 
+						&& (curMinCandidate < 0 || scores.distance[c] < scores.distance[curMinCandidate])) 
+				{
+					curMinCandidate = c;
+				}
+			}
 			
+			// stop if the best decomposition does not reduce the distance of the interval
+			if (curMinCandidate < 0 
+					|| !(scores.distance[curMinCandidate] < scores.currentDistance)) 
+			{
+				break;
+			}
 			
-			// get coordinates within this interval that are used for distance computation
-			double[] curDistSampleX1 = null;
-			double[] curDistSampleX2 = null;
-			int curDistToSample = 0;
-			double[] decDistSampleX1 = null;
-			double[] decDistSampleX2 = null;
+			// count whether or not the coarse choice was confirmed at full resolution
+			if (scores.coarseBest >= 0) {
+				coarseSelectionNumber.incrementAndGet();
+				if (curMinCandidate != scores.coarseBest) {
+					coarseDisagreementNumber.incrementAndGet();
+				}
+			}
 			
-			// initialize current minimal local distance for lazy computation
-			double curMinDistanceLoc = -1;
-			CurveAnnotation curMinDistanceA1 = null;
-			CurveAnnotation curMinDistanceA2 = null;
-			double curMinDistanceSplitPos = Double.NaN;
-
-			//  ### iterate over all compatible annotation pairs within the interval
-			for ( CurveAnnotation a1 : curCurve1.getIntervalAnnotations( curInterval )) {
-				for ( CurveAnnotation a2 : curCurve2.getIntervalAnnotations( curInterval )) {
-					// check if annotations are of alignable type
-					if ( Type.isAlignable( a1.getType(), a2.getType() ) ) {
-						
-						// stop if thread is interrupted
-						if (Thread.currentThread().isInterrupted()) return null;
-						
-						// start lazy computation
-						if (curIntervalLength < 0) {
-							curIntervalLength = curCurve1.getIntervalLength(curInterval);
-							curIntervalStartX1 = curCurve1.getCurve().getX()[curCurve1.getIntervalStart(curInterval).getIndex()];
-							curIntervalStartX2 = curCurve2.getCurve().getX()[curCurve2.getIntervalStart(curInterval).getIndex()];
-							curIntervalEndX1 = curCurve1.getCurve().getX()[curCurve1.getIntervalEnd(curInterval).getIndex()];
-							curIntervalEndX2 = curCurve2.getCurve().getX()[curCurve2.getIntervalEnd(curInterval).getIndex()];
-							
-							// get coordinates within this interval that are used for distance computation
-							curDistSampleX1 = distanceFunction.getSamplePositions( curCurve1.getCurve(), curCurve1.getIntervalStart(curInterval).getIndex(), curCurve1.getIntervalEnd(curInterval).getIndex());
-							curDistSampleX2 = distanceFunction.getSamplePositions( curCurve2.getCurve(), curCurve2.getIntervalStart(curInterval).getIndex(), curCurve2.getIntervalEnd(curInterval).getIndex());
-							// #### HACK TO ENSURE EQUAL NUMBER OF SAMPLES WHICH MIGHT DIFFER DUE TO ROUNDING ISSUES ####
-							curDistToSample = FastMath.min(curDistSampleX1.length, curDistSampleX2.length);
-							if (curDistSampleX1.length>curDistToSample) curDistSampleX1 = Arrays.copyOf(curDistSampleX1, curDistToSample);
-							if (curDistSampleX2.length>curDistToSample) curDistSampleX2 = Arrays.copyOf(curDistSampleX2, curDistToSample);
-							
-							decDistSampleX1 = Arrays.copyOf( curDistSampleX1, curDistToSample );
-							decDistSampleX2 = Arrays.copyOf( curDistSampleX2, curDistToSample );
-
-						}
-						
-						
-						// direct access for simpler notation
-						double[] x1 = curCurve1.getCurve().getX();
-						double[] x2 = curCurve2.getCurve().getX();
-						double a1x = x1[a1.getIndex()];
-						double a2x = x2[a2.getIndex()];
-						
-						// length of left interval after warping
-						double leftMeanLength = getMeanLength( a1x-curIntervalStartX1, weight1, a2x-curIntervalStartX2, weight2);
-						
-						// get global relative positions before and after warping
-						double a1relXwarped = (curIntervalStartX1+leftMeanLength-curCurve1.getCurve().getXmin())/(curCurve1.getCurve().getXmax()-curCurve1.getCurve().getXmin());
-						double a1relXoriginal = (curCurve1.getCurveOriginal().getX()[a1.getIndex()]-curCurve1.getCurveOriginal().getXmin())/(curCurve1.getCurveOriginal().getXmax()-curCurve1.getCurveOriginal().getXmin());
-						double a1relXShift = FastMath.abs( a1relXwarped - a1relXoriginal );
-						double a2relXwarped = (curIntervalStartX2+leftMeanLength-curCurve2.getCurve().getXmin())/(curCurve2.getCurve().getXmax()-curCurve2.getCurve().getXmin());
-						double a2relXoriginal = (curCurve2.getCurveOriginal().getX()[a2.getIndex()]-curCurve2.getCurveOriginal().getXmin())/(curCurve2.getCurveOriginal().getXmax()-curCurve2.getCurveOriginal().getXmin());
-						double a2relXShift = FastMath.abs( a2relXwarped - a2relXoriginal );
-						
-						
-						// check if distortion is larger than allowed
-						if ( this.maxRelXShift < a1relXShift || this.maxRelXShift < a2relXShift ) {
-							// skip this decomposition option
-							continue;
-						}
-						
-						// get new relative positions of a1 and a2 within the interval
-						double newRelPosSplit = leftMeanLength / curIntervalLength;
-						double curIntervalWarpingFactor = FastMath.max( newRelPosSplit, 1/newRelPosSplit );
-
-						// check if distortion is larger than allowed
-						if ( this.maxDistortionRatio < curIntervalWarpingFactor ) {
-							// skip this decomposition option
-							continue;
-						}
-
-						// now we really have to compute distances ...
-						// compute initial distance if not already done
-						if (curMinDistanceLoc < 0) {
-							curMinDistanceLoc = distanceFunction.getDistance(curCurve1.getCurve(), curCurve2.getCurve(), curDistSampleX1, curDistSampleX2, 0, curDistSampleX1.length);
-						}
-						
-						double a1xWarped = curIntervalStartX1 + curIntervalLength*newRelPosSplit;
-						double a2xWarped = curIntervalStartX2 + curIntervalLength*newRelPosSplit;
-						
-						// get warped distance sampling positions
-						int curDistSampleX1LastLeft = -1;
-						for (int i=0;i<curDistToSample; i++) {
-							// curve1 : left interval
-							if (curDistSampleX1[i]<a1xWarped) {
-								// compute position before warping (left = fixed)
-								decDistSampleX1[i] = curIntervalStartX1 + ((curDistSampleX1[i]-curIntervalStartX1)*(a1x-curIntervalStartX1)/(a1xWarped-curIntervalStartX1));
-								// update boundary control
-								curDistSampleX1LastLeft = i;
-							} else {
-								// curve1 : right interval
-								// compute position before warping (right = fixed)
-								decDistSampleX1[i] = curIntervalEndX1 - ((curIntervalEndX1-curDistSampleX1[i])*(curIntervalEndX1-a1x)/(curIntervalEndX1-a1xWarped));
-							}
-							// curve2 : left interval
-							if (curDistSampleX2[i]<a2xWarped) {
-								// compute position before warping (left = fixed)
-								decDistSampleX2[i] = curIntervalStartX2 + ((curDistSampleX2[i]-curIntervalStartX2)*(a2x-curIntervalStartX2)/(a2xWarped-curIntervalStartX2));
-							} else {
-								// curve2 : right interval
-								// compute position before warping (right = fixed)
-								decDistSampleX2[i] = curIntervalEndX2 - ((curIntervalEndX2-curDistSampleX2[i])*(curIntervalEndX2-a2x)/(curIntervalEndX2-a2xWarped));
-							}
-						}
-						
-						// compute distance resulting from the alignment
-						double curDistanceLoc = distanceCorrectionFunction.getWarpCorrectedDistance( curIntervalWarpingFactor, 
-								distanceFunction.finalDistance(
-								// distance of left interval of the decomposition
-								(curDistSampleX1LastLeft==-1 ? 0 : distanceFunction.preFinalDistance( distanceFunction.getDistance(curCurve1.getCurve(), curCurve2.getCurve(), decDistSampleX1, decDistSampleX2, 0, curDistSampleX1LastLeft+1), curDistSampleX1LastLeft+1))
-								// distance of right interval of the decomposition
-								+ (curDistSampleX1LastLeft+1>=decDistSampleX1.length ? 0 : distanceFunction.preFinalDistance( distanceFunction.getDistance(curCurve1.getCurve(), curCurve2.getCurve(), decDistSampleX1, decDistSampleX2, curDistSampleX1LastLeft+1, decDistSampleX2.length-curDistSampleX1LastLeft-1), decDistSampleX2.length-curDistSampleX1LastLeft-1))
-								, decDistSampleX1.length)
-										);
-
-						// check if current distance is better than best so far
-						if (curDistanceLoc < curMinDistanceLoc) {
-
-							// remember we have found something better
-							noBetterAlignmentFound = false;
-							
-							// store new minimal distance
-							curMinDistanceLoc = curDistanceLoc;
-							curMinDistanceA1 = a1;
-							curMinDistanceA2 = a2;
-							curMinDistanceSplitPos = newRelPosSplit;
-						}
+			// decompose and warp the current interval 
+			dec1.decompose( interval, scores.candidate1[curMinCandidate], scores.splitPos[curMinCandidate]);
+			dec2.decompose( interval, scores.candidate2[curMinCandidate], scores.splitPos[curMinCandidate]);
+			// working copy lags behind the decomposition
+			walk.lagging = true;
+			
+			// decompose right sub-interval in parallel on copies if long enough
+			if (task != null && FastMath.min( dec1.getIntervalSize(interval+1), dec2.getIntervalSize(interval+1) ) >= intervalCutoff) {
+				IntervalTask right = new IntervalTask( new IntervalDecomposition( dec1 ), weight1, new IntervalDecomposition( dec2 ), weight2, interval+1, 1, minIntervalLength, task.root );
+				right.fork();
+				rightIntervals.add( right );
+			} else if (task != null) {
+				// decompose serially later on
+				rightIntervals.add( null );
+			}
+			rightNumber++;
+			// keep interval index, since left sub-interval of the decomposition has the same index
+		}
+		// drop references to the curves from the buffers of this thread
+		workspace.get().release();
+		
+		// decompose right sub-intervals from left to right (most recent first)
+		int right = interval+1;
+		for (int r=rightNumber-1; r>=0; r--) {
+			int size = dec1.size();
+			IntervalTask rightTask = (rightIntervals == null) ? null : rightIntervals.get(r);
+			if (rightTask != null) {
+				// wait for the parallel decomposition
+				completed = rightTask.join() && completed;
+				if (completed && !rightTask.walk.deferred) {
+					// copy decomposition of the sub-interval
+					dec1.copyInterval( right, rightTask.dec1 );
+					dec2.copyInterval( right, rightTask.dec2 );
+					// continue with the walk state after the sub-interval
+					if (rightTask.walk.lagging != null) {
+						walk.lagging = rightTask.walk.lagging;
 					}
 				}
 			}
+			// decompose serially if not done in parallel
+			if ((rightTask == null || rightTask.walk.deferred) && completed) {
+				completed = decomposeInterval( dec1, weight1, dec2, weight2, right, minIntervalLength, task, walk );
+			}
+			// skip the sub-intervals resulting from the decomposition
+			right += 1 + dec1.size() - size;
+		}
+		
+		return completed;
+	}
+	
+	/**
+	 * Collects all pairs of alignable annotations within the interval (in the order of 
+	 * the first and then of the second annotation) that do neither violate the maximal 
+	 * relative shift of the first annotation nor the maximal distortion ratio.
+	 * 
+	 * To this end, the annotations of the second curve are grouped by their alignable
+	 * class. Since both constraints depend monotonically on the position of the second 
+	 * annotation, the valid partners of each annotation of the first curve form a 
+	 * window within its class, which is identified via binary search. Thus, pairs 
+	 * rejected by these constraints are never enumerated. The remaining constraints 
+	 * are checked when scoring the candidates.
+	 * 
+	 * @param interval the interval data, where the candidates are added to
+	 */
+	private void collectCandidates( final Workspace interval ) {
+		
+		// group annotations of the second curve by alignable class (keeping their order)
+		final CurveAnnotation[] annotations2 = interval.curve2.getCurveOriginal().getFilteredAnnotationArray();
+		final int start2 = interval.curve2.getIntervalAnnotationStart( interval.interval );
+		final int end2 = interval.curve2.getIntervalAnnotationEnd( interval.interval );
+		final int[] classStart = interval.classStart;
+		Arrays.fill( classStart, 0 );
+		for (int a=start2; a<end2; a++) {
+			classStart[ annotations2[a].getType().getAlignableClass()+1 ]++;
+		}
+		for (int c=1; c<classStart.length; c++) {
+			classStart[c] += classStart[c-1];
+		}
+		interval.ensureAnnotationCapacity( end2-start2 );
+		final double[] x2 = interval.curve2.getCurve().getX();
+		for (int a=start2; a<end2; a++) {
+			final CurveAnnotation a2 = annotations2[a];
+			int pos = classStart[ a2.getType().getAlignableClass() ]++;
+			interval.annotations2[pos] = a2;
+			interval.annotationX2[pos] = x2[a2.getIndex()];
+		}
+		// restore class starts, which were shifted to the class ends while filling
+		for (int c=classStart.length-1; c>0; c--) {
+			classStart[c] = classStart[c-1];
+		}
+		classStart[0] = 0;
+		
+		// direct access for simpler notation
+		final Curve curve1 = interval.curve1.getCurve();
+		final AnnotatedCurve original1 = interval.curve1.getCurveOriginal();
+		final CurveAnnotation[] annotations1 = original1.getFilteredAnnotationArray();
+		final int end1 = interval.curve1.getIntervalAnnotationEnd( interval.interval );
+		
+		for (int a=interval.curve1.getIntervalAnnotationStart( interval.interval ); a<end1; a++) {
+			final CurveAnnotation a1 = annotations1[a];
+			// annotations of the second curve of alignable type 
+			final int alignableClass = a1.getType().getAlignableClass();
+			int from = classStart[alignableClass];
+			int to = classStart[alignableClass+1];
+			if (from == to) {
+				continue;
+			}
 			
-			// go to next interval, if there was no better decomposition
-			if (noBetterAlignmentFound) {
-				// go to next interval
-				curInterval++;
-			} else {
-				
-				// store best alignment for this interval decomposition
-				result.dec1.copy(curCurve1, curCurve1.getCurve().length());
-				result.dec2.copy(curCurve2, curCurve2.getCurve().length());
-				
-				// decompose and warp the current interval within the minimum curve
-				result.dec1.decompose( curInterval, curMinDistanceA1, curMinDistanceSplitPos);
-				result.dec2.decompose( curInterval, curMinDistanceA2, curMinDistanceSplitPos);
-				
-				// get current distance after warping/decomposition
-				result.distance = distanceCorrectionFunction.getWarpCorrectedDistance(1, distanceFunction.getDistance(result.dec1.getCurve(), result.dec2.getCurve()));
-				// keep interval index, since left interval of new best decomposition has the same index
+			final double a1x = curve1.getX()[a1.getIndex()];
+			final double a1relXoriginal = (original1.getX()[a1.getIndex()]-original1.getXmin())/(original1.getXmax()-original1.getXmin());
+			
+			// find first partner that is not left of the window
+			int lo = from, hi = to;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (isLeftOfWindow( interval, a1x, a1relXoriginal, interval.annotationX2[mid] )) {
+					lo = mid+1;
+				} else {
+					hi = mid;
+				}
+			}
+			from = lo;
+			// find first partner that is right of the window
+			hi = to;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (isRightOfWindow( interval, a1x, a1relXoriginal, interval.annotationX2[mid] )) {
+					hi = mid;
+				} else {
+					lo = mid+1;
+				}
+			}
+			to = lo;
+			
+			// add all partners within the window
+			for (int i=from; i<to; i++) {
+				interval.addCandidate( a1, interval.annotations2[i] );
 			}
 		}
+	}
+	
+	/**
+	 * Checks whether or not a partner at the given position of the second curve is
+	 * left of the window of valid partners of an annotation of the first curve, i.e. 
+	 * the resulting left sub-interval is too short for the maximal relative shift of 
+	 * the first annotation or the maximal distortion ratio. Uses the same computation
+	 * as {@link #scoreCandidates(Workspace, SampledCurveDistance, boolean, int, int)}.
+	 * 
+	 * @param interval the interval data
+	 * @param a1x the x-coordinate of the annotation of the first curve
+	 * @param a1relXoriginal the relative position of the annotation within the original first curve
+	 * @param a2x the x-coordinate of the partner within the second curve
+	 * @return true if the partner is left of the window
+	 */
+	private boolean isLeftOfWindow( final Workspace interval, final double a1x, final double a1relXoriginal, final double a2x ) {
+		double leftMeanLength = getMeanLength( a1x-interval.startX1, interval.weight1, a2x-interval.startX2, interval.weight2);
+		double a1relXwarped = (interval.startX1+leftMeanLength-interval.curve1.getCurve().getXmin())/(interval.curve1.getCurve().getXmax()-interval.curve1.getCurve().getXmin());
+		double newRelPosSplit = leftMeanLength / interval.length;
+		return this.maxRelXShift < -(a1relXwarped - a1relXoriginal)
+				|| (newRelPosSplit < 1 && this.maxDistortionRatio < 1/newRelPosSplit);
+	}
+	
+	/**
+	 * Checks whether or not a partner at the given position of the second curve is
+	 * right of the window of valid partners of an annotation of the first curve, i.e. 
+	 * the resulting left sub-interval is too long for the maximal relative shift of 
+	 * the first annotation or the maximal distortion ratio. Uses the same computation
+	 * as {@link #scoreCandidates(Workspace, SampledCurveDistance, boolean, int, int)}.
+	 * 
+	 * @param interval the interval data
+	 * @param a1x the x-coordinate of the annotation of the first curve
+	 * @param a1relXoriginal the relative position of the annotation within the original first curve
+	 * @param a2x the x-coordinate of the partner within the second curve
+	 * @return true if the partner is right of the window
+	 */
+	private boolean isRightOfWindow( final Workspace interval, final double a1x, final double a1relXoriginal, final double a2x ) {
+		double leftMeanLength = getMeanLength( a1x-interval.startX1, interval.weight1, a2x-interval.startX2, interval.weight2);
+		double a1relXwarped = (interval.startX1+leftMeanLength-interval.curve1.getCurve().getXmin())/(interval.curve1.getCurve().getXmax()-interval.curve1.getCurve().getXmin());
+		double newRelPosSplit = leftMeanLength / interval.length;
+		return this.maxRelXShift < (a1relXwarped - a1relXoriginal)
+				|| (newRelPosSplit >= 1 && this.maxDistortionRatio < newRelPosSplit);
+	}
+	
+	/**
+	 * Task to decompose a range of intervals via 
+	 * {@link PICA#decomposeIntervals(IntervalDecomposition, double, IntervalDecomposition, double, int, int, double, IntervalTask, WalkState)}
+	 * within {@link PICA#intervalPool}.
+	 */
+	private class IntervalTask extends RecursiveTask<Boolean> {
 		
-		// stop if thread is interrupted
-		if (Thread.currentThread().isInterrupted()) return null;
+		private static final long serialVersionUID = 1L;
 		
-		// return final alignment data 
-		return result;
+		/** the first curve to decompose */
+		final IntervalDecomposition dec1;
+		/** the weight of the first curve */
+		final double weight1;
+		/** the second curve to decompose */
+		final IntervalDecomposition dec2;
+		/** the weight of the second curve */
+		final double weight2;
+		/** the index of the first interval to decompose */
+		final int firstInterval;
+		/** the number of intervals to decompose */
+		final int number;
+		/** the minimal length of an interval to be considered for decomposition */
+		final double minIntervalLength;
+		/** the root of the task tree, which is cancelled to stop the computation */
+		final IntervalTask root;
+		/** the state of the left-to-right walk within this task (initially unknown except for the root) */
+		final WalkState walk;
+		
+		/**
+		 * Creates a task to decompose a range of intervals
+		 * @param dec1 the first curve to decompose
+		 * @param weight1 the weight of the first curve
+		 * @param dec2 the second curve to decompose
+		 * @param weight2 the weight of the second curve
+		 * @param firstInterval the index of the first interval to decompose
+		 * @param number the number of intervals to decompose
+		 * @param minIntervalLength the minimal length of an interval to be considered for decomposition
+		 * @param root the root of the task tree or null if this is the root
+		 */
+		IntervalTask( IntervalDecomposition dec1, double weight1, IntervalDecomposition dec2, double weight2, 
+				int firstInterval, int number, double minIntervalLength, IntervalTask root ) 
+		{
+			this.dec1 = dec1;
+			this.weight1 = weight1;
+			this.dec2 = dec2;
+			this.weight2 = weight2;
+			this.firstInterval = firstInterval;
+			this.number = number;
+			this.minIntervalLength = minIntervalLength;
+			this.root = (root == null) ? this : root;
+			this.walk = new WalkState( (root == null) ? Boolean.FALSE : null );
+		}
+		
+		@Override
+		protected Boolean compute() {
+			return decomposeIntervals( dec1, weight1, dec2, weight2, firstInterval, number, minIntervalLength, this, walk );
+		}
 	}
+	
+	/**
+	 * State of the greedy left-to-right walk over the intervals. 
+	 * 
+	 * The walk compares the current interval index against the number of 
+	 * intervals of a working copy of the curves, which is updated whenever an 
+	 * interval of sufficient length is examined. Directly after a decomposition,
+	 * the working copy thus lags one interval behind. If the walk reaches the 
+	 * last interval in this state, the last interval is not decomposed.
+	 */
+	private static class WalkState {
+		/** whether or not the working copy lags behind the decomposition (null if not known yet) */
+		Boolean lagging;
+		/** whether or not the last interval was reached before the state was known */
+		boolean deferred = false;
+		
+		/**
+		 * Creates a walk state
+		 * @param lagging whether or not the working copy lags behind the decomposition (null if not known yet)
+		 */
+		WalkState( Boolean lagging ) {
+			this.lagging = lagging;
+		}
+	}
+	
+	/**
+	 * Reusable buffers of a thread for the decomposition of intervals, i.e. the 
+	 * data of the interval currently decomposed that is needed to score its 
+	 * candidate decompositions. The buffers are only grown if needed, such that
+	 * no temporary data is allocated for each interval and candidate.
+	 */
+	private static class Workspace {
+		/** the first curve */
+		IntervalDecomposition curve1 = null;
+		/** the weight of the first curve */
+		double weight1;
+		/** the second curve */
+		IntervalDecomposition curve2 = null;
+		/** the weight of the second curve */
+		double weight2;
+		/** the index of the interval */
+		int interval;
+		/** the length of the interval */
+		double length;
+		/** the x-coordinates of the interval boundaries */
+		double startX1, startX2, endX1, endX2;
+		/** the x-coordinates within the interval used for distance computation */
+		double[] sampleX1 = new double[0], sampleX2 = new double[0];
+		/** the number of x-coordinates used for distance computation */
+		int samples = 0;
+		/** the distance within the interval without decomposition */
+		double currentDistance = Double.NaN;
+		/** the sampling positions before warping of the candidate currently scored by this thread */
+		double[] decSampleX1 = new double[0], decSampleX2 = new double[0];
+		/** the annotations of the second curve within the interval grouped by alignable class (in order) */
+		CurveAnnotation[] annotations2 = new CurveAnnotation[0];
+		/** the x-coordinates of annotations2 */
+		double[] annotationX2 = new double[0];
+		/** the index of the first annotation of each alignable class within annotations2 (and the end of the last class) */
+		final int[] classStart = new int[Type.ALIGNABLE_CLASSES+1];
+		/** the alignable annotation pairs */
+		CurveAnnotation[] candidate1 = new CurveAnnotation[0], candidate2 = new CurveAnnotation[0];
+		/** the number of alignable annotation pairs */
+		int candidates = 0;
+		/** the distance of each candidate decomposition, NaN if not allowed, or infinity if its scoring was abandoned */
+		double[] distance = new double[0];
+		/** the relative position of the split within the interval for each candidate */
+		double[] splitPos = new double[0];
+		/** the indices of the best candidates at coarse resolution (in order of their distance) */
+		int[] coarseOrder = new int[0];
+		/** the index of the best candidate at coarse resolution among the preselected candidates or -1 if not preselected */
+		int coarseBest = -1;
+		
+		/**
+		 * Extracts the interval data from the given curves and removes all candidates
+		 * @param curve1 the first curve
+		 * @param weight1 the weight of the first curve
+		 * @param curve2 the second curve
+		 * @param weight2 the weight of the second curve
+		 * @param interval the index of the interval
+		 */
+		void setInterval( IntervalDecomposition curve1, double weight1, IntervalDecomposition curve2, double weight2, int interval ) {
+			this.curve1 = curve1;
+			this.weight1 = weight1;
+			this.curve2 = curve2;
+			this.weight2 = weight2;
+			this.interval = interval;
+			length = curve1.getIntervalLength(interval);
+			startX1 = curve1.getCurve().getX()[curve1.getIntervalStart(interval).getIndex()];
+			startX2 = curve2.getCurve().getX()[curve2.getIntervalStart(interval).getIndex()];
+			endX1 = curve1.getCurve().getX()[curve1.getIntervalEnd(interval).getIndex()];
+			endX2 = curve2.getCurve().getX()[curve2.getIntervalEnd(interval).getIndex()];
+			samples = 0;
+			candidates = 0;
+			coarseBest = -1;
+		}
+		
+		/**
+		 * Adds an alignable annotation pair to the candidates
+		 * @param a1 the annotation of the first curve
+		 * @param a2 the annotation of the second curve
+		 */
+		void addCandidate( CurveAnnotation a1, CurveAnnotation a2 ) {
+			if (candidates == candidate1.length) {
+				int capacity = FastMath.max( 2*candidates, MIN_CANDIDATES_PER_TASK );
+				candidate1 = Arrays.copyOf( candidate1, capacity );
+				candidate2 = Arrays.copyOf( candidate2, capacity );
+				distance = new double[capacity];
+				splitPos = new double[capacity];
+			}
+			candidate1[candidates] = a1;
+			candidate2[candidates] = a2;
+			candidates++;
+		}
+		
+		/**
+		 * Removes all references to the curves of the interval
+		 */
+		void release() {
+			curve1 = null;
+			curve2 = null;
+			Arrays.fill( candidate1, 0, candidates, null );
+			Arrays.fill( candidate2, 0, candidates, null );
+			candidates = 0;
+			Arrays.fill( annotations2, null );
+		}
+		
+		/**
+		 * Ensures that the annotation buffers can hold the given number of annotations
+		 * @param capacity the number of annotations to be stored
+		 */
+		void ensureAnnotationCapacity( int capacity ) {
+			if (annotations2.length < capacity) {
+				annotations2 = new CurveAnnotation[capacity];
+				annotationX2 = new double[capacity];
+			}
+		}
+		
+		/**
+		 * Ensures that all sample buffers can hold the given number of x-coordinates
+		 * @param capacity the number of x-coordinates to be stored
+		 */
+		void ensureSampleCapacity( int capacity ) {
+			if (sampleX1.length < capacity) {
+				sampleX1 = new double[capacity];
+				sampleX2 = new double[capacity];
+			}
+			if (decSampleX1.length < capacity) {
+				decSampleX1 = new double[capacity];
+				decSampleX2 = new double[capacity];
+			}
+		}
+	}
+	
+	/**
+	 * Scores all candidate decompositions of an interval at full resolution. If enabled 
+	 * (see {@link #setCoarseScoring(int, int)}), the distances are not computed exactly,
+	 * and the interval has more candidates than {@link #coarseCandidates}, all 
+	 * candidates are first scored via {@link #coarseDistanceFunction} and only the 
+	 * best ones are kept.
+	 * 
+	 * @param interval the interval data to be filled
+	 * @return true if all candidates were scored; false if the computation was interrupted
+	 */
+	private boolean scoreCandidates( final Workspace interval ) {
+		// preselect the best candidates at coarse resolution
+		if (coarseDistanceFunction != null && !(distanceFunction instanceof ExactCurveDistance) && interval.candidates > coarseCandidates) {
+			if (!scoreCandidates( interval, coarseDistanceFunction, false )) {
+				return false;
+			}
+			selectCoarseCandidates( interval );
+		}
+		// score the (remaining) candidates at full resolution
+		return scoreCandidates( interval, distanceFunction, true );
+	}
+	
+	/**
+	 * Reduces the candidate decompositions of an interval to the {@link #coarseCandidates} 
+	 * ones with minimal distance (ties are resolved by serial order), while the 
+	 * serial order of the remaining candidates is kept. Candidates that violate 
+	 * the distortion constraints are removed.
+	 * 
+	 * @param interval the interval data with the distance of all candidates at coarse resolution
+	 */
+	private void selectCoarseCandidates( final Workspace interval ) {
+		
+		// get best candidates in order of their distance (via insertion)
+		if (interval.coarseOrder.length < coarseCandidates) {
+			interval.coarseOrder = new int[coarseCandidates];
+		}
+		final int[] best = interval.coarseOrder;
+		int selected = 0;
+		for (int c=0; c<interval.candidates; c++) {
+			final double distance = interval.distance[c];
+			if (Double.isNaN( distance ) || (selected == coarseCandidates && !(distance < interval.distance[best[selected-1]]))) {
+				continue;
+			}
+			int pos = FastMath.min( selected, coarseCandidates-1 );
+			while (pos > 0 && distance < interval.distance[best[pos-1]]) {
+				best[pos] = best[pos-1];
+				pos--;
+			}
+			best[pos] = c;
+			selected = FastMath.min( selected+1, coarseCandidates );
+		}
+		final int coarseBestCandidate = (selected > 0) ? best[0] : -1;
+		
+		// keep only the best candidates in serial order
+		Arrays.sort( best, 0, selected );
+		for (int i=0; i<selected; i++) {
+			interval.candidate1[i] = interval.candidate1[best[i]];
+			interval.candidate2[i] = interval.candidate2[best[i]];
+			if (best[i] == coarseBestCandidate) {
+				interval.coarseBest = i;
+			}
+		}
+		// drop references to removed candidates
+		Arrays.fill( interval.candidate1, selected, interval.candidates, null );
+		Arrays.fill( interval.candidate2, selected, interval.candidates, null );
+		interval.candidates = selected;
+	}
+	
+	/**
+	 * Scores all candidate decompositions of an interval with the given distance function,
+	 * either serially or split into consecutive blocks that are scored in parallel via 
+	 * {@link #candidateExecutor}. Since each candidate's distance is stored at its index, 
+	 * the result is independent of the parallelization. For an {@link ExactCurveDistance},
+	 * the distances are integrated exactly instead of being evaluated at the samples.
+	 * 
+	 * @param interval the interval data to be filled
+	 * @param distanceFunction the distance function to score the candidates with
+	 * @param abandon whether or not the scoring of candidates that cannot be selected is abandoned early
+	 * @return true if all candidates were scored; false if the computation was interrupted
+	 */
+	private boolean scoreCandidates( final Workspace interval, final SampledCurveDistance distanceFunction, final boolean abandon ) {
+		
+		if (distanceFunction instanceof ExactCurveDistance) {
+			// get exact distance without decomposition, which has to be undercut by the candidates
+			final ExactCurveDistance exact = (ExactCurveDistance)distanceFunction;
+			interval.samples = 0;
+			interval.currentDistance = exact.getMeanDistance( exact.getWarpedIntegral( interval.curve1.getCurve(), interval.startX1, interval.endX1, 
+					interval.curve2.getCurve(), interval.startX2, interval.endX2, interval.length ), interval.length );
+		} else {
+			// get coordinates within this interval that are used for distance computation
+			interval.ensureSampleCapacity( distanceFunction.getSampleNumber()+1 );
+			int samples1 = distanceFunction.getSamplePositions( interval.curve1.getCurve(), interval.curve1.getIntervalStart(interval.interval).getIndex(), interval.curve1.getIntervalEnd(interval.interval).getIndex(), interval.sampleX1);
+			int samples2 = distanceFunction.getSamplePositions( interval.curve2.getCurve(), interval.curve2.getIntervalStart(interval.interval).getIndex(), interval.curve2.getIntervalEnd(interval.interval).getIndex(), interval.sampleX2);
+			// #### HACK TO ENSURE EQUAL NUMBER OF SAMPLES WHICH MIGHT DIFFER DUE TO ROUNDING ISSUES ####
+			interval.samples = FastMath.min(samples1, samples2);
+			// get distance without decomposition, which has to be undercut by the candidates
+			interval.currentDistance = distanceFunction.getDistance(interval.curve1.getCurve(), interval.curve2.getCurve(), interval.sampleX1, interval.sampleX2, 0, interval.samples);
+		}
+		
+		final int size = interval.candidates;
+		Arrays.fill( interval.distance, 0, size, Double.NaN );
+		Arrays.fill( interval.splitPos, 0, size, Double.NaN );
+		final int tasks = FastMath.min( candidateTasks, size / MIN_CANDIDATES_PER_TASK );
+		
+		// serial scoring
+		if (candidateExecutor == null || tasks < 2) {
+			return scoreCandidates( interval, distanceFunction, abandon, 0, size );
+		}
+		
+		// split into consecutive blocks of candidates
+		List<FutureTask<Boolean>> blocks = new ArrayList<>(tasks);
+		for (int t=0; t<tasks; t++) {
+			final int from = (int)((long)size*t/tasks);
+			final int to = (int)((long)size*(t+1)/tasks);
+			blocks.add( new FutureTask<>( () -> scoreCandidates( interval, distanceFunction, abandon, from, to ) ) );
+		}
+		boolean scored = true;
+		try {
+			// submit all but the first block
+			for (int t=1; t<tasks; t++) {
+				try {
+					candidateExecutor.execute( blocks.get(t) );
+				} catch (RejectedExecutionException e) {
+					// scored by the calling thread below
+				}
+			}
+			// score all blocks not started yet by the calling thread, 
+			// which avoids a deadlock if all threads of the executor are busy
+			for ( FutureTask<Boolean> block : blocks ) {
+				block.run();
+			}
+			// wait for all blocks to be finished
+			for ( FutureTask<Boolean> block : blocks ) {
+				scored = block.get() && scored;
+			}
+		} catch (InterruptedException e) {
+			// forward interruption
+			Thread.currentThread().interrupt();
+			scored = false;
+		} catch (ExecutionException e) {
+			scored = false;
+			// forward the exception raised during the computation
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+			throw new RuntimeException( e.getCause() );
+		} finally {
+			// stop remaining computations
+			if (!scored) {
+				blocks.forEach( block -> block.cancel( true ) );
+			}
+		}
+		return scored;
+	}
+	
+	/**
+	 * Scores the given range of candidate decompositions of an interval, i.e. stores
+	 * the distance resulting from the decomposition and the according relative split
+	 * position. Candidates that violate the distortion constraints are not scored.
+	 * If requested, the scoring of a candidate is abandoned early (distance = infinity) 
+	 * as soon as its distance exceeds the minimal distance of the preceding candidates 
+	 * of the range or the distance of the undecomposed interval, since it cannot be selected.
+	 * 
+	 * @param interval the interval data to be filled
+	 * @param distanceFunction the distance function to score the candidates with
+	 * @param abandon whether or not the scoring of candidates that cannot be selected is abandoned early
+	 * @param from the first candidate to score
+	 * @param to the index after the last candidate to score
+	 * @return true if all candidates were scored; false if the computation was interrupted
+	 */
+	private boolean scoreCandidates( final Workspace interval, final SampledCurveDistance distanceFunction, final boolean abandon, 
+										final int from, final int to ) {
+		
+		// direct access for simpler notation
+		final IntervalDecomposition curCurve1 = interval.curve1;
+		final IntervalDecomposition curCurve2 = interval.curve2;
+		final double[] curDistSampleX1 = interval.sampleX1;
+		final double[] curDistSampleX2 = interval.sampleX2;
+		final int curDistToSample = interval.samples;
+		final double[] x1 = curCurve1.getCurve().getX();
+		final double[] x2 = curCurve2.getCurve().getX();
+		final ExactCurveDistance exact = (distanceFunction instanceof ExactCurveDistance) ? (ExactCurveDistance)distanceFunction : null;
+		
+		// sampling positions before warping (own buffers of the executing thread)
+		final Workspace own = workspace.get();
+		own.ensureSampleCapacity( curDistSampleX1.length );
+		final double[] decDistSampleX1 = own.decSampleX1;
+		final double[] decDistSampleX2 = own.decSampleX2;
+		// minimal distance of the candidates scored so far
+		double minDistance = Double.POSITIVE_INFINITY;
+		
+		for (int c=from; c<to; c++) {
+			
+			// stop if thread is interrupted
+			if (Thread.currentThread().isInterrupted()) return false;
+			
+			int a1Index = interval.candidate1[c].getIndex();
+			int a2Index = interval.candidate2[c].getIndex();
+			double a1x = x1[a1Index];
+			double a2x = x2[a2Index];
+			
+			// length of left interval after warping
+			double leftMeanLength = getMeanLength( a1x-interval.startX1, interval.weight1, a2x-interval.startX2, interval.weight2);
+			
+			// get global relative positions before and after warping
+			double a1relXwarped = (interval.startX1+leftMeanLength-curCurve1.getCurve().getXmin())/(curCurve1.getCurve().getXmax()-curCurve1.getCurve().getXmin());
+			double a1relXoriginal = (curCurve1.getCurveOriginal().getX()[a1Index]-curCurve1.getCurveOriginal().getXmin())/(curCurve1.getCurveOriginal().getXmax()-curCurve1.getCurveOriginal().getXmin());
+			double a1relXShift = FastMath.abs( a1relXwarped - a1relXoriginal );
+			double a2relXwarped = (interval.startX2+leftMeanLength-curCurve2.getCurve().getXmin())/(curCurve2.getCurve().getXmax()-curCurve2.getCurve().getXmin());
+			double a2relXoriginal = (curCurve2.getCurveOriginal().getX()[a2Index]-curCurve2.getCurveOriginal().getXmin())/(curCurve2.getCurveOriginal().getXmax()-curCurve2.getCurveOriginal().getXmin());
+			double a2relXShift = FastMath.abs( a2relXwarped - a2relXoriginal );
+			
+			// check if distortion is larger than allowed
+			if ( this.maxRelXShift < a1relXShift || this.maxRelXShift < a2relXShift ) {
+				// skip this decomposition option
+				continue;
+			}
+			
+			// get new relative positions of a1 and a2 within the interval
+			double newRelPosSplit = leftMeanLength / interval.length;
+			double curIntervalWarpingFactor = FastMath.max( newRelPosSplit, 1/newRelPosSplit );
 
+			// check if distortion is larger than allowed
+			if ( this.maxDistortionRatio < curIntervalWarpingFactor ) {
+				// skip this decomposition option
+				continue;
+			}
+			
+			// score exactly if possible
+			if (exact != null) {
+				interval.splitPos[c] = newRelPosSplit;
+				interval.distance[c] = getExactDistance( interval, exact, a1x, a2x, leftMeanLength, curIntervalWarpingFactor, 
+						!abandon ? Double.POSITIVE_INFINITY : FastMath.min( minDistance, interval.currentDistance ) );
+				// update minimal distance of this block
+				if (interval.distance[c] < minDistance) {
+					minDistance = interval.distance[c];
+				}
+				continue;
+			}
+			
+			double a1xWarped = interval.startX1 + interval.length*newRelPosSplit;
+			double a2xWarped = interval.startX2 + interval.length*newRelPosSplit;
+			
+			// get warped distance sampling positions
+			int curDistSampleX1LastLeft = -1;
+			for (int i=0;i<curDistToSample; i++) {
+				// curve1 : left interval
+				if (curDistSampleX1[i]<a1xWarped) {
+					// compute position before warping (left = fixed)
+					decDistSampleX1[i] = interval.startX1 + ((curDistSampleX1[i]-interval.startX1)*(a1x-interval.startX1)/(a1xWarped-interval.startX1));
+					// update boundary control
+					curDistSampleX1LastLeft = i;
+				} else {
+					// curve1 : right interval
+					// compute position before warping (right = fixed)
+					decDistSampleX1[i] = interval.endX1 - ((interval.endX1-curDistSampleX1[i])*(interval.endX1-a1x)/(interval.endX1-a1xWarped));
+				}
+				// curve2 : left interval
+				if (curDistSampleX2[i]<a2xWarped) {
+					// compute position before warping (left = fixed)
+					decDistSampleX2[i] = interval.startX2 + ((curDistSampleX2[i]-interval.startX2)*(a2x-interval.startX2)/(a2xWarped-interval.startX2));
+				} else {
+					// curve2 : right interval
+					// compute position before warping (right = fixed)
+					decDistSampleX2[i] = interval.endX2 - ((interval.endX2-curDistSampleX2[i])*(interval.endX2-a2x)/(interval.endX2-a2xWarped));
+				}
+			}
+			
+			// maximal sum of sample distances for which the candidate can still be the 
+			// first minimal one and improve the interval's distance
+			double maxDistanceSum = !abandon ? Double.POSITIVE_INFINITY : distanceFunction.preFinalDistance( 
+					distanceCorrectionFunction.getMaxUncorrectedDistance( curIntervalWarpingFactor, FastMath.min( minDistance, interval.currentDistance ) )
+					, curDistToSample) * (1d + ABANDON_TOLERANCE);
+			
+			// distance of left interval of the decomposition
+			double leftDistance = (curDistSampleX1LastLeft==-1 ? 0 : distanceFunction.preFinalDistance( distanceFunction.getDistance(curCurve1.getCurve(), curCurve2.getCurve(), decDistSampleX1, decDistSampleX2, 0, curDistSampleX1LastLeft+1, maxDistanceSum), curDistSampleX1LastLeft+1));
+			// distance of right interval of the decomposition (if not abandoned yet)
+			double rightDistance = (curDistSampleX1LastLeft+1>=curDistToSample || leftDistance == Double.POSITIVE_INFINITY ? 0 : distanceFunction.preFinalDistance( distanceFunction.getDistance(curCurve1.getCurve(), curCurve2.getCurve(), decDistSampleX1, decDistSampleX2, curDistSampleX1LastLeft+1, curDistToSample-curDistSampleX1LastLeft-1, maxDistanceSum-leftDistance), curDistToSample-curDistSampleX1LastLeft-1));
+			
+			interval.splitPos[c] = newRelPosSplit;
+			// check if scoring was abandoned, i.e. the candidate cannot be the best decomposition
+			if (leftDistance == Double.POSITIVE_INFINITY || rightDistance == Double.POSITIVE_INFINITY) {
+				interval.distance[c] = Double.POSITIVE_INFINITY;
+				continue;
+			}
+			
+			// compute distance resulting from the alignment
+			interval.distance[c] = distanceCorrectionFunction.getWarpCorrectedDistance( curIntervalWarpingFactor, 
+					distanceFunction.finalDistance( leftDistance + rightDistance, curDistToSample ) );
+			// update minimal distance of this block
+			if (interval.distance[c] < minDistance) {
+				minDistance = interval.distance[c];
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Computes the exact distance of a candidate decomposition of an interval, i.e. 
+	 * integrates the differences of the left and right sub-intervals of both curves 
+	 * after they were warped to their new length. The integration is abandoned 
+	 * (distance = infinity) if the left sub-interval already exceeds the given 
+	 * distance bound.
+	 * 
+	 * @param interval the interval data
+	 * @param exact the distance function
+	 * @param a1x the x-coordinate of the candidate's annotation of the first curve
+	 * @param a2x the x-coordinate of the candidate's annotation of the second curve
+	 * @param leftLength the length of the left sub-interval after the warping
+	 * @param warpingFactor the warping factor of the decomposition
+	 * @param maxDistance the maximal distance of interest
+	 * @return the distance resulting from the decomposition or {@link Double#POSITIVE_INFINITY} if abandoned
+	 */
+	private double getExactDistance( final Workspace interval, final ExactCurveDistance exact, 
+										final double a1x, final double a2x, final double leftLength, 
+										final double warpingFactor, final double maxDistance ) 
+	{
+		final Curve curve1 = interval.curve1.getCurve();
+		final Curve curve2 = interval.curve2.getCurve();
+		// maximal integral for which the candidate can still be selected
+		final double maxIntegral = (maxDistance == Double.POSITIVE_INFINITY) ? Double.POSITIVE_INFINITY
+				: exact.getIntegral( distanceCorrectionFunction.getMaxUncorrectedDistance( warpingFactor, maxDistance ), interval.length ) * (1d + ABANDON_TOLERANCE);
+		
+		// integral of left interval of the decomposition
+		final double leftIntegral = exact.getWarpedIntegral( curve1, interval.startX1, a1x, curve2, interval.startX2, a2x, leftLength );
+		if (leftIntegral > maxIntegral) {
+			return Double.POSITIVE_INFINITY;
+		}
+		// integral of right interval of the decomposition
+		final double rightIntegral = exact.getWarpedIntegral( curve1, a1x, interval.endX1, curve2, a2x, interval.endX2, interval.length-leftLength );
+		
+		// compute distance resulting from the alignment
+		return distanceCorrectionFunction.getWarpCorrectedDistance( warpingFactor, 
+				exact.getMeanDistance( leftIntegral + rightIntegral, interval.length ) );
+	}
+	
 
-
+	/**
+	 * Computes a lower bound of the distance of the pairwise alignment computed by
+	 * {@link #align(IntervalDecomposition, double, IntervalDecomposition, double)}.
+	 * 
+	 * Any decomposition shifts the relative x-position of the decomposing annotations
+	 * by at most {@link #maxRelXShift} compared to the original curve. Since the 
+	 * curves are warped piecewise linearly in between, each coordinate of the aligned
+	 * curves originates from a band around its initial relative position. The bound
+	 * is derived from the y-ranges within these bands via 
+	 * {@link SampledCurveDistance#getDistanceLowerBound(Curve, double, Curve, double)}
+	 * and is thus only non-trivial for distances on the y-coordinates.
+	 * 
+	 * For curves with more than one initial interval, the trivial bound 0 is returned.
+	 * 
+	 * @param curve1 the first curve to align
+	 * @param weight1 the weight of the first curve within the alignment
+	 * @param curve2 the second curve to align
+	 * @param weight2 the weight of the second curve within the alignment
+	 * @return a lower bound of the pairwise alignment distance
+	 * @throws NullArgumentException
+	 * @throws IllegalArgumentException if the curves are not compatible
+	 */
+	public double getDistanceLowerBound( final IntervalDecomposition curve1, final double weight1, 
+										final IntervalDecomposition curve2, final double weight2 )
+		throws NullArgumentException, IllegalArgumentException
+	{
+		if (curve1==null || curve2==null) throw new NullArgumentException();
+		if (!curve1.isCompatible(curve2)) throw new IllegalArgumentException("given curves are incompatible");
+		if (weight1 < 0.0) throw new IllegalArgumentException("weight 1 is negative");
+		if (weight2 < 0.0) throw new IllegalArgumentException("weight 2 is negative");
+		
+		// initial interval warping is not covered by the shift bands
+		if (curve1.size() > 1 || curve2.size() > 1) {
+			return 0d;
+		}
+		
+		// create initial working copies of equal length as done for the alignment
+		double globalMeanLength = getMeanLength( curve1.getCurve().length(), weight1, 
+											curve2.getCurve().length(), weight2);
+		Curve curCurve1 = new IntervalDecomposition( curve1, globalMeanLength ).getCurve();
+		Curve curCurve2 = new IntervalDecomposition( curve2, globalMeanLength ).getCurve();
+		
+		// maximal shift = allowed shift + deviation of the working copy from the original + precision
+		double maxRelShift1 = maxRelXShift + getMaxRelXDeviation( curCurve1, curve1.getCurveOriginal() ) + 2*MicaPrecision.precisionDeltaLengthFactor;
+		double maxRelShift2 = maxRelXShift + getMaxRelXDeviation( curCurve2, curve2.getCurveOriginal() ) + 2*MicaPrecision.precisionDeltaLengthFactor;
+		
+		// get bound (reduced to be robust against rounding issues)
+		double bound = distanceFunction.getDistanceLowerBound( curCurve1, maxRelShift1, curCurve2, maxRelShift2 ) * (1d - 1e-6);
+		return distanceCorrectionFunction.getWarpCorrectedDistance(1, bound);
+	}
+	
+	/**
+	 * Computes the maximal deviation of the relative x-positions of the coordinates
+	 * of a curve from the according positions within a second curve.
+	 * @param curve the curve of interest
+	 * @param reference the reference curve with the same number of coordinates
+	 * @return the maximal absolute difference of the relative x-positions
+	 */
+	static protected double getMaxRelXDeviation( Curve curve, Curve reference ) {
+		double maxDeviation = 0d;
+		for (int i=0; i<curve.size(); i++) {
+			double relX = (curve.getX()[i] - curve.getXmin()) / curve.length();
+			double relXref = (reference.getX()[i] - reference.getXmin()) / reference.length();
+			maxDeviation = FastMath.max( maxDeviation, FastMath.abs( relX - relXref ) );
+		}
+		return maxDeviation;
+	}
+	
 	/**
 	 * Computes a weighted mean length, i.e. 
 	 *   meanLen = (l1*w1 + l2*w2) / (w1 + w2);
@@ -0,0 +1,98 @@
+package de.uni_freiburg.bioinf.mica.algorithm;
+
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Cheap distance measures between curves that are computed on equidistant
+ * resamples of the curves (see {@link Curve#getYequiX(int)}) without any
+ * alignment. These are e.g. used to preselect the candidate pairs for which
+ * pairwise alignments are computed.
+ *
+ * Each curve is resampled only once into a profile via {@link #getProfile(Curve, int)}.
+ * The distance of two curves is then computed from their profiles via
+ * {@link #getDistance(double[], double[])}.
+ *
+ * @author Mmann
+ *
+ */
+public enum ResampledCurveDistance {
+
+	/** mean absolute difference of the resampled y-coordinates */
+	CURVE_MEAN_ABSOLUTE(false, false),
+	/** root mean square deviation of the resampled y-coordinates */
+	CURVE_RMSD(false, true),
+	/** mean absolute difference of the slopes between the resampled y-coordinates */
+	SLOPE_MEAN_ABSOLUTE(true, false),
+	/** root mean square deviation of the slopes between the resampled y-coordinates */
+	SLOPE_RMSD(true, true);
+
+	/**
+	 * whether or not the profile holds the slopes instead of the y-coordinates
+	 */
+	final boolean onSlope;
+
+	/**
+	 * whether or not the root mean square deviation is computed instead of the
+	 * mean absolute difference
+	 */
+	final boolean rmsd;
+
+	/**
+	 * Constructs the distance measure
+	 * @param onSlope whether or not the profile holds the slopes
+	 * @param rmsd whether or not to compute the root mean square deviation
+	 */
+	private ResampledCurveDistance( boolean onSlope, boolean rmsd ) {
+		this.onSlope = onSlope;
+		this.rmsd = rmsd;
+	}
+
+	/**
+	 * Computes the profile of the given curve to be used for distance computations,
+	 * i.e. the y-coordinates for the given number of equidistant x-coordinates or
+	 * the slopes between them (scaled by the sampling distance).
+	 *
+	 * @param curve the curve of interest
+	 * @param samples the number of equidistant x-coordinates to sample (>=2)
+	 * @return the profile of the curve
+	 * @throws NullArgumentException
+	 * @throws OutOfRangeException if samples < 2
+	 */
+	public double[] getProfile( Curve curve, int samples ) throws NullArgumentException, OutOfRangeException {
+		if (curve == null) throw new NullArgumentException();
+		double[] y = curve.getYequiX( samples );
+		if (!onSlope) {
+			return y;
+		}
+		// slopes between successive samples
+		double deltaX = curve.length() / (double)(samples-1);
+		double[] slope = new double[samples-1];
+		for (int i=0; i<slope.length; i++) {
+			slope[i] = (y[i+1]-y[i]) / deltaX;
+		}
+		return slope;
+	}
+
+	/**
+	 * Computes the distance of two profiles generated via {@link #getProfile(Curve, int)}
+	 * @param profile1 the profile of the first curve
+	 * @param profile2 the profile of the second curve
+	 * @return the distance of both profiles
+	 * @throws NullArgumentException
+	 * @throws IllegalArgumentException if the profiles differ in length
+	 */
+	public double getDistance( double[] profile1, double[] profile2 ) throws NullArgumentException, IllegalArgumentException {
+		if (profile1 == null || profile2 == null) throw new NullArgumentException();
+		if (profile1.length != profile2.length) throw new IllegalArgumentException("profiles differ in length");
+		double distance = 0;
+		for (int i=0; i<profile1.length; i++) {
+			double diff = profile1[i] - profile2[i];
+			distance += rmsd ? diff*diff : FastMath.abs( diff );
+		}
+		distance /= (double)profile1.length;
+		return rmsd ? FastMath.sqrt( distance ) : distance;
+	}
+
+}
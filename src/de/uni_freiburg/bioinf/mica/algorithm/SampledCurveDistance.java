@@ -3,8 +3,8 @@
  */
 package de.uni_freiburg.bioinf.mica.algorithm;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
-import java.util.stream.IntStream;
 
 import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.exception.OutOfRangeException;
@@ -25,6 +25,19 @@ public abstract class SampledCurveDistance implements CurveDistance {
 	 */
 	protected int sampleNumber;
 	
+	/**
+	 * Number of sample coordinates interpolated at once by 
+	 * {@link #getDistance(Curve, Curve, double[], double[], int, int, double)} 
+	 * before the distance bound is checked
+	 */
+	public static final int VALUE_CHUNK_SIZE = 32;
+	
+	/**
+	 * Per-thread buffers for the values of the sample coordinates of both curves, 
+	 * see {@link #getDistance(Curve, Curve, double[], double[], int, int, double)}
+	 */
+	private final ThreadLocal<double[][]> valueBuffer = ThreadLocal.withInitial( () -> new double[2][VALUE_CHUNK_SIZE] );
+	
 	
 	/**
 	 * Constructs a distance function that uses the given number of interpolation
@@ -59,6 +72,15 @@ public abstract class SampledCurveDistance implements CurveDistance {
 		this.sampleNumber = sampleNumber;
 	}
 	
+	/**
+	 * Creates a distance function of the same type that uses the given number of
+	 * integration points, e.g. for a coarse distance computation.
+	 * @param sampleNumber number of integration points to be used (>=2)
+	 * @return the new distance function
+	 * @throws OutOfRangeException if sampleNumber < 2
+	 */
+	public abstract SampledCurveDistance withSampleNumber( int sampleNumber ) throws OutOfRangeException;
+	
 	/**
 	 * Computes the x-coordinates of the interpolation points within an x-interval of the given
 	 * length and beginning at curve.getX()[start].
@@ -77,8 +99,28 @@ public abstract class SampledCurveDistance implements CurveDistance {
 	 * @throws OutOfRangeException
 	 */
 	public double[] getSamplePositions( Curve curve, int start, int end ) throws NullArgumentException, OutOfRangeException {
+		double[] sampleX = new double[sampleNumber+1];
+		int sampled = getSamplePositions( curve, start, end, sampleX );
+		return Arrays.copyOf( sampleX, sampled );
+	}
+	
+	/**
+	 * Computes the x-coordinates of the equidistant sample points within the interval
+	 * [curve.getX()[start],curve.getX()[end]] as {@link #getSamplePositions(Curve, int, int)}
+	 * but stores them in the given buffer to avoid the allocation of a new array.
+	 * 
+	 * @param curve the curve of interest
+	 * @param start the index of the start coordinate of the interval
+	 * @param end the index of the end coordinate of the interval
+	 * @param sampleX the buffer to store the sample positions in, which should provide
+	 * 			space for at least {@link #getSampleNumber()}+1 positions
+	 * @return the number of sample positions stored at the beginning of sampleX
+	 * @throws NullArgumentException
+	 * @throws OutOfRangeException if the indices are out of range or the buffer is too small
+	 */
+	public int getSamplePositions( Curve curve, int start, int end, double[] sampleX ) throws NullArgumentException, OutOfRangeException {
 		// check input
-		if (curve==null) throw new NullArgumentException();
+		if (curve==null || sampleX==null) throw new NullArgumentException();
 		if (start<0 || start>curve.size()) throw new OutOfRangeException(start, 0, curve.size());
 		if (end<0 || end>curve.size()) throw new OutOfRangeException(end, 0, curve.size());
 		if (start >= end) throw new IllegalArgumentException("start has to be smaller than end");
@@ -100,47 +142,35 @@ public abstract class SampledCurveDistance implements CurveDistance {
 			// check if rounding issue
 			if (MicaPrecision.sameX(curX, endX, curve.length())) {
 				// return only last element
-				return new double[]{endX};
+				if (sampleX.length < 1) throw new OutOfRangeException(1, 0, sampleX.length);
+				sampleX[0] = endX;
+				return 1;
 			} else {
 				// return empty set of sample points
-				return new double[0];
+				return 0;
 			}
 		}
 		
 		// get number of sample points within the interval
 		int toSample = FastMath.max(0, (int)FastMath.floor((endX-curX)/stepSize) +1 );
+		if (toSample > sampleX.length) throw new OutOfRangeException(toSample, 0, sampleX.length);
 
 		// compute x-coordinates to sample
-		double[] sampleX = new double[toSample];
-		int sampled = 0;
-		for (sampled=0; sampled<toSample; sampled++) {
+		for (int sampled=0; sampled<toSample; sampled++) {
 			sampleX[sampled] = curX + (stepSize*((double)sampled));
 			if (sampleX[sampled]>endX) {
-				sampled++;
-				break;
-			}
-		}
-		sampled--;
-
-		// check if last element is within x-range
-		if (sampleX[sampled] > endX) {
-			// check if rounding issue
-			if (MicaPrecision.sameX(sampleX[sampled], endX, curve.length())) {
-				// overwrite last element
-				sampleX[sampled] = endX;
-			} else {
-				// truncate last element
-				sampleX = Arrays.copyOf( sampleX, sampled );
+				// check if rounding issue for the last element
+				if (sampled+1 == toSample && MicaPrecision.sameX(sampleX[sampled], endX, curve.length())) {
+					// overwrite last element
+					sampleX[sampled] = endX;
+					return toSample;
+				}
+				// truncate all elements beyond the interval
+				return sampled;
 			}
 		}
 		
-		// length check
-		if (sampleX.length != sampled+1) {
-			// truncate last element
-			sampleX = Arrays.copyOf( sampleX, sampled );
-		}
-		
-		return sampleX;
+		return toSample;
 		
 	}
 	
@@ -259,6 +289,45 @@ public abstract class SampledCurveDistance implements CurveDistance {
 	 */
 	abstract protected double getDistance( Curve curve2, Curve curve1, double x1, double x2, double lengthRatio1, double lengthRatio2 );
 	
+	/**
+	 * Interpolates the values that are compared by {@link #getDistance(Curve, Curve, double, double, double, double)}, 
+	 * e.g. y-coordinates or slopes, for a range of sorted x-coordinates in a single pass over the curve
+	 * (see {@link Curve#getY(double[], int, int, double[])}).
+	 * @param curve the curve of interest
+	 * @param sortedX the x-coordinates of interest, ascending within the range
+	 * @param start the index of the first x-coordinate of interest
+	 * @param length the number of x-coordinates of interest
+	 * @param values the array to store the values in, i.e. values[i] is the value for sortedX[start+i]
+	 */
+	abstract protected void getValues( Curve curve, double[] sortedX, int start, int length, double[] values );
+	
+	/**
+	 * Distance for two values computed by {@link #getValues(Curve, double[], int, int, double[])}, 
+	 * which is identical to {@link #getDistance(Curve, Curve, double, double, double, double)}
+	 * for length ratios of 1.
+	 * @param value1 the value of the first curve
+	 * @param value2 the value of the second curve
+	 * @return the distance for the two values
+	 */
+	abstract protected double getValueDistance( double value1, double value2 );
+	
+	/**
+	 * Corrects a value computed by {@link #getValues(Curve, double[], int, int, double[])} 
+	 * for the warping of the enclosing interval, such that
+	 * getValueDistance( getWarpedValue(value1,lengthRatio1), getWarpedValue(value2,lengthRatio2) )
+	 * is identical to {@link #getDistance(Curve, Curve, double, double, double, double)}.
+	 * 
+	 * The default implementation returns the value unchanged, i.e. for values that do
+	 * not depend on the warping like y-coordinates.
+	 * 
+	 * @param value the value to correct
+	 * @param lengthRatio the ratio (newIntervalLength)/(oldIntervalLength) of the enclosing interval
+	 * @return the corrected value
+	 */
+	protected double getWarpedValue( double value, double lengthRatio ) {
+		return value;
+	}
+	
 	
 	/**
 	 * Computes the final distance for the given distance sum, e.g. doing
@@ -290,27 +359,127 @@ public abstract class SampledCurveDistance implements CurveDistance {
 	public double getDistance(Curve curve1,
 			Curve curve2) throws NullArgumentException {
 		if (curve1 == null || curve2 == null) throw new NullArgumentException();
+		// sum up the distances of all integration points
+		return getDistance( getDistanceTerms( curve1, curve2 ) );
+	}
+	
+	
+	/**
+	 * Computes the distances of the uniformly distributed integration points used by
+	 * {@link #getDistance(Curve, Curve)}. These can be updated via 
+	 * {@link #updateDistanceTerms(Curve, Curve, double[], double, double, double, double)}
+	 * if only parts of the curves are changed and are combined to the final distance via 
+	 * {@link #getDistance(double[])}.
+	 * 
+	 * @param curve1 the first curve
+	 * @param curve2 the second curve
+	 * @return the distance for each of the {@link #getSampleNumber()} integration points
+	 * @throws NullArgumentException
+	 */
+	public double[] getDistanceTerms( Curve curve1, Curve curve2 ) throws NullArgumentException {
+		if (curve1 == null || curve2 == null) throw new NullArgumentException();
+		double[] terms = new double[sampleNumber];
+		computeDistanceTerms( curve1, curve2, terms );
+		return terms;
+	}
+	
+	/**
+	 * Computes the distances of all integration points used by {@link #getDistance(Curve, Curve)}
+	 * and stores them in the given array.
+	 * 
+	 * The default implementation evaluates each integration point via 
+	 * {@link #getDistance(Curve, Curve, double, double, double, double)}. Subclasses
+	 * should override it with a loop over the cached samples of the curves 
+	 * (see {@link Curve#getSampledY(int)} and {@link Curve#getSampledSlope(int)}),
+	 * which avoids the interpolation for each integration point if the curves are 
+	 * compared several times.
+	 * 
+	 * @param curve1 the first curve
+	 * @param curve2 the second curve
+	 * @param terms the array of length {@link #getSampleNumber()} to fill
+	 */
+	protected void computeDistanceTerms( Curve curve1, Curve curve2, double[] terms ) {
+		for (int i=0; i<sampleNumber; i++) {
+			terms[i] = getDistanceTerm( curve1, curve2, i );
+		}
+	}
+	
+	/**
+	 * Recomputes the distances of all integration points (see {@link #getDistanceTerms(Curve, Curve)})
+	 * that are located within the given x-range of the first or of the second curve, 
+	 * e.g. after the coordinates within these ranges have been changed. Note, the 
+	 * x-range of the curves has to be the same as for the initial computation of the terms.
+	 * 
+	 * @param curve1 the first curve
+	 * @param curve2 the second curve
+	 * @param terms the distances of the integration points to update
+	 * @param xFrom1 the start of the changed x-range of the first curve
+	 * @param xTo1 the end of the changed x-range of the first curve
+	 * @param xFrom2 the start of the changed x-range of the second curve
+	 * @param xTo2 the end of the changed x-range of the second curve
+	 * @throws NullArgumentException
+	 * @throws IllegalArgumentException if the number of terms does not match the sample number
+	 */
+	public void updateDistanceTerms( Curve curve1, Curve curve2, double[] terms, double xFrom1, double xTo1, double xFrom2, double xTo2 ) throws NullArgumentException, IllegalArgumentException {
+		if (curve1 == null || curve2 == null || terms == null) throw new NullArgumentException();
+		if (terms.length != sampleNumber) throw new IllegalArgumentException("number of terms differs from the sample number");
 		
-		// the distance to compute
-		double distance = 0;
-		// distance between interpolation points in the curves
-		double xStart1 = curve1.getXmin();
-		double xStart2 = curve2.getXmin();
+		// get integration points within the ranges (extended by one point to be robust to rounding issues)
 		double stepSize1 = getStepSize(curve1);
 		double stepSize2 = getStepSize(curve2);
+		int from = FastMath.min( (int)FastMath.floor((xFrom1-curve1.getXmin())/stepSize1), (int)FastMath.floor((xFrom2-curve2.getXmin())/stepSize2) ) - 1;
+		int to = FastMath.max( (int)FastMath.ceil((xTo1-curve1.getXmin())/stepSize1), (int)FastMath.ceil((xTo2-curve2.getXmin())/stepSize2) ) + 1;
+		
+		// update the distances
+		for (int i=FastMath.max(0,from); i<=FastMath.min(sampleNumber-1,to); i++) {
+			terms[i] = getDistanceTerm( curve1, curve2, i );
+		}
+	}
+	
+	/**
+	 * Computes the final distance from the distances of the integration points, 
+	 * which is identical to {@link #getDistance(Curve, Curve)} for the curves
+	 * the terms were computed for.
+	 * 
+	 * @param terms the distances of the integration points (see {@link #getDistanceTerms(Curve, Curve)})
+	 * @return the final distance
+	 * @throws NullArgumentException
+	 * @throws IllegalArgumentException if the number of terms does not match the sample number
+	 */
+	public double getDistance( double[] terms ) throws NullArgumentException, IllegalArgumentException {
+		if (terms == null) throw new NullArgumentException();
+		if (terms.length != sampleNumber) throw new IllegalArgumentException("number of terms differs from the sample number");
 		
-		// get distance of first positions
-		distance += getDistance(curve1, curve2, curve1.getXmin(), curve2.getXmin(), 1, 1);
-		// get distance of enclosed positions (uniformly distributed)
+		// sum in the same order as getDistance(Curve,Curve)
+		double distance = terms[0];
 		if (sampleNumber > 2) {
-			distance += IntStream.range(1, sampleNumber-1).mapToDouble( i -> getDistance( curve1, curve2, xStart1 + i*stepSize1, xStart2 + i*stepSize2, 1, 1) ).sum();
+			distance += Arrays.stream( terms, 1, sampleNumber-1 ).sum();
 		}
-		// get distance of last positions
-		distance += getDistance(curve1, curve2, curve1.getXmax(), curve2.getXmax(), 1, 1);
+		distance += terms[sampleNumber-1];
 		// return final distance
 		return finalDistance(distance, sampleNumber);
 	}
 	
+	/**
+	 * Computes the distance of the i-th uniformly distributed integration point
+	 * used by {@link #getDistance(Curve, Curve)}.
+	 * 
+	 * @param curve1 the first curve
+	 * @param curve2 the second curve
+	 * @param i the index of the integration point
+	 * @return the distance of the integration point
+	 */
+	protected double getDistanceTerm( Curve curve1, Curve curve2, int i ) {
+		// first and last positions are the boundaries of the curves
+		if (i == 0) {
+			return getDistance(curve1, curve2, curve1.getXmin(), curve2.getXmin(), 1, 1);
+		}
+		if (i == sampleNumber-1) {
+			return getDistance(curve1, curve2, curve1.getXmax(), curve2.getXmax(), 1, 1);
+		}
+		return getDistance( curve1, curve2, curve1.getXmin() + i*getStepSize(curve1), curve2.getXmin() + i*getStepSize(curve2), 1, 1);
+	}
+	
 	
 	/**
 	 * Computes the distance sum for the provided sample coordinates for the two curves
@@ -321,6 +490,34 @@ public abstract class SampledCurveDistance implements CurveDistance {
 	 * @return the sum of the distances for the according coordinates for both curves
 	 */
 	public double getDistance(Curve curve1, Curve curve2, double[] xSamples1, double[] xSamples2, int start, int length) {
+		return getDistance( curve1, curve2, xSamples1, xSamples2, start, length, Double.POSITIVE_INFINITY );
+	}
+	
+	/**
+	 * Computes the distance for the provided sample coordinates as 
+	 * {@link #getDistance(Curve, Curve, double[], double[], int, int)} but
+	 * abandons the computation as soon as the partial sum of the sample distances
+	 * exceeds the given bound. Since all sample distances are non-negative, 
+	 * the final distance is then at least finalDistance(maxDistanceSum,length).
+	 * 
+	 * The sample coordinates are expected to be sorted, such that their values 
+	 * are interpolated in a single pass over each curve via 
+	 * {@link #getValues(Curve, double[], int, int, double[])}. The values are
+	 * interpolated in chunks of {@link #VALUE_CHUNK_SIZE} samples and the bound
+	 * is checked after each chunk, such that an abandoned computation 
+	 * interpolates at most one chunk beyond the sample exceeding the bound.
+	 * 
+	 * @param curve1 the first curve
+	 * @param curve2 the second curve
+	 * @param xSamples1 the set of x-coordinates from curve1 to compute the distance for 
+	 * @param xSamples2 the set of x-coordinates from curve2 to compute the distance for 
+	 * @param start the first sample to consider
+	 * @param length the number of samples to consider
+	 * @param maxDistanceSum the maximal sum of sample distances of interest
+	 * @return the distance for the according coordinates or {@link Double#POSITIVE_INFINITY}
+	 * 			if the sum of sample distances exceeds maxDistanceSum
+	 */
+	public double getDistance(Curve curve1, Curve curve2, double[] xSamples1, double[] xSamples2, int start, int length, double maxDistanceSum) {
 		// check input
 		if (curve1==null) throw new NullArgumentException();
 		if (curve2==null) throw new NullArgumentException();
@@ -330,15 +527,170 @@ public abstract class SampledCurveDistance implements CurveDistance {
 		if (start < 0) throw new OutOfRangeException(start, 0, xSamples1.length-1);
 		if (length < 0 || start+length > xSamples1.length) throw new OutOfRangeException(length, 0, xSamples1.length-start);
 		
+		final double[][] values = valueBuffer.get();
+		
 		double distance = 0d;
 		
-		// get distance for each coordinate of interest
-		for (int i=start; i<start+length; i++) {
-			distance += getDistance(curve1, curve2, xSamples1[i], xSamples2[i], 1,1);
+		for (int chunkStart=0; chunkStart<length; chunkStart+=VALUE_CHUNK_SIZE) {
+			// get the values of the next chunk of sample coordinates of both curves
+			final int chunkLength = FastMath.min( VALUE_CHUNK_SIZE, length-chunkStart );
+			getValues( curve1, xSamples1, start+chunkStart, chunkLength, values[0] );
+			getValues( curve2, xSamples2, start+chunkStart, chunkLength, values[1] );
+			// get distance for each coordinate of the chunk
+			for (int i=0; i<chunkLength; i++) {
+				distance += getValueDistance( values[0][i], values[1][i] );
+			}
+			// stop if the bound is exceeded
+			if (distance > maxDistanceSum) {
+				return Double.POSITIVE_INFINITY;
+			}
 		}
 		
 		return finalDistance(distance, length);
 	}
+	
+	/**
+	 * Computes the sum of the sample distances for sorted x-coordinates within 
+	 * warped intervals of both curves, i.e. the sum of 
+	 * {@link #getDistance(Curve, Curve, double, double, double, double)} for all
+	 * pairs of sample coordinates. As for 
+	 * {@link #getDistance(Curve, Curve, double[], double[], int, int, double)}, the 
+	 * values are interpolated in chunks of {@link #VALUE_CHUNK_SIZE} samples in a 
+	 * single pass over each curve and the computation is abandoned as soon as the
+	 * sum exceeds the given bound.
+	 * 
+	 * @param curve1 the first curve
+	 * @param curve2 the second curve
+	 * @param xSamples1 the set of x-coordinates from curve1 to compute the distance for 
+	 * @param xSamples2 the set of x-coordinates from curve2 to compute the distance for 
+	 * @param start the first sample to consider
+	 * @param length the number of samples to consider
+	 * @param lengthRatio1 the ratio (newIntervalLength)/(oldIntervalLength) of the interval of curve1 that encloses the samples
+	 * @param lengthRatio2 the ratio (newIntervalLength)/(oldIntervalLength) of the interval of curve2 that encloses the samples
+	 * @param maxDistanceSum the maximal sum of sample distances of interest
+	 * @return the sum of the sample distances or {@link Double#POSITIVE_INFINITY}
+	 * 			if it exceeds maxDistanceSum
+	 */
+	public double getDistanceSum(Curve curve1, Curve curve2, double[] xSamples1, double[] xSamples2, int start, int length, 
+								double lengthRatio1, double lengthRatio2, double maxDistanceSum) 
+	{
+		// check input
+		if (curve1==null) throw new NullArgumentException();
+		if (curve2==null) throw new NullArgumentException();
+		if (xSamples1==null) throw new NullArgumentException();
+		if (xSamples2==null) throw new NullArgumentException();
+		if (start < 0) throw new OutOfRangeException(start, 0, xSamples1.length-1);
+		if (length < 0 || start+length > FastMath.min( xSamples1.length, xSamples2.length )) throw new OutOfRangeException(length, 0, FastMath.min( xSamples1.length, xSamples2.length )-start);
+		
+		final double[][] values = valueBuffer.get();
+		
+		double distance = 0d;
+		
+		for (int chunkStart=0; chunkStart<length; chunkStart+=VALUE_CHUNK_SIZE) {
+			// get the values of the next chunk of sample coordinates of both curves
+			final int chunkLength = FastMath.min( VALUE_CHUNK_SIZE, length-chunkStart );
+			getValues( curve1, xSamples1, start+chunkStart, chunkLength, values[0] );
+			getValues( curve2, xSamples2, start+chunkStart, chunkLength, values[1] );
+			// get distance for each coordinate of the chunk
+			for (int i=0; i<chunkLength; i++) {
+				distance += getValueDistance( getWarpedValue( values[0][i], lengthRatio1 ), getWarpedValue( values[1][i], lengthRatio2 ) );
+			}
+			// stop if the bound is exceeded
+			if (distance > maxDistanceSum) {
+				return Double.POSITIVE_INFINITY;
+			}
+		}
+		
+		return distance;
+	}
+
+	
+	/**
+	 * Computes a lower bound of {@link #getDistance(Curve, Curve)} for all curves that
+	 * result from a piecewise linear warping of the given curves (with breakpoints at 
+	 * their coordinates) that shifts the relative x-position of any point by at most 
+	 * the given maximal relative shift.
+	 * 
+	 * The default implementation returns the trivial bound 0.
+	 * 
+	 * @param curve1 the first curve
+	 * @param maxRelShift1 the maximal relative x-shift within the first curve [0,1]
+	 * @param curve2 the second curve
+	 * @param maxRelShift2 the maximal relative x-shift within the second curve [0,1]
+	 * @return a lower bound of the distance of all warped curves
+	 * @throws NullArgumentException
+	 */
+	public double getDistanceLowerBound( Curve curve1, double maxRelShift1, Curve curve2, double maxRelShift2 ) throws NullArgumentException {
+		if (curve1 == null || curve2 == null) throw new NullArgumentException();
+		return 0d;
+	}
+	
+	/**
+	 * Computes for each of the equidistant samples used by {@link #getDistance(Curve, Curve)}
+	 * a lower bound of the absolute difference of the y-coordinates of both curves, if
+	 * the sampled x-coordinates can be shifted by the given maximal relative shifts, 
+	 * see {@link #getDistanceLowerBound(Curve, double, Curve, double)}.
+	 * 
+	 * @param curve1 the first curve
+	 * @param maxRelShift1 the maximal relative x-shift within the first curve [0,1]
+	 * @param curve2 the second curve
+	 * @param maxRelShift2 the maximal relative x-shift within the second curve [0,1]
+	 * @return the lower bound of the absolute y-difference for each sample
+	 * @throws NullArgumentException
+	 */
+	protected double[] getYDifferenceLowerBounds( Curve curve1, double maxRelShift1, Curve curve2, double maxRelShift2 ) throws NullArgumentException {
+		if (curve1 == null || curve2 == null) throw new NullArgumentException();
+		// get range of y-coordinates for each sample
+		double[][] envelope1 = getEnvelope( curve1, maxRelShift1 );
+		double[][] envelope2 = getEnvelope( curve2, maxRelShift2 );
+		// lower bound = gap between both ranges
+		double[] yDiff = new double[sampleNumber];
+		for (int i=0; i<sampleNumber; i++) {
+			yDiff[i] = FastMath.max( 0, FastMath.max( envelope1[0][i]-envelope2[1][i], envelope2[0][i]-envelope1[1][i] ) );
+		}
+		return yDiff;
+	}
+	
+	/**
+	 * Computes for each equidistant sample of the curve the minimal and maximal
+	 * y-coordinate within the band of x-coordinates that are at most the given
+	 * relative shift apart from the sample.
+	 * 
+	 * @param curve the curve of interest
+	 * @param maxRelShift the maximal relative x-shift [0,1]
+	 * @return the minimal [0] and maximal [1] y-coordinate for each sample
+	 */
+	protected double[][] getEnvelope( Curve curve, double maxRelShift ) {
+		double[][] envelope = new double[2][sampleNumber];
+		double[] x = curve.getX(), y = curve.getY();
+		double xMin = curve.getXmin(), length = curve.length();
+		// sliding window extrema of the enclosed coordinates (positions with increasing x)
+		ArrayDeque<Integer> windowMin = new ArrayDeque<>(), windowMax = new ArrayDeque<>();
+		int nextPos = 0;
+		for (int i=0; i<sampleNumber; i++) {
+			double relX = (double)i / (double)(sampleNumber-1);
+			double xLeft = xMin + FastMath.max( 0d, relX-maxRelShift ) * length;
+			double xRight = FastMath.min( curve.getXmax(), xMin + FastMath.min( 1d, relX+maxRelShift ) * length );
+			// add coordinates entering the band
+			while (nextPos < x.length && x[nextPos] <= xRight) {
+				while (!windowMin.isEmpty() && y[windowMin.peekLast()] >= y[nextPos]) windowMin.pollLast();
+				windowMin.addLast( nextPos );
+				while (!windowMax.isEmpty() && y[windowMax.peekLast()] <= y[nextPos]) windowMax.pollLast();
+				windowMax.addLast( nextPos );
+				nextPos++;
+			}
+			// remove coordinates leaving the band
+			while (!windowMin.isEmpty() && x[windowMin.peekFirst()] < xLeft) windowMin.pollFirst();
+			while (!windowMax.isEmpty() && x[windowMax.peekFirst()] < xLeft) windowMax.pollFirst();
+			// band boundaries are interpolated
+			double yLeft = curve.getY( xLeft ), yRight = curve.getY( xRight );
+			envelope[0][i] = FastMath.min( yLeft, yRight );
+			envelope[1][i] = FastMath.max( yLeft, yRight );
+			if (!windowMin.isEmpty()) envelope[0][i] = FastMath.min( envelope[0][i], y[windowMin.peekFirst()] );
+			if (!windowMax.isEmpty()) envelope[1][i] = FastMath.max( envelope[1][i], y[windowMax.peekFirst()] );
+		}
+		return envelope;
+	}
 
 	
 }
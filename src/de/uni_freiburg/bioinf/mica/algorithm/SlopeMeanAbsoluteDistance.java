@@ -33,6 +33,11 @@ public class SlopeMeanAbsoluteDistance extends SampledCurveDistance {
 		return "Computes the mean absolute slope difference on "+sampleNumber+" equidistant x-coordinate samples";
 	}
 
+	@Override
+	public SlopeMeanAbsoluteDistance withSampleNumber(int sampleNumber) throws OutOfRangeException {
+		return new SlopeMeanAbsoluteDistance(sampleNumber);
+	}
+
 	/**
 	 * Computes the absolute difference of the slope at the given x-coordinates corrected by the
 	 * given length warping information i.e.
@@ -45,6 +50,42 @@ public class SlopeMeanAbsoluteDistance extends SampledCurveDistance {
 		return FastMath.abs( (curve1.getSlope(x1)/lengthRatio1) - (curve2.getSlope(x2)/lengthRatio2) );
 	}
 	
+	/**
+	 * Interpolates the slopes for the sorted x-coordinates.
+	 */
+	@Override
+	protected void getValues(Curve curve, double[] sortedX, int start, int length, double[] values) {
+		curve.getSlope( sortedX, start, length, values );
+	}
+	
+	/**
+	 * Corrects the slope by the length warping.
+	 */
+	@Override
+	protected double getWarpedValue(double value, double lengthRatio) {
+		return value/lengthRatio;
+	}
+	
+	/**
+	 * Computes the absolute difference of the slopes.
+	 */
+	@Override
+	protected double getValueDistance(double value1, double value2) {
+		return FastMath.abs( value1 - value2 );
+	}
+	
+	/**
+	 * Computes the absolute differences of the cached slope samples.
+	 */
+	@Override
+	protected void computeDistanceTerms(Curve curve1, Curve curve2, double[] terms) {
+		final double[] sample1 = curve1.getSampledSlope( sampleNumber );
+		final double[] sample2 = curve2.getSampledSlope( sampleNumber );
+		for (int i=0; i<sampleNumber; i++) {
+			terms[i] = FastMath.abs( sample1[i] - sample2[i] );
+		}
+	}
+	
 	/**
 	 * returns the mean distance = sum/samples.
 	 */
@@ -33,19 +33,63 @@ public class SlopeRmsdDistance extends SampledCurveDistance {
 		return "Computes the slope RMSD on "+sampleNumber+" equidistant x-coordinate samples";
 	}
 
+	@Override
+	public SlopeRmsdDistance withSampleNumber(int sampleNumber) throws OutOfRangeException {
+		return new SlopeRmsdDistance(sampleNumber);
+	}
+
 	/**
 	 * Computes the squared absolute distance of the slope at the given x-coordinates corrected
 	 * by the given length warping, i.e.
 	 * 
-	 *  pow( (curve1.getSlope(x1)/lengthRatio1) - (curve2.getSlope(x2)/lengthRatio2), 2 )
+	 *  ( (curve1.getSlope(x1)/lengthRatio1) - (curve2.getSlope(x2)/lengthRatio2) )^2
 	 *  
 	 */
 	@Override
 	protected double getDistance(Curve curve1, Curve curve2, double x1, double x2, double lengthRatio1, double lengthRatio2) {
-		return FastMath.pow( (curve1.getSlope( x1 )/lengthRatio1) - (curve2.getSlope( x2 )/lengthRatio2), 2);
+		final double diff = (curve1.getSlope( x1 )/lengthRatio1) - (curve2.getSlope( x2 )/lengthRatio2);
+		return diff*diff;
 	}
 	
 
+	/**
+	 * Interpolates the slopes for the sorted x-coordinates.
+	 */
+	@Override
+	protected void getValues(Curve curve, double[] sortedX, int start, int length, double[] values) {
+		curve.getSlope( sortedX, start, length, values );
+	}
+	
+	/**
+	 * Corrects the slope by the length warping.
+	 */
+	@Override
+	protected double getWarpedValue(double value, double lengthRatio) {
+		return value/lengthRatio;
+	}
+	
+	/**
+	 * Computes the squared difference of the slopes.
+	 */
+	@Override
+	protected double getValueDistance(double value1, double value2) {
+		final double diff = value1 - value2;
+		return diff*diff;
+	}
+	
+	/**
+	 * Computes the squared differences of the cached slope samples.
+	 */
+	@Override
+	protected void computeDistanceTerms(Curve curve1, Curve curve2, double[] terms) {
+		final double[] sample1 = curve1.getSampledSlope( sampleNumber );
+		final double[] sample2 = curve2.getSampledSlope( sampleNumber );
+		for (int i=0; i<sampleNumber; i++) {
+			final double diff = sample1[i] - sample2[i];
+			terms[i] = diff*diff;
+		}
+	}
+	
 	/**
 	 * Normalizes the distance sum with the sample number (mean) and takes the
 	 * square root to get the final RMSD.
@@ -60,11 +104,11 @@ public class SlopeRmsdDistance extends SampledCurveDistance {
 	}
 	
 	/**
-	 * returns pow(distance,2) * samples.
+	 * returns distance*distance * samples.
 	 */
 	@Override
 	protected double preFinalDistance(double distance, int samples) {
-		return FastMath.pow(distance,2) * (double)samples;
+		return distance*distance * (double)samples;
 	}
 
 	
@@ -0,0 +1,277 @@
+package de.uni_freiburg.bioinf.mica.algorithm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+
+/**
+ * Online aligner for continuously arriving curves.
+ *
+ * Each incoming curve is aligned to a running consensus via
+ * {@link PICA#alignToReference(IntervalDecomposition, IntervalDecomposition)},
+ * such that all aligned curves share the coordinate frame of the consensus.
+ * The running consensus is computed via {@link MICA#getConsensusCurve(List)}
+ * from a bounded window of the most recently aligned curves. It is refreshed
+ * in the background after a given number of curves and the new consensus is
+ * used as soon as it is available.
+ *
+ * The aligner holds a background thread and has to be closed when not needed anymore.
+ *
+ * @author Mmann
+ *
+ */
+public class StreamingAligner implements AutoCloseable {
+
+	/**
+	 * the pairwise aligner used to align each curve to the consensus
+	 */
+	final PICA aligner;
+
+	/**
+	 * the maximal number of recently aligned curves the consensus is computed from
+	 */
+	final int windowSize;
+
+	/**
+	 * the number of aligned curves after which the consensus is refreshed
+	 */
+	final int refreshInterval;
+
+	/**
+	 * the most recently aligned curves (owned copies, oldest first)
+	 */
+	final ArrayDeque<IntervalDecomposition> window = new ArrayDeque<>();
+
+	/**
+	 * curves that left the window but might still be used by a pending refresh
+	 */
+	final List<IntervalDecomposition> toRelease = new ArrayList<>();
+
+	/**
+	 * the current consensus the curves are aligned to or null if no curve was aligned yet
+	 */
+	IntervalDecomposition consensus = null;
+
+	/**
+	 * the pending computation of the next consensus or null if none is running
+	 */
+	Future<IntervalDecomposition> refresh = null;
+
+	/**
+	 * the number of curves aligned since the last consensus refresh
+	 */
+	int alignedSinceRefresh = 0;
+
+	/**
+	 * the overall number of aligned curves
+	 */
+	long alignedNumber = 0;
+
+	/**
+	 * single background thread for consensus refreshs
+	 */
+	final ExecutorService refresher = Executors.newSingleThreadExecutor( runnable -> {
+		Thread thread = new Thread( runnable, "MICA consensus refresh" );
+		thread.setDaemon( true );
+		return thread;
+	} );
+
+	/**
+	 * Creates a streaming aligner
+	 *
+	 * @param aligner the pairwise aligner to be used
+	 * @param windowSize the maximal number of recently aligned curves the consensus is computed from (>=1)
+	 * @param refreshInterval the number of aligned curves after which the consensus is refreshed (>=1)
+	 * @throws NullArgumentException
+	 * @throws OutOfRangeException if windowSize < 1 or refreshInterval < 1
+	 */
+	public StreamingAligner( PICA aligner, int windowSize, int refreshInterval ) throws NullArgumentException, OutOfRangeException {
+		if (aligner == null) throw new NullArgumentException();
+		if (windowSize < 1) throw new OutOfRangeException(windowSize, 1, Integer.MAX_VALUE);
+		if (refreshInterval < 1) throw new OutOfRangeException(refreshInterval, 1, Integer.MAX_VALUE);
+		this.aligner = aligner;
+		this.windowSize = windowSize;
+		this.refreshInterval = refreshInterval;
+	}
+
+	/**
+	 * Aligns the given curve to the current consensus. The first curve
+	 * defines the initial consensus and is not changed.
+	 *
+	 * @param curve the curve to align (not changed)
+	 * @return an aligned copy of the curve or null if the computation was interrupted
+	 * @throws NullArgumentException
+	 * @throws IllegalArgumentException if the curve is not compatible to the consensus
+	 */
+	public synchronized IntervalDecomposition add( IntervalDecomposition curve ) throws NullArgumentException, IllegalArgumentException {
+		if (curve == null) throw new NullArgumentException();
+
+		// use refreshed consensus if available
+		updateConsensus( false );
+
+		// get aligned x-coordinates
+		double[] alignedX = null;
+		if (consensus == null) {
+			alignedX = curve.getCurve().getX();
+		} else {
+			if (!consensus.isCompatible( curve )) throw new IllegalArgumentException("curve is incompatible with the consensus");
+			PICA.PicaData pairwise = aligner.alignToReference( consensus, curve );
+			// stop if computation is to be interrupted
+			if (pairwise == null)
+				return null;
+			// shift into the coordinate frame of the consensus
+			final double xShift = consensus.getCurve().getXmin() - pairwise.dec1.getCurve().getXmin();
+			alignedX = pairwise.dec2.getCurve().getX().clone();
+			for (int i=0; i<alignedX.length; i++) {
+				alignedX[i] += xShift;
+			}
+		}
+		IntervalDecomposition aligned = createCopy( curve, alignedX );
+		alignedNumber++;
+
+		// update window
+		window.addLast( aligned );
+		if (window.size() > windowSize) {
+			toRelease.add( window.removeFirst() );
+		}
+
+		// initial consensus
+		if (consensus == null) {
+			consensus = createCopy( aligned, aligned.getCurve().getX() );
+		} else
+		// start consensus refresh if needed
+		if (++alignedSinceRefresh >= refreshInterval && refresh == null) {
+			final List<IntervalDecomposition> curves = new ArrayList<>( window );
+			refresh = refresher.submit( () -> curves.size() == 1
+					? createCopy( curves.get(0), curves.get(0).getCurve().getX() )
+					: MICA.getConsensusCurve( curves ) );
+			alignedSinceRefresh = 0;
+		}
+		releaseCurves();
+
+		// return independent copy
+		return new IntervalDecomposition( aligned );
+	}
+
+	/**
+	 * Waits for a pending consensus refresh and uses the new consensus for all
+	 * following alignments.
+	 *
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public synchronized void awaitConsensusRefresh() throws InterruptedException {
+		updateConsensus( true );
+	}
+
+	/**
+	 * Access to the current consensus the curves are aligned to
+	 * @return the current consensus or null if no curve was aligned yet
+	 */
+	public synchronized IntervalDecomposition getConsensus() {
+		return consensus;
+	}
+
+	/**
+	 * Access to the number of curves aligned so far
+	 * @return the number of aligned curves
+	 */
+	public synchronized long getAlignedNumber() {
+		return alignedNumber;
+	}
+
+	/**
+	 * Access to the maximal number of recently aligned curves the consensus is computed from
+	 * @return the window size
+	 */
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	/**
+	 * Access to the number of aligned curves after which the consensus is refreshed
+	 * @return the refresh interval
+	 */
+	public int getRefreshInterval() {
+		return refreshInterval;
+	}
+
+	/**
+	 * Stops the background refresh of the consensus
+	 */
+	@Override
+	public void close() {
+		refresher.shutdownNow();
+	}
+
+	/**
+	 * Replaces the consensus by the result of the pending refresh if available.
+	 *
+	 * @param wait whether or not to wait for the pending refresh
+	 * @throws RuntimeException if the consensus computation failed
+	 */
+	private void updateConsensus( boolean wait ) throws RuntimeException {
+		if (refresh == null || (!wait && !refresh.isDone()))
+			return;
+		try {
+			IntervalDecomposition newConsensus = refresh.get();
+			refresh = null;
+			release( consensus );
+			consensus = newConsensus;
+		} catch (InterruptedException e) {
+			// forward interruption and keep the refresh pending
+			Thread.currentThread().interrupt();
+			return;
+		} catch (ExecutionException e) {
+			refresh = null;
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+			throw new RuntimeException( e.getCause() );
+		}
+		releaseCurves();
+	}
+
+	/**
+	 * Releases all curves that left the window if no refresh is pending
+	 */
+	private void releaseCurves() {
+		if (refresh != null)
+			return;
+		toRelease.forEach( c -> release( c ) );
+		toRelease.clear();
+	}
+
+	/**
+	 * Creates a copy of the given curve with the given x-coordinates whose annotated
+	 * curve is owned by this aligner and uses the same annotation filters.
+	 *
+	 * @param curve the curve to copy
+	 * @param x the x-coordinates of the copy
+	 * @return the copy
+	 */
+	private static IntervalDecomposition createCopy( IntervalDecomposition curve, double[] x ) {
+		AnnotatedCurve original = curve.getCurveOriginal();
+		AnnotatedCurve copy = new AnnotatedCurve( original.getName(), x, original.getY(), original.getAnnotation() );
+		original.getAnnotationFilter().forEach( f -> copy.addAnnotationFilter( f ) );
+		return new IntervalDecomposition( copy );
+	}
+
+	/**
+	 * Unregisters the annotated curve owned by this aligner from its annotation
+	 * filters such that it can be garbage collected.
+	 *
+	 * @param curve the curve to release (can be null)
+	 */
+	private static void release( IntervalDecomposition curve ) {
+		if (curve == null)
+			return;
+		AnnotatedCurve original = curve.getCurveOriginal();
+		new ArrayList<>( original.getAnnotationFilter() ).forEach( f -> original.removeAnnotationFilter( f ) );
+	}
+
+}
@@ -0,0 +1,64 @@
+package de.uni_freiburg.bioinf.mica.algorithm;
+
+import org.apache.commons.math3.exception.NullArgumentException;
+
+
+/**
+ * Computes a binary guide tree via UPGMA (unweighted pair group method with
+ * arithmetic mean) from the initial pairwise distance matrix only.
+ * 
+ * Iteratively, the two clusters with minimal distance are joined, where ties
+ * are resolved in favor of the pair with the lowest indices. The distance of 
+ * a joined cluster to any other cluster is the size-weighted mean of the 
+ * distances of the joined clusters.
+ * 
+ * @author Mmann
+ *
+ */
+public class UpgmaGuideTreeGenerator extends ClusteringGuideTreeGenerator {
+
+	@Override
+	public GuideTreeNode compute(PICA.PicaData[][] distMatrix) throws NullArgumentException, IllegalArgumentException {
+		
+		// get distances
+		double[][] dist = getDistances( distMatrix );
+		
+		// initialize clusters (a cluster is active if its node is not null)
+		GuideTreeNode[] nodes = new GuideTreeNode[dist.length];
+		int[] size = new int[dist.length];
+		for (int i=0; i<nodes.length; i++) {
+			nodes[i] = createLeaf( i );
+			size[i] = 1;
+		}
+		
+		// join clusters until only one is left
+		for (int join=1; join<dist.length; join++) {
+			// find pair of active clusters with minimal distance
+			int minI = -1, minJ = -1;
+			for (int i=0; i<dist.length; i++) {
+				if (nodes[i] == null) continue;
+				for (int j=i+1; j<dist.length; j++) {
+					if (nodes[j] == null) continue;
+					if (minI < 0 || dist[i][j] < dist[minI][minJ]) {
+						minI = i;
+						minJ = j;
+					}
+				}
+			}
+			// update distances of the joined cluster, which is stored at minI
+			for (int k=0; k<dist.length; k++) {
+				if (nodes[k] == null || k == minI || k == minJ) continue;
+				dist[minI][k] = (size[minI]*dist[minI][k] + size[minJ]*dist[minJ][k]) / (double)(size[minI]+size[minJ]);
+				dist[k][minI] = dist[minI][k];
+			}
+			// join clusters
+			nodes[minI] = join( nodes[minI], nodes[minJ] );
+			size[minI] += size[minJ];
+			nodes[minJ] = null;
+		}
+		
+		// the first cluster is never removed and holds the root
+		return nodes[0];
+	}
+
+}
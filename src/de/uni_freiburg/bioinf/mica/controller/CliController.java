@@ -1,23 +1,35 @@
 package de.uni_freiburg.bioinf.mica.controller;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import de.uni_freiburg.bioinf.mica.algorithm.AnnotatedCurve;
 import de.uni_freiburg.bioinf.mica.algorithm.Curve;
 import de.uni_freiburg.bioinf.mica.algorithm.CurveExtremaFilter;
 import de.uni_freiburg.bioinf.mica.algorithm.CurveInflectionFilter;
 import de.uni_freiburg.bioinf.mica.algorithm.CurveMeanAbsoluteDistance;
+import de.uni_freiburg.bioinf.mica.algorithm.ExactCurveDistance;
 import de.uni_freiburg.bioinf.mica.algorithm.IntervalDecomposition;
 import de.uni_freiburg.bioinf.mica.algorithm.MICA;
 import de.uni_freiburg.bioinf.mica.algorithm.MICA.MicaData;
+import de.uni_freiburg.bioinf.mica.algorithm.NeighborJoiningGuideTreeGenerator;
+import de.uni_freiburg.bioinf.mica.algorithm.PICA;
+import de.uni_freiburg.bioinf.mica.algorithm.ResampledCurveDistance;
 import de.uni_freiburg.bioinf.mica.algorithm.SampledCurveDistance;
 import de.uni_freiburg.bioinf.mica.algorithm.SlopeMeanAbsoluteDistance;
+import de.uni_freiburg.bioinf.mica.algorithm.StreamingAligner;
+import de.uni_freiburg.bioinf.mica.algorithm.UpgmaGuideTreeGenerator;
 import de.uni_freiburg.bioinf.mica.model.FileFormatCsv;
 import joptsimple.OptionSet;
 
@@ -39,6 +51,12 @@ public class CliController implements MicaController {
 	@Override
 	public void start(OptionSet options) throws Exception {
 		
+		// align curves from STDIN if requested
+		if (options.has(Arguments.stream.toString())) {
+			startStreaming( options );
+			return;
+		}
+		
 		if (!options.has(Arguments.curves.toString()))
 			throw new RuntimeException("no "+Arguments.curves+" argument found");
 		
@@ -91,15 +109,7 @@ public class CliController implements MicaController {
 		}
 		
 		// setup distance function
-		SampledCurveDistance distanceFunction = null;
-		switch( (DistanceBase)options.valueOf(Arguments.distBase.toString()) ) {
-		case SLOPE:
-			distanceFunction = new SlopeMeanAbsoluteDistance( (Integer)options.valueOf(Arguments.distSamples.toString()) );
-			break;
-		case Y_DATA:
-			distanceFunction = new CurveMeanAbsoluteDistance( (Integer)options.valueOf(Arguments.distSamples.toString()) );
-			break;
-		}
+		SampledCurveDistance distanceFunction = getDistanceFunction( options );
 		
 		// setup aligner
 		MICA aligner = new MICA( 
@@ -108,10 +118,47 @@ public class CliController implements MicaController {
 					(Double)options.valueOf(Arguments.alnMaxShift.toString()),
 					(Double)options.valueOf(Arguments.alnMinLength.toString())
 					);
+		aligner.setThreads( (Integer)options.valueOf(Arguments.threads.toString()) );
+		aligner.setFullConsensusComputation( options.has(Arguments.alnFullConsensus.toString()) );
+		switch( (GuideTree)options.valueOf(Arguments.alnGuideTree.toString()) ) {
+		case UPGMA:
+			aligner.setGuideTreeGenerator( new UpgmaGuideTreeGenerator() );
+			break;
+		case NJ:
+			aligner.setGuideTreeGenerator( new NeighborJoiningGuideTreeGenerator() );
+			break;
+		case PROGRESSIVE:
+			break;
+		}
+		aligner.setCandidateNeighbors( (Integer)options.valueOf(Arguments.alnCandidates.toString())
+				, (ResampledCurveDistance)options.valueOf(Arguments.alnCandidateDist.toString()) );
+		aligner.setLazyPairEvaluation( options.has(Arguments.alnLazy.toString()) );
+		aligner.setWarmStart( options.has(Arguments.alnWarmStart.toString()) );
+		if (options.has(Arguments.alnBanded.toString())) {
+			aligner.setBandedAlignment( (Integer)options.valueOf(Arguments.alnBanded.toString()) );
+		}
+		aligner.setCoarseScoring( (Integer)options.valueOf(Arguments.distSamplesCoarse.toString())
+				, (Integer)options.valueOf(Arguments.distCoarseTopK.toString()) );
 		
 		// compute alignment
 		MicaData alignment = aligner.align( curvesToAlign );
 		
+		// report savings of the candidate preselection
+		if (aligner.getCandidateNeighbors() > 0) {
+			Debug.out.println("INFO: "+aligner.getPairwiseAlignmentNumber()+" pairwise alignments computed, "
+					+aligner.getSavedPairwiseAlignmentNumber()+" saved by candidate preselection");
+		} else 
+		// report savings of the lazy evaluation
+		if (aligner.isLazyPairEvaluation()) {
+			Debug.out.println("INFO: "+aligner.getPairwiseAlignmentNumber()+" pairwise alignments computed, "
+					+aligner.getSavedPairwiseAlignmentNumber()+" saved by lazy evaluation");
+		}
+		// report agreement of coarse and full resolution scoring
+		if (aligner.getCoarseSampleNumber() > 0) {
+			Debug.out.println("INFO: "+aligner.getCoarseSelectionNumber()+" decompositions selected from coarse candidates, "
+					+aligner.getCoarseDisagreementNumber()+" differ from the best coarse candidate");
+		}
+		
 		// write alignment's new x-coordinates
 		if (options.has(Arguments.output.toString())
 			&& ! options.valueOf(Arguments.output.toString()).toString().equalsIgnoreCase("STDOUT")) 
@@ -157,5 +204,106 @@ public class CliController implements MicaController {
 		}
 		
 	}
+	
+	/**
+	 * Creates the distance function according to the given options
+	 * @param options the parsed options
+	 * @return the distance function to be used
+	 */
+	protected SampledCurveDistance getDistanceFunction( OptionSet options ) {
+		switch( (DistanceBase)options.valueOf(Arguments.distBase.toString()) ) {
+		case Y_DATA:
+			return new CurveMeanAbsoluteDistance( (Integer)options.valueOf(Arguments.distSamples.toString()) );
+		case Y_DATA_EXACT:
+			return new ExactCurveDistance( false, false, (Integer)options.valueOf(Arguments.distSamples.toString()) );
+		case SLOPE_EXACT:
+			return new ExactCurveDistance( true, false, (Integer)options.valueOf(Arguments.distSamples.toString()) );
+		case SLOPE:
+		default:
+			return new SlopeMeanAbsoluteDistance( (Integer)options.valueOf(Arguments.distSamples.toString()) );
+		}
+	}
+	
+	/**
+	 * Aligns the curves read line-wise from STDIN to a running consensus, see
+	 * {@link StreamingAligner}. Each line holds the curve name followed by its 
+	 * y-coordinates (equidistant x-coordinates assumed). The aligned x-coordinates 
+	 * of each curve are written immediately as one line (curve name followed by 
+	 * x-coordinates) to STDOUT.
+	 * 
+	 * @param options the parsed options
+	 * @throws IOException if reading from STDIN fails
+	 */
+	protected void startStreaming( OptionSet options ) throws IOException {
+		
+		final String csvColDelim = options.valueOf(Arguments.csvDelim.toString()).toString();
+		
+		// setup filter 
+		CurveExtremaFilter filterExtrema = new CurveExtremaFilter( (Double)options.valueOf(Arguments.filterExtrema.toString()) );
+		CurveInflectionFilter filterInflect = new CurveInflectionFilter( (Double)options.valueOf(Arguments.filterInflect.toString()) );
+		
+		// setup pairwise aligner
+		PICA pica = new PICA( 
+				getDistanceFunction( options ),
+				(Double)options.valueOf(Arguments.alnMaxWarp.toString()),
+				(Double)options.valueOf(Arguments.alnMaxShift.toString()),
+				(Double)options.valueOf(Arguments.alnMinLength.toString())
+				);
+		// decompose independent intervals and score their candidate decompositions in parallel if requested
+		final int threads = (Integer)options.valueOf(Arguments.threads.toString());
+		ForkJoinPool executor = (threads > 1) ? new ForkJoinPool( threads ) : null;
+		pica.setCandidateExecutor( executor, threads );
+		pica.setIntervalPool( executor, PICA.DEFAULT_INTERVAL_CUTOFF );
+		pica.setCoarseScoring( (Integer)options.valueOf(Arguments.distSamplesCoarse.toString())
+				, (Integer)options.valueOf(Arguments.distCoarseTopK.toString()) );
+		
+		BufferedReader reader = new BufferedReader( new InputStreamReader( System.in ) );
+		PrintWriter writer = new PrintWriter( System.out );
+		try ( StreamingAligner aligner = new StreamingAligner( pica
+					, (Integer)options.valueOf(Arguments.streamWindow.toString())
+					, (Integer)options.valueOf(Arguments.streamRefresh.toString()) ) ) 
+		{
+			String line = null;
+			int lineNumber = 0;
+			while ( (line = reader.readLine()) != null ) {
+				lineNumber++;
+				// skip empty lines
+				if (line.trim().isEmpty()) 
+					continue;
+				String[] cols = line.split( Pattern.quote( csvColDelim ) );
+				AnnotatedCurve curve = null;
+				try {
+					// parse curve
+					double[] y = Arrays.stream( cols, 1, cols.length ).mapToDouble( v -> Double.parseDouble( v.trim() ) ).toArray();
+					curve = new AnnotatedCurve( cols[0].trim(), y );
+					curve.addAnnotationFilter(filterExtrema);
+					curve.addAnnotationFilter(filterInflect);
+					// align
+					IntervalDecomposition aligned = aligner.add( new IntervalDecomposition( curve ) );
+					// stop if interrupted
+					if (aligned == null) 
+						break;
+					// write aligned x-coordinates
+					writer.println( cols[0].trim() + csvColDelim 
+							+ Arrays.stream( aligned.getCurve().getX() ).mapToObj( String::valueOf ).collect( Collectors.joining( csvColDelim ) ) );
+					writer.flush();
+				} catch (Exception e) {
+					Debug.out.println("WARNING: cannot align curve from line "+lineNumber+" due to : "+e.getMessage()+" : skipped");
+				} finally {
+					// release the input curve from the shared filters
+					if (curve != null) {
+						curve.removeAnnotationFilter(filterExtrema);
+						curve.removeAnnotationFilter(filterInflect);
+					}
+				}
+			}
+		} finally {
+			// release the threads used for the pairwise alignments
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+		writer.flush();
+	}
 
 }
@@ -1018,7 +1018,8 @@ public class GuiController implements MicaController, ISolutionDistributor {
 		}
 		this.fileColumnHeader = ! options.has(Arguments.csvNoHeader.toString());
 		if (options.has(Arguments.distBase.toString())) {
-			mainView.setDistanceSlopeBased( (DistanceBase)options.valueOf(Arguments.distBase.toString()) == DistanceBase.SLOPE );
+			final DistanceBase distBase = (DistanceBase)options.valueOf(Arguments.distBase.toString());
+			mainView.setDistanceSlopeBased( distBase == DistanceBase.SLOPE || distBase == DistanceBase.SLOPE_EXACT );
 		}
 		if (options.has(Arguments.distSamples.toString())) {
 			this.paramDistanceSamples.set( (Integer)options.valueOf(Arguments.distSamples.toString()) );
@@ -15,7 +15,23 @@ public interface MicaController {
 	 */
 	public static enum DistanceBase {
 		Y_DATA, 
-		SLOPE
+		SLOPE,
+		/** exact integral of the y-coordinate differences (see ExactCurveDistance) */
+		Y_DATA_EXACT,
+		/** exact integral of the slope differences (see ExactCurveDistance) */
+		SLOPE_EXACT
+	}
+	
+	/**
+	 * To describe how the guide tree of the progressive alignment is derived
+	 */
+	public static enum GuideTree {
+		/** progressive fusion based on the distances of the consensi of all subalignments */
+		PROGRESSIVE,
+		/** UPGMA guide tree computed from the initial pairwise distances */
+		UPGMA,
+		/** neighbor joining guide tree computed from the initial pairwise distances */
+		NJ
 	}
 	
 	/**
@@ -30,10 +46,23 @@ public interface MicaController {
 		filterInflect,
 		distBase,
 		distSamples,
+		distSamplesCoarse,
+		distCoarseTopK,
 		alnMinLength,
 		alnMaxWarp,
 		alnMaxShift,
-		alnReference
+		alnReference,
+		alnFullConsensus,
+		alnGuideTree,
+		alnCandidates,
+		alnCandidateDist,
+		alnLazy,
+		alnWarmStart,
+		alnBanded,
+		threads,
+		stream,
+		streamWindow,
+		streamRefresh
 	}
 
 	/**
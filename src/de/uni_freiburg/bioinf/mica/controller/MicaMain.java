@@ -15,8 +15,10 @@ import joptsimple.OptionException;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import de.uni_freiburg.bioinf.mica.algorithm.DoubleRange;
+import de.uni_freiburg.bioinf.mica.algorithm.ResampledCurveDistance;
 import de.uni_freiburg.bioinf.mica.controller.MicaController.Arguments;
 import de.uni_freiburg.bioinf.mica.controller.MicaController.DistanceBase;
+import de.uni_freiburg.bioinf.mica.controller.MicaController.GuideTree;
 
 /**
  * Main class which either starts the command line interface or the
@@ -98,6 +100,25 @@ public class MicaMain {
 				.defaultsTo(100)
 				;
 		
+		ranges.put(Arguments.distSamplesCoarse, new DoubleRange(0, 99999));
+		parser.accepts(Arguments.distSamplesCoarse.toString(),
+				"The number of equidistant x-coordinates to be used to preselect candidate decompositions at coarse resolution"
+				+ " (range "+ranges.get(Arguments.distSamplesCoarse)+"). 0 scores all candidates on "+Arguments.distSamples+" x-coordinates,"
+				+ " otherwise only the "+Arguments.distCoarseTopK+" best candidates are scored at full resolution (faster approximation).")
+				.withRequiredArg()
+				.ofType( Integer.class )
+				.defaultsTo(0)
+				;
+		
+		ranges.put(Arguments.distCoarseTopK, new DoubleRange(1, 99999));
+		parser.accepts(Arguments.distCoarseTopK.toString(),
+				"Number of best candidate decompositions at coarse resolution (see "+Arguments.distSamplesCoarse+") that are scored at full resolution"
+				+ " (range "+ranges.get(Arguments.distCoarseTopK)+")")
+				.withRequiredArg()
+				.ofType( Integer.class )
+				.defaultsTo(5)
+				;
+		
 		ranges.put(Arguments.alnMinLength, new DoubleRange(0,1));
 		parser.accepts(Arguments.alnMinLength.toString(),
 				"Minimal relative length of an interval to be considered for further decomposition (range "+ranges.get(Arguments.alnMinLength)+")")
@@ -129,6 +150,91 @@ public class MicaMain {
 				.ofType( Integer.class )
 				;
 		
+		parser.accepts(Arguments.alnFullConsensus.toString(),
+				"If present, the consensus of fused subalignments is recomputed from all their curves."
+				+ " Otherwise, it is derived from the aligned consensi of the subalignments, which is faster"
+				+ " but can slightly differ, since consensus coordinates closer than the precision are merged.")
+				;
+		
+		parser.accepts(Arguments.alnGuideTree.toString(),
+				"How the guide tree of the progressive alignment is derived: "+Arrays.toString(GuideTree.values())
+				+ ". "+GuideTree.PROGRESSIVE+" recomputes the distances of each fused subalignment,"
+				+ " all others compute the guide tree from the initial pairwise distances only.")
+				.withRequiredArg()
+				.ofType( GuideTree.class )
+				.defaultsTo(GuideTree.PROGRESSIVE)
+				;
+		
+		ranges.put(Arguments.alnCandidates, new DoubleRange(0,99999));
+		parser.accepts(Arguments.alnCandidates.toString(),
+				"Number of nearest candidates each curve is aligned with during the progressive alignment"
+				+ " (range "+ranges.get(Arguments.alnCandidates)+"). 0 computes all pairwise alignments,"
+				+ " otherwise candidates are preselected via "+Arguments.alnCandidateDist+" (approximation for large data sets).")
+				.withRequiredArg()
+				.ofType( Integer.class )
+				.defaultsTo(0)
+				;
+		
+		parser.accepts(Arguments.alnCandidateDist.toString(),
+				"The cheap distance on equidistant samples used to select the nearest candidates: "+Arrays.toString(ResampledCurveDistance.values()))
+				.withRequiredArg()
+				.ofType( ResampledCurveDistance.class )
+				.defaultsTo(ResampledCurveDistance.SLOPE_MEAN_ABSOLUTE)
+				;
+		
+		parser.accepts(Arguments.alnLazy.toString(),
+				"If present, pairwise alignments are computed lazily in the order of a distance lower bound"
+				+ " (same result, fewer pairwise alignments). Not applied in combination with "+Arguments.alnCandidates+".")
+				;
+		
+		parser.accepts(Arguments.alnWarmStart.toString(),
+				"If present, the pairwise alignments of merged subalignments are initialized from the decompositions"
+				+ " of the former pairwise alignments (faster, results can differ). Not applied for guide trees.")
+				;
+		
+		ranges.put(Arguments.alnBanded, new DoubleRange(0,99999));
+		parser.accepts(Arguments.alnBanded.toString(),
+				"If present, the pairwise alignments compute a matching of the annotations within each"
+				+ " initial interval via banded dynamic programming instead of the greedy decomposition, where at most"
+				+ " the given number of annotations is skipped between matched pairs (range "+ranges.get(Arguments.alnBanded)+")."
+				+ " Matched pairs are pinned at the weighted mean of their initial positions, such that the distance can"
+				+ " be larger than for the greedy decomposition; the matching is slower than the greedy decomposition."
+				+ " The matching ignores "+Arguments.alnWarmStart+" and "+Arguments.distSamplesCoarse+"; each pairwise alignment"
+				+ " is computed by a single thread.")
+				.withRequiredArg()
+				.ofType( Integer.class )
+				;
+		
+		ranges.put(Arguments.threads, new DoubleRange(1,999));
+		parser.accepts(Arguments.threads.toString(),
+				"Number of threads to be used for the pairwise alignment computations"
+				+ " (for 'stream' : for the interval decompositions within each pairwise alignment) (range "+ranges.get(Arguments.threads)+")")
+				.withRequiredArg()
+				.ofType( Integer.class )
+				.defaultsTo(1)
+				;
+		
+		parser.accepts(Arguments.stream.toString(),
+				"If present, curves are read line-wise from STDIN (curve name followed by its y-coordinates, 'csvDelim' separated)"
+				+ " and each is immediately aligned to a running consensus. Its aligned x-coordinates are written as one line to STDOUT.")
+				;
+		
+		ranges.put(Arguments.streamWindow, new DoubleRange(1,99999));
+		parser.accepts(Arguments.streamWindow.toString(),
+				"Number of most recently aligned curves the running consensus of "+Arguments.stream+" is computed from (range "+ranges.get(Arguments.streamWindow)+")")
+				.withRequiredArg()
+				.ofType( Integer.class )
+				.defaultsTo(50)
+				;
+		
+		ranges.put(Arguments.streamRefresh, new DoubleRange(1,99999));
+		parser.accepts(Arguments.streamRefresh.toString(),
+				"Number of aligned curves after which the running consensus of "+Arguments.stream+" is refreshed in the background (range "+ranges.get(Arguments.streamRefresh)+")")
+				.withRequiredArg()
+				.ofType( Integer.class )
+				.defaultsTo(10)
+				;
+		
 		parser.acceptsAll( Arrays.asList( "h","?","help" ), "show help" )
 			.forHelp()
 			;
@@ -153,7 +259,7 @@ public class MicaMain {
 	{
 		for ( Arguments arg : ranges.keySet() ) {
 			if (options.has(arg.toString())) {
-				Double val = (Double)options.valueOf(arg.toString());
+				Double val = ((Number)options.valueOf(arg.toString())).doubleValue();
 				DoubleRange range = ranges.get(arg);
 				if ( val < range.getMin() || val > range.getMax() ) {
 					throw new IllegalArgumentException("argument "+arg+" : value "+String.valueOf(val)+" is out of range ["+ range.getMin()+","+range.getMax()+"]");
@@ -227,7 +333,7 @@ public class MicaMain {
 			UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
 			
 			// select controller 
-			MicaController controller = options.has(Arguments.curves.toString()) ? new CliController() : new GuiController();
+			MicaController controller = (options.has(Arguments.curves.toString()) || options.has(Arguments.stream.toString())) ? new CliController() : new GuiController();
 			
 			// start MICA in according mode
 			controller.start( options );
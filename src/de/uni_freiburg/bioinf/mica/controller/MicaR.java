@@ -17,6 +17,7 @@ import de.uni_freiburg.bioinf.mica.algorithm.CurveExtremaFilter;
 import de.uni_freiburg.bioinf.mica.algorithm.CurveInflectionFilter;
 import de.uni_freiburg.bioinf.mica.algorithm.CurveMeanAbsoluteDistance;
 import de.uni_freiburg.bioinf.mica.algorithm.CurveRmsdDistance;
+import de.uni_freiburg.bioinf.mica.algorithm.ExactCurveDistance;
 import de.uni_freiburg.bioinf.mica.algorithm.IntervalDecomposition;
 import de.uni_freiburg.bioinf.mica.algorithm.MICA;
 import de.uni_freiburg.bioinf.mica.algorithm.MICA.MicaData;
@@ -79,6 +80,10 @@ public class MicaR implements AutoCloseable {
 	 * 			1 = slope RMSD, 
 	 * 			2 = curve mean absolute distance, 
 	 * 			3 = slope mean absolute distance,
+	 * 			4 = exact curve RMSD, 
+	 * 			5 = exact slope RMSD, 
+	 * 			6 = exact curve mean absolute distance, 
+	 * 			7 = exact slope mean absolute distance
 	 * @param distanceSamples the number of equidistant samples used for distance computation >= 1
 	 * @param maxWarpingFactor the maximal warping factor allows during alignment >= 1
 	 * @param maxRelXShift the maximal relative shift of x-coordinates allowed [0,1], 
@@ -123,6 +128,10 @@ public class MicaR implements AutoCloseable {
 				case 1 : this.distanceFunction = new SlopeRmsdDistance(distanceSamples); break;
 				case 2 : this.distanceFunction = new CurveMeanAbsoluteDistance(distanceSamples); break;
 				case 3 : this.distanceFunction = new SlopeMeanAbsoluteDistance(distanceSamples); break;
+				case 4 : this.distanceFunction = new ExactCurveDistance(false, true, distanceSamples); break;
+				case 5 : this.distanceFunction = new ExactCurveDistance(true, true, distanceSamples); break;
+				case 6 : this.distanceFunction = new ExactCurveDistance(false, false, distanceSamples); break;
+				case 7 : this.distanceFunction = new ExactCurveDistance(true, false, distanceSamples); break;
 				default : throw new IllegalArgumentException("unknown distanceSelection '"+distanceSelection+"'");
 			}
 			
@@ -457,15 +457,15 @@ public class Model implements Serializable, IMsaSolutionReceiver {
 				// overwrite x-coordinates
 				// remove all annotations that are not interval boundaries
 				double[] alignedXcoord = alignment.curves.get(c).getCurve().getX();
+				alignedCurve.setCoordinates( alignedXcoord, alignedCurve.getY() );
 				CurveAnnotation.Type[] alignedCurveAnnotation = alignedCurve.getAnnotation();
 				for (int i=0; i<alignedXcoord.length; i++) {
-					alignedCurve.getX()[i] = alignedXcoord[i];
 					if (!alignedCurveAnnotation[i].isIntervalBoundary()) {
 						alignedCurveAnnotation[i] = CurveAnnotation.Type.IS_POINT;
 					}
 				}
-				// update slope computation etc.
-				alignedCurve.updateInterpolation();
+				// update filtered annotations
+				alignedCurve.resetFilteredAnnotations();
 			}
 			
 			// Add the color profile to the result set
@@ -0,0 +1,106 @@
+package de.uni_freiburg.bioinf.mica.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.uni_freiburg.bioinf.mica.model.FileFormatCsv;
+
+/**
+ * Benchmark that compares the runtime and the distance of all pairwise alignments
+ * computed by the greedy {@link PICA} and by the dynamic programming of {@link BandedPICA}
+ * (without and with restricted skips, see {@link BandedPICA#setMaxSkip(int)}).
+ *
+ * The curves are read from ';'-separated CSV files with header and are annotated
+ * using the default filters of the command line interface. The reported time is
+ * the median over several rounds of the mean time per pairwise alignment after 
+ * a warmup phase.
+ *
+ * Usage: BandedPicaBenchmark [maxSkip (default {@link BandedPICA#DEFAULT_MAX_SKIP})] [CSV files (default data/HF-density-*.csv)]
+ *
+ * @author Mmann
+ *
+ */
+public class BandedPicaBenchmark {
+
+	/**
+	 * Runs the benchmark
+	 * @param args optional maximal number of skipped annotations and CSV files
+	 */
+	public static void main(String[] args) {
+
+		final int maxSkip = args.length > 0 ? Integer.parseInt(args[0]) : BandedPICA.DEFAULT_MAX_SKIP;
+		final List<String> files = args.length > 1
+				? Arrays.asList( args ).subList( 1, args.length )
+				: Arrays.asList( "data/HF-density-1976.csv", "data/HF-density-2000.csv", "data/HF-density-1989-outlier.csv" );
+		final int warmups = 2;
+		final int rounds = 7;
+
+		for ( String file : files ) {
+			// parse and annotate curves
+			FileFormatCsv csv = new FileFormatCsv( ";" );
+			List<IntervalDecomposition> curves = new ArrayList<>();
+			for (int c=0; c<csv.getNumberCols( file ); c++) {
+				AnnotatedCurve curve = new AnnotatedCurve( csv.load( file, c, true ) );
+				curve.addAnnotationFilter( new CurveExtremaFilter( 0.01 ) );
+				curve.addAnnotationFilter( new CurveInflectionFilter( 0.01 ) );
+				curves.add( new IntervalDecomposition( curve ) );
+			}
+
+			for (SampledCurveDistance distance : new SampledCurveDistance[]{ new SlopeMeanAbsoluteDistance(100), new CurveMeanAbsoluteDistance(100) }) {
+				for (double maxRelXShift : new double[]{ 0.2, 0.05 }) {
+					BandedPICA banded = new BandedPICA( distance, 2, maxRelXShift, 0.01 );
+					banded.setMaxSkip( Integer.MAX_VALUE );
+					BandedPICA skipping = new BandedPICA( distance, 2, maxRelXShift, 0.01 );
+					skipping.setMaxSkip( maxSkip );
+
+					for (PICA pica : new PICA[]{ new PICA( distance, 2, maxRelXShift, 0.01 ), banded, skipping }) {
+						// warmup
+						for (int i=0; i<warmups; i++) {
+							alignAll( pica, curves );
+						}
+						// measure each round
+						long[] times = new long[rounds];
+						double[] result = null;
+						for (int i=0; i<rounds; i++) {
+							times[i] = System.nanoTime();
+							result = alignAll( pica, curves );
+							times[i] = System.nanoTime() - times[i];
+						}
+						Arrays.sort( times );
+						final long time = times[rounds/2];
+
+						final int pairs = curves.size()*(curves.size()-1)/2;
+						System.out.println( file
+								+ " : " + distance.getClass().getSimpleName()
+								+ " : maxRelXShift = " + maxRelXShift
+								+ " : " + pica.getClass().getSimpleName()
+								+ (pica == skipping ? " (maxSkip = "+maxSkip+")" : "")
+								+ " : ms/alignment = " + String.format( "%.3f", time / 1e6 / pairs )
+								+ " : mean distance = " + String.format( "%.5f", result[0] / pairs )
+								+ " : mean intervals = " + String.format( "%.1f", result[1] / pairs ) );
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the pairwise alignments of all curves
+	 * @param pica the aligner to use
+	 * @param curves the curves to align
+	 * @return the sum of the alignment distances [0] and of the number of intervals [1]
+	 */
+	private static double[] alignAll( PICA pica, List<IntervalDecomposition> curves ) {
+		double[] sum = new double[2];
+		for (int i=0; i<curves.size(); i++) {
+			for (int j=i+1; j<curves.size(); j++) {
+				PICA.PicaData alignment = pica.align( curves.get(i), 1, curves.get(j), 1 );
+				sum[0] += alignment.distance;
+				sum[1] += alignment.dec1.size();
+			}
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,141 @@
+package de.uni_freiburg.bioinf.mica.algorithm;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH micro benchmark of {@link PICA#align(IntervalDecomposition, double, IntervalDecomposition, double)}
+ * for two curves with many annotations.
+ * 
+ * The heap allocation per pairwise alignment is reported by the GC profiler of JMH 
+ * as gc.alloc.rate.norm (bytes/op). Besides the full alignment, which returns new
+ * curve copies, the decomposition loop is benchmarked in isolation on a 
+ * preallocated alignment that is reset to the initial alignment for each 
+ * invocation, which shows the steady-state allocation of the loop.
+ * 
+ * Usage: PicaBenchmark [JMH options], e.g. "-p length=1000"
+ * 
+ * @author Mmann
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PicaBenchmark {
+	
+	/**
+	 * The number of coordinates per curve
+	 */
+	@Param({"200"})
+	public int length;
+	
+	/**
+	 * The distance function used for the alignment
+	 */
+	@Param({"CurveRmsdDistance", "SlopeMeanAbsoluteDistance"})
+	public String distance;
+	
+	/**
+	 * The curves to align
+	 */
+	IntervalDecomposition[] curves;
+	
+	/**
+	 * The aligner
+	 */
+	PICA pica;
+	
+	/**
+	 * The initial alignment of the curves
+	 */
+	PICA.PicaData initial;
+	
+	/**
+	 * The preallocated alignment decomposed by {@link #decompose()}
+	 */
+	PICA.PicaData decomposed;
+	
+	/**
+	 * The minimal interval length for the decomposition
+	 */
+	double minIntervalLength;
+
+	/**
+	 * Sets up the curves and the aligner
+	 */
+	@Setup
+	public void setup() {
+		// curves with many annotations
+		curves = new IntervalDecomposition[2];
+		for (int c=0; c<curves.length; c++) {
+			final double shift = 0.7*c;
+			double[] y = IntStream.range(0, length).mapToDouble( i -> Math.sin( i/(length/20d) + shift ) + 0.3*Math.sin( i*1.7 + shift ) ).toArray();
+			curves[c] = new IntervalDecomposition( new AnnotatedCurve("curve"+c, y) );
+		}
+		switch (distance) {
+		case "CurveRmsdDistance" : pica = new PICA( new CurveRmsdDistance(100), 2, 0.2, 0.01 ); break;
+		case "SlopeMeanAbsoluteDistance" : pica = new PICA( new SlopeMeanAbsoluteDistance(100), 2, 0.2, 0.01 ); break;
+		default : throw new IllegalArgumentException("unknown distance "+distance);
+		}
+		initial = pica.getInitialAlignment( curves[0], 1, curves[1], 1 );
+		decomposed = pica.getInitialAlignment( curves[0], 1, curves[1], 1 );
+		minIntervalLength = initial.dec1.getCurve().length()*0.01;
+	}
+	
+	/**
+	 * Computes one pairwise alignment
+	 * @return the alignment
+	 */
+	@Benchmark
+	public PICA.PicaData align() {
+		return pica.align( curves[0], 1, curves[1], 1 );
+	}
+	
+	/**
+	 * Resets the preallocated alignment to the initial alignment and decomposes it
+	 * @return the decomposed alignment
+	 */
+	@Benchmark
+	public PICA.PicaData decompose() {
+		decomposed.dec1.copy( initial.dec1, initial.dec1.getCurve().length() );
+		decomposed.dec2.copy( initial.dec2, initial.dec2.getCurve().length() );
+		pica.decomposeIntervals( decomposed, 1, 1, minIntervalLength );
+		return decomposed;
+	}
+	
+	/**
+	 * Runs the benchmark with the GC profiler
+	 * @param args additional JMH options
+	 * @throws CommandLineOptionException if the JMH options are invalid
+	 * @throws RunnerException if the benchmark fails
+	 */
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		new Runner( new OptionsBuilder()
+				.parent( new CommandLineOptions( args ) )
+				.include( PicaBenchmark.class.getName() )
+				.addProfiler( GCProfiler.class )
+				.build() ).run();
+	}
+	
+}
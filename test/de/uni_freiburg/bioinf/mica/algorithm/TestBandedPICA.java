@@ -0,0 +1,109 @@
+package de.uni_freiburg.bioinf.mica.algorithm;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * @author Mmann
+ *
+ */
+public class TestBandedPICA {
+
+	// generally expect no exception
+	@Rule
+ 	public ExpectedException thrown= ExpectedException.none();
+
+
+	final double precisionDelta = 0.0001;
+
+
+	@Test
+	public final void testNull() {
+		thrown.expect( NullArgumentException.class );
+		new BandedPICA(null, 1, 1, 0);
+	}
+
+	@Test
+	public final void testMaxSkipNegative() {
+		thrown.expect( OutOfRangeException.class );
+		new BandedPICA(new CurveRmsdDistance(10), 1, 1, 0).setMaxSkip( -1 );
+	}
+
+	@Test
+	public final void testAlign() {
+
+		final double[] yOneMax = DoubleStream.of(1, 1.5, 3, 4, 5, 3, 1.5, 1).toArray();
+
+		final AnnotatedCurve curveOneMax1 = new AnnotatedCurve("oneMax1", IntStream.of(2,4,6,8,10,11,12,13).asDoubleStream().toArray(), yOneMax);
+		final AnnotatedCurve curveOneMax2 = new AnnotatedCurve("oneMax2", IntStream.of(0,1,2,3,4,5,6,7).asDoubleStream().toArray(), yOneMax);
+
+		// create initial decomposition
+		IntervalDecomposition dec1 = new IntervalDecomposition( curveOneMax1 );
+		IntervalDecomposition dec2 = new IntervalDecomposition( curveOneMax2 );
+
+		// maxima are matched, which results in identical curves
+		BandedPICA pica = new BandedPICA( new CurveRmsdDistance(20), 10, 1, 0);
+		PICA.PicaData alignment = pica.align(dec1, 1, dec2, 1);
+		Assert.assertEquals( 0,	alignment.distance, precisionDelta );
+		Assert.assertTrue( alignment.dec1.size() > 1 );
+		Assert.assertArrayEquals( alignment.dec1.getCurve().getX(), alignment.dec2.getCurve().getX(), precisionDelta );
+
+		// reference curve is not changed
+		alignment = pica.alignToReference(dec1, dec2);
+		Assert.assertEquals( 0,	alignment.distance, precisionDelta );
+		Assert.assertArrayEquals( curveOneMax1.getX(), alignment.dec1.getCurve().getX(), precisionDelta );
+		Assert.assertArrayEquals( curveOneMax1.getX(), alignment.dec2.getCurve().getX(), precisionDelta );
+	}
+
+	@Test
+	public final void testBand() {
+
+		// curves with many annotations
+		final int length = 100;
+		IntervalDecomposition[] curves = new IntervalDecomposition[2];
+		for (int c=0; c<curves.length; c++) {
+			final double shift = 0.7*c;
+			double[] y = IntStream.range(0, length).mapToDouble( i -> Math.sin( i/(length/20d) + shift ) + 0.3*Math.sin( i*1.7 + shift ) ).toArray();
+			curves[c] = new IntervalDecomposition( new AnnotatedCurve("curve"+c, y) );
+		}
+		SampledCurveDistance distance = new SlopeMeanAbsoluteDistance(100);
+		final double unaligned = distance.getDistance( curves[0].getCurve(), curves[1].getCurve() );
+
+		BandedPICA pica = new BandedPICA( distance, 2, 0.1, 0.01 );
+		PICA.PicaData optimal = pica.align( curves[0], 1, curves[1], 1 );
+		Assert.assertTrue( optimal.distance < unaligned );
+		Assert.assertTrue( optimal.dec1.size() > 1 );
+
+		// matched annotations are within the shift band
+		for (int i=1; i<optimal.dec1.size(); i++) {
+			for ( IntervalDecomposition dec : new IntervalDecomposition[]{ optimal.dec1, optimal.dec2 } ) {
+				Curve aligned = dec.getCurve();
+				Curve original = dec.getCurveOriginal();
+				int index = dec.getIntervalStart(i).getIndex();
+				double relX = (aligned.getX()[index]-aligned.getXmin())/aligned.length();
+				double relXoriginal = (original.getX()[index]-original.getXmin())/original.length();
+				Assert.assertTrue( Math.abs( relX - relXoriginal ) <= 0.1 + precisionDelta );
+			}
+		}
+
+		// restricted skips can only increase the optimal distance
+		// (using a distance that is continuous at the curves' coordinates)
+		distance = new CurveMeanAbsoluteDistance(100);
+		pica = new BandedPICA( distance, 2, 0.1, 0.01 );
+		Assert.assertEquals( BandedPICA.DEFAULT_MAX_SKIP, pica.getMaxSkip() );
+		pica.setMaxSkip( Integer.MAX_VALUE );
+		optimal = pica.align( curves[0], 1, curves[1], 1 );
+		pica.setMaxSkip( 2 );
+		Assert.assertEquals( 2, pica.getMaxSkip() );
+		PICA.PicaData restricted = pica.align( curves[0], 1, curves[1], 1 );
+		Assert.assertTrue( restricted.distance >= optimal.distance - precisionDelta );
+		Assert.assertTrue( restricted.distance < distance.getDistance( curves[0].getCurve(), curves[1].getCurve() ) );
+	}
+
+}
@@ -4,7 +4,10 @@ import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.math3.analysis.UnivariateFunction;
+import org.apache.commons.math3.exception.NonMonotonicSequenceException;
 import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.OutOfRangeException;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -296,5 +299,181 @@ public class TestCurve {
 		
 	}
 
+	/**
+	 * Test method for {@link Curve#getInterpolation()} and {@link Curve#getDerivative()}.
+	 */
+	@Test
+	public final void testInterpolationView() {
+		
+		Curve curve = new Curve("straight", yIncrease);
+		UnivariateFunction interpolation = curve.getInterpolation();
+		UnivariateFunction derivative = curve.getDerivative();
+		Assert.assertEquals( 1.5, interpolation.value(0.5), precisionDelta );
+		Assert.assertEquals( 1, derivative.value(0.5), precisionDelta );
+		
+		// views reflect changed coordinates
+		curve.getY()[0] = 0;
+		curve.updateInterpolation();
+		Assert.assertEquals( 1, interpolation.value(0.5), precisionDelta );
+		Assert.assertEquals( 2, derivative.value(0.5), precisionDelta );
+	}
+	
+	/**
+	 * Test method for {@link Curve#Curve(java.lang.String, double[], double[])}.
+	 */
+	@Test
+	public final void testCurveNonMonotonic() {
+		thrown.expect( NonMonotonicSequenceException.class );
+		new Curve("bla", DoubleStream.of(0,1,1,2).toArray(), DoubleStream.of(0,1,2,3).toArray());
+	}
+	
+	/**
+	 * Test method for {@link Curve#getY(double[], double[])} and {@link Curve#getSlope(double[], double[])}.
+	 */
+	@Test
+	public final void testGetYSlopeSorted() {
+		
+		Curve curve = new Curve("oneMax", DoubleStream.of(0,1,2.5,3,5,6,7.5,8,9,9.5,10).toArray(), yOneMax);
+		
+		// identical to the interpolation of single coordinates (including boundaries and unsorted parts)
+		double[] x = DoubleStream.of(0, 0.3, 1, 2.7, 2.9, 6, 6, 9.7, 4, 10).toArray();
+		double[] y = new double[x.length];
+		double[] slope = new double[x.length];
+		curve.getY( x, y );
+		curve.getSlope( x, slope );
+		for (int i=0; i<x.length; i++) {
+			Assert.assertEquals( curve.getY( x[i] ), y[i], 0 );
+			Assert.assertEquals( curve.getSlope( x[i] ), slope[i], 0 );
+		}
+		
+		// range of coordinates
+		curve.getY( x, 2, 3, y );
+		Assert.assertEquals( curve.getY( x[4] ), y[2], 0 );
+		
+		// out of range
+		thrown.expect( OutOfRangeException.class );
+		curve.getY( DoubleStream.of(1, 11).toArray(), y );
+	}
+	
+	/**
+	 * Test method for {@link Curve#getSampledY(int)} and {@link Curve#getSampledSlope(int)}.
+	 */
+	@Test
+	public final void testGetSampled() {
+		
+		Curve curve = new Curve("oneMax", yOneMax);
+		
+		// identical to the interpolation at equidistant positions
+		double[] sampledY = curve.getSampledY(7);
+		double[] sampledSlope = curve.getSampledSlope(7);
+		Assert.assertArrayEquals( curve.getYequiX(7), sampledY, precisionDelta );
+		for (int i=0; i<7; i++) {
+			Assert.assertEquals( curve.getSlope( curve.getXmin() + i*curve.length()/6 ), sampledSlope[i], 0 );
+		}
+		
+		// cached for the same number of samples
+		Assert.assertTrue( sampledY == curve.getSampledY(7) );
+		Assert.assertTrue( sampledSlope == curve.getSampledSlope(7) );
+		Assert.assertTrue( sampledY == curve.getSampledY(7) );
+		
+		// only the last requested number of samples is kept
+		Assert.assertEquals( 5, curve.getSampledY(5).length );
+		Assert.assertFalse( sampledSlope == curve.getSampledSlope(7) );
+		
+		// recomputed after changes of the coordinates
+		sampledY = curve.getSampledY(5);
+		curve.getY()[0] = 3;
+		curve.updateInterpolation();
+		Assert.assertFalse( sampledY == curve.getSampledY(5) );
+		Assert.assertEquals( 3, curve.getSampledY(5)[0], precisionDelta );
+	}
+	
+	/**
+	 * Test method for the mutation methods of {@link Curve} and the lazy 
+	 * invalidation of the derived data.
+	 */
+	@Test
+	public final void testModification() {
+		
+		Curve curve = new Curve("straight", DoubleStream.of(1,2,3,4).toArray());
+		final long count = curve.getModificationCount();
+		double[] slope = curve.getSlope();
+		Assert.assertEquals( 4, curve.getYmax(), precisionDelta );
+		
+		// derived data is reused without modification
+		Assert.assertTrue( slope == curve.getSlope() );
+		Assert.assertEquals( count, curve.getModificationCount() );
+		
+		// derived data is recomputed after modification
+		curve.setY( 3, 7 );
+		Assert.assertEquals( count+1, curve.getModificationCount() );
+		Assert.assertEquals( 7, curve.getYmax(), precisionDelta );
+		Assert.assertFalse( slope == curve.getSlope() );
+		Assert.assertEquals( 4, curve.getSlopeMax(), precisionDelta );
+		
+		// shifting and warping of x-coordinates
+		curve.shiftX( 1, 4, 1 );
+		Assert.assertArrayEquals( DoubleStream.of(0,2,3,4).toArray(), curve.getX(), 0 );
+		curve.warpX( 1, 4, 0, 0.5 );
+		Assert.assertArrayEquals( DoubleStream.of(0,1,1.5,2).toArray(), curve.getX(), 0 );
+		curve.setX( 3, 3 );
+		Assert.assertEquals( 3, curve.length(), precisionDelta );
+		Assert.assertEquals( 4/1.5, curve.getSlope(2), precisionDelta );
+		Assert.assertEquals( count+4, curve.getModificationCount() );
+		
+		// copy of coordinates
+		Curve copy = new Curve("copy", DoubleStream.of(1,2,3,4).toArray());
+		copy.copyX( curve, 1, 3 );
+		Assert.assertArrayEquals( DoubleStream.of(0,1,1.5,3).toArray(), copy.getX(), 0 );
+		copy.setCoordinates( curve.getX(), curve.getY() );
+		Assert.assertEquals( curve, new Curve("straight", copy.getX(), copy.getY()) );
+		Assert.assertEquals( 7, copy.getYmax(), precisionDelta );
+		
+		// index check
+		thrown.expect( OutOfRangeException.class );
+		curve.shiftX( 2, 5, 1 );
+	}
+	
+	/**
+	 * Test method for the order check of the mutation methods of {@link Curve}
+	 * at the boundaries of the changed coordinate range.
+	 */
+	@Test
+	public final void testModificationOrder() {
+		
+		Curve curve = new Curve("straight", DoubleStream.of(1,2,3,4).toArray());
+		
+		// order preserving changes including the first and last coordinate
+		curve.shiftX( 0, 4, -1 );
+		curve.shiftX( 3, 4, 2 );
+		curve.warpX( 1, 3, 0, 1.5 );
+		curve.setX( 0, -2 );
+		Assert.assertArrayEquals( DoubleStream.of(-2,0,1.5,4).toArray(), curve.getX(), 0 );
+		Curve copy = new Curve("copy", DoubleStream.of(1,2,3,4).toArray());
+		copy.copyX( curve, 2, 3 );
+		Assert.assertArrayEquals( DoubleStream.of(0,1,1.5,3).toArray(), copy.getX(), 0 );
+		final long count = copy.getModificationCount();
+		Curve shifted = new Curve("shifted", DoubleStream.of(0,5,6,7).toArray(), DoubleStream.of(1,2,3,4).toArray());
+		
+		// violations at the range boundaries are rejected without changes
+		for (Runnable change : new Runnable[]{ 
+				() -> copy.setX( 1, 0 ),
+				() -> copy.setX( 2, 3 ),
+				() -> copy.shiftX( 1, 3, 1.5 ),
+				() -> copy.warpX( 1, 3, 1, 4 ),
+				() -> copy.copyX( shifted, 1, 2 ),
+				() -> copy.setCoordinates( DoubleStream.of(0,2,1,3).toArray(), copy.getY() )
+			}) 
+		{
+			try {
+				change.run();
+				Assert.fail( "non-monotonic change accepted" );
+			} catch (NonMonotonicSequenceException e) {
+				Assert.assertArrayEquals( DoubleStream.of(0,1,1.5,3).toArray(), copy.getX(), 0 );
+				Assert.assertEquals( count, copy.getModificationCount() );
+			}
+		}
+	}
+
 
 }
@@ -32,6 +32,17 @@ public class TestCurveAnnotation {
 		Assert.assertTrue( Type.compare( Type.IS_MAXIMUM_AUTO, Type.IS_INFLECTION_ASCENDING_AUTO ) > 0);
 		Assert.assertTrue( Type.compare( Type.IS_MAXIMUM_AUTO, Type.IS_INFLECTION_DESCENDING_AUTO ) > 0);
 	}
+	
+	@Test
+	public final void testTypeAlignableClass() {
+		for ( Type t1 : Type.values() ) {
+			Assert.assertTrue( t1.getAlignableClass() >= 0 );
+			Assert.assertTrue( t1.getAlignableClass() < Type.ALIGNABLE_CLASSES );
+			for ( Type t2 : Type.values() ) {
+				Assert.assertEquals( Type.isAlignable( t1, t2 ), t1.getAlignableClass() == t2.getAlignableClass() );
+			}
+		}
+	}
 
 
 }
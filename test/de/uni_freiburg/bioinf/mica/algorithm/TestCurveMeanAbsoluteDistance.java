@@ -1,4 +1,5 @@
 package de.uni_freiburg.bioinf.mica.algorithm;
+import java.util.Arrays;
 import java.util.stream.IntStream;
 
 import org.apache.commons.math3.exception.OutOfRangeException;
@@ -124,6 +125,55 @@ public class TestCurveMeanAbsoluteDistance {
 		Assert.assertEquals( 12d, s[9], precisionDelta );
 		
 	}
+	
+	@Test
+	public void testGetSamplePointsIntervalBuffer() {
+		
+		double[] x = IntStream.range(0, 16).asDoubleStream().map( v -> v*v/3 ).toArray();
+		double[] y = x;
+		Curve curve = new Curve("test",x,y);
+		
+		CurveMeanAbsoluteDistance dist = new CurveMeanAbsoluteDistance(23);
+		double[] buffer = new double[dist.getSampleNumber()+1];
+		
+		// same positions as the allocating variant
+		for (int start=0; start<x.length-1; start++) {
+			for (int end=start+1; end<x.length; end++) {
+				double[] s = dist.getSamplePositions(curve, start, end);
+				Assert.assertEquals( s.length, dist.getSamplePositions(curve, start, end, buffer) );
+				Assert.assertArrayEquals( s, Arrays.copyOf(buffer, s.length), 0d );
+			}
+		}
+		
+		// too small buffer
+		thrown.expect( OutOfRangeException.class );
+		dist.getSamplePositions(curve, 0, 15, new double[3]);
+	}
+	
+	@Test
+	public void testDistanceTerms() {
+		
+		double[] x = IntStream.range(0, 16).asDoubleStream().toArray();
+		Curve curve1 = new Curve("test1", x, IntStream.range(0, 16).mapToDouble( i -> Math.sin(i) ).toArray());
+		Curve curve2 = new Curve("test2", x.clone(), IntStream.range(0, 16).mapToDouble( i -> Math.cos(i) ).toArray());
+		
+		CurveMeanAbsoluteDistance dist = new CurveMeanAbsoluteDistance(37);
+		double[] terms = dist.getDistanceTerms(curve1, curve2);
+		Assert.assertEquals( dist.getSampleNumber(), terms.length );
+		Assert.assertEquals( dist.getDistance(curve1, curve2), dist.getDistance(terms), 0d );
+		
+		// warp coordinates within [3,7] of the second curve
+		for (int i=4; i<7; i++) {
+			curve2.getX()[i] = 3 + (curve2.getX()[i]-3)*(curve2.getX()[i]-3)/4;
+		}
+		curve2.updateInterpolation();
+		dist.updateDistanceTerms(curve1, curve2, terms, 3, 7, 3, 7);
+		Assert.assertEquals( dist.getDistance(curve1, curve2), dist.getDistance(terms), 0d );
+		
+		// wrong number of terms
+		thrown.expect( IllegalArgumentException.class );
+		dist.getDistance( new double[3] );
+	}
 
 	
 }
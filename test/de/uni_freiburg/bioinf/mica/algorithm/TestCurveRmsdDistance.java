@@ -2,6 +2,7 @@ package de.uni_freiburg.bioinf.mica.algorithm;
 import java.util.stream.IntStream;
 
 import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -70,5 +71,82 @@ public class TestCurveRmsdDistance {
 		Assert.assertEquals( 1, dist.getDistance(curve1, curve2), precisionDelta);
 	}
 	
+	@Test
+	public final void testBoundedDistance() {
+		
+		Curve curve1 = new Curve("ones", yOne);
+		Curve curve2 = new Curve("twos", yTwo);
+		double[] x = IntStream.range(0, 10).asDoubleStream().toArray();
+		
+		CurveRmsdDistance dist = new CurveRmsdDistance(10);
+		
+		// bound not exceeded = unbounded distance
+		Assert.assertEquals( dist.getDistance(curve1, curve2, x, x, 2, 5), dist.getDistance(curve1, curve2, x, x, 2, 5, 5), 0d);
+		Assert.assertEquals( 1, dist.getDistance(curve1, curve2, x, x, 2, 5, Double.POSITIVE_INFINITY), precisionDelta);
+		// bound exceeded = abandoned
+		Assert.assertEquals( Double.POSITIVE_INFINITY, dist.getDistance(curve1, curve2, x, x, 2, 5, 4.5), 0d);
+		Assert.assertEquals( Double.POSITIVE_INFINITY, dist.getDistance(curve1, curve2, x, x, 0, 10, 0), 0d);
+		// no difference never exceeds the bound
+		Assert.assertEquals( 0, dist.getDistance(curve1, curve1, x, x, 0, 10, 0), 0d);
+		
+		// abandoned computations interpolate only up to the chunk exceeding the bound
+		final int length = 10*SampledCurveDistance.VALUE_CHUNK_SIZE;
+		final int[] interpolated = new int[]{0};
+		Curve longCurve = new Curve("long", IntStream.range(0, length).mapToDouble( i -> i%2 ).toArray() ) {
+			@Override
+			public void getY( double[] sortedX, int start, int length, double[] y ) {
+				interpolated[0] += length;
+				super.getY( sortedX, start, length, y );
+			}
+		};
+		Curve longTwos = new Curve("longTwos", IntStream.range(0, length).mapToDouble( i -> 2 ).toArray() );
+		double[] longX = IntStream.range(0, length).asDoubleStream().toArray();
+		Assert.assertEquals( Double.POSITIVE_INFINITY, dist.getDistance(longCurve, longTwos, longX, longX, 1, length-1, 0), 0d);
+		Assert.assertEquals( SampledCurveDistance.VALUE_CHUNK_SIZE, interpolated[0] );
+		// unbounded computation interpolates all samples and sums in sample order
+		interpolated[0] = 0;
+		double sum = 0;
+		for (int i=1; i<length; i++) {
+			sum += (2 - i%2)*(2 - i%2);
+		}
+		Assert.assertEquals( FastMath.sqrt(sum/(length-1)), dist.getDistance(longCurve, longTwos, longX, longX, 1, length-1), 0d);
+		Assert.assertEquals( length-1, interpolated[0] );
+	}
+	
+	/**
+	 * All pairwise distances of a curve set (as done by MicaR) sample each 
+	 * curve only once, i.e. reuse the samples cached within the curves.
+	 */
+	@Test
+	public final void testPairwiseDistancesReuseSamples() {
+		
+		final int samples = 20;
+		Curve[] curves = IntStream.range(0, 4)
+				.mapToObj( c -> new Curve( "curve"+c, IntStream.range(0, 10).mapToDouble( i -> i%3 + c ).toArray() ) )
+				.toArray( Curve[]::new );
+		CurveRmsdDistance dist = new CurveRmsdDistance(samples);
+		
+		double[][] sampled = new double[curves.length][];
+		for (int i=0; i<curves.length; i++) {
+			for (int j=i+1; j<curves.length; j++) {
+				// constant y-difference
+				Assert.assertEquals( j-i, dist.getDistance( curves[i], curves[j] ), precisionDelta );
+				// samples of the first curve computed once and reused for all pairs
+				if (sampled[i] == null) {
+					sampled[i] = curves[i].getSampledY( samples );
+				}
+				Assert.assertTrue( sampled[i] == curves[i].getSampledY( samples ) );
+			}
+		}
+		// reused while the curve is not changed
+		Curve last = curves[curves.length-1];
+		double[] lastSampled = last.getSampledY( samples );
+		Assert.assertEquals( 0, dist.getDistance( last, last ), 0 );
+		Assert.assertTrue( lastSampled == last.getSampledY( samples ) );
+		last.shiftX( 0, last.size(), 1 );
+		Assert.assertFalse( lastSampled == last.getSampledY( samples ) );
+		Assert.assertArrayEquals( lastSampled, last.getSampledY( samples ), precisionDelta );
+	}
+	
 
 }
@@ -0,0 +1,149 @@
+package de.uni_freiburg.bioinf.mica.algorithm;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * @author Mmann
+ *
+ */
+public class TestExactCurveDistance {
+	
+	// generally expect no exception
+	@Rule
+ 	public ExpectedException thrown= ExpectedException.none();
+
+	
+	final double[] yOneMax = IntStream.of(1,2,3,4,5,6,5,4,3,2,1).asDoubleStream().toArray();
+	final double[] yIncrease = IntStream.rangeClosed(0,10).asDoubleStream().toArray();
+	
+	
+	final double precisionDelta = 0.0001;
+	
+	
+	@Test
+	public final void testTooFew() {
+		thrown.expect( OutOfRangeException.class );
+		new ExactCurveDistance(false, false, 1);
+	}
+	
+	@Test
+	public final void testExactDistance() {
+		
+		// constant difference of 1
+		Curve ones = new Curve("ones", IntStream.range(0, 10).mapToDouble(i -> 1).toArray());
+		Curve twos = new Curve("twos", DoubleStream.of(2,2,2).toArray());
+		for (boolean rmsd : new boolean[]{false,true}) {
+			ExactCurveDistance dist = new ExactCurveDistance(false, rmsd, 2);
+			Assert.assertEquals( 0, dist.getDistance(ones, ones), precisionDelta);
+			Assert.assertEquals( 1, dist.getDistance(ones, twos), precisionDelta);
+			Assert.assertEquals( 0, new ExactCurveDistance(true, rmsd, 2).getDistance(ones, twos), precisionDelta);
+		}
+		
+		// crossing lines : difference x-5 on [0,10]
+		Curve fives = new Curve("fives", IntStream.rangeClosed(0, 10).mapToDouble(i -> 5).toArray());
+		Curve line = new Curve("line", DoubleStream.of(0,10).toArray(), DoubleStream.of(-5,15).toArray());
+		Curve increase = new Curve("increase", yIncrease);
+		// mean absolute difference : 2 triangles with area 12.5 each 
+		Assert.assertEquals( 2.5, new ExactCurveDistance(false, false, 2).getDistance(increase, line), precisionDelta);
+		// RMSD : sqrt( int (x-5)^2 dx / 10 ) = sqrt( 25/3 ) 
+		Assert.assertEquals( FastMath.sqrt(25d/3d), new ExactCurveDistance(false, true, 2).getDistance(increase, line), precisionDelta);
+		// slope difference 1 and 2
+		Assert.assertEquals( 1, new ExactCurveDistance(true, false, 2).getDistance(increase, line), precisionDelta);
+		Assert.assertEquals( 1, new ExactCurveDistance(true, true, 2).getDistance(increase, fives), precisionDelta);
+	}
+	
+	@Test
+	public final void testSampleLimit() {
+		
+		Curve curve1 = new Curve("oneMax", yOneMax);
+		Curve curve2 = new Curve("increase", DoubleStream.of(0,1,4,5.5,9,10,13).toArray(), DoubleStream.of(0,2,3,1,6,2,4).toArray());
+		
+		for (boolean onSlope : new boolean[]{false,true}) {
+			for (boolean rmsd : new boolean[]{false,true}) {
+				ExactCurveDistance dist = new ExactCurveDistance(onSlope, rmsd, 100);
+				double exact = dist.getDistance(curve1, curve2);
+				// independent of the sample number
+				Assert.assertEquals( exact, dist.withSampleNumber(7).getDistance(curve1, curve2), precisionDelta );
+				// identical to the sum of the distance terms
+				Assert.assertEquals( exact, dist.getDistance( dist.getDistanceTerms(curve1, curve2) ), precisionDelta );
+				// limit of the sampled distances
+				SampledCurveDistance sampled = onSlope 
+						? (rmsd ? new SlopeRmsdDistance(100000) : new SlopeMeanAbsoluteDistance(100000))
+						: (rmsd ? new CurveRmsdDistance(100000) : new CurveMeanAbsoluteDistance(100000));
+				Assert.assertEquals( exact, sampled.getDistance(curve1, curve2), 0.001 );
+			}
+		}
+	}
+	
+	@Test
+	public final void testUpdateDistanceTerms() {
+		
+		Curve curve1 = new Curve("oneMax", yOneMax);
+		Curve curve2 = new Curve("increase", yIncrease);
+		ExactCurveDistance dist = new ExactCurveDistance(false, false, 15);
+		double[] terms = dist.getDistanceTerms(curve1, curve2);
+		
+		// change coordinates within [3,5] and update the according terms only
+		curve2.getX()[4] = 3.5;
+		curve2.updateInterpolation();
+		dist.updateDistanceTerms(curve1, curve2, terms, 3, 5, 3, 5);
+		Assert.assertArrayEquals( dist.getDistanceTerms(curve1, curve2), terms, precisionDelta );
+		Assert.assertEquals( dist.getDistance(curve1, curve2), dist.getDistance(terms), precisionDelta );
+	}
+	
+	@Test
+	public final void testWarpedIntegral() {
+		
+		Curve curve1 = new Curve("oneMax", yOneMax);
+		Curve curve2 = new Curve("increase", yIncrease);
+		// oneMax stretched to twice the length
+		Curve stretched = new Curve("stretched", IntStream.rangeClosed(0,10).mapToDouble( i -> 2*i ).toArray(), yOneMax);
+		
+		for (boolean onSlope : new boolean[]{false,true}) {
+			for (boolean rmsd : new boolean[]{false,true}) {
+				ExactCurveDistance dist = new ExactCurveDistance(onSlope, rmsd, 10);
+				// whole curves without warping
+				Assert.assertEquals( dist.getDistance(curve1, curve2), dist.getMeanDistance( dist.getWarpedIntegral(curve1, 0, 10, curve2, 0, 10, 10), 10 ), precisionDelta );
+				// warping the stretched curve onto the original length (including its slopes)
+				Assert.assertEquals( 0, dist.getWarpedIntegral(curve1, 0, 10, stretched, 0, 20, 10), precisionDelta );
+				Assert.assertEquals( 0, dist.getWarpedIntegral(curve1, 2, 7, stretched, 4, 14, 3), precisionDelta );
+				// sub-ranges sum up to the whole range
+				Assert.assertEquals( dist.getWarpedIntegral(curve1, 0, 10, curve2, 0, 10, 10), 
+						dist.getWarpedIntegral(curve1, 0, 3.5, curve2, 0, 3.5, 3.5) + dist.getWarpedIntegral(curve1, 3.5, 10, curve2, 3.5, 10, 6.5), precisionDelta );
+				// inverse of the mean distance
+				Assert.assertEquals( 1.7, dist.getMeanDistance( dist.getIntegral( 1.7, 3 ), 3 ), precisionDelta );
+			}
+		}
+	}
+	
+	@Test
+	public final void testAlignmentIndependentOfSamples() {
+		
+		// curves with many annotations
+		AnnotatedCurve[] curves = new AnnotatedCurve[2];
+		for (int c=0; c<curves.length; c++) {
+			final double shift = 0.7*c;
+			curves[c] = new AnnotatedCurve("curve"+c, IntStream.range(0, 200).mapToDouble( i -> FastMath.sin( i/10d + shift ) + 0.3*FastMath.sin( i*1.7 + shift ) ).toArray());
+		}
+		
+		for (boolean onSlope : new boolean[]{false,true}) {
+			// candidate decompositions are scored exactly, i.e. independently of the sample number
+			PICA.PicaData few = new PICA( new ExactCurveDistance(onSlope, false, 10), 2, 0.2, 0.01 )
+					.align( new IntervalDecomposition(curves[0]), 1, new IntervalDecomposition(curves[1]), 1 );
+			PICA.PicaData many = new PICA( new ExactCurveDistance(onSlope, false, 1000), 2, 0.2, 0.01 )
+					.align( new IntervalDecomposition(curves[0]), 1, new IntervalDecomposition(curves[1]), 1 );
+			Assert.assertTrue( few.dec1.size() > 1 );
+			Assert.assertEquals( few.dec1.getDecompositionString(), many.dec1.getDecompositionString() );
+			Assert.assertEquals( few.dec2.getDecompositionString(), many.dec2.getDecompositionString() );
+			Assert.assertEquals( few.distance, many.distance, precisionDelta );
+		}
+	}
+
+}
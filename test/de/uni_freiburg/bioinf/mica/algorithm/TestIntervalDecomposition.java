@@ -1,5 +1,6 @@
 package de.uni_freiburg.bioinf.mica.algorithm;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
@@ -73,4 +74,56 @@ public class TestIntervalDecomposition {
 		Assert.assertEquals( 7, dec.getCurve().getX()[5], 0.01);
 
 	}
+	
+	@Test
+	public final void testCopyInterval() {
+		
+		AnnotatedCurve curve = new AnnotatedCurve("dummy", curveOneMax.getX(), curveOneMax.getY());
+		curve.getAnnotation()[4] = Type.IS_MAXIMUM_MAN;
+		curve.getAnnotation()[5] = Type.IS_INFLECTION_DESCENDING_MAN;
+		List<CurveAnnotation> curAnn = curve.getFilteredAnnotations();
+		
+		IntervalDecomposition dec = new IntervalDecomposition( curve );
+		dec.decompose(0, curAnn.get(2), 0.33333);
+		
+		// decompose right interval of a copy
+		IntervalDecomposition copy = new IntervalDecomposition( dec );
+		copy.decompose(1, curAnn.get(3), 0.5);
+		Assert.assertEquals( 2, dec.size());
+		Assert.assertEquals( 3, copy.size());
+		
+		// copy back
+		dec.copyInterval(1, copy);
+		dec.getCurve().updateInterpolation();
+		Assert.assertEquals( copy.getDecomposition(), dec.getDecomposition());
+		Assert.assertArrayEquals( copy.getCurve().getX(), dec.getCurve().getX(), 0 );
+		Assert.assertEquals( copy.getIntervalLength(1), dec.getIntervalLength(1), 0 );
+		
+		// interval boundaries not present
+		thrown.expect( IllegalArgumentException.class );
+		copy.copyInterval(2, new IntervalDecomposition( curve ));
+	}
+	
+	@Test
+	public final void testIntervalAnnotationRange() {
+		
+		AnnotatedCurve curve = new AnnotatedCurve("dummy", curveOneMax.getX(), curveOneMax.getY());
+		curve.getAnnotation()[4] = Type.IS_MAXIMUM_MAN;
+		curve.getAnnotation()[5] = Type.IS_INFLECTION_DESCENDING_MAN;
+		List<CurveAnnotation> curAnn = curve.getFilteredAnnotations();
+		
+		IntervalDecomposition dec = new IntervalDecomposition( curve );
+		CurveAnnotation[] annotations = curve.getFilteredAnnotationArray();
+		Assert.assertEquals( curAnn, Arrays.asList( annotations ) );
+		// all but start and end enclosed
+		Assert.assertEquals( 1, dec.getIntervalAnnotationStart(0) );
+		Assert.assertEquals( annotations.length-1, dec.getIntervalAnnotationEnd(0) );
+		
+		// range within the annotation array equals the enclosed annotations
+		dec.decompose(0, curAnn.get(2), 0.33333);
+		for (int i=0; i<dec.size(); i++) {
+			Assert.assertEquals( dec.getIntervalAnnotations(i), 
+					Arrays.asList( annotations ).subList( dec.getIntervalAnnotationStart(i), dec.getIntervalAnnotationEnd(i) ) );
+		}
+	}
 }
@@ -1,7 +1,13 @@
 package de.uni_freiburg.bioinf.mica.algorithm;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -205,4 +211,365 @@ public class TestMICA {
 	
 	
 
+	/**
+	 * Creates a set of shifted and scaled wave-like test curves
+	 * @param number the number of curves to create
+	 * @return the initial decompositions of the curves
+	 */
+	static IntervalDecomposition[] getWaveCurves( int number ) {
+		IntervalDecomposition[] curves = new IntervalDecomposition[number];
+		for (int c=0; c<number; c++) {
+			final double shift = 0.3*c;
+			final double scale = 1 + 0.1*(c%3);
+			double[] y = IntStream.range(0, 40).mapToDouble( i -> scale*FastMath.sin( i/4d + shift ) + 0.5*FastMath.sin( i/9d ) ).toArray();
+			curves[c] = new IntervalDecomposition( new AnnotatedCurve("wave"+c, y) );
+		}
+		return curves;
+	}
+	
+	@Test
+	public final void testParallelAlign() {
+		
+		IntervalDecomposition[] curves = getWaveCurves( 7 );
+		SampledCurveDistance distance = new SlopeMeanAbsoluteDistance(50);
+		
+		// serial alignment
+		MICA mica = new MICA( distance, 2, 0.2, 0.05);
+		MICA.MicaData serial = mica.align( curves );
+		
+		// parallel alignment
+		mica.setThreads( 4 );
+		Assert.assertEquals( 4, mica.getThreads() );
+		MICA.MicaData parallel = mica.align( curves );
+		
+		// check identical results
+		Assert.assertEquals( serial.getGuideTree(), parallel.getGuideTree() );
+		Assert.assertEquals( serial.curves.size(), parallel.curves.size() );
+		for (int c=0; c<serial.curves.size(); c++) {
+			Assert.assertArrayEquals( serial.curves.get(c).getCurve().getX(), parallel.curves.get(c).getCurve().getX(), 0 );
+		}
+		Assert.assertArrayEquals( serial.consensus.getCurve().getY(), parallel.consensus.getCurve().getY(), 0 );
+		
+		// same for reference-based alignment
+		IntervalDecomposition[] others = Arrays.copyOfRange( curves, 1, curves.length );
+		mica.setThreads( 1 );
+		serial = mica.alignToReference( curves[0], others );
+		mica.setThreads( 3 );
+		parallel = mica.alignToReference( curves[0], others );
+		Assert.assertEquals( serial.getGuideTree(), parallel.getGuideTree() );
+		for (int c=0; c<serial.curves.size(); c++) {
+			Assert.assertArrayEquals( serial.curves.get(c).getCurve().getX(), parallel.curves.get(c).getCurve().getX(), 0 );
+		}
+	}
+	
+	@Test
+	public final void testSetThreads() {
+		MICA mica = new MICA( new SlopeRmsdDistance(10), 10, 1, 0);
+		thrown.expect( OutOfRangeException.class );
+		mica.setThreads( 0 );
+	}
+	
+	@Test
+	public final void testMinDistPairTies() {
+		
+		// identical curves = all pairwise distances equal
+		double[] y = IntStream.range(0, 20).mapToDouble( i -> FastMath.sin( i/3d ) ).toArray();
+		MICA.ProgressiveAlignmentHandler handler = new MICA.ProgressiveAlignmentHandler( new PICA( new SlopeRmsdDistance(10), 2, 0.2, 0.05 ) );
+		MICA.MicaData b = new MICA.MicaData( new IntervalDecomposition( new AnnotatedCurve("b", y) ) );
+		MICA.MicaData c = new MICA.MicaData( new IntervalDecomposition( new AnnotatedCurve("c", y) ) );
+		MICA.MicaData a = new MICA.MicaData( new IntervalDecomposition( new AnnotatedCurve("a", y) ) );
+		handler.addSubAlignments( Arrays.asList( b, c, a ) );
+		
+		// tie resolved by curve names
+		Assert.assertEquals( Pair.of(a, b), handler.getMinDistPair() );
+		
+		Assert.assertNotNull( handler.getPairwiseAlignment( Pair.of(a, b) ) );
+		Assert.assertNull( handler.getPairwiseAlignment( Pair.of(b, a) ) );
+		
+		// removed subalignments are not reported anymore
+		handler.removeSubAlignment( b );
+		Assert.assertEquals( Pair.of(a, c), handler.getMinDistPair() );
+		Assert.assertNull( handler.getPairwiseAlignment( Pair.of(a, b) ) );
+		
+		// re-adding reuses the free id
+		handler.addSubAlignment( b );
+		Assert.assertEquals( 3, handler.size() );
+		Assert.assertEquals( Pair.of(a, b), handler.getMinDistPair() );
+		Assert.assertNotNull( handler.getPairwiseAlignment( Pair.of(b, c) ) );
+		handler.removeSubAlignment( b );
+		handler.removeSubAlignment( a );
+		thrown.expect( NoSuchElementException.class );
+		handler.getMinDistPair();
+	}
+	
+	@Test
+	public final void testIncrementalConsensus() {
+		
+		IntervalDecomposition[] curves = getWaveCurves( 6 );
+		SampledCurveDistance distance = new SlopeMeanAbsoluteDistance(50);
+		MICA mica = new MICA( distance, 2, 0.2, 0.05);
+		
+		// incremental consensus computation
+		Assert.assertFalse( mica.isFullConsensusComputation() );
+		MICA.MicaData incremental = mica.align( curves );
+		
+		// full consensus recomputation
+		mica.setFullConsensusComputation( true );
+		MICA.MicaData full = mica.align( curves );
+		
+		// check for same alignment 
+		Assert.assertEquals( full.getGuideTree(), incremental.getGuideTree() );
+		for (int c=0; c<full.curves.size(); c++) {
+			Assert.assertArrayEquals( full.curves.get(c).getCurve().getX(), incremental.curves.get(c).getCurve().getX(), precisionDelta );
+		}
+		
+		// check for same consensus
+		Assert.assertEquals( full.consensus.getCurve().getName(), incremental.consensus.getCurve().getName() );
+		Assert.assertEquals( full.consensus.getCurve().getXmin(), incremental.consensus.getCurve().getXmin(), precisionDelta );
+		Assert.assertEquals( full.consensus.getCurve().getXmax(), incremental.consensus.getCurve().getXmax(), precisionDelta );
+		// note: consensus coordinates closer than MicaPrecision are merged, which causes small deviations
+		Assert.assertArrayEquals( full.consensus.getCurve().getYequiX(200), incremental.consensus.getCurve().getYequiX(200), 0.005 );
+
+		// many fusions : curve coordinates might deviate from the merged consensus coordinates
+		IntervalDecomposition[] manyCurves = getWaveCurves( 18 );
+		MICA.MicaData many = new MICA( new CurveMeanAbsoluteDistance(50), 2, 0.05, 0.05).align( manyCurves );
+		Assert.assertEquals( manyCurves.length, many.curves.size() );
+		for (int c=0; c<manyCurves.length; c++) {
+			Assert.assertEquals( manyCurves[c].getCurve().getXmax()-manyCurves[c].getCurve().getXmin(), many.curves.get(c).getCurve().length(), 0.01 );
+		}
+		// a fully recomputed consensus contains all curve coordinates
+		MICA manyFull = new MICA( new CurveMeanAbsoluteDistance(50), 2, 0.05, 0.05);
+		manyFull.setFullConsensusComputation( true );
+		Assert.assertEquals( manyCurves.length, manyFull.align( manyCurves ).curves.size() );
+
+	}
+	
+	@Test
+	public final void testGuideTreeAlign() {
+		
+		IntervalDecomposition[] curves = getWaveCurves( 6 );
+		SampledCurveDistance distance = new SlopeMeanAbsoluteDistance(50);
+		MICA mica = new MICA( distance, 2, 0.2, 0.05);
+		
+		for ( GuideTreeGenerator generator : new GuideTreeGenerator[]{ new UpgmaGuideTreeGenerator(), new NeighborJoiningGuideTreeGenerator() } ) {
+			mica.setGuideTreeGenerator( generator );
+			Assert.assertEquals( generator, mica.getGuideTreeGenerator() );
+			MICA.MicaData alignment = mica.align( curves );
+			// all curves aligned in input order
+			Assert.assertEquals( curves.length, alignment.curves.size() );
+			for (int c=0; c<curves.length; c++) {
+				Assert.assertEquals( curves[c].getCurveOriginal(), alignment.curves.get(c).getCurveOriginal() );
+				Assert.assertEquals( alignment.consensus.getCurve().length(), alignment.curves.get(c).getCurve().length(), precisionDelta );
+			}
+			// binary guide tree
+			Assert.assertEquals( 2, alignment.fusedAlignments.size() );
+			Assert.assertEquals( curves.length-1, alignment.getGuideTree().chars().filter( c -> c == '(' ).count() );
+			// parallel computation gives same result
+			mica.setThreads( 3 );
+			MICA.MicaData parallel = mica.align( curves );
+			Assert.assertEquals( alignment.getGuideTree(), parallel.getGuideTree() );
+			mica.setThreads( 1 );
+		}
+	}
+	
+	@Test
+	public final void testBandedAlign() {
+		
+		IntervalDecomposition[] curves = getWaveCurves( 6 );
+		SampledCurveDistance distance = new SlopeMeanAbsoluteDistance(50);
+		MICA mica = new MICA( distance, 2, 0.2, 0.05);
+		
+		// greedy pairwise alignments by default
+		Assert.assertTrue( mica.getBandedMaxSkip() < 0 );
+		Assert.assertFalse( mica.createPairwiseAligner() instanceof BandedPICA );
+		
+		mica.setBandedAlignment( BandedPICA.DEFAULT_MAX_SKIP );
+		Assert.assertEquals( BandedPICA.DEFAULT_MAX_SKIP, mica.getBandedMaxSkip() );
+		PICA pica = mica.createPairwiseAligner();
+		Assert.assertTrue( pica instanceof BandedPICA );
+		Assert.assertEquals( BandedPICA.DEFAULT_MAX_SKIP, ((BandedPICA)pica).getMaxSkip() );
+		
+		MICA.MicaData alignment = mica.align( curves );
+		// all curves aligned in input order
+		Assert.assertEquals( curves.length, alignment.curves.size() );
+		for (int c=0; c<curves.length; c++) {
+			Assert.assertEquals( curves[c].getCurveOriginal(), alignment.curves.get(c).getCurveOriginal() );
+			Assert.assertEquals( alignment.consensus.getCurve().length(), alignment.curves.get(c).getCurve().length(), precisionDelta );
+		}
+		// parallel computation gives same result
+		mica.setThreads( 3 );
+		MICA.MicaData parallel = mica.align( curves );
+		Assert.assertEquals( alignment.getGuideTree(), parallel.getGuideTree() );
+		Assert.assertArrayEquals( alignment.consensus.getCurve().getX(), parallel.consensus.getCurve().getX(), 0 );
+	}
+	
+	@Test
+	public final void testCandidateAlign() {
+		
+		IntervalDecomposition[] curves = getWaveCurves( 10 );
+		SampledCurveDistance distance = new SlopeMeanAbsoluteDistance(50);
+		MICA mica = new MICA( distance, 2, 0.2, 0.05);
+		
+		// exhaustive progressive alignment
+		MICA.MicaData exhaustive = mica.align( curves );
+		Assert.assertEquals( (curves.length-1)*(curves.length-1), mica.getPairwiseAlignmentNumber() );
+		Assert.assertEquals( 0, mica.getSavedPairwiseAlignmentNumber() );
+		
+		// all other curves as candidates = exhaustive alignment
+		mica.setCandidateNeighbors( curves.length-1, ResampledCurveDistance.SLOPE_MEAN_ABSOLUTE );
+		MICA.MicaData allCandidates = mica.align( curves );
+		Assert.assertEquals( exhaustive.getGuideTree(), allCandidates.getGuideTree() );
+		for (int c=0; c<curves.length; c++) {
+			Assert.assertArrayEquals( exhaustive.curves.get(c).getCurve().getX(), allCandidates.curves.get(c).getCurve().getX(), 0 );
+		}
+		Assert.assertEquals( 0, mica.getSavedPairwiseAlignmentNumber() );
+		
+		// sparse candidate graph
+		for ( ResampledCurveDistance candidateDistance : ResampledCurveDistance.values() ) {
+			mica.setThreads( 1 );
+			mica.setCandidateNeighbors( 2, candidateDistance );
+			Assert.assertEquals( 2, mica.getCandidateNeighbors() );
+			Assert.assertEquals( candidateDistance, mica.getCandidateDistance() );
+			MICA.MicaData sparse = mica.align( curves );
+			// all curves aligned in input order
+			Assert.assertEquals( curves.length, sparse.curves.size() );
+			for (int c=0; c<curves.length; c++) {
+				Assert.assertEquals( curves[c].getCurveOriginal(), sparse.curves.get(c).getCurveOriginal() );
+			}
+			Assert.assertEquals( curves.length-1, sparse.getGuideTree().chars().filter( c -> c == '(' ).count() );
+			// pairwise alignments saved
+			Assert.assertTrue( mica.getSavedPairwiseAlignmentNumber() > 0 );
+			Assert.assertEquals( (curves.length-1)*(curves.length-1), mica.getPairwiseAlignmentNumber() + mica.getSavedPairwiseAlignmentNumber() );
+			// parallel computation gives same result
+			mica.setThreads( 3 );
+			MICA.MicaData parallel = mica.align( curves );
+			Assert.assertEquals( sparse.getGuideTree(), parallel.getGuideTree() );
+			// candidate pairs are never evaluated lazily
+			mica.setLazyPairEvaluation( true );
+			MICA.MicaData lazy = mica.align( curves );
+			Assert.assertEquals( sparse.getGuideTree(), lazy.getGuideTree() );
+			mica.setLazyPairEvaluation( false );
+		}
+		Assert.assertFalse( new MICA.CandidateAlignmentHandler( new PICA( distance, 2, 0.2, 0.05 ), null, 2, ResampledCurveDistance.CURVE_RMSD, 20 ).isLazyEvaluation() );
+		
+		// cheap distances
+		double[] p1 = ResampledCurveDistance.CURVE_RMSD.getProfile( curves[0].getCurve(), 20 );
+		Assert.assertEquals( 20, p1.length );
+		Assert.assertEquals( 19, ResampledCurveDistance.SLOPE_RMSD.getProfile( curves[0].getCurve(), 20 ).length );
+		Assert.assertEquals( 0, ResampledCurveDistance.CURVE_RMSD.getDistance( p1, p1 ), 0 );
+		Assert.assertEquals( 1.5, ResampledCurveDistance.CURVE_MEAN_ABSOLUTE.getDistance( new double[]{0,1}, new double[]{1,3} ), precisionDelta );
+		Assert.assertEquals( FastMath.sqrt(2.5), ResampledCurveDistance.CURVE_RMSD.getDistance( new double[]{0,1}, new double[]{1,3} ), precisionDelta );
+		
+		thrown.expect( OutOfRangeException.class );
+		mica.setCandidateNeighbors( -1, ResampledCurveDistance.CURVE_RMSD );
+	}
+	
+	@Test
+	public final void testLazyAlign() {
+		
+		IntervalDecomposition[] curves = getWaveCurves( 10 );
+		
+		for ( SampledCurveDistance distance : new SampledCurveDistance[]{ new CurveMeanAbsoluteDistance(50), new CurveRmsdDistance(50) } ) {
+			MICA mica = new MICA( distance, 2, 0.05, 0.05);
+			
+			// lower bound does not exceed the pairwise alignment distance
+			PICA pica = new PICA( distance, 2, 0.05, 0.05 );
+			for (int i=1; i<curves.length; i++) {
+				Assert.assertTrue( pica.getDistanceLowerBound( curves[0], 1, curves[i], i ) <= pica.align( curves[0], 1, curves[i], i ).distance );
+			}
+			
+			// exhaustive progressive alignment
+			MICA.MicaData exhaustive = mica.align( curves );
+			MICA.MicaData exhaustiveRef = mica.alignToReference( curves[0], Arrays.copyOfRange( curves, 1, curves.length ) );
+			long exhaustiveNumber = mica.getPairwiseAlignmentNumber();
+			
+			// lazy evaluation gives the same alignment with fewer pairwise alignments
+			mica.setLazyPairEvaluation( true );
+			Assert.assertTrue( mica.isLazyPairEvaluation() );
+			for (int threads : new int[]{1,3}) {
+				mica.setThreads( threads );
+				MICA.MicaData lazy = mica.align( curves );
+				Assert.assertEquals( exhaustive.getGuideTree(), lazy.getGuideTree() );
+				for (int c=0; c<curves.length; c++) {
+					Assert.assertArrayEquals( exhaustive.curves.get(c).getCurve().getX(), lazy.curves.get(c).getCurve().getX(), 0 );
+				}
+				Assert.assertTrue( mica.getSavedPairwiseAlignmentNumber() > 0 );
+				Assert.assertEquals( (curves.length-1)*(curves.length-1), mica.getPairwiseAlignmentNumber() + mica.getSavedPairwiseAlignmentNumber() );
+				
+				MICA.MicaData lazyRef = mica.alignToReference( curves[0], Arrays.copyOfRange( curves, 1, curves.length ) );
+				Assert.assertEquals( exhaustiveRef.getGuideTree(), lazyRef.getGuideTree() );
+				Assert.assertTrue( mica.getPairwiseAlignmentNumber() < exhaustiveNumber );
+			}
+		}
+		
+	}
+	
+	@Test
+	public final void testReferenceStarAlign() {
+		
+		IntervalDecomposition[] curves = getWaveCurves( 6 );
+		IntervalDecomposition reference = curves[0];
+		IntervalDecomposition[] toAlign = Arrays.copyOfRange( curves, 1, curves.length );
+		SampledCurveDistance distance = new SlopeMeanAbsoluteDistance(50);
+		MICA mica = new MICA( distance, 2, 0.2, 0.05);
+		PICA pica = new PICA( distance, 2, 0.2, 0.05 );
+		
+		Assert.assertFalse( mica.isReferenceStarAlignment() );
+		mica.setReferenceStarAlignment( true );
+		Assert.assertTrue( mica.isReferenceStarAlignment() );
+		
+		for (int threads : new int[]{1,3}) {
+			mica.setThreads( threads );
+			MICA.MicaData star = mica.alignToReference( reference, toAlign );
+			// flat guide tree with reference first
+			Assert.assertEquals( "(wave0,wave1,wave2,wave3,wave4,wave5)", star.getGuideTree() );
+			Assert.assertNull( star.fuseGuide );
+			Assert.assertEquals( curves.length, star.curves.size() );
+			// reference unchanged
+			Assert.assertArrayEquals( reference.getCurve().getX(), star.curves.get(0).getCurve().getX(), precisionDelta );
+			// each curve aligned independently to the reference
+			for (int c=0; c<toAlign.length; c++) {
+				Assert.assertEquals( toAlign[c].getCurveOriginal(), star.curves.get(c+1).getCurveOriginal() );
+				Assert.assertArrayEquals( pica.alignToReference( reference, toAlign[c] ).dec2.getCurve().getX(), star.curves.get(c+1).getCurve().getX(), precisionDelta );
+			}
+			// one pairwise alignment per curve
+			Assert.assertEquals( toAlign.length, mica.getPairwiseAlignmentNumber() );
+		}
+	}
+	
+	@Test
+	public final void testAddToAlignment() {
+		
+		IntervalDecomposition[] curves = getWaveCurves( 8 );
+		SampledCurveDistance distance = new SlopeMeanAbsoluteDistance(50);
+		MICA mica = new MICA( distance, 2, 0.2, 0.05);
+		
+		MICA.MicaData existing = mica.align( Arrays.copyOfRange( curves, 0, 6 ) );
+		double[] existingX = existing.curves.get(0).getCurve().getX().clone();
+		
+		// add several curves
+		MICA.MicaData extended = mica.addToAlignment( existing, curves[6], curves[7] );
+		Assert.assertEquals( "("+existing.getGuideTree()+",(wave6,wave7))", extended.getGuideTree() );
+		Assert.assertEquals( curves.length, extended.curves.size() );
+		for (int c=0; c<curves.length; c++) {
+			Assert.assertEquals( curves[c].getCurveOriginal(), extended.curves.get(c).getCurveOriginal() );
+			// all curves aligned to the length of the consensus
+			Assert.assertEquals( extended.consensus.getCurve().length(), extended.curves.get(c).getCurve().length(), 0.01 );
+		}
+		// one pairwise alignment among the new curves and one for the fusion
+		Assert.assertEquals( 2, mica.getPairwiseAlignmentNumber() );
+		// existing alignment unchanged
+		Assert.assertEquals( 6, existing.curves.size() );
+		Assert.assertArrayEquals( existingX, existing.curves.get(0).getCurve().getX(), 0 );
+		
+		// add single curve
+		MICA.MicaData single = mica.addToAlignment( existing, curves[7] );
+		Assert.assertEquals( "("+existing.getGuideTree()+",wave7)", single.getGuideTree() );
+		Assert.assertEquals( 1, mica.getPairwiseAlignmentNumber() );
+		
+		// curve names have to be unique
+		thrown.expect( IllegalArgumentException.class );
+		mica.addToAlignment( extended, curves[0] );
+	}
+	
 }
@@ -0,0 +1,49 @@
+package de.uni_freiburg.bioinf.mica.algorithm;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ */
+
+/**
+ * @author Mmann
+ *
+ */
+public class TestNeighborJoiningGuideTreeGenerator {
+	
+	// generally expect no exception
+	@Rule
+ 	public ExpectedException thrown= ExpectedException.none();
+	
+	@Test
+	public final void testCompute() {
+		
+		GuideTreeGenerator generator = new NeighborJoiningGuideTreeGenerator();
+		
+		// textbook example
+		double[][] dist = new double[][]{
+			{ 0, 5, 9, 9, 8 },
+			{ 5, 0, 10, 10, 9 },
+			{ 9, 10, 0, 8, 7 },
+			{ 9, 10, 8, 0, 3 },
+			{ 8, 9, 7, 3, 0 }
+		};
+		GuideTreeGenerator.GuideTreeNode root = generator.compute( TestUpgmaGuideTreeGenerator.getDistMatrix(dist) );
+		Assert.assertNull( root.parent );
+		Assert.assertEquals( "{0}{1}{0,1}{2}{0,1,2}{3}{0,1,2,3}{4}{0,1,2,3,4}", TestUpgmaGuideTreeGenerator.getPostOrder(root) );
+		
+		// two curves
+		root = generator.compute( TestUpgmaGuideTreeGenerator.getDistMatrix( new double[][]{ {0,1}, {1,0} } ) );
+		Assert.assertEquals( "{0}{1}{0,1}", TestUpgmaGuideTreeGenerator.getPostOrder(root) );
+	}
+	
+	@Test
+	public final void testNotSquare() {
+		thrown.expect( IllegalArgumentException.class );
+		new NeighborJoiningGuideTreeGenerator().compute( new PICA.PicaData[2][3] );
+	}
+
+}
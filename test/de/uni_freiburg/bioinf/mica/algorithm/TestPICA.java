@@ -1,7 +1,15 @@
 package de.uni_freiburg.bioinf.mica.algorithm;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.exception.OutOfRangeException;
 import org.junit.Assert;
@@ -9,6 +17,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import de.uni_freiburg.bioinf.mica.model.FileFormatCsv;
+
 /**
  * 
  */
@@ -143,4 +153,220 @@ public class TestPICA {
 	}
 	
 
+	@Test
+	public final void testParallelCandidates() {
+		
+		// curves with many annotations, i.e. many candidate decompositions per interval
+		IntervalDecomposition[] curves = new IntervalDecomposition[2];
+		for (int c=0; c<curves.length; c++) {
+			final double shift = 0.7*c;
+			double[] y = IntStream.range(0, 200).mapToDouble( i -> Math.sin( i/10d + shift ) + 0.3*Math.sin( i*1.7 + shift ) ).toArray();
+			curves[c] = new IntervalDecomposition( new AnnotatedCurve("curve"+c, y) );
+		}
+		
+		// serial alignment
+		PICA pica = new PICA( new CurveRmsdDistance(100), 2, 0.2, 0.01);
+		Assert.assertNull( pica.getCandidateExecutor() );
+		PICA.PicaData serial = pica.align( curves[0], 1, curves[1], 1 );
+		
+		// parallel alignment, where a single worker thread ensures that blocks are scored by the calling thread as well
+		for (int threads : new int[]{ 1, 4 }) {
+			ExecutorService executor = Executors.newFixedThreadPool( threads );
+			try {
+				pica.setCandidateExecutor( executor, 4 );
+				Assert.assertSame( executor, pica.getCandidateExecutor() );
+				PICA.PicaData parallel = pica.align( curves[0], 1, curves[1], 1 );
+				// check identical results
+				Assert.assertEquals( serial.distance, parallel.distance, 0 );
+				Assert.assertArrayEquals( serial.dec1.getCurve().getX(), parallel.dec1.getCurve().getX(), 0 );
+				Assert.assertArrayEquals( serial.dec2.getCurve().getX(), parallel.dec2.getCurve().getX(), 0 );
+				Assert.assertEquals( serial.dec1.size(), parallel.dec1.size() );
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		
+		// invalid number of tasks
+		thrown.expect( OutOfRangeException.class );
+		pica.setCandidateExecutor( null, 0 );
+	}
+	
+
+	@Test
+	public final void testParallelIntervals() {
+		
+		// curves with many annotations, i.e. many independent intervals
+		IntervalDecomposition[] curves = new IntervalDecomposition[2];
+		for (int c=0; c<curves.length; c++) {
+			final double shift = 0.7*c;
+			double[] y = IntStream.range(0, 200).mapToDouble( i -> Math.sin( i/10d + shift ) + 0.3*Math.sin( i*1.7 + shift ) ).toArray();
+			curves[c] = new IntervalDecomposition( new AnnotatedCurve("curve"+c, y) );
+		}
+		
+		for (SampledCurveDistance distance : new SampledCurveDistance[]{ new CurveRmsdDistance(100), new SlopeMeanAbsoluteDistance(100) }) {
+			// serial alignment
+			PICA pica = new PICA( distance, 2, 0.2, 0.01);
+			Assert.assertNull( pica.getIntervalPool() );
+			PICA.PicaData serial = pica.align( curves[0], 1, curves[1], 1 );
+			Assert.assertTrue( serial.dec1.size() > 10 );
+			
+			// parallel alignment with different sequential cutoffs
+			ForkJoinPool pool = new ForkJoinPool( 4 );
+			try {
+				for (int cutoff : new int[]{ 2, 20 }) {
+					pica.setIntervalPool( pool, cutoff );
+					Assert.assertSame( pool, pica.getIntervalPool() );
+					PICA.PicaData parallel = pica.align( curves[0], 1, curves[1], 1 );
+					// check identical results
+					Assert.assertEquals( serial.distance, parallel.distance, 0 );
+					Assert.assertEquals( serial.dec1.getDecomposition(), parallel.dec1.getDecomposition() );
+					Assert.assertEquals( serial.dec2.getDecomposition(), parallel.dec2.getDecomposition() );
+					Assert.assertArrayEquals( serial.dec1.getCurve().getX(), parallel.dec1.getCurve().getX(), 0 );
+					Assert.assertArrayEquals( serial.dec2.getCurve().getX(), parallel.dec2.getCurve().getX(), 0 );
+				}
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+		
+		// invalid cutoff
+		thrown.expect( OutOfRangeException.class );
+		new PICA( new CurveRmsdDistance(10), 1, 1, 0).setIntervalPool( null, 1 );
+	}
+	
+	/**
+	 * Checks the decompositions of the bundled data against the results of
+	 * the former iterative interval walk.
+	 */
+	@Test
+	public final void testFormerWalk() {
+		
+		final String file = "data/HF-density-2000.csv";
+		FileFormatCsv csv = new FileFormatCsv(";");
+		IntervalDecomposition[] curves = new IntervalDecomposition[csv.getNumberCols(file)];
+		for (int c=0; c<curves.length; c++) {
+			curves[c] = new IntervalDecomposition( new AnnotatedCurve( csv.load(file, c, true) ) );
+		}
+		
+		// curve distance : aligned curve : distance : decomposition indices of both curves
+		final Object[][] expected = new Object[][]{
+			{ new CurveMeanAbsoluteDistance(200), 5, 0.20140638381463505, new int[]{0,11,17,32,35,55}, new int[]{0,17,22,33,43,46} },
+			{ new CurveMeanAbsoluteDistance(200), 6, 0.19160096177588198, new int[]{0,11,15,17,35,37,39,43,49,55}, new int[]{0,17,21,24,35,36,41,58,61,64} },
+			{ new CurveMeanAbsoluteDistance(200), 7, 0.24353430928479966, new int[]{0,9,11,13,24,32,34,37,39,55}, new int[]{0,9,21,22,25,28,29,34,36,58} },
+			{ new SlopeMeanAbsoluteDistance(200), 1, 0.0755775016258435, new int[]{0,1,3,9,13,37,39,43,44,55}, new int[]{0,14,15,21,31,34,45,48,50,65} },
+			{ new SlopeMeanAbsoluteDistance(200), 5, 0.08247347749629372, new int[]{0,49,55}, new int[]{0,43,46} }
+		};
+		
+		ForkJoinPool pool = new ForkJoinPool( 4 );
+		try {
+			for (Object[] exp : expected) {
+				PICA pica = new PICA( (SampledCurveDistance)exp[0], 2, 0.2, 0.1);
+				// serial and parallel walk
+				for (int run=0; run<2; run++) {
+					if (run > 0) {
+						pica.setIntervalPool( pool, 2 );
+					}
+					PICA.PicaData result = pica.align( curves[0], 1, curves[(Integer)exp[1]], 1 );
+					Assert.assertEquals( (Double)exp[2], result.distance, 0 );
+					Assert.assertArrayEquals( (int[])exp[3], result.dec1.getDecomposition().stream().mapToInt( ann -> ann.getIndex() ).toArray() );
+					Assert.assertArrayEquals( (int[])exp[4], result.dec2.getDecomposition().stream().mapToInt( ann -> ann.getIndex() ).toArray() );
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+	
+
+	@Test
+	public final void testCoarseScoring() {
+		
+		// curves with many annotations, i.e. many candidate decompositions per interval
+		IntervalDecomposition[] curves = new IntervalDecomposition[2];
+		for (int c=0; c<curves.length; c++) {
+			final double shift = 0.7*c;
+			double[] y = IntStream.range(0, 200).mapToDouble( i -> Math.sin( i/10d + shift ) + 0.3*Math.sin( i*1.7 + shift ) ).toArray();
+			curves[c] = new IntervalDecomposition( new AnnotatedCurve("curve"+c, y) );
+		}
+		
+		PICA pica = new PICA( new CurveRmsdDistance(100), 2, 0.2, 0.01);
+		Assert.assertEquals( 0, pica.getCoarseSampleNumber() );
+		PICA.PicaData full = pica.align( curves[0], 1, curves[1], 1 );
+		Assert.assertEquals( 0, pica.getCoarseSelectionNumber() );
+		
+		// preselection at full resolution selects the same decompositions
+		pica.setCoarseScoring( 100, 1 );
+		PICA.PicaData same = pica.align( curves[0], 1, curves[1], 1 );
+		Assert.assertEquals( full.distance, same.distance, 0 );
+		Assert.assertArrayEquals( full.dec1.getCurve().getX(), same.dec1.getCurve().getX(), 0 );
+		Assert.assertArrayEquals( full.dec2.getCurve().getX(), same.dec2.getCurve().getX(), 0 );
+		Assert.assertTrue( pica.getCoarseSelectionNumber() > 0 );
+		Assert.assertEquals( 0, pica.getCoarseDisagreementNumber() );
+		
+		// coarse preselection independent of parallelization
+		PICA coarse = new PICA( new CurveRmsdDistance(100), 2, 0.2, 0.01);
+		coarse.setCoarseScoring( 20, 3 );
+		Assert.assertEquals( 20, coarse.getCoarseSampleNumber() );
+		Assert.assertEquals( 3, coarse.getCoarseCandidates() );
+		PICA.PicaData serial = coarse.align( curves[0], 1, curves[1], 1 );
+		Assert.assertTrue( coarse.getCoarseSelectionNumber() > 0 );
+		Assert.assertTrue( coarse.getCoarseDisagreementNumber() <= coarse.getCoarseSelectionNumber() );
+		ExecutorService executor = Executors.newFixedThreadPool( 4 );
+		try {
+			coarse.setCandidateExecutor( executor, 4 );
+			PICA.PicaData parallel = coarse.align( curves[0], 1, curves[1], 1 );
+			Assert.assertEquals( serial.distance, parallel.distance, 0 );
+			Assert.assertArrayEquals( serial.dec1.getCurve().getX(), parallel.dec1.getCurve().getX(), 0 );
+			Assert.assertArrayEquals( serial.dec2.getCurve().getX(), parallel.dec2.getCurve().getX(), 0 );
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		// invalid number of coarse samples
+		thrown.expect( OutOfRangeException.class );
+		coarse.setCoarseScoring( 1, 3 );
+	}
+	
+
+	@Test
+	public final void testWarmStart() {
+		
+		// curves with many annotations
+		IntervalDecomposition[] curves = new IntervalDecomposition[2];
+		for (int c=0; c<curves.length; c++) {
+			final double shift = 0.7*c;
+			double[] y = IntStream.range(0, 200).mapToDouble( i -> Math.sin( i/10d + shift ) + 0.3*Math.sin( i*1.7 + shift ) ).toArray();
+			curves[c] = new IntervalDecomposition( new AnnotatedCurve("curve"+c, y) );
+		}
+		
+		PICA pica = new PICA( new CurveRmsdDistance(100), 2, 0.2, 0.01);
+		PICA.PicaData scratch = pica.align( curves[0], 1, curves[1], 1 );
+		
+		// seed from the decomposition of the alignment from scratch
+		List<Pair<CurveAnnotation,CurveAnnotation>> seed = new ArrayList<>();
+		List<Pair<CurveAnnotation,CurveAnnotation>> invalidSeed = new ArrayList<>();
+		for (int b=1; b+1<scratch.dec1.getDecomposition().size(); b++) {
+			seed.add( Pair.of( scratch.dec1.getDecomposition().get(b), scratch.dec2.getDecomposition().get(b) ) );
+			// annotations of the wrong curves are ignored
+			invalidSeed.add( Pair.of( scratch.dec2.getDecomposition().get(b), scratch.dec1.getDecomposition().get(b) ) );
+		}
+		Assert.assertTrue( seed.size() > 2 );
+		PICA.PicaData seeded = pica.align( curves[0], 1, curves[1], 1, seed );
+		Assert.assertTrue( seeded.dec1.size() > 1 );
+		Assert.assertTrue( seeded.distance < scratch.distance * 1.5 );
+		
+		// empty or invalid seeds result in the alignment from scratch
+		for ( List<Pair<CurveAnnotation,CurveAnnotation>> noSeed : Arrays.asList( Collections.<Pair<CurveAnnotation,CurveAnnotation>>emptyList(), invalidSeed ) ) {
+			PICA.PicaData ignored = pica.align( curves[0], 1, curves[1], 1, noSeed );
+			Assert.assertEquals( scratch.distance, ignored.distance, 0 );
+			Assert.assertArrayEquals( scratch.dec1.getCurve().getX(), ignored.dec1.getCurve().getX(), 0 );
+			Assert.assertArrayEquals( scratch.dec2.getCurve().getX(), ignored.dec2.getCurve().getX(), 0 );
+		}
+		
+		// null annotation within seed
+		thrown.expect( NullArgumentException.class );
+		pica.align( curves[0], 1, curves[1], 1, Collections.singletonList( Pair.of( seed.get(0).getLeft(), (CurveAnnotation)null ) ) );
+	}
+	
+
 }
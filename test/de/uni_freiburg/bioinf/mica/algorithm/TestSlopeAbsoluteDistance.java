@@ -2,6 +2,7 @@ package de.uni_freiburg.bioinf.mica.algorithm;
 import java.util.stream.IntStream;
 
 import org.apache.commons.math3.exception.OutOfRangeException;
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -38,6 +39,30 @@ public class TestSlopeAbsoluteDistance {
 		thrown.expect( OutOfRangeException.class );
 		new SlopeMeanAbsoluteDistance(1);
 	}
+	
+	/**
+	 * Test method for {@link SampledCurveDistance#getDistanceSum(Curve, Curve, double[], double[], int, int, double, double, double)}.
+	 */
+	@Test
+	public final void testDistanceSum() {
+		Curve curve1 = new Curve("increase", yIncrease);
+		Curve curve2 = new Curve("zigzag", IntStream.range(0, 10).asDoubleStream().map(x -> x*x/3).toArray(), IntStream.range(0, 10).asDoubleStream().map(x -> (x%2)*x).toArray());
+		SlopeMeanAbsoluteDistance dist = new SlopeMeanAbsoluteDistance(10);
+		// ascending samples within both curves
+		final int samples = 50;
+		double[] x1 = IntStream.range(0, samples).asDoubleStream().map(s -> s*curve1.length()/samples).toArray();
+		double[] x2 = IntStream.range(0, samples).asDoubleStream().map(s -> s*curve2.length()/samples).toArray();
+		final double ratio1 = 0.5, ratio2 = 2;
+		// sum of the single sample distances
+		double sum = 0;
+		for (int s=3; s<samples; s++) {
+			sum += dist.getDistance( curve1, curve2, x1[s], x2[s], ratio1, ratio2 );
+		}
+		Assert.assertTrue( sum > 0 );
+		Assert.assertEquals( sum, dist.getDistanceSum( curve1, curve2, x1, x2, 3, samples-3, ratio1, ratio2, Double.POSITIVE_INFINITY ), precisionDelta );
+		// abandoned if the bound is exceeded
+		Assert.assertEquals( Double.POSITIVE_INFINITY, dist.getDistanceSum( curve1, curve2, x1, x2, 3, samples-3, ratio1, ratio2, sum/2 ), 0 );
+	}
 
 	
 //	@Test
@@ -0,0 +1,85 @@
+package de.uni_freiburg.bioinf.mica.algorithm;
+import java.util.stream.IntStream;
+
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ */
+
+/**
+ * @author Mmann
+ *
+ */
+public class TestStreamingAligner {
+	
+	// generally expect no exception
+	@Rule
+ 	public ExpectedException thrown= ExpectedException.none();
+	
+	/**
+	 * Creates a wave-like test curve with the given annotation filter
+	 * @param c the curve number (defines shift and scale)
+	 * @param filter the annotation filter to add
+	 * @return the initial decomposition of the curve
+	 */
+	static IntervalDecomposition getWaveCurve( int c, ObservableCurveAnnotationFilter filter ) {
+		final double shift = 0.3*c;
+		final double scale = 1 + 0.1*(c%3);
+		double[] y = IntStream.range(0, 40).mapToDouble( i -> scale*FastMath.sin( i/4d + shift ) + 0.5*FastMath.sin( i/9d ) ).toArray();
+		AnnotatedCurve curve = new AnnotatedCurve("wave"+c, y);
+		curve.addAnnotationFilter( filter );
+		return new IntervalDecomposition( curve );
+	}
+	
+	@Test
+	public final void testAdd() throws InterruptedException {
+		
+		CurveExtremaFilter filter = new CurveExtremaFilter( 0.01 );
+		PICA pica = new PICA( new SlopeMeanAbsoluteDistance(50), 2, 0.2, 0.05 );
+		final int windowSize = 3;
+		final int curveNumber = 10;
+		
+		try ( StreamingAligner aligner = new StreamingAligner( pica, windowSize, 2 ) ) {
+			
+			Assert.assertNull( aligner.getConsensus() );
+			
+			// first curve defines the consensus
+			IntervalDecomposition first = getWaveCurve( 0, filter );
+			IntervalDecomposition aligned = aligner.add( first );
+			Assert.assertArrayEquals( first.getCurve().getX(), aligned.getCurve().getX(), 0 );
+			Assert.assertArrayEquals( first.getCurve().getX(), aligner.getConsensus().getCurve().getX(), 0 );
+			
+			for (int c=1; c<curveNumber; c++) {
+				IntervalDecomposition curve = getWaveCurve( c, filter );
+				// wait for consensus refresh to get a defined consensus 
+				aligner.awaitConsensusRefresh();
+				IntervalDecomposition consensus = aligner.getConsensus();
+				aligned = aligner.add( curve );
+				// aligned to the consensus
+				Assert.assertEquals( curve.getCurveOriginal().getName(), aligned.getCurveOriginal().getName() );
+				Assert.assertArrayEquals( curve.getCurve().getY(), aligned.getCurve().getY(), 0 );
+				Assert.assertArrayEquals( pica.alignToReference( consensus, curve ).dec2.getCurve().getX(), aligned.getCurve().getX(), 0.0001 );
+				Assert.assertEquals( first.getCurve().length(), aligned.getCurve().length(), 0.01 );
+			}
+			Assert.assertEquals( curveNumber, aligner.getAlignedNumber() );
+			
+			// consensus was refreshed from the window
+			aligner.awaitConsensusRefresh();
+			Assert.assertNotEquals( first.getCurveOriginal().getName(), aligner.getConsensus().getCurveOriginal().getName() );
+			
+			// curves that left the window are released from the filter
+			// (observers: input curves, window, consensus)
+			Assert.assertTrue( filter.countObservers() <= curveNumber + windowSize + 1 );
+		}
+		
+		thrown.expect( OutOfRangeException.class );
+		new StreamingAligner( pica, 0, 1 ).close();
+	}
+	
+}
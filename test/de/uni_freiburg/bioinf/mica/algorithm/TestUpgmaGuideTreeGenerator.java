@@ -0,0 +1,104 @@
+package de.uni_freiburg.bioinf.mica.algorithm;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ */
+
+/**
+ * @author Mmann
+ *
+ */
+public class TestUpgmaGuideTreeGenerator {
+	
+	// generally expect no exception
+	@Rule
+ 	public ExpectedException thrown= ExpectedException.none();
+	
+	/**
+	 * Creates a matrix of pairwise alignment data (upper triangle only) for the given distances
+	 * @param dist the distances
+	 * @return the according matrix
+	 */
+	static PICA.PicaData[][] getDistMatrix( double[][] dist ) {
+		PICA.PicaData[][] distMatrix = new PICA.PicaData[dist.length][dist.length];
+		for (int i=0; i<dist.length; i++) {
+			for (int j=i+1; j<dist.length; j++) {
+				distMatrix[i][j] = new PICA.PicaData();
+				distMatrix[i][j].distance = dist[i][j];
+			}
+		}
+		return distMatrix;
+	}
+	
+	/**
+	 * Provides the post-order string representation of a tree
+	 * @param root the root of the tree
+	 * @return the post-order string
+	 */
+	static String getPostOrder( GuideTreeGenerator.GuideTreeNode root ) {
+		String postOrder = "";
+		for (GuideTreeGenerator.GuideTreeNode curNode : root ) {
+			postOrder += curNode.toString();
+		}
+		return postOrder;
+	}
+	
+	@Test
+	public final void testCompute() {
+		
+		GuideTreeGenerator generator = new UpgmaGuideTreeGenerator();
+		
+		double[][] dist = new double[][]{
+			{ 0, 1, 10, 10 },
+			{ 1, 0, 10, 10 },
+			{ 10, 10, 0, 2 },
+			{ 10, 10, 2, 0 }
+		};
+		GuideTreeGenerator.GuideTreeNode root = generator.compute( getDistMatrix(dist) );
+		Assert.assertNull( root.parent );
+		Assert.assertEquals( "{0}{1}{0,1}{2}{3}{2,3}{0,1,2,3}", getPostOrder(root) );
+		
+		// size-weighted distance update : d({0,1},2) = 3 < d(2,3) = 4
+		dist = new double[][]{
+			{ 0, 1, 2, 9 },
+			{ 1, 0, 4, 9 },
+			{ 2, 4, 0, 4 },
+			{ 9, 9, 4, 0 }
+		};
+		root = generator.compute( getDistMatrix(dist) );
+		Assert.assertEquals( "{0}{1}{0,1}{2}{0,1,2}{3}{0,1,2,3}", getPostOrder(root) );
+		
+		// ties resolved by lowest indices
+		dist = new double[][]{
+			{ 0, 1, 1 },
+			{ 1, 0, 1 },
+			{ 1, 1, 0 }
+		};
+		root = generator.compute( getDistMatrix(dist) );
+		Assert.assertEquals( "{0}{1}{0,1}{2}{0,1,2}", getPostOrder(root) );
+		
+		// single curve
+		root = generator.compute( getDistMatrix(new double[][]{ {0} }) );
+		Assert.assertEquals( "{0}", getPostOrder(root) );
+	}
+	
+	@Test
+	public final void testMissingPair() {
+		PICA.PicaData[][] distMatrix = getDistMatrix( new double[][]{ {0,1,1}, {1,0,1}, {1,1,0} } );
+		distMatrix[0][2] = null;
+		thrown.expect( IllegalArgumentException.class );
+		new UpgmaGuideTreeGenerator().compute( distMatrix );
+	}
+	
+	@Test
+	public final void testNull() {
+		thrown.expect( NullArgumentException.class );
+		new UpgmaGuideTreeGenerator().compute( null );
+	}
+
+}